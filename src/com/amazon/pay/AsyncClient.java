@@ -0,0 +1,873 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay;
+
+import com.amazon.pay.request.AuthorizeOnBillingAgreementRequest;
+import com.amazon.pay.request.AuthorizeRequest;
+import com.amazon.pay.request.CancelOrderReferenceRequest;
+import com.amazon.pay.request.CaptureRequest;
+import com.amazon.pay.request.CloseAuthorizationRequest;
+import com.amazon.pay.request.CloseBillingAgreementRequest;
+import com.amazon.pay.request.CloseOrderReferenceRequest;
+import com.amazon.pay.request.ConfirmBillingAgreementRequest;
+import com.amazon.pay.request.ConfirmOrderReferenceRequest;
+import com.amazon.pay.request.CreateOrderReferenceForIdRequest;
+import com.amazon.pay.request.GetAuthorizationDetailsRequest;
+import com.amazon.pay.request.GetBillingAgreementDetailsRequest;
+import com.amazon.pay.request.GetCaptureDetailsRequest;
+import com.amazon.pay.request.GetMerchantAccountStatusRequest;
+import com.amazon.pay.request.GetOrderReferenceDetailsRequest;
+import com.amazon.pay.request.GetProviderCreditDetailsRequest;
+import com.amazon.pay.request.GetProviderCreditReversalDetailsRequest;
+import com.amazon.pay.request.GetRefundDetailsRequest;
+import com.amazon.pay.request.ListOrderReferenceByNextTokenRequest;
+import com.amazon.pay.request.ListOrderReferenceRequest;
+import com.amazon.pay.request.RefundRequest;
+import com.amazon.pay.request.ReverseProviderCreditRequest;
+import com.amazon.pay.request.SetBillingAgreementDetailsRequest;
+import com.amazon.pay.request.SetOrderAttributesRequest;
+import com.amazon.pay.request.SetOrderReferenceDetailsRequest;
+import com.amazon.pay.request.ValidateBillingAgreementRequest;
+import com.amazon.pay.response.parser.AuthorizeOnBillingAgreementResponseData;
+import com.amazon.pay.response.parser.AuthorizeResponseData;
+import com.amazon.pay.response.parser.CancelOrderReferenceResponseData;
+import com.amazon.pay.response.parser.CaptureResponseData;
+import com.amazon.pay.response.parser.CloseAuthorizationResponseData;
+import com.amazon.pay.response.parser.CloseBillingAgreementResponseData;
+import com.amazon.pay.response.parser.CloseOrderReferenceResponseData;
+import com.amazon.pay.response.parser.ConfirmBillingAgreementResponseData;
+import com.amazon.pay.response.parser.ConfirmOrderReferenceResponseData;
+import com.amazon.pay.response.parser.CreateOrderReferenceForIdResponseData;
+import com.amazon.pay.response.parser.GetAuthorizationDetailsResponseData;
+import com.amazon.pay.response.parser.GetBillingAgreementDetailsResponseData;
+import com.amazon.pay.response.parser.GetCaptureDetailsResponseData;
+import com.amazon.pay.response.parser.GetMerchantAccountStatusResponseData;
+import com.amazon.pay.response.parser.GetOrderReferenceDetailsResponseData;
+import com.amazon.pay.response.parser.GetProviderCreditDetailsResponseData;
+import com.amazon.pay.response.parser.GetProviderCreditReversalDetailsResponseData;
+import com.amazon.pay.response.parser.GetRefundDetailsResponseData;
+import com.amazon.pay.response.parser.GetServiceStatusResponseData;
+import com.amazon.pay.response.parser.ListOrderReferenceByNextTokenResponseData;
+import com.amazon.pay.response.parser.ListOrderReferenceResponseData;
+import com.amazon.pay.response.parser.RefundResponseData;
+import com.amazon.pay.response.parser.ReverseProviderCreditResponseData;
+import com.amazon.pay.response.parser.SetBillingAgreementDetailsResponseData;
+import com.amazon.pay.response.parser.SetOrderAttributesResponseData;
+import com.amazon.pay.response.parser.SetOrderReferenceDetailsResponseData;
+import com.amazon.pay.response.parser.ValidateBillingAgreementResponseData;
+import java.util.concurrent.Future;
+
+/**
+ * Asynchronous client for accessing Amazon Pay API.
+ *
+ * Every operation returns immediately with a Future.  Requests run on the
+ * executor supplied by the caller, and throttled requests are retried after
+ * a scheduled delay instead of holding a thread while waiting.  A failed
+ * Future reports an AmazonServiceException or AmazonClientException as the
+ * cause of its ExecutionException, the same exceptions that Client throws.
+ */
+public interface AsyncClient {
+
+    /**
+     * Asynchronous version of the Authorize operation.
+     *
+     * @param authorizeRequest Container for the necessary
+     *           parameters to execute the Authorize service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the Authorize service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#authorize(AuthorizeRequest)
+     */
+    Future<AuthorizeResponseData> authorize(AuthorizeRequest authorizeRequest);
+
+    /**
+     * Asynchronous version of the Authorize operation.
+     *
+     * @param authorizeRequest Container for the necessary
+     *           parameters to execute the Authorize service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the Authorize service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#authorize(AuthorizeRequest)
+     */
+    Future<AuthorizeResponseData> authorize(AuthorizeRequest authorizeRequest, AsyncHandler<AuthorizeResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the AuthorizeOnBillingAgreement operation.
+     *
+     * @param authorizeOnBillingAgreementRequest Container for the necessary
+     *           parameters to execute the AuthorizeOnBillingAgreement service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the AuthorizeOnBillingAgreement service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#authorizeOnBillingAgreement(AuthorizeOnBillingAgreementRequest)
+     */
+    Future<AuthorizeOnBillingAgreementResponseData> authorizeOnBillingAgreement(AuthorizeOnBillingAgreementRequest authorizeOnBillingAgreementRequest);
+
+    /**
+     * Asynchronous version of the AuthorizeOnBillingAgreement operation.
+     *
+     * @param authorizeOnBillingAgreementRequest Container for the necessary
+     *           parameters to execute the AuthorizeOnBillingAgreement service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the AuthorizeOnBillingAgreement service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#authorizeOnBillingAgreement(AuthorizeOnBillingAgreementRequest)
+     */
+    Future<AuthorizeOnBillingAgreementResponseData> authorizeOnBillingAgreement(AuthorizeOnBillingAgreementRequest authorizeOnBillingAgreementRequest, AsyncHandler<AuthorizeOnBillingAgreementResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the CancelOrderReference operation.
+     *
+     * @param cancelOrderReferenceRequest Container for the necessary
+     *           parameters to execute the CancelOrderReference service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the CancelOrderReference service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#cancelOrderReference(CancelOrderReferenceRequest)
+     */
+    Future<CancelOrderReferenceResponseData> cancelOrderReference(CancelOrderReferenceRequest cancelOrderReferenceRequest);
+
+    /**
+     * Asynchronous version of the CancelOrderReference operation.
+     *
+     * @param cancelOrderReferenceRequest Container for the necessary
+     *           parameters to execute the CancelOrderReference service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the CancelOrderReference service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#cancelOrderReference(CancelOrderReferenceRequest)
+     */
+    Future<CancelOrderReferenceResponseData> cancelOrderReference(CancelOrderReferenceRequest cancelOrderReferenceRequest, AsyncHandler<CancelOrderReferenceResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the Capture operation.
+     *
+     * @param captureRequest Container for the necessary
+     *           parameters to execute the Capture service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the Capture service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#capture(CaptureRequest)
+     */
+    Future<CaptureResponseData> capture(CaptureRequest captureRequest);
+
+    /**
+     * Asynchronous version of the Capture operation.
+     *
+     * @param captureRequest Container for the necessary
+     *           parameters to execute the Capture service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the Capture service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#capture(CaptureRequest)
+     */
+    Future<CaptureResponseData> capture(CaptureRequest captureRequest, AsyncHandler<CaptureResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the CloseAuthorization operation.
+     *
+     * @param closeAuthorizationRequest Container for the necessary
+     *           parameters to execute the CloseAuthorization service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the CloseAuthorization service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#closeAuthorization(CloseAuthorizationRequest)
+     */
+    Future<CloseAuthorizationResponseData> closeAuthorization(CloseAuthorizationRequest closeAuthorizationRequest);
+
+    /**
+     * Asynchronous version of the CloseAuthorization operation.
+     *
+     * @param closeAuthorizationRequest Container for the necessary
+     *           parameters to execute the CloseAuthorization service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the CloseAuthorization service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#closeAuthorization(CloseAuthorizationRequest)
+     */
+    Future<CloseAuthorizationResponseData> closeAuthorization(CloseAuthorizationRequest closeAuthorizationRequest, AsyncHandler<CloseAuthorizationResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the CloseBillingAgreement operation.
+     *
+     * @param closeBillingAgreementRequest Container for the necessary
+     *           parameters to execute the CloseBillingAgreement service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the CloseBillingAgreement service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#closeBillingAgreement(CloseBillingAgreementRequest)
+     */
+    Future<CloseBillingAgreementResponseData> closeBillingAgreement(CloseBillingAgreementRequest closeBillingAgreementRequest);
+
+    /**
+     * Asynchronous version of the CloseBillingAgreement operation.
+     *
+     * @param closeBillingAgreementRequest Container for the necessary
+     *           parameters to execute the CloseBillingAgreement service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the CloseBillingAgreement service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#closeBillingAgreement(CloseBillingAgreementRequest)
+     */
+    Future<CloseBillingAgreementResponseData> closeBillingAgreement(CloseBillingAgreementRequest closeBillingAgreementRequest, AsyncHandler<CloseBillingAgreementResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the CloseOrderReference operation.
+     *
+     * @param closeOrderReferenceRequest Container for the necessary
+     *           parameters to execute the CloseOrderReference service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the CloseOrderReference service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#closeOrderReference(CloseOrderReferenceRequest)
+     */
+    Future<CloseOrderReferenceResponseData> closeOrderReference(CloseOrderReferenceRequest closeOrderReferenceRequest);
+
+    /**
+     * Asynchronous version of the CloseOrderReference operation.
+     *
+     * @param closeOrderReferenceRequest Container for the necessary
+     *           parameters to execute the CloseOrderReference service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the CloseOrderReference service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#closeOrderReference(CloseOrderReferenceRequest)
+     */
+    Future<CloseOrderReferenceResponseData> closeOrderReference(CloseOrderReferenceRequest closeOrderReferenceRequest, AsyncHandler<CloseOrderReferenceResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the ConfirmBillingAgreement operation.
+     *
+     * @param confirmBillingAgreementRequest Container for the necessary
+     *           parameters to execute the ConfirmBillingAgreement service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the ConfirmBillingAgreement service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#confirmBillingAgreement(ConfirmBillingAgreementRequest)
+     */
+    Future<ConfirmBillingAgreementResponseData> confirmBillingAgreement(ConfirmBillingAgreementRequest confirmBillingAgreementRequest);
+
+    /**
+     * Asynchronous version of the ConfirmBillingAgreement operation.
+     *
+     * @param confirmBillingAgreementRequest Container for the necessary
+     *           parameters to execute the ConfirmBillingAgreement service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the ConfirmBillingAgreement service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#confirmBillingAgreement(ConfirmBillingAgreementRequest)
+     */
+    Future<ConfirmBillingAgreementResponseData> confirmBillingAgreement(ConfirmBillingAgreementRequest confirmBillingAgreementRequest, AsyncHandler<ConfirmBillingAgreementResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the ConfirmOrderReference operation.
+     *
+     * @param confirmOrderReferenceRequest Container for the necessary
+     *           parameters to execute the ConfirmOrderReference service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the ConfirmOrderReference service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#confirmOrderReference(ConfirmOrderReferenceRequest)
+     */
+    Future<ConfirmOrderReferenceResponseData> confirmOrderReference(ConfirmOrderReferenceRequest confirmOrderReferenceRequest);
+
+    /**
+     * Asynchronous version of the ConfirmOrderReference operation.
+     *
+     * @param confirmOrderReferenceRequest Container for the necessary
+     *           parameters to execute the ConfirmOrderReference service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the ConfirmOrderReference service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#confirmOrderReference(ConfirmOrderReferenceRequest)
+     */
+    Future<ConfirmOrderReferenceResponseData> confirmOrderReference(ConfirmOrderReferenceRequest confirmOrderReferenceRequest, AsyncHandler<ConfirmOrderReferenceResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the CreateOrderReferenceForId operation.
+     *
+     * @param createOrderReferenceForIdRequest Container for the necessary
+     *           parameters to execute the CreateOrderReferenceForId service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the CreateOrderReferenceForId service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#createOrderReferenceForId(CreateOrderReferenceForIdRequest)
+     */
+    Future<CreateOrderReferenceForIdResponseData> createOrderReferenceForId(CreateOrderReferenceForIdRequest createOrderReferenceForIdRequest);
+
+    /**
+     * Asynchronous version of the CreateOrderReferenceForId operation.
+     *
+     * @param createOrderReferenceForIdRequest Container for the necessary
+     *           parameters to execute the CreateOrderReferenceForId service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the CreateOrderReferenceForId service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#createOrderReferenceForId(CreateOrderReferenceForIdRequest)
+     */
+    Future<CreateOrderReferenceForIdResponseData> createOrderReferenceForId(CreateOrderReferenceForIdRequest createOrderReferenceForIdRequest, AsyncHandler<CreateOrderReferenceForIdResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the GetAuthorizationDetails operation.
+     *
+     * @param getAuthorizationDetailsRequest Container for the necessary
+     *           parameters to execute the GetAuthorizationDetails service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the GetAuthorizationDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getAuthorizationDetails(GetAuthorizationDetailsRequest)
+     */
+    Future<GetAuthorizationDetailsResponseData> getAuthorizationDetails(GetAuthorizationDetailsRequest getAuthorizationDetailsRequest);
+
+    /**
+     * Asynchronous version of the GetAuthorizationDetails operation.
+     *
+     * @param getAuthorizationDetailsRequest Container for the necessary
+     *           parameters to execute the GetAuthorizationDetails service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the GetAuthorizationDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getAuthorizationDetails(GetAuthorizationDetailsRequest)
+     */
+    Future<GetAuthorizationDetailsResponseData> getAuthorizationDetails(GetAuthorizationDetailsRequest getAuthorizationDetailsRequest, AsyncHandler<GetAuthorizationDetailsResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the GetBillingAgreementDetails operation.
+     *
+     * @param getBillingAgreementDetailsRequest Container for the necessary
+     *           parameters to execute the GetBillingAgreementDetails service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the GetBillingAgreementDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getBillingAgreementDetails(GetBillingAgreementDetailsRequest)
+     */
+    Future<GetBillingAgreementDetailsResponseData> getBillingAgreementDetails(GetBillingAgreementDetailsRequest getBillingAgreementDetailsRequest);
+
+    /**
+     * Asynchronous version of the GetBillingAgreementDetails operation.
+     *
+     * @param getBillingAgreementDetailsRequest Container for the necessary
+     *           parameters to execute the GetBillingAgreementDetails service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the GetBillingAgreementDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getBillingAgreementDetails(GetBillingAgreementDetailsRequest)
+     */
+    Future<GetBillingAgreementDetailsResponseData> getBillingAgreementDetails(GetBillingAgreementDetailsRequest getBillingAgreementDetailsRequest, AsyncHandler<GetBillingAgreementDetailsResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the GetCaptureDetails operation.
+     *
+     * @param getCaptureDetailsRequest Container for the necessary
+     *           parameters to execute the GetCaptureDetails service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the GetCaptureDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getCaptureDetails(GetCaptureDetailsRequest)
+     */
+    Future<GetCaptureDetailsResponseData> getCaptureDetails(GetCaptureDetailsRequest getCaptureDetailsRequest);
+
+    /**
+     * Asynchronous version of the GetCaptureDetails operation.
+     *
+     * @param getCaptureDetailsRequest Container for the necessary
+     *           parameters to execute the GetCaptureDetails service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the GetCaptureDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getCaptureDetails(GetCaptureDetailsRequest)
+     */
+    Future<GetCaptureDetailsResponseData> getCaptureDetails(GetCaptureDetailsRequest getCaptureDetailsRequest, AsyncHandler<GetCaptureDetailsResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the GetMerchantAccountStatus operation.
+     *
+     * @param getMerchantAccountStatusRequest Container for the necessary
+     *           parameters to execute the GetMerchantAccountStatus service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the GetMerchantAccountStatus service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getMerchantAccountStatus(GetMerchantAccountStatusRequest)
+     */
+    Future<GetMerchantAccountStatusResponseData> getMerchantAccountStatus(GetMerchantAccountStatusRequest getMerchantAccountStatusRequest);
+
+    /**
+     * Asynchronous version of the GetMerchantAccountStatus operation.
+     *
+     * @param getMerchantAccountStatusRequest Container for the necessary
+     *           parameters to execute the GetMerchantAccountStatus service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the GetMerchantAccountStatus service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getMerchantAccountStatus(GetMerchantAccountStatusRequest)
+     */
+    Future<GetMerchantAccountStatusResponseData> getMerchantAccountStatus(GetMerchantAccountStatusRequest getMerchantAccountStatusRequest, AsyncHandler<GetMerchantAccountStatusResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the GetOrderReferenceDetails operation.
+     *
+     * @param getOrderReferenceDetailsRequest Container for the necessary
+     *           parameters to execute the GetOrderReferenceDetails service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the GetOrderReferenceDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getOrderReferenceDetails(GetOrderReferenceDetailsRequest)
+     */
+    Future<GetOrderReferenceDetailsResponseData> getOrderReferenceDetails(GetOrderReferenceDetailsRequest getOrderReferenceDetailsRequest);
+
+    /**
+     * Asynchronous version of the GetOrderReferenceDetails operation.
+     *
+     * @param getOrderReferenceDetailsRequest Container for the necessary
+     *           parameters to execute the GetOrderReferenceDetails service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the GetOrderReferenceDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getOrderReferenceDetails(GetOrderReferenceDetailsRequest)
+     */
+    Future<GetOrderReferenceDetailsResponseData> getOrderReferenceDetails(GetOrderReferenceDetailsRequest getOrderReferenceDetailsRequest, AsyncHandler<GetOrderReferenceDetailsResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the GetProviderCreditDetails operation.
+     *
+     * @param getProviderCreditDetailsRequest Container for the necessary
+     *           parameters to execute the GetProviderCreditDetails service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the GetProviderCreditDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getProviderCreditDetails(GetProviderCreditDetailsRequest)
+     */
+    Future<GetProviderCreditDetailsResponseData> getProviderCreditDetails(GetProviderCreditDetailsRequest getProviderCreditDetailsRequest);
+
+    /**
+     * Asynchronous version of the GetProviderCreditDetails operation.
+     *
+     * @param getProviderCreditDetailsRequest Container for the necessary
+     *           parameters to execute the GetProviderCreditDetails service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the GetProviderCreditDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getProviderCreditDetails(GetProviderCreditDetailsRequest)
+     */
+    Future<GetProviderCreditDetailsResponseData> getProviderCreditDetails(GetProviderCreditDetailsRequest getProviderCreditDetailsRequest, AsyncHandler<GetProviderCreditDetailsResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the GetProviderCreditReversalDetails operation.
+     *
+     * @param getProviderCreditReversalDetailsRequest Container for the necessary
+     *           parameters to execute the GetProviderCreditReversalDetails service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the GetProviderCreditReversalDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getProviderCreditReversalDetails(GetProviderCreditReversalDetailsRequest)
+     */
+    Future<GetProviderCreditReversalDetailsResponseData> getProviderCreditReversalDetails(GetProviderCreditReversalDetailsRequest getProviderCreditReversalDetailsRequest);
+
+    /**
+     * Asynchronous version of the GetProviderCreditReversalDetails operation.
+     *
+     * @param getProviderCreditReversalDetailsRequest Container for the necessary
+     *           parameters to execute the GetProviderCreditReversalDetails service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the GetProviderCreditReversalDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getProviderCreditReversalDetails(GetProviderCreditReversalDetailsRequest)
+     */
+    Future<GetProviderCreditReversalDetailsResponseData> getProviderCreditReversalDetails(GetProviderCreditReversalDetailsRequest getProviderCreditReversalDetailsRequest, AsyncHandler<GetProviderCreditReversalDetailsResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the GetRefundDetails operation.
+     *
+     * @param getRefundDetailsRequest Container for the necessary
+     *           parameters to execute the GetRefundDetails service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the GetRefundDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getRefundDetails(GetRefundDetailsRequest)
+     */
+    Future<GetRefundDetailsResponseData> getRefundDetails(GetRefundDetailsRequest getRefundDetailsRequest);
+
+    /**
+     * Asynchronous version of the GetRefundDetails operation.
+     *
+     * @param getRefundDetailsRequest Container for the necessary
+     *           parameters to execute the GetRefundDetails service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the GetRefundDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getRefundDetails(GetRefundDetailsRequest)
+     */
+    Future<GetRefundDetailsResponseData> getRefundDetails(GetRefundDetailsRequest getRefundDetailsRequest, AsyncHandler<GetRefundDetailsResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the GetServiceStatus operation.
+     *
+     * @return A Future for the response from the GetServiceStatus service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getServiceStatus()
+     */
+    Future<GetServiceStatusResponseData> getServiceStatus();
+
+    /**
+     * Asynchronous version of the GetServiceStatus operation.
+     *
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the GetServiceStatus service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#getServiceStatus()
+     */
+    Future<GetServiceStatusResponseData> getServiceStatus(AsyncHandler<GetServiceStatusResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the ListOrderReference operation.
+     *
+     * @param listOrderReferenceRequest Container for the necessary
+     *           parameters to execute the ListOrderReference service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the ListOrderReference service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#listOrderReference(ListOrderReferenceRequest)
+     */
+    Future<ListOrderReferenceResponseData> listOrderReference(ListOrderReferenceRequest listOrderReferenceRequest);
+
+    /**
+     * Asynchronous version of the ListOrderReference operation.
+     *
+     * @param listOrderReferenceRequest Container for the necessary
+     *           parameters to execute the ListOrderReference service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the ListOrderReference service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#listOrderReference(ListOrderReferenceRequest)
+     */
+    Future<ListOrderReferenceResponseData> listOrderReference(ListOrderReferenceRequest listOrderReferenceRequest, AsyncHandler<ListOrderReferenceResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the ListOrderReferenceByNextToken operation.
+     *
+     * @param listOrderReferenceByNextTokenRequest Container for the necessary
+     *           parameters to execute the ListOrderReferenceByNextToken service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the ListOrderReferenceByNextToken service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#listOrderReferenceByNextToken(ListOrderReferenceByNextTokenRequest)
+     */
+    Future<ListOrderReferenceByNextTokenResponseData> listOrderReferenceByNextToken(ListOrderReferenceByNextTokenRequest listOrderReferenceByNextTokenRequest);
+
+    /**
+     * Asynchronous version of the ListOrderReferenceByNextToken operation.
+     *
+     * @param listOrderReferenceByNextTokenRequest Container for the necessary
+     *           parameters to execute the ListOrderReferenceByNextToken service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the ListOrderReferenceByNextToken service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#listOrderReferenceByNextToken(ListOrderReferenceByNextTokenRequest)
+     */
+    Future<ListOrderReferenceByNextTokenResponseData> listOrderReferenceByNextToken(ListOrderReferenceByNextTokenRequest listOrderReferenceByNextTokenRequest, AsyncHandler<ListOrderReferenceByNextTokenResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the Refund operation.
+     *
+     * @param refundRequest Container for the necessary
+     *           parameters to execute the Refund service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the Refund service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#refund(RefundRequest)
+     */
+    Future<RefundResponseData> refund(RefundRequest refundRequest);
+
+    /**
+     * Asynchronous version of the Refund operation.
+     *
+     * @param refundRequest Container for the necessary
+     *           parameters to execute the Refund service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the Refund service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#refund(RefundRequest)
+     */
+    Future<RefundResponseData> refund(RefundRequest refundRequest, AsyncHandler<RefundResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the ReverseProviderCredit operation.
+     *
+     * @param reverseProviderCreditRequest Container for the necessary
+     *           parameters to execute the ReverseProviderCredit service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the ReverseProviderCredit service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#reverseProviderCredit(ReverseProviderCreditRequest)
+     */
+    Future<ReverseProviderCreditResponseData> reverseProviderCredit(ReverseProviderCreditRequest reverseProviderCreditRequest);
+
+    /**
+     * Asynchronous version of the ReverseProviderCredit operation.
+     *
+     * @param reverseProviderCreditRequest Container for the necessary
+     *           parameters to execute the ReverseProviderCredit service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the ReverseProviderCredit service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#reverseProviderCredit(ReverseProviderCreditRequest)
+     */
+    Future<ReverseProviderCreditResponseData> reverseProviderCredit(ReverseProviderCreditRequest reverseProviderCreditRequest, AsyncHandler<ReverseProviderCreditResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the SetBillingAgreementDetails operation.
+     *
+     * @param setBillingAgreementDetailsRequest Container for the necessary
+     *           parameters to execute the SetBillingAgreementDetails service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the SetBillingAgreementDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#setBillingAgreementDetails(SetBillingAgreementDetailsRequest)
+     */
+    Future<SetBillingAgreementDetailsResponseData> setBillingAgreementDetails(SetBillingAgreementDetailsRequest setBillingAgreementDetailsRequest);
+
+    /**
+     * Asynchronous version of the SetBillingAgreementDetails operation.
+     *
+     * @param setBillingAgreementDetailsRequest Container for the necessary
+     *           parameters to execute the SetBillingAgreementDetails service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the SetBillingAgreementDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#setBillingAgreementDetails(SetBillingAgreementDetailsRequest)
+     */
+    Future<SetBillingAgreementDetailsResponseData> setBillingAgreementDetails(SetBillingAgreementDetailsRequest setBillingAgreementDetailsRequest, AsyncHandler<SetBillingAgreementDetailsResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the SetOrderAttributes operation.
+     *
+     * @param setOrderAttributesRequest Container for the necessary
+     *           parameters to execute the SetOrderAttributes service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the SetOrderAttributes service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#setOrderAttributes(SetOrderAttributesRequest)
+     */
+    Future<SetOrderAttributesResponseData> setOrderAttributes(SetOrderAttributesRequest setOrderAttributesRequest);
+
+    /**
+     * Asynchronous version of the SetOrderAttributes operation.
+     *
+     * @param setOrderAttributesRequest Container for the necessary
+     *           parameters to execute the SetOrderAttributes service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the SetOrderAttributes service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#setOrderAttributes(SetOrderAttributesRequest)
+     */
+    Future<SetOrderAttributesResponseData> setOrderAttributes(SetOrderAttributesRequest setOrderAttributesRequest, AsyncHandler<SetOrderAttributesResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the SetOrderReferenceDetails operation.
+     *
+     * @param setOrderReferenceDetailsRequest Container for the necessary
+     *           parameters to execute the SetOrderReferenceDetails service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the SetOrderReferenceDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#setOrderReferenceDetails(SetOrderReferenceDetailsRequest)
+     */
+    Future<SetOrderReferenceDetailsResponseData> setOrderReferenceDetails(SetOrderReferenceDetailsRequest setOrderReferenceDetailsRequest);
+
+    /**
+     * Asynchronous version of the SetOrderReferenceDetails operation.
+     *
+     * @param setOrderReferenceDetailsRequest Container for the necessary
+     *           parameters to execute the SetOrderReferenceDetails service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the SetOrderReferenceDetails service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#setOrderReferenceDetails(SetOrderReferenceDetailsRequest)
+     */
+    Future<SetOrderReferenceDetailsResponseData> setOrderReferenceDetails(SetOrderReferenceDetailsRequest setOrderReferenceDetailsRequest, AsyncHandler<SetOrderReferenceDetailsResponseData> asyncHandler);
+
+    /**
+     * Asynchronous version of the ValidateBillingAgreement operation.
+     *
+     * @param validateBillingAgreementRequest Container for the necessary
+     *           parameters to execute the ValidateBillingAgreement service API on
+     *           Amazon Pay.
+     *
+     * @return A Future for the response from the ValidateBillingAgreement service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#validateBillingAgreement(ValidateBillingAgreementRequest)
+     */
+    Future<ValidateBillingAgreementResponseData> validateBillingAgreement(ValidateBillingAgreementRequest validateBillingAgreementRequest);
+
+    /**
+     * Asynchronous version of the ValidateBillingAgreement operation.
+     *
+     * @param validateBillingAgreementRequest Container for the necessary
+     *           parameters to execute the ValidateBillingAgreement service API on
+     *           Amazon Pay.
+     * @param asyncHandler Callback notified when the call completes, may be null
+     *
+     * @return A Future for the response from the ValidateBillingAgreement service API, as
+     *         returned by Amazon Pay
+     *
+     * @see Client#validateBillingAgreement(ValidateBillingAgreementRequest)
+     */
+    Future<ValidateBillingAgreementResponseData> validateBillingAgreement(ValidateBillingAgreementRequest validateBillingAgreementRequest, AsyncHandler<ValidateBillingAgreementResponseData> asyncHandler);
+
+    /**
+     * Accessor method for the client configuration object
+     *
+     * @return Config client configuration object
+     */
+    Config getConfig();
+
+    /**
+     * Releases the resources owned by this client.  Calls already in flight
+     * complete, but no further retries are scheduled.  Executors supplied by
+     * the caller are not shut down.
+     */
+    void shutdown();
+
+}
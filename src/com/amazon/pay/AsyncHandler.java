@@ -0,0 +1,41 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay;
+
+/**
+ * Callback notified when an asynchronous Amazon Pay API call completes.
+ * Callbacks run on the executor thread that completed the call and should
+ * not block.
+ *
+ * @param <T> Type of the response returned by the operation
+ */
+public interface AsyncHandler<T> {
+
+    /**
+     * Invoked when the operation completes successfully.
+     *
+     * @param result The response returned by Amazon Pay
+     */
+    void onSuccess(T result);
+
+    /**
+     * Invoked when the operation fails.
+     *
+     * @param exception AmazonServiceException if Amazon Pay returned an error response,
+     *        or AmazonClientException if the request could not be sent or the response handled
+     */
+    void onError(Exception exception);
+
+}
@@ -22,4 +22,28 @@ public interface LogUtil {
      **/
     public void logMessage(String message);
 
+    /**
+     * @return true if messages passed to logMessage are written, so that
+     * callers can skip building expensive messages otherwise
+     **/
+    public boolean isEnabled();
+
+    /**
+     * @param message supplier of the message to log; it is only invoked
+     * if logging is enabled
+     **/
+    public void logMessage(MessageSupplier message);
+
+    /**
+     * Builds a log message on demand
+     */
+    public interface MessageSupplier {
+
+        /**
+         * @return the message to log
+         **/
+        String get();
+
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay;
+
+import com.amazon.pay.response.parser.ResponseData;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * HTTP transport used by the client to send Amazon Pay API requests.
+ * Implementations must be safe for concurrent use by multiple threads.
+ */
+public interface Transport {
+
+    /**
+     * Sends a single HTTP request and returns the complete response.
+     *
+     * @param method The HTTP method (GET,POST,PUT,etc.).
+     * @param url The URL
+     * @param body Request body, or null if the request has no body
+     * @param headers Header key-value pairs
+     * @return ResponseData containing the status code and response body
+     * @throws IOException If the request could not be sent or the response could not be read
+     */
+    ResponseData send(String method, String url, String body, Map<String,String> headers) throws IOException;
+
+}
@@ -0,0 +1,866 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl;
+
+import com.amazon.pay.AsyncClient;
+import com.amazon.pay.AsyncHandler;
+import com.amazon.pay.Config;
+import com.amazon.pay.Transport;
+import com.amazon.pay.exceptions.AmazonClientException;
+import com.amazon.pay.exceptions.AmazonServiceException;
+import com.amazon.pay.request.AuthorizeOnBillingAgreementRequest;
+import com.amazon.pay.request.AuthorizeRequest;
+import com.amazon.pay.request.CancelOrderReferenceRequest;
+import com.amazon.pay.request.CaptureRequest;
+import com.amazon.pay.request.CloseAuthorizationRequest;
+import com.amazon.pay.request.CloseBillingAgreementRequest;
+import com.amazon.pay.request.CloseOrderReferenceRequest;
+import com.amazon.pay.request.ConfirmBillingAgreementRequest;
+import com.amazon.pay.request.ConfirmOrderReferenceRequest;
+import com.amazon.pay.request.CreateOrderReferenceForIdRequest;
+import com.amazon.pay.request.GetAuthorizationDetailsRequest;
+import com.amazon.pay.request.GetBillingAgreementDetailsRequest;
+import com.amazon.pay.request.GetCaptureDetailsRequest;
+import com.amazon.pay.request.GetMerchantAccountStatusRequest;
+import com.amazon.pay.request.GetOrderReferenceDetailsRequest;
+import com.amazon.pay.request.GetProviderCreditDetailsRequest;
+import com.amazon.pay.request.GetProviderCreditReversalDetailsRequest;
+import com.amazon.pay.request.GetRefundDetailsRequest;
+import com.amazon.pay.request.ListOrderReferenceByNextTokenRequest;
+import com.amazon.pay.request.ListOrderReferenceRequest;
+import com.amazon.pay.request.RefundRequest;
+import com.amazon.pay.request.ReverseProviderCreditRequest;
+import com.amazon.pay.request.SetBillingAgreementDetailsRequest;
+import com.amazon.pay.request.SetOrderAttributesRequest;
+import com.amazon.pay.request.SetOrderReferenceDetailsRequest;
+import com.amazon.pay.request.ValidateBillingAgreementRequest;
+import com.amazon.pay.request.RequestHelper;
+import com.amazon.pay.response.parser.AuthorizeOnBillingAgreementResponseData;
+import com.amazon.pay.response.parser.AuthorizeResponseData;
+import com.amazon.pay.response.parser.CancelOrderReferenceResponseData;
+import com.amazon.pay.response.parser.CaptureResponseData;
+import com.amazon.pay.response.parser.CloseAuthorizationResponseData;
+import com.amazon.pay.response.parser.CloseBillingAgreementResponseData;
+import com.amazon.pay.response.parser.CloseOrderReferenceResponseData;
+import com.amazon.pay.response.parser.ConfirmBillingAgreementResponseData;
+import com.amazon.pay.response.parser.ConfirmOrderReferenceResponseData;
+import com.amazon.pay.response.parser.CreateOrderReferenceForIdResponseData;
+import com.amazon.pay.response.parser.GetAuthorizationDetailsResponseData;
+import com.amazon.pay.response.parser.GetBillingAgreementDetailsResponseData;
+import com.amazon.pay.response.parser.GetCaptureDetailsResponseData;
+import com.amazon.pay.response.parser.GetMerchantAccountStatusResponseData;
+import com.amazon.pay.response.parser.GetOrderReferenceDetailsResponseData;
+import com.amazon.pay.response.parser.GetProviderCreditDetailsResponseData;
+import com.amazon.pay.response.parser.GetProviderCreditReversalDetailsResponseData;
+import com.amazon.pay.response.parser.GetRefundDetailsResponseData;
+import com.amazon.pay.response.parser.GetServiceStatusResponseData;
+import com.amazon.pay.response.parser.ListOrderReferenceByNextTokenResponseData;
+import com.amazon.pay.response.parser.ListOrderReferenceResponseData;
+import com.amazon.pay.response.parser.RefundResponseData;
+import com.amazon.pay.response.parser.ReverseProviderCreditResponseData;
+import com.amazon.pay.response.parser.SetBillingAgreementDetailsResponseData;
+import com.amazon.pay.response.parser.SetOrderAttributesResponseData;
+import com.amazon.pay.response.parser.SetOrderReferenceDetailsResponseData;
+import com.amazon.pay.response.parser.ValidateBillingAgreementResponseData;
+import com.amazon.pay.response.parser.Parser;
+import com.amazon.pay.response.parser.ResponseData;
+import com.amazon.pay.types.ServiceConstants;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Asynchronous client for accessing Amazon Pay API.
+ */
+public class PayAsyncClient implements AsyncClient {
+
+    private final PayClient client;
+    private final RequestHelper helper;
+    private final PayConfig payConfig;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+
+    /**
+     * Constructs a new asynchronous client to invoke service methods on
+     * Amazon Pay API using the specified MWS account credentials.
+     * Requests run on the given executor.
+     *
+     * @param config The client configuration includes MWS account credentials
+     *        and control options how this client connects to Amazon Pay
+     * @param executor Executor that sends the requests and parses the responses
+     */
+    public PayAsyncClient(Config config, Executor executor) {
+        this(config, new PayTransport((PayConfig)config), executor, null);
+    }
+
+    /**
+     * Constructs a new asynchronous client to invoke service methods on
+     * Amazon Pay API using the specified MWS account credentials and HTTP transport.
+     *
+     * @param config The client configuration includes MWS account credentials
+     *        and control options how this client connects to Amazon Pay
+     * @param transport The HTTP transport used to send requests to Amazon Pay
+     * @param executor Executor that sends the requests and parses the responses
+     * @param scheduler Scheduler that delays retries of throttled requests.
+     *        If null, the client creates and owns a single daemon thread for this purpose.
+     */
+    public PayAsyncClient(Config config, Transport transport, Executor executor, ScheduledExecutorService scheduler) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null");
+        }
+        this.payConfig = (PayConfig)config;
+        this.client = new PayClient(config, transport);
+        this.helper = new RequestHelper(this.payConfig);
+        this.executor = executor;
+        if (scheduler != null) {
+            this.scheduler = scheduler;
+            this.ownsScheduler = false;
+        } else {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r, "amazon-pay-retry-scheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.ownsScheduler = true;
+        }
+    }
+
+    @Override
+    public Future<AuthorizeResponseData> authorize(AuthorizeRequest authorizeRequest) {
+        return authorize(authorizeRequest, null);
+    }
+
+    @Override
+    public Future<AuthorizeResponseData> authorize(AuthorizeRequest authorizeRequest, AsyncHandler<AuthorizeResponseData> asyncHandler) {
+        final PayFuture<AuthorizeResponseData> future = new PayFuture<AuthorizeResponseData>(asyncHandler);
+        try {
+            submit(new Call<AuthorizeResponseData>(helper.getPostURL(authorizeRequest), future) {
+                @Override
+                AuthorizeResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getAuthorizeData(rawResponse, payConfig.isLazyResponseParsing());
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<AuthorizeOnBillingAgreementResponseData> authorizeOnBillingAgreement(AuthorizeOnBillingAgreementRequest authorizeOnBillingAgreementRequest) {
+        return authorizeOnBillingAgreement(authorizeOnBillingAgreementRequest, null);
+    }
+
+    @Override
+    public Future<AuthorizeOnBillingAgreementResponseData> authorizeOnBillingAgreement(AuthorizeOnBillingAgreementRequest authorizeOnBillingAgreementRequest, AsyncHandler<AuthorizeOnBillingAgreementResponseData> asyncHandler) {
+        final PayFuture<AuthorizeOnBillingAgreementResponseData> future = new PayFuture<AuthorizeOnBillingAgreementResponseData>(asyncHandler);
+        try {
+            submit(new Call<AuthorizeOnBillingAgreementResponseData>(helper.getPostURL(authorizeOnBillingAgreementRequest), future) {
+                @Override
+                AuthorizeOnBillingAgreementResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getAuthorizeOnBillingAgreement(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<CancelOrderReferenceResponseData> cancelOrderReference(CancelOrderReferenceRequest cancelOrderReferenceRequest) {
+        return cancelOrderReference(cancelOrderReferenceRequest, null);
+    }
+
+    @Override
+    public Future<CancelOrderReferenceResponseData> cancelOrderReference(CancelOrderReferenceRequest cancelOrderReferenceRequest, AsyncHandler<CancelOrderReferenceResponseData> asyncHandler) {
+        final PayFuture<CancelOrderReferenceResponseData> future = new PayFuture<CancelOrderReferenceResponseData>(asyncHandler);
+        try {
+            submit(new Call<CancelOrderReferenceResponseData>(helper.getPostURL(cancelOrderReferenceRequest), future) {
+                @Override
+                CancelOrderReferenceResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getCancelOrderReference(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<CaptureResponseData> capture(CaptureRequest captureRequest) {
+        return capture(captureRequest, null);
+    }
+
+    @Override
+    public Future<CaptureResponseData> capture(CaptureRequest captureRequest, AsyncHandler<CaptureResponseData> asyncHandler) {
+        final PayFuture<CaptureResponseData> future = new PayFuture<CaptureResponseData>(asyncHandler);
+        try {
+            submit(new Call<CaptureResponseData>(helper.getPostURL(captureRequest), future) {
+                @Override
+                CaptureResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getCapture(rawResponse, payConfig.isLazyResponseParsing());
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<CloseAuthorizationResponseData> closeAuthorization(CloseAuthorizationRequest closeAuthorizationRequest) {
+        return closeAuthorization(closeAuthorizationRequest, null);
+    }
+
+    @Override
+    public Future<CloseAuthorizationResponseData> closeAuthorization(CloseAuthorizationRequest closeAuthorizationRequest, AsyncHandler<CloseAuthorizationResponseData> asyncHandler) {
+        final PayFuture<CloseAuthorizationResponseData> future = new PayFuture<CloseAuthorizationResponseData>(asyncHandler);
+        try {
+            submit(new Call<CloseAuthorizationResponseData>(helper.getPostURL(closeAuthorizationRequest), future) {
+                @Override
+                CloseAuthorizationResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.closeAuthorizationResponse(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<CloseBillingAgreementResponseData> closeBillingAgreement(CloseBillingAgreementRequest closeBillingAgreementRequest) {
+        return closeBillingAgreement(closeBillingAgreementRequest, null);
+    }
+
+    @Override
+    public Future<CloseBillingAgreementResponseData> closeBillingAgreement(CloseBillingAgreementRequest closeBillingAgreementRequest, AsyncHandler<CloseBillingAgreementResponseData> asyncHandler) {
+        final PayFuture<CloseBillingAgreementResponseData> future = new PayFuture<CloseBillingAgreementResponseData>(asyncHandler);
+        try {
+            submit(new Call<CloseBillingAgreementResponseData>(helper.getPostURL(closeBillingAgreementRequest), future) {
+                @Override
+                CloseBillingAgreementResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.closeBillingAgreementResponse(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<CloseOrderReferenceResponseData> closeOrderReference(CloseOrderReferenceRequest closeOrderReferenceRequest) {
+        return closeOrderReference(closeOrderReferenceRequest, null);
+    }
+
+    @Override
+    public Future<CloseOrderReferenceResponseData> closeOrderReference(CloseOrderReferenceRequest closeOrderReferenceRequest, AsyncHandler<CloseOrderReferenceResponseData> asyncHandler) {
+        final PayFuture<CloseOrderReferenceResponseData> future = new PayFuture<CloseOrderReferenceResponseData>(asyncHandler);
+        try {
+            submit(new Call<CloseOrderReferenceResponseData>(helper.getPostURL(closeOrderReferenceRequest), future) {
+                @Override
+                CloseOrderReferenceResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getCloseOrderReference(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<ConfirmBillingAgreementResponseData> confirmBillingAgreement(ConfirmBillingAgreementRequest confirmBillingAgreementRequest) {
+        return confirmBillingAgreement(confirmBillingAgreementRequest, null);
+    }
+
+    @Override
+    public Future<ConfirmBillingAgreementResponseData> confirmBillingAgreement(ConfirmBillingAgreementRequest confirmBillingAgreementRequest, AsyncHandler<ConfirmBillingAgreementResponseData> asyncHandler) {
+        final PayFuture<ConfirmBillingAgreementResponseData> future = new PayFuture<ConfirmBillingAgreementResponseData>(asyncHandler);
+        try {
+            submit(new Call<ConfirmBillingAgreementResponseData>(helper.getPostURL(confirmBillingAgreementRequest), future) {
+                @Override
+                ConfirmBillingAgreementResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.confirmBillingAgreementResponse(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<ConfirmOrderReferenceResponseData> confirmOrderReference(ConfirmOrderReferenceRequest confirmOrderReferenceRequest) {
+        return confirmOrderReference(confirmOrderReferenceRequest, null);
+    }
+
+    @Override
+    public Future<ConfirmOrderReferenceResponseData> confirmOrderReference(ConfirmOrderReferenceRequest confirmOrderReferenceRequest, AsyncHandler<ConfirmOrderReferenceResponseData> asyncHandler) {
+        final PayFuture<ConfirmOrderReferenceResponseData> future = new PayFuture<ConfirmOrderReferenceResponseData>(asyncHandler);
+        try {
+            submit(new Call<ConfirmOrderReferenceResponseData>(helper.getPostURL(confirmOrderReferenceRequest), future) {
+                @Override
+                ConfirmOrderReferenceResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.confirmOrderReference(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<CreateOrderReferenceForIdResponseData> createOrderReferenceForId(CreateOrderReferenceForIdRequest createOrderReferenceForIdRequest) {
+        return createOrderReferenceForId(createOrderReferenceForIdRequest, null);
+    }
+
+    @Override
+    public Future<CreateOrderReferenceForIdResponseData> createOrderReferenceForId(CreateOrderReferenceForIdRequest createOrderReferenceForIdRequest, AsyncHandler<CreateOrderReferenceForIdResponseData> asyncHandler) {
+        final PayFuture<CreateOrderReferenceForIdResponseData> future = new PayFuture<CreateOrderReferenceForIdResponseData>(asyncHandler);
+        try {
+            submit(new Call<CreateOrderReferenceForIdResponseData>(helper.getPostURL(createOrderReferenceForIdRequest), future) {
+                @Override
+                CreateOrderReferenceForIdResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.createOrderReferenceForId(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<GetAuthorizationDetailsResponseData> getAuthorizationDetails(GetAuthorizationDetailsRequest getAuthorizationDetailsRequest) {
+        return getAuthorizationDetails(getAuthorizationDetailsRequest, null);
+    }
+
+    @Override
+    public Future<GetAuthorizationDetailsResponseData> getAuthorizationDetails(GetAuthorizationDetailsRequest getAuthorizationDetailsRequest, AsyncHandler<GetAuthorizationDetailsResponseData> asyncHandler) {
+        final PayFuture<GetAuthorizationDetailsResponseData> future = new PayFuture<GetAuthorizationDetailsResponseData>(asyncHandler);
+        try {
+            submit(new Call<GetAuthorizationDetailsResponseData>(helper.getPostURL(getAuthorizationDetailsRequest), future) {
+                @Override
+                GetAuthorizationDetailsResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getAuthorizationDetailsData(rawResponse, payConfig.isLazyResponseParsing());
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<GetBillingAgreementDetailsResponseData> getBillingAgreementDetails(GetBillingAgreementDetailsRequest getBillingAgreementDetailsRequest) {
+        return getBillingAgreementDetails(getBillingAgreementDetailsRequest, null);
+    }
+
+    @Override
+    public Future<GetBillingAgreementDetailsResponseData> getBillingAgreementDetails(GetBillingAgreementDetailsRequest getBillingAgreementDetailsRequest, AsyncHandler<GetBillingAgreementDetailsResponseData> asyncHandler) {
+        final PayFuture<GetBillingAgreementDetailsResponseData> future = new PayFuture<GetBillingAgreementDetailsResponseData>(asyncHandler);
+        try {
+            submit(new Call<GetBillingAgreementDetailsResponseData>(helper.getPostURL(getBillingAgreementDetailsRequest), future) {
+                @Override
+                GetBillingAgreementDetailsResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getBillingAgreementDetailsData(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<GetCaptureDetailsResponseData> getCaptureDetails(GetCaptureDetailsRequest getCaptureDetailsRequest) {
+        return getCaptureDetails(getCaptureDetailsRequest, null);
+    }
+
+    @Override
+    public Future<GetCaptureDetailsResponseData> getCaptureDetails(GetCaptureDetailsRequest getCaptureDetailsRequest, AsyncHandler<GetCaptureDetailsResponseData> asyncHandler) {
+        final PayFuture<GetCaptureDetailsResponseData> future = new PayFuture<GetCaptureDetailsResponseData>(asyncHandler);
+        try {
+            submit(new Call<GetCaptureDetailsResponseData>(helper.getPostURL(getCaptureDetailsRequest), future) {
+                @Override
+                GetCaptureDetailsResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getCaptureDetailsData(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<GetMerchantAccountStatusResponseData> getMerchantAccountStatus(GetMerchantAccountStatusRequest getMerchantAccountStatusRequest) {
+        return getMerchantAccountStatus(getMerchantAccountStatusRequest, null);
+    }
+
+    @Override
+    public Future<GetMerchantAccountStatusResponseData> getMerchantAccountStatus(GetMerchantAccountStatusRequest getMerchantAccountStatusRequest, AsyncHandler<GetMerchantAccountStatusResponseData> asyncHandler) {
+        final PayFuture<GetMerchantAccountStatusResponseData> future = new PayFuture<GetMerchantAccountStatusResponseData>(asyncHandler);
+        try {
+            submit(new Call<GetMerchantAccountStatusResponseData>(helper.getPostURL(getMerchantAccountStatusRequest), future) {
+                @Override
+                GetMerchantAccountStatusResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getMerchantAccountStatus(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<GetOrderReferenceDetailsResponseData> getOrderReferenceDetails(GetOrderReferenceDetailsRequest getOrderReferenceDetailsRequest) {
+        return getOrderReferenceDetails(getOrderReferenceDetailsRequest, null);
+    }
+
+    @Override
+    public Future<GetOrderReferenceDetailsResponseData> getOrderReferenceDetails(GetOrderReferenceDetailsRequest getOrderReferenceDetailsRequest, AsyncHandler<GetOrderReferenceDetailsResponseData> asyncHandler) {
+        final PayFuture<GetOrderReferenceDetailsResponseData> future = new PayFuture<GetOrderReferenceDetailsResponseData>(asyncHandler);
+        try {
+            submit(new Call<GetOrderReferenceDetailsResponseData>(helper.getPostURL(getOrderReferenceDetailsRequest), future) {
+                @Override
+                GetOrderReferenceDetailsResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getOrderReferenceDetails(rawResponse, payConfig.isLazyResponseParsing());
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<GetProviderCreditDetailsResponseData> getProviderCreditDetails(GetProviderCreditDetailsRequest getProviderCreditDetailsRequest) {
+        return getProviderCreditDetails(getProviderCreditDetailsRequest, null);
+    }
+
+    @Override
+    public Future<GetProviderCreditDetailsResponseData> getProviderCreditDetails(GetProviderCreditDetailsRequest getProviderCreditDetailsRequest, AsyncHandler<GetProviderCreditDetailsResponseData> asyncHandler) {
+        final PayFuture<GetProviderCreditDetailsResponseData> future = new PayFuture<GetProviderCreditDetailsResponseData>(asyncHandler);
+        try {
+            submit(new Call<GetProviderCreditDetailsResponseData>(helper.getPostURL(getProviderCreditDetailsRequest), future) {
+                @Override
+                GetProviderCreditDetailsResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getGetProviderCreditDetails(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<GetProviderCreditReversalDetailsResponseData> getProviderCreditReversalDetails(GetProviderCreditReversalDetailsRequest getProviderCreditReversalDetailsRequest) {
+        return getProviderCreditReversalDetails(getProviderCreditReversalDetailsRequest, null);
+    }
+
+    @Override
+    public Future<GetProviderCreditReversalDetailsResponseData> getProviderCreditReversalDetails(GetProviderCreditReversalDetailsRequest getProviderCreditReversalDetailsRequest, AsyncHandler<GetProviderCreditReversalDetailsResponseData> asyncHandler) {
+        final PayFuture<GetProviderCreditReversalDetailsResponseData> future = new PayFuture<GetProviderCreditReversalDetailsResponseData>(asyncHandler);
+        try {
+            submit(new Call<GetProviderCreditReversalDetailsResponseData>(helper.getPostURL(getProviderCreditReversalDetailsRequest), future) {
+                @Override
+                GetProviderCreditReversalDetailsResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getProviderCreditReversalDetails(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<GetRefundDetailsResponseData> getRefundDetails(GetRefundDetailsRequest getRefundDetailsRequest) {
+        return getRefundDetails(getRefundDetailsRequest, null);
+    }
+
+    @Override
+    public Future<GetRefundDetailsResponseData> getRefundDetails(GetRefundDetailsRequest getRefundDetailsRequest, AsyncHandler<GetRefundDetailsResponseData> asyncHandler) {
+        final PayFuture<GetRefundDetailsResponseData> future = new PayFuture<GetRefundDetailsResponseData>(asyncHandler);
+        try {
+            submit(new Call<GetRefundDetailsResponseData>(helper.getPostURL(getRefundDetailsRequest), future) {
+                @Override
+                GetRefundDetailsResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getRefundDetailsData(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<GetServiceStatusResponseData> getServiceStatus() {
+        return getServiceStatus(null);
+    }
+
+    @Override
+    public Future<GetServiceStatusResponseData> getServiceStatus(AsyncHandler<GetServiceStatusResponseData> asyncHandler) {
+        final PayFuture<GetServiceStatusResponseData> future = new PayFuture<GetServiceStatusResponseData>(asyncHandler);
+        try {
+            submit(new Call<GetServiceStatusResponseData>(helper.getPostURLGetServiceStatus(), future) {
+                @Override
+                GetServiceStatusResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getServiceStatus(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<ListOrderReferenceResponseData> listOrderReference(ListOrderReferenceRequest listOrderReferenceRequest) {
+        return listOrderReference(listOrderReferenceRequest, null);
+    }
+
+    @Override
+    public Future<ListOrderReferenceResponseData> listOrderReference(ListOrderReferenceRequest listOrderReferenceRequest, AsyncHandler<ListOrderReferenceResponseData> asyncHandler) {
+        final PayFuture<ListOrderReferenceResponseData> future = new PayFuture<ListOrderReferenceResponseData>(asyncHandler);
+        try {
+            submit(new Call<ListOrderReferenceResponseData>(helper.getPostURL(listOrderReferenceRequest), future) {
+                @Override
+                ListOrderReferenceResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.listOrderReference(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<ListOrderReferenceByNextTokenResponseData> listOrderReferenceByNextToken(ListOrderReferenceByNextTokenRequest listOrderReferenceByNextTokenRequest) {
+        return listOrderReferenceByNextToken(listOrderReferenceByNextTokenRequest, null);
+    }
+
+    @Override
+    public Future<ListOrderReferenceByNextTokenResponseData> listOrderReferenceByNextToken(ListOrderReferenceByNextTokenRequest listOrderReferenceByNextTokenRequest, AsyncHandler<ListOrderReferenceByNextTokenResponseData> asyncHandler) {
+        final PayFuture<ListOrderReferenceByNextTokenResponseData> future = new PayFuture<ListOrderReferenceByNextTokenResponseData>(asyncHandler);
+        try {
+            submit(new Call<ListOrderReferenceByNextTokenResponseData>(helper.getPostURL(listOrderReferenceByNextTokenRequest), future) {
+                @Override
+                ListOrderReferenceByNextTokenResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.listOrderReferenceByNextToken(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<RefundResponseData> refund(RefundRequest refundRequest) {
+        return refund(refundRequest, null);
+    }
+
+    @Override
+    public Future<RefundResponseData> refund(RefundRequest refundRequest, AsyncHandler<RefundResponseData> asyncHandler) {
+        final PayFuture<RefundResponseData> future = new PayFuture<RefundResponseData>(asyncHandler);
+        try {
+            submit(new Call<RefundResponseData>(helper.getPostURL(refundRequest), future) {
+                @Override
+                RefundResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getRefundData(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<ReverseProviderCreditResponseData> reverseProviderCredit(ReverseProviderCreditRequest reverseProviderCreditRequest) {
+        return reverseProviderCredit(reverseProviderCreditRequest, null);
+    }
+
+    @Override
+    public Future<ReverseProviderCreditResponseData> reverseProviderCredit(ReverseProviderCreditRequest reverseProviderCreditRequest, AsyncHandler<ReverseProviderCreditResponseData> asyncHandler) {
+        final PayFuture<ReverseProviderCreditResponseData> future = new PayFuture<ReverseProviderCreditResponseData>(asyncHandler);
+        try {
+            submit(new Call<ReverseProviderCreditResponseData>(helper.getPostURL(reverseProviderCreditRequest), future) {
+                @Override
+                ReverseProviderCreditResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getReverseProviderCreditResponseData(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<SetBillingAgreementDetailsResponseData> setBillingAgreementDetails(SetBillingAgreementDetailsRequest setBillingAgreementDetailsRequest) {
+        return setBillingAgreementDetails(setBillingAgreementDetailsRequest, null);
+    }
+
+    @Override
+    public Future<SetBillingAgreementDetailsResponseData> setBillingAgreementDetails(SetBillingAgreementDetailsRequest setBillingAgreementDetailsRequest, AsyncHandler<SetBillingAgreementDetailsResponseData> asyncHandler) {
+        final PayFuture<SetBillingAgreementDetailsResponseData> future = new PayFuture<SetBillingAgreementDetailsResponseData>(asyncHandler);
+        try {
+            submit(new Call<SetBillingAgreementDetailsResponseData>(helper.getPostURL(setBillingAgreementDetailsRequest), future) {
+                @Override
+                SetBillingAgreementDetailsResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getSetBillingAgreementDetailsResponse(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<SetOrderAttributesResponseData> setOrderAttributes(SetOrderAttributesRequest setOrderAttributesRequest) {
+        return setOrderAttributes(setOrderAttributesRequest, null);
+    }
+
+    @Override
+    public Future<SetOrderAttributesResponseData> setOrderAttributes(SetOrderAttributesRequest setOrderAttributesRequest, AsyncHandler<SetOrderAttributesResponseData> asyncHandler) {
+        final PayFuture<SetOrderAttributesResponseData> future = new PayFuture<SetOrderAttributesResponseData>(asyncHandler);
+        try {
+            submit(new Call<SetOrderAttributesResponseData>(helper.getPostURL(setOrderAttributesRequest), future) {
+                @Override
+                SetOrderAttributesResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.setOrderAttributes(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<SetOrderReferenceDetailsResponseData> setOrderReferenceDetails(SetOrderReferenceDetailsRequest setOrderReferenceDetailsRequest) {
+        return setOrderReferenceDetails(setOrderReferenceDetailsRequest, null);
+    }
+
+    @Override
+    public Future<SetOrderReferenceDetailsResponseData> setOrderReferenceDetails(SetOrderReferenceDetailsRequest setOrderReferenceDetailsRequest, AsyncHandler<SetOrderReferenceDetailsResponseData> asyncHandler) {
+        final PayFuture<SetOrderReferenceDetailsResponseData> future = new PayFuture<SetOrderReferenceDetailsResponseData>(asyncHandler);
+        try {
+            submit(new Call<SetOrderReferenceDetailsResponseData>(helper.getPostURL(setOrderReferenceDetailsRequest), future) {
+                @Override
+                SetOrderReferenceDetailsResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.setOrderReferenceDetails(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Future<ValidateBillingAgreementResponseData> validateBillingAgreement(ValidateBillingAgreementRequest validateBillingAgreementRequest) {
+        return validateBillingAgreement(validateBillingAgreementRequest, null);
+    }
+
+    @Override
+    public Future<ValidateBillingAgreementResponseData> validateBillingAgreement(ValidateBillingAgreementRequest validateBillingAgreementRequest, AsyncHandler<ValidateBillingAgreementResponseData> asyncHandler) {
+        final PayFuture<ValidateBillingAgreementResponseData> future = new PayFuture<ValidateBillingAgreementResponseData>(asyncHandler);
+        try {
+            submit(new Call<ValidateBillingAgreementResponseData>(helper.getPostURL(validateBillingAgreementRequest), future) {
+                @Override
+                ValidateBillingAgreementResponseData parse(ResponseData rawResponse) throws AmazonServiceException {
+                    return Parser.getValidateBillingAgreementResponse(rawResponse);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    /**
+     * Accessor method for PayConfig configuration object
+     *
+     * @return Config client configuration object
+     */
+    @Override
+    public Config getConfig() {
+        return payConfig;
+    }
+
+    @Override
+    public void shutdown() {
+        if (ownsScheduler) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void submit(Call<?> call) {
+        try {
+            executor.execute(call);
+        } catch (RejectedExecutionException e) {
+            call.future.fail(new AmazonClientException("Request rejected by executor", e));
+        }
+    }
+
+    /**
+     * A single API call.  Each run sends one attempt; attempts that must wait
+     * for a throttling permit or a retry delay schedule the next run instead
+     * of sleeping on the executor thread.
+     */
+    private abstract class Call<T> implements Runnable {
+
+        private final String httpPostRequest;
+        private final String action;
+        private final PayFuture<T> future;
+        private int retry;
+        private boolean permitted;
+
+        Call(String httpPostRequest, PayFuture<T> future) {
+            this.httpPostRequest = httpPostRequest;
+            this.action = Util.getParameterValue(httpPostRequest, ServiceConstants.ACTION);
+            this.future = future;
+        }
+
+        abstract T parse(ResponseData rawResponse) throws AmazonServiceException;
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                if (!permitted) {
+                    // Wait for a client-side throttling permit on the scheduler, not on this thread
+                    final long wait = client.acquirePermit(httpPostRequest);
+                    permitted = true;
+                    if (wait > 0) {
+                        schedule(wait);
+                        return;
+                    }
+                }
+                final RetryPolicy retryPolicy = payConfig.getRetryPolicy();
+                final ResponseData rawResponse = client.postRequest(httpPostRequest);
+                if (payConfig.isUseAutoRetryOnThrottle()
+                        && retryPolicy.shouldRetry(action, rawResponse.getStatusCode(), retry)) {
+                    final long delay = retryPolicy.computeDelay(retry);
+                    retry++;
+                    permitted = false;
+                    schedule(delay);
+                    return;
+                }
+                retryPolicy.onResponse(rawResponse.getStatusCode());
+                future.complete(parse(rawResponse));
+            } catch (AmazonServiceException e) {
+                future.fail(e);
+            } catch (IOException e) {
+                future.fail(new AmazonClientException("Encountered IOException: ", e));
+            } catch (RuntimeException e) {
+                future.fail(e);
+            }
+        }
+
+        private void schedule(long delay) {
+            try {
+                scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        submit(Call.this);
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                future.fail(new AmazonClientException("Request rejected by scheduler", e));
+            }
+        }
+    }
+
+    /**
+     * Future completed by the client rather than by running a task.
+     */
+    private static final class PayFuture<T> extends FutureTask<T> {
+
+        private final AsyncHandler<T> asyncHandler;
+
+        PayFuture(AsyncHandler<T> asyncHandler) {
+            super(new Callable<T>() {
+                @Override
+                public T call() {
+                    throw new IllegalStateException("PayFuture is completed by the client");
+                }
+            });
+            this.asyncHandler = asyncHandler;
+        }
+
+        void complete(T result) {
+            set(result);
+        }
+
+        void fail(Throwable cause) {
+            setException(cause);
+        }
+
+        @Override
+        public void run() {
+            // Completed only through complete() and fail()
+        }
+
+        @Override
+        protected void done() {
+            if (asyncHandler == null || isCancelled()) {
+                return;
+            }
+            final T result;
+            try {
+                result = get();
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                asyncHandler.onError(cause instanceof Exception ? (Exception) cause : e);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            asyncHandler.onSuccess(result);
+        }
+    }
+
+}
@@ -16,6 +16,7 @@ package com.amazon.pay.impl;
 
 import com.amazon.pay.Client;
 import com.amazon.pay.Config;
+import com.amazon.pay.Transport;
 import com.amazon.pay.exceptions.AmazonClientException;
 import com.amazon.pay.exceptions.AmazonServiceException;
 import com.amazon.pay.request.AuthorizeOnBillingAgreementRequest;
@@ -83,6 +84,7 @@ import com.amazon.pay.response.parser.SetOrderAttributesResponseData;
 import com.amazon.pay.response.parser.SetOrderReferenceDetailsResponseData;
 import com.amazon.pay.response.parser.ValidateBillingAgreementResponseData;
 import com.amazon.pay.types.AmazonReferenceIdType;
+import com.amazon.pay.types.ResponseRetention;
 import com.amazon.pay.types.ServiceConstants;
 import com.amazon.pay.types.User;
 
@@ -100,6 +102,10 @@ public class PayClient implements Client  {
 
     private final RequestHelper helper;
     private final PayConfig payConfig;
+    private final Transport transport;
+    private final RequestThrottler throttler;
+
+    private static final PayLogUtil payLogUtil = new PayLogUtil();
 
     /**
      * Constructs a new client to invoke service methods on
@@ -109,8 +115,23 @@ public class PayClient implements Client  {
      *        and control options how this client connects to Amazon Pay
      */
     public PayClient(Config config) {
+        this(config, new PayTransport((PayConfig)config));
+    }
+
+    /**
+     * Constructs a new client to invoke service methods on
+     * Amazon Pay API using the specified MWS account credentials
+     * and HTTP transport.
+     *
+     * @param config The client configuration includes MWS account credentials
+     *        and control options how this client connects to Amazon Pay
+     * @param transport The HTTP transport used to send requests to Amazon Pay
+     */
+    public PayClient(Config config, Transport transport) {
         this.payConfig = (PayConfig)config;
         this.helper = new RequestHelper(this.payConfig);
+        this.transport = transport;
+        this.throttler = new RequestThrottler(this.payConfig);
     }
 
 
@@ -192,7 +213,7 @@ public class PayClient implements Client  {
     @Override
     public GetOrderReferenceDetailsResponseData getOrderReferenceDetails(GetOrderReferenceDetailsRequest getOrderReferenceDetailsRequest) throws AmazonServiceException {
         ResponseData rawResponse = sendRequest(helper.getPostURL(getOrderReferenceDetailsRequest));
-        return Parser.getOrderReferenceDetails(rawResponse);
+        return Parser.getOrderReferenceDetails(rawResponse, payConfig.isLazyResponseParsing());
     }
 
 
@@ -333,7 +354,7 @@ public class PayClient implements Client  {
     @Override
     public AuthorizeResponseData authorize(AuthorizeRequest authorizeRequest) throws AmazonServiceException   {
         ResponseData rawResponse = sendRequest(helper.getPostURL(authorizeRequest));
-        return Parser.getAuthorizeData(rawResponse);
+        return Parser.getAuthorizeData(rawResponse, payConfig.isLazyResponseParsing());
     }
 
 
@@ -364,7 +385,7 @@ public class PayClient implements Client  {
     @Override
     public GetAuthorizationDetailsResponseData getAuthorizationDetails(GetAuthorizationDetailsRequest request) throws AmazonServiceException   {
         ResponseData rawResponse = sendRequest(helper.getPostURL(request));
-        return Parser.getAuthorizationDetailsData(rawResponse);
+        return Parser.getAuthorizationDetailsData(rawResponse, payConfig.isLazyResponseParsing());
     }
 
 
@@ -395,7 +416,7 @@ public class PayClient implements Client  {
     @Override
     public CaptureResponseData capture(CaptureRequest request) throws AmazonServiceException   {
         ResponseData rawResponse = sendRequest(helper.getPostURL(request));
-        return Parser.getCapture(rawResponse);
+        return Parser.getCapture(rawResponse, payConfig.isLazyResponseParsing());
     }
 
 
@@ -1200,25 +1221,17 @@ public class PayClient implements Client  {
         ResponseData response = null;
 
         try {
-            response = postRequest(httpPostRequest);
-            int statusCode = response.getStatusCode();
+            final RetryPolicy retryPolicy = payConfig.getRetryPolicy();
+            final String action = Util.getParameterValue(httpPostRequest, ServiceConstants.ACTION);
+            response = throttleAndPostRequest(httpPostRequest);
             int retry = 0;
-            //503 status code is returned when request is throttled and 500 is returned for InternalServerError
-            while ((statusCode == 503  || statusCode == 500) && retry < 3 && payConfig.isUseAutoRetryOnThrottle()) {
+            while (payConfig.isUseAutoRetryOnThrottle()
+                    && retryPolicy.shouldRetry(action, response.getStatusCode(), retry)) {
+                Thread.sleep(retryPolicy.computeDelay(retry));
                 retry++;
-                //retry request 3 times
-                if (retry == 1) {
-                    Thread.sleep(ServiceConstants.FIRST_RETRY_WAIT_TIME);
-                } else if (retry == 2) {
-                    Thread.sleep(ServiceConstants.SECOND_RETRY_WAIT_TIME);
-                } else if (retry == 3) {
-                    Thread.sleep(ServiceConstants.THIRD_RETRY_WAIT_TIME);
-                } else {
-                    return null;
-                }
-                response = postRequest(httpPostRequest);
-                statusCode = response.getStatusCode();
+                response = throttleAndPostRequest(httpPostRequest);
             }
+            retryPolicy.onResponse(response.getStatusCode());
         } catch (IOException e) {
             throw new AmazonClientException("Encountered IOException: ", e);
         } catch (InterruptedException ex) {
@@ -1227,8 +1240,36 @@ public class PayClient implements Client  {
         return response;
     }
 
-    private ResponseData postRequest(String httpPostRequest) throws IOException {
-        return Util.httpSendRequest("POST", Util.getServiceURLEndpoint(payConfig), httpPostRequest, null, this.helper.payConfig);
+    private ResponseData throttleAndPostRequest(String httpPostRequest) throws IOException, InterruptedException {
+        final long wait = acquirePermit(httpPostRequest);
+        if (wait > 0) {
+            Thread.sleep(wait);
+        }
+        return postRequest(httpPostRequest);
+    }
+
+    /**
+     * Takes a client-side throttling permit for the request.
+     *
+     * @return Time in milliseconds to wait before sending the request
+     * @throws AmazonClientException If the throttle mode is FAIL_FAST and the quota is exhausted
+     */
+    long acquirePermit(String httpPostRequest) {
+        return throttler.acquire(httpPostRequest);
+    }
+
+    ResponseData postRequest(String httpPostRequest) throws IOException {
+        final String url = Util.getServiceURLEndpoint(payConfig);
+        if (payLogUtil.isEnabled()) {
+            payLogUtil.logMessage("Request:\nURL=" + url + "\nPOST Data=" + httpPostRequest);
+        }
+        final ResponseData response = transport.send("POST", url, httpPostRequest, Util.prepareRequestHeaders(null, this.helper.payConfig));
+        throttler.onResponse(httpPostRequest, response);
+        if (payConfig.getResponseRetention() != ResponseRetention.RETAIN) {
+            // Applied when the parsed response data copies the raw response
+            return new ResponseData(response, payConfig.getResponseRetention());
+        }
+        return response;
     }
 
     /**
@@ -20,8 +20,13 @@ import com.amazon.pay.response.model.Environment;
 import com.amazon.pay.types.CurrencyCode;
 import com.amazon.pay.types.Key;
 import com.amazon.pay.types.Region;
+import com.amazon.pay.types.ServiceConstants;
+import com.amazon.pay.types.ResponseRetention;
+import com.amazon.pay.types.ThrottleMode;
 import java.util.Enumeration;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PayConfig implements Config  {
 
@@ -40,6 +45,14 @@ public class PayConfig implements Config  {
     private boolean useAutoRetryOnThrottle;
     private String overrideServiceURL;
     private String overrideProfileURL;
+    private int connectTimeout = ServiceConstants.HTTP_CONNECT_TIMEOUT;
+    private int readTimeout = ServiceConstants.HTTP_READ_TIMEOUT;
+    private int maxConnections = ServiceConstants.HTTP_MAX_CONNECTIONS;
+    private RetryPolicy retryPolicy = new RetryPolicy();
+    private ThrottleMode throttleMode = ThrottleMode.DISABLED;
+    private boolean lazyResponseParsing;
+    private ResponseRetention responseRetention = ResponseRetention.RETAIN;
+    private final Map<String, ThrottleQuota> throttleQuotas = new ConcurrentHashMap<String, ThrottleQuota>();
 
     /**
      * Constructor for PayConfig - container that stores all configuration parameters for client
@@ -610,6 +623,285 @@ public class PayConfig implements Config  {
     }
 
 
+    /**
+     * Returns the HTTP connect timeout in milliseconds
+     *
+     * @return connectTimeout
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+
+    /**
+     * @param connectTimeout Sets the HTTP connect timeout in milliseconds.
+     * Default is 30 seconds.
+     */
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+
+    /**
+     * @param connectTimeout Sets the HTTP connect timeout in milliseconds.
+     * Default is 30 seconds.
+     *
+     * @return Returns updated PayConfig object
+     */
+    public PayConfig withConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+
+    /**
+     * Returns the HTTP read timeout in milliseconds
+     *
+     * @return readTimeout
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+
+    /**
+     * @param readTimeout Sets the HTTP read timeout in milliseconds.
+     * Default is 30 seconds.
+     */
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+
+    /**
+     * @param readTimeout Sets the HTTP read timeout in milliseconds.
+     * Default is 30 seconds.
+     *
+     * @return Returns updated PayConfig object
+     */
+    public PayConfig withReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+
+    /**
+     * Returns the maximum number of concurrent connections per service endpoint
+     *
+     * @return maxConnections
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+
+    /**
+     * @param maxConnections Sets the maximum number of concurrent connections
+     * the client opens to a single service endpoint. Requests beyond this limit
+     * wait up to the connect timeout for a connection to become available.
+     */
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+
+    /**
+     * @param maxConnections Sets the maximum number of concurrent connections
+     * the client opens to a single service endpoint. Requests beyond this limit
+     * wait up to the connect timeout for a connection to become available.
+     *
+     * @return Returns updated PayConfig object
+     */
+    public PayConfig withMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+
+    /**
+     * Returns the policy used to retry throttled requests
+     *
+     * @return retryPolicy
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+
+    /**
+     * @param retryPolicy Sets the policy used to retry throttled requests when
+     * auto retry on throttle is enabled. Defaults to 3 retries, waiting before
+     * retry n (starting at 0) a uniformly random time between zero and
+     * min(10 seconds, 1 second * 2^n). Retries are also limited by a retry budget
+     * of 100 units shared by the clients using the policy: each retry costs 5
+     * units and each successful response returns one.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        if (retryPolicy == null) {
+            throw new IllegalArgumentException("retryPolicy must not be null");
+        }
+        this.retryPolicy = retryPolicy;
+    }
+
+
+    /**
+     * @param retryPolicy Sets the policy used to retry throttled requests when
+     * auto retry on throttle is enabled. Defaults to 3 retries, waiting before
+     * retry n (starting at 0) a uniformly random time between zero and
+     * min(10 seconds, 1 second * 2^n). Retries are also limited by a retry budget
+     * of 100 units shared by the clients using the policy: each retry costs 5
+     * units and each successful response returns one.
+     *
+     * @return Returns updated PayConfig object
+     */
+    public PayConfig withRetryPolicy(RetryPolicy retryPolicy) {
+        setRetryPolicy(retryPolicy);
+        return this;
+    }
+
+
+    /**
+     * Returns how requests exceeding the client-side throttling quota are handled
+     *
+     * @return throttleMode
+     */
+    public ThrottleMode getThrottleMode() {
+        return throttleMode;
+    }
+
+
+    /**
+     * @param throttleMode Sets how requests exceeding the Amazon Pay throttling
+     * quota of their operation are handled by the client: QUEUE delays them,
+     * FAIL_FAST rejects them locally. Default is DISABLED.
+     */
+    public void setThrottleMode(ThrottleMode throttleMode) {
+        this.throttleMode = throttleMode;
+    }
+
+
+    /**
+     * @param throttleMode Sets how requests exceeding the Amazon Pay throttling
+     * quota of their operation are handled by the client: QUEUE delays them,
+     * FAIL_FAST rejects them locally. Default is DISABLED.
+     *
+     * @return Returns updated PayConfig object
+     */
+    public PayConfig withThrottleMode(ThrottleMode throttleMode) {
+        this.throttleMode = throttleMode;
+        return this;
+    }
+
+
+    /**
+     * Returns true if the details of Authorize, Capture, GetAuthorizationDetails
+     * and GetOrderReferenceDetails responses are bound on first use
+     *
+     * @return lazyResponseParsing
+     */
+    public boolean isLazyResponseParsing() {
+        return lazyResponseParsing;
+    }
+
+
+    /**
+     * @param lazyResponseParsing If set to true, the details of Authorize, Capture,
+     * GetAuthorizationDetails and GetOrderReferenceDetails responses are bound
+     * the first time getDetails is called, so callers that only read the status
+     * code or request id skip parsing them. Error responses still throw
+     * AmazonServiceException from the API call. Default is false.
+     */
+    public void setLazyResponseParsing(boolean lazyResponseParsing) {
+        this.lazyResponseParsing = lazyResponseParsing;
+    }
+
+
+    /**
+     * @param lazyResponseParsing If set to true, the details of Authorize, Capture,
+     * GetAuthorizationDetails and GetOrderReferenceDetails responses are bound
+     * the first time getDetails is called, so callers that only read the status
+     * code or request id skip parsing them. Error responses still throw
+     * AmazonServiceException from the API call. Default is false.
+     *
+     * @return Returns updated PayConfig object
+     */
+    public PayConfig withLazyResponseParsing(boolean lazyResponseParsing) {
+        this.lazyResponseParsing = lazyResponseParsing;
+        return this;
+    }
+
+
+    /**
+     * Returns how parsed response data keeps the raw response XML
+     *
+     * @return responseRetention
+     */
+    public ResponseRetention getResponseRetention() {
+        return responseRetention;
+    }
+
+
+    /**
+     * @param responseRetention Sets how response data returned by the client keeps
+     * the raw response XML once the response has been parsed: RETAIN keeps it,
+     * COMPRESS keeps it deflated and inflates it on every toXML or toJSON call,
+     * DISCARD drops it once the details are bound, which with lazy response parsing
+     * is the first getDetails call, after which toXML and toJSON throw
+     * IllegalStateException. Service exceptions always keep the XML of the error
+     * response. Default is RETAIN.
+     */
+    public void setResponseRetention(ResponseRetention responseRetention) {
+        if (responseRetention == null) {
+            throw new IllegalArgumentException("responseRetention must not be null");
+        }
+        this.responseRetention = responseRetention;
+    }
+
+
+    /**
+     * @param responseRetention Sets how response data returned by the client keeps
+     * the raw response XML once the response has been parsed: RETAIN keeps it,
+     * COMPRESS keeps it deflated and inflates it on every toXML or toJSON call,
+     * DISCARD drops it once the details are bound, which with lazy response parsing
+     * is the first getDetails call, after which toXML and toJSON throw
+     * IllegalStateException. Service exceptions always keep the XML of the error
+     * response. Default is RETAIN.
+     *
+     * @return Returns updated PayConfig object
+     */
+    public PayConfig withResponseRetention(ResponseRetention responseRetention) {
+        setResponseRetention(responseRetention);
+        return this;
+    }
+
+
+    /**
+     * Returns the throttling quota configured for the given operation
+     *
+     * @param action The API operation name, for example "Authorize"
+     * @return throttleQuota, or null if the documented quota applies
+     */
+    public ThrottleQuota getThrottleQuota(String action) {
+        return action != null ? throttleQuotas.get(action) : null;
+    }
+
+
+    /**
+     * Overrides the documented throttling quota of an operation, for example
+     * when Amazon Pay has granted the account a higher quota.
+     *
+     * @param action The API operation name, for example "Authorize"
+     * @param maxBurst Maximum request quota of the operation
+     * @param restoreRate Number of requests restored per second
+     *
+     * @return Returns updated PayConfig object
+     */
+    public PayConfig withThrottleQuota(String action, int maxBurst, double restoreRate) {
+        throttleQuotas.put(action, new ThrottleQuota(maxBurst, restoreRate));
+        return this;
+    }
+
+
     private PayConfig loadConfigurationFromProperties(Properties prop) {
         if (prop == null || prop.isEmpty())
             throw new IllegalArgumentException("Properties are empty, Need required propeties to proceed configuring amazon Pay client");
@@ -678,6 +970,27 @@ public class PayConfig implements Config  {
                         String overrideProfileURL = prop.getProperty(property);
                         this.setOverrideProfileURL(overrideProfileURL);
                         break;
+                    case CONNECT_TIMEOUT:
+                        this.setConnectTimeout(Integer.parseInt(prop.getProperty(property)));
+                        break;
+                    case READ_TIMEOUT:
+                        this.setReadTimeout(Integer.parseInt(prop.getProperty(property)));
+                        break;
+                    case MAX_CONNECTIONS:
+                        this.setMaxConnections(Integer.parseInt(prop.getProperty(property)));
+                        break;
+                    case MAX_RETRIES:
+                        this.retryPolicy.withMaxRetries(Integer.parseInt(prop.getProperty(property)));
+                        break;
+                    case THROTTLE_MODE:
+                        this.setThrottleMode(ThrottleMode.valueOf(prop.getProperty(property).toUpperCase()));
+                        break;
+                    case LAZY_RESPONSE_PARSING:
+                        this.setLazyResponseParsing(Boolean.valueOf(prop.getProperty(property)));
+                        break;
+                    case RESPONSE_RETENTION:
+                        this.setResponseRetention(ResponseRetention.valueOf(prop.getProperty(property).toUpperCase()));
+                        break;
                     default:
                         throw new AmazonClientException(("Client error, unable to set client configuration property [Key: "
                                 + property +", Value: " + prop.getProperty(property) + "]. " ));
@@ -743,6 +1056,14 @@ public class PayConfig implements Config  {
                 ", useAutoRetryOnThrottle=" + useAutoRetryOnThrottle +
                 ", overrideServiceURL=" + overrideServiceURL +
                 ", overrideProfileURL=" + overrideProfileURL +
+                ", connectTimeout=" + connectTimeout +
+                ", readTimeout=" + readTimeout +
+                ", maxConnections=" + maxConnections +
+                ", retryPolicy=" + retryPolicy +
+                ", throttleMode=" + throttleMode +
+                ", lazyResponseParsing=" + lazyResponseParsing +
+                ", responseRetention=" + responseRetention +
+                ", throttleQuotas=" + throttleQuotas +
                 "}";
     }
 
@@ -15,32 +15,29 @@
 package com.amazon.pay.impl;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 import com.amazon.pay.LogUtil;
 import com.amazon.pay.exceptions.AmazonClientException;
+import com.amazon.pay.response.parser.JAXBContextRegistry;
 
 public class PayLogUtil implements LogUtil{
 
@@ -53,6 +50,44 @@ public class PayLogUtil implements LogUtil{
         }
     }
 
+    /**
+     * Logs a failure that loses or delays data at warn level, which is
+     * logged even when debug logging is disabled
+     *
+     * @param message - message to log
+     */
+    public void logWarning(String message) {
+        if (log != null) {
+            log.warn(message);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return log != null && log.isDebugEnabled();
+    }
+
+    @Override
+    public void logMessage(MessageSupplier message) {
+        if (isEnabled()) {
+            log.debug(message.get());
+        }
+    }
+
+    private static final String REMOVED = "*** Removed ***";
+
+    private static final Set<String> RESTRICTED_DATA = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "SellerNote",
+            "SellerAuthorizationNote",
+            "SellerCaptureNote",
+            "SellerRefundNote",
+            "Buyer",
+            "PhysicalDestination",
+            "BillingAddress",
+            "AuthorizationBillingAddress")));
+
+    private static final RestrictedNames RESTRICTED_NAMES = new RestrictedNames(RESTRICTED_DATA);
+
     /**
      * @param responseData - Data that contains merchant's request
      *
@@ -60,22 +95,40 @@ public class PayLogUtil implements LogUtil{
      * BillingAddress, AuthorizationBillingAddress
      */
     public String sanitizeString(final String responseData) {
+        final StringWriter sw = new StringWriter(responseData.length());
+        sanitize(new StringReader(responseData), sw);
+        return sw.toString();
+    }
 
-        final List<String> restrictedDataList = new ArrayList<String>() {{
-            add("SellerNote");
-            add("SellerAuthorizationNote");
-            add("SellerCaptureNote");
-            add("SellerRefundNote");
-            add("Buyer");
-            add("PhysicalDestination");
-            add("BillingAddress");
-            add("AuthorizationBillingAddress");
-        }};
-
-        final String sanitizedData = getSanitizedData(responseData, restrictedDataList);
-        return sanitizedData;
+    /**
+     * Streams the XML read from data to out, replacing the content of SellerNote, SellerAuthorizationNote,
+     * SellerCaptureNote, SellerRefundNote, Buyer, PhysicalDestination, BillingAddress and
+     * AuthorizationBillingAddress elements. Memory use does not grow with the size of the document.
+     *
+     * @param data - XML to be sanitized
+     * @param out - sink the sanitized XML is written to
+     *
+     * @throws AmazonClientException - upon issue sanitizing data
+     */
+    public void sanitize(final Reader data, final Writer out) throws AmazonClientException {
+        new Redactor(RESTRICTED_NAMES).redact(data, out);
     }
 
+    /**
+     * Logs the sanitized form of the given XML after the given prefix. The redacted
+     * document is streamed straight into the log message without an intermediate copy.
+     *
+     * @param prefix - text logged before the sanitized XML
+     * @param data - XML to be sanitized
+     */
+    public void logSanitized(final String prefix, final String data) {
+        if (isEnabled()) {
+            final StringWriter sw = new StringWriter(prefix.length() + data.length());
+            sw.write(prefix);
+            sanitize(new StringReader(data), sw);
+            log.debug(sw.toString());
+        }
+    }
 
     /**
      * @param data  - data to be sanitized.
@@ -85,63 +138,227 @@ public class PayLogUtil implements LogUtil{
      * @throws AmazonClientException - upon issue sanitizing data
      */
     public String getSanitizedData(final String data, final List<String> removedata) throws AmazonClientException {
+        final StringWriter sw = new StringWriter(data.length());
+        new Redactor(new RestrictedNames(removedata)).redact(new StringReader(data), sw);
+        return sw.toString();
+    }
+
+    /**
+     * Element names whose content is removed, matched case-insensitively.
+     * Exact matches are a hash lookup; the case-insensitive fallback only runs
+     * for names whose length matches a restricted name.
+     */
+    private static final class RestrictedNames {
+        private final Set<String> names;
+        private final Set<String> caseInsensitiveNames = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+        private final BitSet lengths = new BitSet();
+
+        private RestrictedNames(Collection<String> names) {
+            this.names = new HashSet<String>(names);
+            this.caseInsensitiveNames.addAll(names);
+            for (String name : names) {
+                lengths.set(name.length());
+            }
+        }
 
-        try {
-            final DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-
-            // settings for XXE: External Entity Prevention
-            // see https://github.com/OWASP/CheatSheetSeries/blob/master/cheatsheets/XML_External_Entity_Prevention_Cheat_Sheet.md
-            dbf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-            dbf.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            dbf.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-            dbf.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-            dbf.setXIncludeAware(false);
-            dbf.setExpandEntityReferences(false);
-
-            final DocumentBuilder db = dbf.newDocumentBuilder();
-            final InputSource is = new InputSource();
-            is.setCharacterStream(new StringReader(data));
-
-            final Document doc = db.parse(is);
-
-            final NodeList list = doc.getElementsByTagName("*");
-            for (int i = 0; i < list.getLength(); i++) {
-                //Get Node
-                final Node node = (Node) list.item(i);
-
-                final Iterator<String> j = removedata.iterator();
-                while (j.hasNext()) {
-                    final String item = j.next();
-                    if (node.getNodeName().equalsIgnoreCase(item)) {
-                        node.setTextContent("*** Removed ***");
+        private boolean contains(String name) {
+            return names.contains(name) || (lengths.get(name.length()) && caseInsensitiveNames.contains(name));
+        }
+    }
+
+    /**
+     * Single-pass StAX copy of an XML document that writes the same
+     * serialization as the JAXP identity Transformer did for the root element.
+     */
+    private static final class Redactor {
+        private final RestrictedNames restricted;
+        private boolean startTagOpen;
+
+        private Redactor(RestrictedNames restricted) {
+            this.restricted = restricted;
+        }
+
+        private void redact(Reader data, Writer out) {
+            XMLStreamReader reader = null;
+            try {
+                reader = JAXBContextRegistry.createXMLStreamReader(data);
+                out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+                int depth = 0;
+                while (reader.hasNext()) {
+                    final int event = reader.next();
+                    switch (event) {
+                        case XMLStreamConstants.START_ELEMENT:
+                            writeStartElement(reader, out);
+                            depth++;
+                            if (restricted.contains(reader.getLocalName())) {
+                                closeStartTag(out);
+                                out.write(REMOVED);
+                                skipElement(reader);
+                                writeEndElement(reader, out);
+                                depth--;
+                            }
+                            break;
+                        case XMLStreamConstants.END_ELEMENT:
+                            writeEndElement(reader, out);
+                            depth--;
+                            break;
+                        case XMLStreamConstants.CHARACTERS:
+                        case XMLStreamConstants.SPACE:
+                        case XMLStreamConstants.ENTITY_REFERENCE:
+                            if (depth > 0) {
+                                closeStartTag(out);
+                                writeEscaped(out, reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength(), false);
+                            }
+                            break;
+                        case XMLStreamConstants.CDATA:
+                            if (depth > 0) {
+                                closeStartTag(out);
+                                out.write("<![CDATA[");
+                                out.write(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                                out.write("]]>");
+                            }
+                            break;
+                        case XMLStreamConstants.COMMENT:
+                            if (depth > 0) {
+                                closeStartTag(out);
+                                out.write("<!--");
+                                out.write(reader.getText());
+                                out.write("-->");
+                            }
+                            break;
+                        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                            if (depth > 0) {
+                                closeStartTag(out);
+                                out.write("<?");
+                                out.write(reader.getPITarget());
+                                if (reader.getPIData() != null && reader.getPIData().length() > 0) {
+                                    out.write(' ');
+                                    out.write(reader.getPIData());
+                                }
+                                out.write("?>");
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                out.flush();
+            } catch (XMLStreamException e) {
+                throw new AmazonClientException("Encountered XMLStreamException:", e);
+            } catch (IOException e) {
+                throw new AmazonClientException("Encountered IOException:", e);
+            } finally {
+                if (reader != null) {
+                    try {
+                        reader.close();
+                    } catch (XMLStreamException e) {
+                        // nothing left to release
                     }
                 }
             }
+        }
 
-            final TransformerFactory tf = TransformerFactory.newInstance();
-
-            // settings for XXE: External Entity Prevention
-            // XMLConstants we need were introduced in Java 7, but we need to maintain backward compatibility
-            // with Java 6 in this SDK, so we reference them as their native strings
-            tf.setAttribute("http://javax.xml.XMLConstants/property/accessExternalDTD", ""); // XMLConstants.ACCESS_EXTERNAL_DTD
-            tf.setAttribute("http://javax.xml.XMLConstants/property/accessExternalStylesheet", ""); // XMLConstants.ACCESS_EXTERNAL_STYLESHEET
-
-            final Transformer serializer = tf.newTransformer();
-            final StringWriter sw = new StringWriter();
-            serializer.transform(new DOMSource(list.item(0)), new StreamResult(sw));
-
-            final String result = sw.toString();
-            return result;
-        } catch (ParserConfigurationException e) {
-            throw new AmazonClientException("Encountered UnsupportedEncodingException:", e);
-        } catch (SAXException e) {
-            throw new AmazonClientException("Encountered SAXException:", e);
-        } catch (IOException e) {
-            throw new AmazonClientException("Encountered IOException:", e);
-        } catch (TransformerConfigurationException e) {
-            throw new AmazonClientException("Encountered a Transformer Configuration Exception:", e);
-        } catch (TransformerException e) {
-            throw new AmazonClientException("Encountered a Transformer Exception:", e);
+        private void writeStartElement(XMLStreamReader reader, Writer out) throws IOException {
+            closeStartTag(out);
+            out.write('<');
+            writeQName(out, reader.getPrefix(), reader.getLocalName());
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                final String prefix = reader.getNamespacePrefix(i);
+                out.write(" xmlns");
+                if (prefix != null && prefix.length() > 0) {
+                    out.write(':');
+                    out.write(prefix);
+                }
+                out.write("=\"");
+                writeEscaped(out, reader.getNamespaceURI(i), true);
+                out.write('"');
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                out.write(' ');
+                writeQName(out, reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+                out.write("=\"");
+                writeEscaped(out, reader.getAttributeValue(i), true);
+                out.write('"');
+            }
+            startTagOpen = true;
+        }
+
+        private void writeEndElement(XMLStreamReader reader, Writer out) throws IOException {
+            if (startTagOpen) {
+                // Elements without content are written as empty-element tags
+                out.write("/>");
+                startTagOpen = false;
+                return;
+            }
+            out.write("</");
+            writeQName(out, reader.getPrefix(), reader.getLocalName());
+            out.write('>');
+        }
+
+        private void closeStartTag(Writer out) throws IOException {
+            if (startTagOpen) {
+                out.write('>');
+                startTagOpen = false;
+            }
+        }
+
+        /**
+         * Advances the reader to the END_ELEMENT matching the current START_ELEMENT
+         */
+        private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+            int depth = 1;
+            while (depth > 0) {
+                final int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        }
+
+        private static void writeQName(Writer out, String prefix, String localName) throws IOException {
+            if (prefix != null && prefix.length() > 0) {
+                out.write(prefix);
+                out.write(':');
+            }
+            out.write(localName);
+        }
+
+        private static void writeEscaped(Writer out, String text, boolean attribute) throws IOException {
+            if (text != null) {
+                writeEscaped(out, text.toCharArray(), 0, text.length(), attribute);
+            }
+        }
+
+        private static void writeEscaped(Writer out, char[] text, int start, int length, boolean attribute) throws IOException {
+            int written = start;
+            final int end = start + length;
+            for (int i = start; i < end; i++) {
+                final String replacement;
+                switch (text[i]) {
+                    case '&':
+                        replacement = "&amp;";
+                        break;
+                    case '<':
+                        replacement = "&lt;";
+                        break;
+                    case '>':
+                        replacement = "&gt;";
+                        break;
+                    case '"':
+                        replacement = attribute ? "&quot;" : null;
+                        break;
+                    default:
+                        replacement = null;
+                }
+                if (replacement != null) {
+                    out.write(text, written, i - written);
+                    out.write(replacement);
+                    written = i + 1;
+                }
+            }
+            out.write(text, written, end - written);
         }
     }
 
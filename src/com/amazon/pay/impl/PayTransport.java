@@ -0,0 +1,287 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl;
+
+import com.amazon.pay.Transport;
+import com.amazon.pay.response.parser.ResponseData;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Default Transport implementation built on HttpURLConnection.
+ *
+ * Connections are kept alive and reused through the JDK keep-alive cache:
+ * every response stream is fully drained and closed, and the connection is
+ * never disconnected explicitly.  Idle connections are evicted by the JDK
+ * cache once the server keep-alive timeout expires.  The number of
+ * connections open to a single endpoint at any time is bounded by
+ * PayConfig.getMaxConnections(), which is read on every request so that a
+ * changed limit also applies to endpoints already in use.
+ */
+public class PayTransport implements Transport {
+
+    private final PayConfig config;
+    private final ConcurrentMap<String, EndpointPermits> endpointPermits = new ConcurrentHashMap<String, EndpointPermits>();
+    private final CountingSSLSocketFactory socketFactory;
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /**
+     * Creates a transport that takes its timeouts and pool bound from the given configuration
+     *
+     * @param config client configuration container
+     */
+    public PayTransport(PayConfig config) {
+        this.config = config;
+        this.socketFactory = new CountingSSLSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory());
+    }
+
+    @Override
+    public ResponseData send(String method, String url, String body, Map<String,String> headers) throws IOException {
+        final URL obj = new URL(url);
+        final EndpointPermits permits = getPermits(obj);
+        try {
+            if (!permits.tryAcquire(config.getConnectTimeout(), TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out waiting for a connection to " + obj.getHost());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection to " + obj.getHost());
+        }
+
+        try {
+            requestCount.incrementAndGet();
+            return execute(obj, method, body, headers);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private ResponseData execute(URL obj, String method, String body, Map<String,String> headers) throws IOException {
+        final HttpURLConnection con = (HttpURLConnection) obj.openConnection();
+        if (con instanceof HttpsURLConnection) {
+            // A single factory instance per transport keeps the JDK keep-alive cache key stable
+            ((HttpsURLConnection) con).setSSLSocketFactory(socketFactory);
+        }
+        con.setConnectTimeout(config.getConnectTimeout());
+        con.setReadTimeout(config.getReadTimeout());
+
+        if (headers != null && !headers.isEmpty()) {
+            for (Map.Entry<String,String> header : headers.entrySet()) {
+                con.setRequestProperty(header.getKey(), header.getValue());
+            }
+        }
+        con.setDoOutput(true);
+        con.setRequestMethod(method);
+        if (body != null) {
+            final OutputStream out = con.getOutputStream();
+            try {
+                out.write(body.getBytes("UTF-8"));
+                out.flush();
+            } finally {
+                out.close();
+            }
+        }
+
+        final int responseCode = con.getResponseCode();
+        final InputStream stream = (responseCode != 200) ? con.getErrorStream() : con.getInputStream();
+        final StringBuilder response = new StringBuilder();
+        if (stream != null) {
+            // Draining and closing the stream returns the connection to the keep-alive cache
+            final BufferedReader in = new BufferedReader(new InputStreamReader(stream, "UTF-8"));
+            try {
+                String inputLine;
+                while ((inputLine = in.readLine()) != null) {
+                    response.append(inputLine).append(Util.LINE_SEPARATOR);
+                }
+            } finally {
+                in.close();
+            }
+        }
+        return new ResponseData(responseCode, response.toString(), Util.getResponseHeaders(con));
+    }
+
+    private EndpointPermits getPermits(URL url) {
+        final int port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+        final String endpoint = url.getProtocol() + "://" + url.getHost() + ":" + port;
+        final int maxConnections = config.getMaxConnections();
+        EndpointPermits permits = endpointPermits.get(endpoint);
+        if (permits == null) {
+            final EndpointPermits created = new EndpointPermits(maxConnections);
+            permits = endpointPermits.putIfAbsent(endpoint, created);
+            if (permits == null) {
+                permits = created;
+            }
+        }
+        // Picks up PayConfig.setMaxConnections changes made after the endpoint was first used
+        permits.resize(maxConnections);
+        return permits;
+    }
+
+    /**
+     * Returns the number of requests sent through this transport
+     *
+     * @return requestCount
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Returns the number of new TLS connections opened by this transport.
+     * Each new connection pays a full TLS handshake.
+     *
+     * @return connectionsOpened
+     */
+    public long getConnectionsOpened() {
+        return socketFactory.connectionsOpened.get();
+    }
+
+    /**
+     * Returns the number of requests that were served over an already open
+     * connection, computed for HTTPS endpoints as requests minus connections opened.
+     *
+     * @return connectionsReused
+     */
+    public long getConnectionsReused() {
+        return Math.max(0, getRequestCount() - getConnectionsOpened());
+    }
+
+    /**
+     * Returns the number of connections currently in use for the given endpoint URL
+     *
+     * @param url Endpoint URL
+     * @return connections in use
+     * @throws IOException If the URL is malformed
+     */
+    public int getLeasedConnections(String url) throws IOException {
+        return getPermits(new URL(url)).getLeased();
+    }
+
+    /**
+     * Fair semaphore bounding the connections open to one endpoint, resized
+     * when the configured maximum changes. Shrinking it leaves connections
+     * already leased alone; new requests wait until the lease count is below
+     * the new maximum.
+     */
+    private static final class EndpointPermits extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        private volatile int size;
+
+        private EndpointPermits(int size) {
+            super(size, true);
+            this.size = size;
+        }
+
+        private void resize(int newSize) {
+            if (newSize == size) {
+                return;
+            }
+            synchronized (this) {
+                if (newSize > size) {
+                    release(newSize - size);
+                } else if (newSize < size) {
+                    reducePermits(size - newSize);
+                }
+                size = newSize;
+            }
+        }
+
+        private synchronized int getLeased() {
+            return size - availablePermits();
+        }
+    }
+
+    /**
+     * SSLSocketFactory that counts the TLS sockets it creates
+     */
+    private static final class CountingSSLSocketFactory extends SSLSocketFactory {
+
+        private final SSLSocketFactory delegate;
+        private final AtomicLong connectionsOpened = new AtomicLong();
+
+        private CountingSSLSocketFactory(SSLSocketFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String[] getDefaultCipherSuites() {
+            return delegate.getDefaultCipherSuites();
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return delegate.getSupportedCipherSuites();
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            connectionsOpened.incrementAndGet();
+            return delegate.createSocket();
+        }
+
+        @Override
+        public Socket createSocket(Socket s, String host, int port, boolean autoClose) throws IOException {
+            // Layering over a plain socket (for example through a proxy) starts a new TLS session
+            if (!(s instanceof SSLSocket)) {
+                connectionsOpened.incrementAndGet();
+            }
+            return delegate.createSocket(s, host, port, autoClose);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            connectionsOpened.incrementAndGet();
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            connectionsOpened.incrementAndGet();
+            return delegate.createSocket(host, port, localHost, localPort);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            connectionsOpened.incrementAndGet();
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            connectionsOpened.incrementAndGet();
+            return delegate.createSocket(address, port, localAddress, localPort);
+        }
+    }
+
+}
@@ -0,0 +1,286 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl;
+
+import com.amazon.pay.exceptions.AmazonClientException;
+import com.amazon.pay.response.parser.ResponseData;
+import com.amazon.pay.types.ServiceConstants;
+import com.amazon.pay.types.ThrottleMode;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side rate limiter that keeps requests within the Amazon Pay
+ * throttling quotas, using one token bucket per (SellerId, Action) pair.
+ *
+ * Buckets start full with the operation's maximum burst and are restored at
+ * the operation's restore rate.  Quotas come from PayConfig overrides, then
+ * from the documented Amazon Pay quotas, then from DEFAULT_QUOTA.
+ *
+ * The x-mws-quota-* headers of each response adapt the bucket to the hourly
+ * quota reported by the service: once less than ADAPTIVE_THRESHOLD of the
+ * quota remains, requests are spaced so that the remaining quota lasts until
+ * it resets, and when none remains requests wait (or fail) until the reset.
+ */
+public class RequestThrottler {
+
+    /**
+     * Quota used for operations without a documented or configured quota
+     */
+    public static final ThrottleQuota DEFAULT_QUOTA = new ThrottleQuota(10, 1);
+
+    /**
+     * Fraction of the hourly quota below which requests are spaced out
+     */
+    public static final double ADAPTIVE_THRESHOLD = 0.2;
+
+    // Get*Details: burst of 20, one request restored every 2 seconds
+    private static final ThrottleQuota READ_QUOTA = new ThrottleQuota(20, 0.5);
+    // Mutating operations: burst of 10, one request restored every second
+    private static final ThrottleQuota WRITE_QUOTA = new ThrottleQuota(10, 1);
+
+    /**
+     * Documented Amazon Pay throttling quotas per operation
+     */
+    public static final Map<String, ThrottleQuota> DOCUMENTED_QUOTAS;
+
+    static {
+        final Map<String, ThrottleQuota> quotas = new HashMap<String, ThrottleQuota>();
+        quotas.put(ServiceConstants.GET_ORDER_REFERENCE_DETAILS, READ_QUOTA);
+        quotas.put(ServiceConstants.GET_AUTHORIZATION_DETAILS, READ_QUOTA);
+        quotas.put(ServiceConstants.GET_CAPTURE_DETAILS, READ_QUOTA);
+        quotas.put(ServiceConstants.GET_REFUND_DETAILS, READ_QUOTA);
+        quotas.put(ServiceConstants.GET_BILLING_AGREEMENT_DETAILS, READ_QUOTA);
+        quotas.put(ServiceConstants.GET_PROVIDER_CREDIT_DETAILS, READ_QUOTA);
+        quotas.put(ServiceConstants.GET_REVERSE_PROVIDER_CREDIT_DETAILS, READ_QUOTA);
+        quotas.put(ServiceConstants.AUTHORIZE, WRITE_QUOTA);
+        quotas.put(ServiceConstants.AUTHORIZE_BILLING_AGREEMENT_DETAILS, WRITE_QUOTA);
+        quotas.put(ServiceConstants.CAPTURE, WRITE_QUOTA);
+        quotas.put(ServiceConstants.REFUND, WRITE_QUOTA);
+        quotas.put(ServiceConstants.CLOSE_AUTHORIZATION, WRITE_QUOTA);
+        quotas.put(ServiceConstants.CANCEL_ORDER_REFERENCE, WRITE_QUOTA);
+        quotas.put(ServiceConstants.CLOSE_ORDER_REFERENCE, WRITE_QUOTA);
+        quotas.put(ServiceConstants.CONFIRM_ORDER_REFERENCE, WRITE_QUOTA);
+        quotas.put(ServiceConstants.SET_ORDER_REFERENCE_DETAILS, WRITE_QUOTA);
+        quotas.put(ServiceConstants.SET_ORDER_ATTRIBUTES, WRITE_QUOTA);
+        quotas.put(ServiceConstants.CREATE_ORDER_REFERENCE_FOR_ID, WRITE_QUOTA);
+        quotas.put(ServiceConstants.SET_BILLING_AGREEMENT_DETAILS, WRITE_QUOTA);
+        quotas.put(ServiceConstants.CONFIRM_BILLING_AGREEMENT_DETAILS, WRITE_QUOTA);
+        quotas.put(ServiceConstants.VALIDATE_BILLING_AGREEMENT_DETAILS, WRITE_QUOTA);
+        quotas.put(ServiceConstants.CLOSE_BILLING_AGREEMENT_DETAILS, WRITE_QUOTA);
+        quotas.put(ServiceConstants.REVERSE_PROVIDER_CREDIT_DETAILS, WRITE_QUOTA);
+        quotas.put(ServiceConstants.LIST_ORDER_REFERENCE, WRITE_QUOTA);
+        quotas.put(ServiceConstants.LIST_ORDER_REFERENCE_BY_NEXT_TOKEN, WRITE_QUOTA);
+        // GetServiceStatus: burst of 2, one request restored every 5 minutes
+        quotas.put(ServiceConstants.GET_SERVICE_STATUS, new ThrottleQuota(2, 1.0 / 300));
+        DOCUMENTED_QUOTAS = Collections.unmodifiableMap(quotas);
+    }
+
+    private final PayConfig payConfig;
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<String, TokenBucket>();
+
+    /**
+     * Creates a throttler that reads its mode and quota overrides from the given configuration
+     *
+     * @param payConfig client configuration container
+     */
+    public RequestThrottler(PayConfig payConfig) {
+        this.payConfig = payConfig;
+    }
+
+    /**
+     * Takes a permit for one request of the given operation.
+     *
+     * @param sellerId SellerId the request is sent for
+     * @param action The API operation name, for example "Authorize"
+     * @return Time in milliseconds the caller must wait before sending the request;
+     *         0 if it can be sent immediately
+     * @throws AmazonClientException In FAIL_FAST mode, if the quota is exhausted
+     */
+    public long acquire(String sellerId, String action) {
+        final ThrottleMode mode = payConfig.getThrottleMode();
+        if (mode == null || mode == ThrottleMode.DISABLED || action == null) {
+            return 0;
+        }
+        final TokenBucket bucket = getBucket(sellerId, action);
+        if (mode == ThrottleMode.FAIL_FAST) {
+            if (!bucket.tryTake()) {
+                throw new AmazonClientException("Request throttled by client: quota for " + action + " exhausted");
+            }
+            return 0;
+        }
+        return bucket.reserve();
+    }
+
+    /**
+     * Adapts the bucket of the request to the quota reported in the response headers.
+     *
+     * @param httpPostRequest URL-encoded request parameters
+     * @param response Response to the request
+     */
+    public void onResponse(String httpPostRequest, ResponseData response) {
+        final ThrottleMode mode = payConfig.getThrottleMode();
+        if (mode == null || mode == ThrottleMode.DISABLED || response == null) {
+            return;
+        }
+        final Double quotaMax = response.getQuotaMax();
+        final Double quotaRemaining = response.getQuotaRemaining();
+        final Date resetsOn = parseTimestamp(response.getQuotaResetsOn());
+        final String action = Util.getParameterValue(httpPostRequest, ServiceConstants.ACTION);
+        if (quotaMax == null || quotaRemaining == null || resetsOn == null || action == null) {
+            return;
+        }
+        final long resetsIn = Math.max(0, resetsOn.getTime() - System.currentTimeMillis());
+        getBucket(Util.getParameterValue(httpPostRequest, ServiceConstants.SELLER_ID), action)
+                .adapt(quotaMax, quotaRemaining, TimeUnit.MILLISECONDS.toNanos(resetsIn));
+    }
+
+    private static Date parseTimestamp(String timestamp) {
+        if (timestamp == null) {
+            return null;
+        }
+        final String[] patterns = { "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", "yyyy-MM-dd'T'HH:mm:ss'Z'" };
+        for (String pattern : patterns) {
+            // SimpleDateFormat is not thread-safe
+            final SimpleDateFormat format = new SimpleDateFormat(pattern);
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            try {
+                return format.parse(timestamp.trim());
+            } catch (ParseException e) {
+                // try the next pattern
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes a permit for the request in the given POST body, reading SellerId and Action from it.
+     *
+     * @param httpPostRequest URL-encoded request parameters
+     * @return Time in milliseconds the caller must wait before sending the request
+     * @throws AmazonClientException In FAIL_FAST mode, if the quota is exhausted
+     */
+    public long acquire(String httpPostRequest) {
+        return acquire(Util.getParameterValue(httpPostRequest, ServiceConstants.SELLER_ID),
+                Util.getParameterValue(httpPostRequest, ServiceConstants.ACTION));
+    }
+
+    /**
+     * Returns the quota applied to the given operation
+     *
+     * @param action The API operation name
+     * @return The configured, documented or default quota
+     */
+    public ThrottleQuota getQuota(String action) {
+        ThrottleQuota quota = payConfig.getThrottleQuota(action);
+        if (quota == null) {
+            quota = DOCUMENTED_QUOTAS.get(action);
+        }
+        return quota != null ? quota : DEFAULT_QUOTA;
+    }
+
+    private TokenBucket getBucket(String sellerId, String action) {
+        final String key = sellerId + "/" + action;
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            final TokenBucket created = new TokenBucket(getQuota(action));
+            bucket = buckets.putIfAbsent(key, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * Token bucket whose balance may go negative: each negative token is a
+     * request queued for a future slot.  Adaptive pacing adds a minimum
+     * interval between dispatches on top of the token balance.
+     */
+    private static final class TokenBucket {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefill;
+        private long pacingInterval;
+        private long nextDispatch;
+        private long blockedUntil;
+
+        private TokenBucket(ThrottleQuota quota) {
+            this.capacity = quota.getMaxBurst();
+            this.tokensPerNano = quota.getRestoreRate() / 1000000000.0;
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+            this.nextDispatch = lastRefill;
+            this.blockedUntil = lastRefill;
+        }
+
+        synchronized boolean tryTake() {
+            final long now = refill();
+            if (tokens < 1 || now - nextDispatch < 0 || now - blockedUntil < 0) {
+                return false;
+            }
+            tokens -= 1;
+            nextDispatch = now + pacingInterval;
+            return true;
+        }
+
+        synchronized long reserve() {
+            final long now = refill();
+            tokens -= 1;
+            long dispatchAt = tokens >= 0 ? now : now + (long) Math.ceil(-tokens / tokensPerNano);
+            if (dispatchAt - nextDispatch < 0) {
+                dispatchAt = nextDispatch;
+            }
+            if (dispatchAt - blockedUntil < 0) {
+                dispatchAt = blockedUntil;
+            }
+            nextDispatch = dispatchAt + pacingInterval;
+            return (long) Math.ceil((dispatchAt - now) / 1000000.0);
+        }
+
+        synchronized void adapt(double quotaMax, double quotaRemaining, long resetsIn) {
+            final long now = System.nanoTime();
+            if (quotaRemaining < 1) {
+                pacingInterval = 0;
+                blockedUntil = now + resetsIn;
+            } else if (quotaRemaining < quotaMax * ADAPTIVE_THRESHOLD) {
+                pacingInterval = (long) (resetsIn / quotaRemaining);
+                blockedUntil = now;
+            } else {
+                pacingInterval = 0;
+                blockedUntil = now;
+            }
+        }
+
+        private long refill() {
+            final long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+            return now;
+        }
+    }
+
+}
@@ -0,0 +1,270 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl;
+
+import com.amazon.pay.types.ServiceConstants;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Controls how throttled (503) and InternalServerError (500) responses are retried
+ * when auto retry on throttle is enabled in PayConfig.
+ *
+ * The wait before retry n (starting at 0) is chosen uniformly at random between
+ * zero and min(maxDelay, baseDelay * 2^n) ("full jitter"), which spreads retries
+ * from many clients over time instead of having them hit the service together.
+ *
+ * Every retry is also paid for from a retry budget shared by all clients using
+ * this policy.  A retry costs RETRY_COST units and every successful response
+ * returns one unit, up to the budget capacity.  When the service keeps failing
+ * the budget drains and requests fail fast instead of multiplying the load.
+ */
+public class RetryPolicy {
+
+    /**
+     * Budget units withdrawn for every retry
+     */
+    public static final int RETRY_COST = 5;
+
+    /**
+     * Default budget capacity, allowing 20 retries without any successful response in between
+     */
+    public static final int DEFAULT_RETRY_BUDGET = 100;
+
+    private static final Random random = new Random();
+
+    private int maxRetries = ServiceConstants.MAX_RETRIES;
+    private long baseDelay = ServiceConstants.FIRST_RETRY_WAIT_TIME;
+    private long maxDelay = ServiceConstants.THIRD_RETRY_WAIT_TIME;
+    private int retryBudget = DEFAULT_RETRY_BUDGET;
+    private final Map<String, Integer> operationMaxRetries = new ConcurrentHashMap<String, Integer>();
+    private final AtomicInteger availableBudget = new AtomicInteger(DEFAULT_RETRY_BUDGET);
+
+    /**
+     * Returns the maximum number of retries for operations without an override
+     *
+     * @return maxRetries
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Returns the maximum number of retries for the given operation
+     *
+     * @param action The API operation name, for example "Authorize"
+     * @return maxRetries for the operation
+     */
+    public int getMaxRetries(String action) {
+        final Integer override = action != null ? operationMaxRetries.get(action) : null;
+        return override != null ? override : maxRetries;
+    }
+
+    /**
+     * @param maxRetries Sets the maximum number of retries for operations without an override.
+     * Default is 3.
+     *
+     * @return Returns updated RetryPolicy object
+     */
+    public RetryPolicy withMaxRetries(int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative");
+        }
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * @param action The API operation name, for example "Authorize"
+     * @param maxRetries Sets the maximum number of retries for this operation only
+     *
+     * @return Returns updated RetryPolicy object
+     */
+    public RetryPolicy withMaxRetries(String action, int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative");
+        }
+        operationMaxRetries.put(action, maxRetries);
+        return this;
+    }
+
+    /**
+     * Returns the base delay in milliseconds
+     *
+     * @return baseDelay
+     */
+    public long getBaseDelay() {
+        return baseDelay;
+    }
+
+    /**
+     * @param baseDelay Sets the upper bound in milliseconds of the wait before the first retry.
+     * Default is 1 second.
+     *
+     * @return Returns updated RetryPolicy object
+     */
+    public RetryPolicy withBaseDelay(long baseDelay) {
+        if (baseDelay < 0) {
+            throw new IllegalArgumentException("baseDelay must not be negative");
+        }
+        this.baseDelay = baseDelay;
+        return this;
+    }
+
+    /**
+     * Returns the maximum delay in milliseconds
+     *
+     * @return maxDelay
+     */
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * @param maxDelay Sets the upper bound in milliseconds of the wait before any retry.
+     * Default is 10 seconds.
+     *
+     * @return Returns updated RetryPolicy object
+     */
+    public RetryPolicy withMaxDelay(long maxDelay) {
+        if (maxDelay < 0) {
+            throw new IllegalArgumentException("maxDelay must not be negative");
+        }
+        this.maxDelay = maxDelay;
+        return this;
+    }
+
+    /**
+     * Returns the retry budget capacity
+     *
+     * @return retryBudget
+     */
+    public int getRetryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * Returns the budget units currently available for retries
+     *
+     * @return available retry budget
+     */
+    public int getAvailableRetryBudget() {
+        return availableBudget.get();
+    }
+
+    /**
+     * @param retryBudget Sets the retry budget capacity; each retry costs RETRY_COST units.
+     * Default is 100. The available budget is reset to the new capacity.
+     *
+     * @return Returns updated RetryPolicy object
+     */
+    public RetryPolicy withRetryBudget(int retryBudget) {
+        if (retryBudget < 0) {
+            throw new IllegalArgumentException("retryBudget must not be negative");
+        }
+        this.retryBudget = retryBudget;
+        this.availableBudget.set(retryBudget);
+        return this;
+    }
+
+    /**
+     * Returns true if the response status code indicates the request may succeed when retried
+     *
+     * @param statusCode HTTP status code of the response
+     * @return true for 500 and 503
+     */
+    public boolean isRetryable(int statusCode) {
+        // 503 status code is returned when request is throttled and 500 is returned for InternalServerError
+        return statusCode == 503 || statusCode == 500;
+    }
+
+    /**
+     * Decides whether a response should be retried and, if so, withdraws the
+     * cost of the retry from the retry budget.
+     *
+     * @param action The API operation name, may be null
+     * @param statusCode HTTP status code of the response
+     * @param retriesAttempted Number of retries already sent for this request
+     * @return true if the request should be retried
+     */
+    public boolean shouldRetry(String action, int statusCode, int retriesAttempted) {
+        if (!isRetryable(statusCode) || retriesAttempted >= getMaxRetries(action)) {
+            return false;
+        }
+        return acquireBudget();
+    }
+
+    /**
+     * Returns the wait in milliseconds before the given retry, using full jitter
+     *
+     * @param retriesAttempted Number of retries already sent for this request
+     * @return delay in milliseconds
+     */
+    public long computeDelay(int retriesAttempted) {
+        long ceiling = baseDelay;
+        for (int i = 0; i < retriesAttempted && ceiling < maxDelay; i++) {
+            ceiling <<= 1;
+        }
+        final long bound = Math.min(maxDelay, ceiling);
+        if (bound <= 0) {
+            return 0;
+        }
+        return (long) (random.nextDouble() * (bound + 1));
+    }
+
+    /**
+     * Records a response so that successful responses refill the retry budget
+     *
+     * @param statusCode HTTP status code of the response
+     */
+    public void onResponse(int statusCode) {
+        if (statusCode != 200) {
+            return;
+        }
+        int current;
+        do {
+            current = availableBudget.get();
+            if (current >= retryBudget) {
+                return;
+            }
+        } while (!availableBudget.compareAndSet(current, current + 1));
+    }
+
+    private boolean acquireBudget() {
+        int current;
+        do {
+            current = availableBudget.get();
+            if (current < RETRY_COST) {
+                return false;
+            }
+        } while (!availableBudget.compareAndSet(current, current - RETRY_COST));
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxRetries=" + maxRetries +
+                ", baseDelay=" + baseDelay +
+                ", maxDelay=" + maxDelay +
+                ", retryBudget=" + retryBudget +
+                ", operationMaxRetries=" + operationMaxRetries +
+                '}';
+    }
+
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl;
+
+/**
+ * Throttling quota of an Amazon Pay API operation: the maximum number of
+ * requests that can be sent in a burst, and the rate at which the quota
+ * is restored afterwards.
+ */
+public final class ThrottleQuota {
+
+    private final int maxBurst;
+    private final double restoreRate;
+
+    /**
+     * @param maxBurst Maximum request quota
+     * @param restoreRate Number of requests restored per second
+     */
+    public ThrottleQuota(int maxBurst, double restoreRate) {
+        if (maxBurst < 1) {
+            throw new IllegalArgumentException("maxBurst must be at least 1");
+        }
+        if (restoreRate <= 0) {
+            throw new IllegalArgumentException("restoreRate must be positive");
+        }
+        this.maxBurst = maxBurst;
+        this.restoreRate = restoreRate;
+    }
+
+    /**
+     * Returns the maximum request quota
+     *
+     * @return maxBurst
+     */
+    public int getMaxBurst() {
+        return maxBurst;
+    }
+
+    /**
+     * Returns the number of requests restored per second
+     *
+     * @return restoreRate
+     */
+    public double getRestoreRate() {
+        return restoreRate;
+    }
+
+    @Override
+    public String toString() {
+        return "ThrottleQuota{" +
+                "maxBurst=" + maxBurst +
+                ", restoreRate=" + restoreRate +
+                '}';
+    }
+
+}
@@ -40,6 +40,7 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.TimeZone;
@@ -108,7 +109,9 @@ public class Util {
      */
     public static ResponseData httpSendRequest(String method, String url, String urlParameters, Map<String,String> headers) throws IOException {
 
-        payLogUtil.logMessage("Request:\nURL=" + url + "\nPOST Data=" + urlParameters);
+        if (payLogUtil.isEnabled()) {
+            payLogUtil.logMessage("Request:\nURL=" + url + "\nPOST Data=" + urlParameters);
+        }
 
         URL obj = new URL(url);
         HttpURLConnection con = (HttpURLConnection) obj.openConnection();
@@ -142,7 +145,26 @@ public class Util {
             response.append(inputLine).append(LINE_SEPARATOR);
         }
         in.close();
-        return new ResponseData(responseCode, response.toString());
+        return new ResponseData(responseCode, response.toString(), getResponseHeaders(con));
+    }
+
+    /**
+     * Returns the response headers of a connection, keeping the last value
+     * of headers that occur more than once.
+     *
+     * @param con Connection whose response has been received
+     * @return Header name-value pairs
+     */
+    static Map<String,String> getResponseHeaders(HttpURLConnection con) {
+        final Map<String,String> headers = new HashMap<String,String>();
+        for (Map.Entry<String, List<String>> header : con.getHeaderFields().entrySet()) {
+            final List<String> values = header.getValue();
+            // The status line is returned with a null key
+            if (header.getKey() != null && values != null && !values.isEmpty()) {
+                headers.put(header.getKey(), values.get(values.size() - 1));
+            }
+        }
+        return headers;
     }
 
 
@@ -162,6 +184,46 @@ public class Util {
      *         by failed or interrupted I/O operations.
      */
     public static ResponseData httpSendRequest(String method, String url, String urlParameters, Map<String,String> headers, PayConfig config) throws IOException {
+        ResponseData response = Util.httpSendRequest(method, url, urlParameters, prepareRequestHeaders(headers, config));
+        return response;
+    }
+
+    /**
+     * Returns the value of a parameter from a URL-encoded parameter string
+     * without decoding it.
+     *
+     * @param parameters URL-encoded parameters, for example a POST body
+     * @param name Parameter name
+     * @return The raw parameter value, or null if the parameter is not present
+     */
+    public static String getParameterValue(String parameters, String name) {
+        if (parameters == null) {
+            return null;
+        }
+        int start = 0;
+        while (start < parameters.length()) {
+            int end = parameters.indexOf('&', start);
+            if (end == -1) {
+                end = parameters.length();
+            }
+            if (end - start > name.length() && parameters.startsWith(name, start)
+                    && parameters.charAt(start + name.length()) == '=') {
+                return parameters.substring(start + name.length() + 1, end);
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    /**
+     * This method adds the SDK User-Agent header and applies the proxy
+     * settings from PayConfig to the given request headers.
+     *
+     * @param headers HTTP request headers, may be null
+     * @param config client configuration container, may be null
+     * @return A new map containing the given headers plus the SDK headers
+     */
+    public static Map<String,String> prepareRequestHeaders(Map<String,String> headers, PayConfig config) {
 
         Map<String,String> headerMap = new HashMap<String,String>();
         if (headers != null) {
@@ -202,8 +264,7 @@ public class Util {
             }
         }
 
-        ResponseData response = Util.httpSendRequest(method, url, urlParameters, headerMap);
-        return response;
+        return headerMap;
     }
 
     /**
@@ -0,0 +1,39 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.amazon.pay.response.ipn.model.Notification;
+
+/**
+ * A NotificationListener that finishes handling notifications on its own
+ * threads.  A NotificationReceiver calls onNotification(Notification, Runnable)
+ * instead of onNotification(Notification) and keeps the notification in its
+ * journal until done has run.
+ */
+public interface AsyncNotificationListener extends NotificationListener {
+
+    /**
+     * Called with a notification that passed verification.  done must be run
+     * once the notification was handled successfully.  It is not run when
+     * handling failed or the notification was dropped unhandled, for example
+     * on shutdown, so that the notification stays in the journal.  If this
+     * method throws, the notification also stays in the journal.
+     *
+     * @param notification the verified notification
+     * @param done callback to run once the notification was handled
+     */
+    void onNotification(Notification notification, Runnable done);
+
+}
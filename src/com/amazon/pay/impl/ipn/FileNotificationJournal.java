@@ -0,0 +1,137 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * NotificationJournal that keeps each pending notification in its own file.
+ * Files are written to a temporary name, synced to disk and then renamed,
+ * so a crash never leaves a partially written entry behind.
+ */
+public class FileNotificationJournal implements NotificationJournal {
+
+    private static final String SUFFIX = ".ipn";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final Gson gson = new Gson();
+
+    /**
+     * @param directory Directory holding the journal files, created if missing
+     * @throws IOException If the directory cannot be created
+     */
+    public FileNotificationJournal(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create journal directory " + directory);
+        }
+        this.directory = directory;
+    }
+
+    @Override
+    public void append(QueuedNotification queued) throws IOException {
+        final File temp = new File(directory, queued.getId() + TEMP_SUFFIX);
+        final FileOutputStream out = new FileOutputStream(temp);
+        try {
+            out.write(gson.toJson(new Record(queued)).getBytes("UTF-8"));
+            out.flush();
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(file(queued))) {
+            temp.delete();
+            throw new IOException("Unable to write journal entry " + queued.getId());
+        }
+    }
+
+    @Override
+    public void remove(QueuedNotification queued) {
+        file(queued).delete();
+    }
+
+    @Override
+    public List<QueuedNotification> recover() throws IOException {
+        final File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SUFFIX);
+            }
+        });
+        if (files == null) {
+            throw new IOException("Unable to list journal directory " + directory);
+        }
+        // Identifiers start with the receive time, so name order is arrival order
+        Arrays.sort(files);
+        final List<QueuedNotification> pending = new ArrayList<QueuedNotification>(files.length);
+        for (File file : files) {
+            try {
+                final Record record = gson.fromJson(read(file), Record.class);
+                pending.add(new QueuedNotification(record.id, record.headers, record.body));
+            } catch (JsonParseException e) {
+                throw new IOException("Corrupt journal entry " + file + ": " + e.getMessage());
+            }
+        }
+        return pending;
+    }
+
+    private File file(QueuedNotification queued) {
+        return new File(directory, queued.getId() + SUFFIX);
+    }
+
+    private static String read(File file) throws IOException {
+        final InputStream in = new FileInputStream(file);
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            final byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Serialized form of a journal entry
+     */
+    private static final class Record {
+        private String id;
+        private Map<String,String> headers;
+        private String body;
+
+        private Record(QueuedNotification queued) {
+            this.id = queued.getId();
+            this.headers = queued.getHeaders();
+            this.body = queued.getBody();
+        }
+    }
+
+}
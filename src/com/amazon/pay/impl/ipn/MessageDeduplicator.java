@@ -0,0 +1,272 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the SNS MessageIds of recently processed notifications so that
+ * redelivered copies can be dropped before they are verified and unmarshalled.
+ *
+ * MessageIds are kept in a map bounded by maxEntries, evicting the oldest, and for at most
+ * the configured window.  A Bloom filter over the recorded ids answers most
+ * lookups of new ids without touching the map.  The filter is split in two
+ * generations that rotate every window or every maxEntries insertions, so
+ * it never forgets an id that is still in the map.
+ *
+ * Copies of a notification processed at the same time are serialized with
+ * claim: the first copy claims its MessageId, the others wait until it is
+ * recorded, and are then duplicates, or released after a failed
+ * verification, in which case the next copy claims it.
+ *
+ * Instances are safe for use by multiple threads.
+ */
+public class MessageDeduplicator {
+
+    /**
+     * Default maximum number of MessageIds remembered
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    /**
+     * Default time a MessageId is remembered, in milliseconds
+     */
+    public static final long DEFAULT_WINDOW = TimeUnit.HOURS.toMillis(24);
+
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int HASH_FUNCTIONS = 7;
+
+    private final int maxEntries;
+    private final long window;
+    private final int bloomBits;
+
+    private final Map<String, Long> entries;
+    private final Set<String> claimed = new HashSet<String>();
+    private BitSet currentGeneration;
+    private BitSet previousGeneration;
+    private int generationInsertions;
+    private long generationStart;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong filtered = new AtomicLong();
+
+    public MessageDeduplicator() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_WINDOW, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param maxEntries maximum number of MessageIds remembered
+     * @param window time a MessageId is remembered
+     * @param unit unit of window
+     */
+    public MessageDeduplicator(final int maxEntries, long window, TimeUnit unit) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.window = unit.toMillis(window);
+        this.bloomBits = maxEntries * BITS_PER_ENTRY;
+        // Insertion order keeps the oldest record first, which is also the first to leave the window
+        this.entries = new LinkedHashMap<String, Long>(16, 0.75f, false) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.currentGeneration = new BitSet(bloomBits);
+        this.previousGeneration = new BitSet(bloomBits);
+        this.generationStart = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns true if the MessageId was recorded within the window
+     *
+     * @param messageId SNS MessageId of the notification
+     * @return true for a duplicate delivery
+     */
+    public synchronized boolean isDuplicate(String messageId) {
+        final long now = System.currentTimeMillis();
+        rotate(now);
+        if (!mightContain(messageId)) {
+            filtered.incrementAndGet();
+            misses.incrementAndGet();
+            return false;
+        }
+        final Long recordedAt = entries.get(messageId);
+        if (recordedAt != null && now - recordedAt < window) {
+            hits.incrementAndGet();
+            return true;
+        }
+        if (recordedAt != null) {
+            entries.remove(messageId);
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Claims a MessageId for processing.  Waits while another thread holds
+     * the claim, then returns false if the MessageId was recorded in the
+     * meantime or within the window.  A successful claim must be followed by
+     * record or release.
+     *
+     * @param messageId SNS MessageId of the notification
+     * @return true if the caller now holds the claim, false for a duplicate delivery
+     */
+    public synchronized boolean claim(String messageId) {
+        boolean interrupted = false;
+        try {
+            while (claimed.contains(messageId)) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    // The holder finishes verification shortly, so keep waiting and restore the flag after
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (isDuplicate(messageId)) {
+            return false;
+        }
+        claimed.add(messageId);
+        return true;
+    }
+
+    /**
+     * Gives up the claim on a MessageId without recording it, for example
+     * because the notification failed verification
+     *
+     * @param messageId SNS MessageId of the notification
+     */
+    public synchronized void release(String messageId) {
+        if (claimed.remove(messageId)) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Records a MessageId as processed, ending any claim on it. Only record
+     * notifications that passed verification, so that forged copies cannot
+     * suppress real ones.
+     *
+     * @param messageId SNS MessageId of the notification
+     */
+    public synchronized void record(String messageId) {
+        final long now = System.currentTimeMillis();
+        rotate(now);
+        entries.remove(messageId);
+        entries.put(messageId, now);
+        final int h1 = messageId.hashCode();
+        final int h2 = mix(h1);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            currentGeneration.set(index(h1, h2, i));
+        }
+        generationInsertions++;
+        if (claimed.remove(messageId)) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Returns the number of lookups that found a duplicate
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups that found no duplicate
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of misses answered by the Bloom filter alone
+     *
+     * @return filtered count
+     */
+    public long getFilteredCount() {
+        return filtered.get();
+    }
+
+    /**
+     * Returns the number of MessageIds currently remembered
+     *
+     * @return number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private boolean mightContain(String messageId) {
+        final int h1 = messageId.hashCode();
+        final int h2 = mix(h1);
+        boolean inCurrent = true;
+        boolean inPrevious = true;
+        for (int i = 0; i < HASH_FUNCTIONS && (inCurrent || inPrevious); i++) {
+            final int index = index(h1, h2, i);
+            inCurrent = inCurrent && currentGeneration.get(index);
+            inPrevious = inPrevious && previousGeneration.get(index);
+        }
+        return inCurrent || inPrevious;
+    }
+
+    private void rotate(long now) {
+        if (generationInsertions >= maxEntries || now - generationStart >= window) {
+            final BitSet cleared = previousGeneration;
+            cleared.clear();
+            previousGeneration = currentGeneration;
+            currentGeneration = cleared;
+            generationInsertions = 0;
+            generationStart = now;
+        }
+    }
+
+    private int index(int h1, int h2, int i) {
+        final int combined = h1 + i * h2;
+        return (combined & Integer.MAX_VALUE) % bloomBits;
+    }
+
+    /**
+     * Derives a second, independent hash from the first
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h | 1;
+    }
+
+}
@@ -0,0 +1,345 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.amazon.pay.exceptions.AmazonClientException;
+import com.amazon.pay.response.ipn.model.Notification;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifies and parses a sequence of IPN requests in parallel, for example
+ * when replaying archived notifications after an outage.
+ *
+ * Requests are read lazily from the input as results are consumed, so no
+ * more than maxInFlight requests and their results are held in memory at
+ * any time, whatever the size of the input.  Results are returned in input
+ * order or in the order they complete.  A request that fails verification or
+ * parsing yields a Result carrying the exception; the rest of the batch
+ * carries on.
+ *
+ * Usage:
+ * <pre>
+ *     NotificationBatchParser parser = new NotificationBatchParser(8).withMaxInFlight(512);
+ *     Iterator&lt;NotificationBatchParser.Result&gt; results = parser.parse(archived, NotificationBatchParser.Order.INPUT);
+ *     while (results.hasNext()) {
+ *         NotificationBatchParser.Result result = results.next();
+ *         ...
+ *     }
+ *     parser.shutdown();
+ * </pre>
+ */
+public class NotificationBatchParser {
+
+    /**
+     * Order in which results are returned
+     */
+    public enum Order {
+        /** Same order as the input */
+        INPUT,
+        /** As soon as each request is verified and parsed */
+        COMPLETION
+    }
+
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private final ExecutorService executor;
+    private int maxInFlight;
+    private MessageDeduplicator deduplicator;
+
+    public NotificationBatchParser() {
+        this(DEFAULT_THREADS);
+    }
+
+    /**
+     * @param threads number of threads requests are verified and parsed on
+     */
+    public NotificationBatchParser(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        this.maxInFlight = threads * 64;
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, "amazon-pay-ipn-batch-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Sets the maximum number of requests read from the input and not yet
+     * returned, 64 per thread by default
+     *
+     * @param maxInFlight maximum requests in flight
+     * @return the parser
+     */
+    public NotificationBatchParser withMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * Sets the deduplicator used to skip requests with an already processed MessageId
+     *
+     * @param deduplicator record of processed MessageIds
+     * @return the parser
+     */
+    public NotificationBatchParser withDeduplicator(MessageDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+        return this;
+    }
+
+    /**
+     * Verifies and parses the requests of the input.  The input is read on
+     * the thread consuming the results, and only as results are consumed.
+     *
+     * @param input the requests, each with its HTTP headers and body
+     * @param order order in which results are returned
+     * @return the results, one for every request of the input
+     */
+    public Iterator<Result> parse(Iterator<QueuedNotification> input, Order order) {
+        return order == Order.INPUT ? new InputOrderResults(input) : new CompletionOrderResults(input);
+    }
+
+    /**
+     * Stops the worker threads once the submitted requests are done
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Stops the worker threads and waits for the submitted requests to finish
+     *
+     * @param timeout maximum time to wait
+     * @param unit unit of timeout
+     * @return true if the threads stopped
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Verifies and parses one request, capturing any failure in the result
+     */
+    private final class Task implements Callable<Result> {
+        private final long index;
+        private final QueuedNotification request;
+
+        private Task(long index, QueuedNotification request) {
+            this.index = index;
+            this.request = request;
+        }
+
+        @Override
+        public Result call() {
+            try {
+                final Notification notification = NotificationFactory.parseNotification(request.getHeaders(),
+                        request.getBody(), deduplicator);
+                return new Result(index, request, notification, null);
+            } catch (RuntimeException e) {
+                return new Result(index, request, null, e);
+            }
+        }
+    }
+
+    /**
+     * Common refill logic: keeps up to maxInFlight requests submitted
+     */
+    private abstract class Results implements Iterator<Result> {
+        private final Iterator<QueuedNotification> input;
+        private final int window = maxInFlight;
+        private long nextIndex;
+        protected int inFlight;
+
+        private Results(Iterator<QueuedNotification> input) {
+            this.input = input;
+        }
+
+        protected abstract void submit(Task task);
+
+        protected abstract Future<Result> take() throws InterruptedException;
+
+        protected void fill() {
+            while (inFlight < window && input.hasNext()) {
+                submit(new Task(nextIndex++, input.next()));
+                inFlight++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return inFlight > 0;
+        }
+
+        @Override
+        public Result next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                final Result result = take().get();
+                inFlight--;
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AmazonClientException("Interrupted while waiting for notification batch results");
+            } catch (ExecutionException e) {
+                // Task.call captures runtime exceptions, so only errors get here
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new AmazonClientException("Encountered ExecutionException: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private final class InputOrderResults extends Results {
+        private final Queue<Future<Result>> pending = new ArrayDeque<Future<Result>>();
+
+        private InputOrderResults(Iterator<QueuedNotification> input) {
+            super(input);
+        }
+
+        @Override
+        protected void submit(Task task) {
+            pending.add(executor.submit(task));
+        }
+
+        @Override
+        protected Future<Result> take() {
+            return pending.remove();
+        }
+    }
+
+    private final class CompletionOrderResults extends Results {
+        private final CompletionService<Result> completion = new ExecutorCompletionService<Result>(executor);
+
+        private CompletionOrderResults(Iterator<QueuedNotification> input) {
+            super(input);
+        }
+
+        @Override
+        protected void submit(Task task) {
+            completion.submit(task);
+        }
+
+        @Override
+        protected Future<Result> take() throws InterruptedException {
+            return completion.take();
+        }
+    }
+
+    /**
+     * Outcome of verifying and parsing one request of a batch
+     */
+    public static final class Result {
+        private final long index;
+        private final QueuedNotification request;
+        private final Notification notification;
+        private final RuntimeException error;
+
+        private Result(long index, QueuedNotification request, Notification notification, RuntimeException error) {
+            this.index = index;
+            this.request = request;
+            this.notification = notification;
+            this.error = error;
+        }
+
+        /**
+         * Returns the zero based position of the request in the input
+         *
+         * @return index
+         */
+        public long getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the request the result is for
+         *
+         * @return request
+         */
+        public QueuedNotification getRequest() {
+            return request;
+        }
+
+        /**
+         * Returns the parsed notification, or null if the request failed or was a duplicate
+         *
+         * @return notification
+         */
+        public Notification getNotification() {
+            return notification;
+        }
+
+        /**
+         * Returns the verification or parsing failure, or null if the request succeeded
+         *
+         * @return error
+         */
+        public RuntimeException getError() {
+            return error;
+        }
+
+        /**
+         * Returns true if the request was skipped because its MessageId was already processed
+         *
+         * @return true for a duplicate
+         */
+        public boolean isDuplicate() {
+            return error == null && notification == null;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{"
+                    + "index=" + index
+                    + ", request=" + request
+                    + ", notificationType=" + (notification == null ? null : notification.getNotificationType())
+                    + ", error=" + error + '}';
+        }
+    }
+
+}
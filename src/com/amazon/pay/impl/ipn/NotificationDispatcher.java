@@ -0,0 +1,592 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.amazon.pay.impl.PayLogUtil;
+import com.amazon.pay.response.ipn.model.Notification;
+import com.amazon.pay.response.ipn.model.NotificationType;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Routes verified notifications to the handlers registered for their
+ * NotificationType.
+ *
+ * Every type is handled on its own pool of threads with its own concurrency
+ * limit and queue, so a burst of one type, for example CaptureNotification,
+ * does not delay the handling of another, such as ChargebackNotification.
+ * When the queue of a type is full the dispatching thread waits for room,
+ * which in turn slows down the NotificationReceiver workers feeding it.
+ * Queue depth, counts and latencies are tracked per type.
+ *
+ * The dispatcher is an AsyncNotificationListener: a NotificationReceiver
+ * keeps a journaled notification until every handler of its type has run,
+ * not merely until it was queued here.  If a handler throws, the exception
+ * is logged at warn level and the notification stays in the journal, so
+ * that the next start of the receiver delivers it again.
+ *
+ * Usage:
+ * <pre>
+ *     NotificationDispatcher dispatcher = new NotificationDispatcher()
+ *             .withConcurrency(NotificationType.CaptureNotification, 4)
+ *             .addHandler(CaptureNotification.class, new NotificationHandler&lt;CaptureNotification&gt;() {
+ *                 public void handle(CaptureNotification notification) { ... }
+ *             });
+ *     receiver.addListener(dispatcher);
+ * </pre>
+ */
+public class NotificationDispatcher implements AsyncNotificationListener {
+
+    public static final int DEFAULT_CONCURRENCY = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    private static final long IDLE_THREAD_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+    private static final PayLogUtil payUtil = new PayLogUtil();
+    private static final Map<Class<? extends Notification>, NotificationType> notificationTypes = buildTypeMap();
+    private static final Runnable NOTHING = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private final Map<NotificationType, Integer> concurrency = new EnumMap<NotificationType, Integer>(NotificationType.class);
+    private final Map<NotificationType, Integer> queueCapacity = new EnumMap<NotificationType, Integer>(NotificationType.class);
+    private final Map<NotificationType, List<Registration<?>>> handlers =
+            Collections.synchronizedMap(new EnumMap<NotificationType, List<Registration<?>>>(NotificationType.class));
+    private final Map<NotificationType, Lane> lanes = new EnumMap<NotificationType, Lane>(NotificationType.class);
+
+    private final AtomicLong unhandled = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private boolean shutdown;
+
+    /**
+     * Sets how many notifications of the given type may be handled at the same time
+     *
+     * @param type notification type
+     * @param maxConcurrent number of threads for the type
+     * @return the dispatcher
+     */
+    public synchronized NotificationDispatcher withConcurrency(NotificationType type, int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        concurrency.put(type, maxConcurrent);
+        final Lane lane = lanes.get(type);
+        if (lane != null) {
+            lane.setConcurrency(maxConcurrent);
+        }
+        return this;
+    }
+
+    /**
+     * Sets how many notifications of the given type may wait for a thread
+     * before dispatching blocks. Must be called before the first notification
+     * of that type is dispatched.
+     *
+     * @param type notification type
+     * @param capacity queue capacity
+     * @return the dispatcher
+     */
+    public synchronized NotificationDispatcher withQueueCapacity(NotificationType type, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (lanes.containsKey(type)) {
+            throw new IllegalStateException("Notifications of type " + type + " have already been dispatched");
+        }
+        queueCapacity.put(type, capacity);
+        return this;
+    }
+
+    /**
+     * Registers a handler for every notification of the given class
+     *
+     * @param notificationClass notification class, e.g. CaptureNotification.class
+     * @param handler handler to add
+     * @param <T> the notification class
+     * @return the dispatcher
+     */
+    public <T extends Notification> NotificationDispatcher addHandler(Class<T> notificationClass,
+            NotificationHandler<? super T> handler) {
+        final NotificationType type = notificationTypes.get(notificationClass);
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown notification class: " + notificationClass.getName());
+        }
+        return register(type, new Registration<T>(notificationClass, handler));
+    }
+
+    /**
+     * Registers a handler for every notification of the given type
+     *
+     * @param type notification type
+     * @param handler handler to add
+     * @return the dispatcher
+     */
+    public NotificationDispatcher addHandler(NotificationType type, NotificationHandler<Notification> handler) {
+        return register(type, new Registration<Notification>(Notification.class, handler));
+    }
+
+    /**
+     * Removes a registered handler from the given type
+     *
+     * @param type notification type
+     * @param handler handler to remove
+     */
+    public void removeHandler(NotificationType type, NotificationHandler<?> handler) {
+        final List<Registration<?>> registrations = handlers.get(type);
+        if (registrations != null) {
+            for (Registration<?> registration : registrations) {
+                if (registration.handler == handler) {
+                    registrations.remove(registration);
+                }
+            }
+        }
+    }
+
+    private NotificationDispatcher register(NotificationType type, Registration<?> registration) {
+        synchronized (handlers) {
+            List<Registration<?>> registrations = handlers.get(type);
+            if (registrations == null) {
+                registrations = new CopyOnWriteArrayList<Registration<?>>();
+                handlers.put(type, registrations);
+            }
+            registrations.add(registration);
+        }
+        return this;
+    }
+
+    /**
+     * Queues the notification for the handlers of its type, waiting while
+     * the queue of that type is full
+     *
+     * @param notification the verified notification
+     */
+    @Override
+    public void onNotification(Notification notification) {
+        onNotification(notification, NOTHING);
+    }
+
+    /**
+     * Queues the notification for the handlers of its type, waiting while
+     * the queue of that type is full, and runs done once they all returned
+     * without throwing.  done is not run when a handler threw or the
+     * notification was dropped because the dispatcher is shut down.
+     *
+     * @param notification the verified notification
+     * @param done callback to run once the notification was handled
+     */
+    @Override
+    public void onNotification(Notification notification, Runnable done) {
+        final NotificationType type = notification.getNotificationType();
+        final List<Registration<?>> registrations = type == null ? null : handlers.get(type);
+        if (registrations == null || registrations.isEmpty()) {
+            unhandled.incrementAndGet();
+            done.run();
+            return;
+        }
+        final Lane lane = getLane(type);
+        if (lane == null) {
+            payUtil.logWarning("Dispatcher shut down, " + type + " notification dropped");
+            return;
+        }
+        try {
+            lane.permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            payUtil.logWarning("Interrupted while dispatching " + type + ", notification dropped");
+            return;
+        }
+        try {
+            lane.executor.execute(new Dispatch(lane, registrations, notification, done));
+        } catch (RejectedExecutionException e) {
+            lane.permits.release();
+            payUtil.logWarning("Dispatcher shut down, " + type + " notification dropped");
+        }
+    }
+
+    /**
+     * Logs a notification that could not be verified or parsed
+     *
+     * @param queued the notification as it was received
+     * @param e the verification or parsing failure
+     */
+    @Override
+    public void onError(QueuedNotification queued, Exception e) {
+        errors.incrementAndGet();
+        payUtil.logMessage("Encountered " + e.getClass().getSimpleName() + " for notification " + queued.getId()
+                + ": " + e.getMessage());
+    }
+
+    /**
+     * Stops the handler threads of every type, waiting for queued notifications to be handled
+     *
+     * @param timeout maximum time to wait
+     * @param unit unit of timeout
+     * @return true if all queued notifications were handled
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        final Lane[] stopping;
+        synchronized (this) {
+            shutdown = true;
+            stopping = lanes.values().toArray(new Lane[lanes.size()]);
+        }
+        for (Lane lane : stopping) {
+            lane.executor.shutdown();
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        boolean terminated = true;
+        for (Lane lane : stopping) {
+            terminated &= lane.executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        return terminated;
+    }
+
+    /**
+     * Returns a snapshot of the metrics of the given type
+     *
+     * @param type notification type
+     * @return metrics of the type, all zero if none were dispatched
+     */
+    public synchronized Metrics getMetrics(NotificationType type) {
+        final Lane lane = lanes.get(type);
+        return lane == null ? new Metrics(type) : lane.snapshot();
+    }
+
+    /**
+     * Returns the number of notifications dropped because no handler was registered for their type
+     *
+     * @return unhandled count
+     */
+    public long getUnhandledCount() {
+        return unhandled.get();
+    }
+
+    /**
+     * Returns the number of notifications reported through onError
+     *
+     * @return error count
+     */
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    /**
+     * Returns the lane of the type, creating it on first use, or null once shut down
+     */
+    private synchronized Lane getLane(NotificationType type) {
+        Lane lane = lanes.get(type);
+        if (lane == null) {
+            if (shutdown) {
+                return null;
+            }
+            final Integer threads = concurrency.get(type);
+            final Integer capacity = queueCapacity.get(type);
+            lane = new Lane(type, threads == null ? DEFAULT_CONCURRENCY : threads,
+                    capacity == null ? DEFAULT_QUEUE_CAPACITY : capacity);
+            lanes.put(type, lane);
+        }
+        return lane;
+    }
+
+    private static Map<Class<? extends Notification>, NotificationType> buildTypeMap() {
+        final Map<Class<? extends Notification>, NotificationType> map = new HashMap<Class<? extends Notification>, NotificationType>();
+        for (Class<? extends Notification> clazz : NotificationTypeRegistry.getNotificationClasses()) {
+            try {
+                // The JAXB constructor of every notification class sets its type
+                map.put(clazz, clazz.newInstance().getNotificationType());
+            } catch (InstantiationException e) {
+                throw new IllegalStateException("Encountered InstantiationException: " + e.getMessage(), e);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Encountered IllegalAccessException: " + e.getMessage(), e);
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * A handler together with the class its notifications are cast to
+     */
+    private static final class Registration<T extends Notification> {
+        private final Class<T> notificationClass;
+        private final NotificationHandler<? super T> handler;
+
+        private Registration(Class<T> notificationClass, NotificationHandler<? super T> handler) {
+            this.notificationClass = notificationClass;
+            this.handler = handler;
+        }
+
+        private void handle(Notification notification) {
+            handler.handle(notificationClass.cast(notification));
+        }
+    }
+
+    /**
+     * Threads, queue bound and counters of one notification type
+     */
+    private static final class Lane {
+        private final NotificationType type;
+        private final ThreadPoolExecutor executor;
+        private final ResizableSemaphore permits;
+        private final AtomicLong dispatched = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong totalHandlingNanos = new AtomicLong();
+        private final AtomicLong maxHandlingNanos = new AtomicLong();
+
+        private Lane(NotificationType type, int threads, int capacity) {
+            this.type = type;
+            // The semaphore bounds queued and running notifications, the executor queue itself is unbounded
+            this.permits = new ResizableSemaphore(capacity + threads);
+            this.executor = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_TIMEOUT, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new LaneThreadFactory(type));
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+
+        private void setConcurrency(int threads) {
+            if (threads > executor.getMaximumPoolSize()) {
+                permits.release(threads - executor.getMaximumPoolSize());
+                executor.setMaximumPoolSize(threads);
+                executor.setCorePoolSize(threads);
+            } else if (threads < executor.getMaximumPoolSize()) {
+                // Running notifications keep their permits, so the bound is reached again as they finish
+                permits.reducePermits(executor.getMaximumPoolSize() - threads);
+                executor.setCorePoolSize(threads);
+                executor.setMaximumPoolSize(threads);
+            }
+        }
+
+        private Metrics snapshot() {
+            final Metrics metrics = new Metrics(type);
+            metrics.queueDepth = executor.getQueue().size();
+            metrics.activeCount = executor.getActiveCount();
+            metrics.concurrency = executor.getMaximumPoolSize();
+            metrics.dispatchedCount = dispatched.get();
+            metrics.completedCount = completed.get();
+            metrics.failedCount = failed.get();
+            metrics.totalWaitNanos = totalWaitNanos.get();
+            metrics.totalHandlingNanos = totalHandlingNanos.get();
+            metrics.maxHandlingNanos = maxHandlingNanos.get();
+            return metrics;
+        }
+
+        private void recordHandlingTime(long nanos) {
+            totalHandlingNanos.addAndGet(nanos);
+            long max = maxHandlingNanos.get();
+            while (nanos > max && !maxHandlingNanos.compareAndSet(max, nanos)) {
+                max = maxHandlingNanos.get();
+            }
+        }
+    }
+
+    /**
+     * Semaphore whose permits can be taken back without waiting for them
+     */
+    private static final class ResizableSemaphore extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        private ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+
+    /**
+     * Runs every handler registered for one notification
+     */
+    private static final class Dispatch implements Runnable {
+        private final Lane lane;
+        private final List<Registration<?>> registrations;
+        private final Notification notification;
+        private final Runnable done;
+        private final long queuedAt = System.nanoTime();
+
+        private Dispatch(Lane lane, List<Registration<?>> registrations, Notification notification, Runnable done) {
+            this.lane = lane;
+            this.registrations = registrations;
+            this.notification = notification;
+            this.done = done;
+            lane.dispatched.incrementAndGet();
+        }
+
+        @Override
+        public void run() {
+            final long start = System.nanoTime();
+            lane.totalWaitNanos.addAndGet(start - queuedAt);
+            boolean success = true;
+            try {
+                for (Registration<?> registration : registrations) {
+                    // One failing handler must not keep the notification from the others
+                    try {
+                        registration.handle(notification);
+                    } catch (RuntimeException e) {
+                        success = false;
+                        payUtil.logWarning("Encountered " + e.getClass().getSimpleName() + " in "
+                                + lane.type + " handler: " + e.getMessage());
+                    }
+                }
+            } finally {
+                lane.recordHandlingTime(System.nanoTime() - start);
+                if (success) {
+                    lane.completed.incrementAndGet();
+                } else {
+                    lane.failed.incrementAndGet();
+                }
+                lane.permits.release();
+            }
+            if (success) {
+                done.run();
+            }
+        }
+    }
+
+    private static final class LaneThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private LaneThreadFactory(NotificationType type) {
+            this.name = "amazon-pay-ipn-" + type;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Point in time metrics of one notification type.
+     * Latencies are measured from dispatch to the start of handling (wait)
+     * and from the start to the end of handling (handling).
+     */
+    public static final class Metrics {
+        private final NotificationType type;
+        private int queueDepth;
+        private int activeCount;
+        private int concurrency;
+        private long dispatchedCount;
+        private long completedCount;
+        private long failedCount;
+        private long totalWaitNanos;
+        private long totalHandlingNanos;
+        private long maxHandlingNanos;
+
+        private Metrics(NotificationType type) {
+            this.type = type;
+        }
+
+        public NotificationType getType() {
+            return type;
+        }
+
+        /**
+         * @return number of notifications waiting for a thread
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * @return number of notifications being handled
+         */
+        public int getActiveCount() {
+            return activeCount;
+        }
+
+        /**
+         * @return maximum number of notifications handled at the same time
+         */
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public long getDispatchedCount() {
+            return dispatchedCount;
+        }
+
+        public long getCompletedCount() {
+            return completedCount;
+        }
+
+        /**
+         * @return number of notifications for which at least one handler threw
+         */
+        public long getFailedCount() {
+            return failedCount;
+        }
+
+        /**
+         * @param unit unit of the result
+         * @return mean time notifications waited for a thread
+         */
+        public long getAverageWaitTime(TimeUnit unit) {
+            final long handled = completedCount + failedCount;
+            return handled == 0 ? 0 : unit.convert(totalWaitNanos / handled, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * @param unit unit of the result
+         * @return mean time spent in the handlers
+         */
+        public long getAverageHandlingTime(TimeUnit unit) {
+            final long handled = completedCount + failedCount;
+            return handled == 0 ? 0 : unit.convert(totalHandlingNanos / handled, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * @param unit unit of the result
+         * @return longest time spent in the handlers
+         */
+        public long getMaxHandlingTime(TimeUnit unit) {
+            return unit.convert(maxHandlingNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{"
+                    + "type=" + type
+                    + ", queueDepth=" + queueDepth
+                    + ", activeCount=" + activeCount
+                    + ", concurrency=" + concurrency
+                    + ", dispatchedCount=" + dispatchedCount
+                    + ", completedCount=" + completedCount
+                    + ", failedCount=" + failedCount
+                    + ", averageWaitMicros=" + getAverageWaitTime(TimeUnit.MICROSECONDS)
+                    + ", averageHandlingMicros=" + getAverageHandlingTime(TimeUnit.MICROSECONDS)
+                    + ", maxHandlingMicros=" + getMaxHandlingTime(TimeUnit.MICROSECONDS) + '}';
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.amazon.pay.exceptions.AmazonClientException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fields of an Amazon SNS notification and of the IPN message it carries,
+ * decoded in a single streaming pass over each JSON document.
+ *
+ * Only scalar fields are kept; nested objects and arrays are skipped.
+ * Numbers and booleans are kept in their JSON text form.
+ */
+final class NotificationEnvelope {
+
+    private final Map<String,String> envelope;
+    private final Map<String,String> message;
+
+    private NotificationEnvelope(Map<String,String> envelope, Map<String,String> message) {
+        this.envelope = envelope;
+        this.message = message;
+    }
+
+    /**
+     * Decodes the SNS envelope and, when present, its embedded Message document
+     *
+     * @param body HTTP POST body of the notification
+     * @return The decoded notification
+     * @throws AmazonClientException If the body or message is not a JSON object
+     */
+    static NotificationEnvelope parse(String body) {
+        try {
+            final Map<String,String> envelope = readFields(new StringReader(body));
+            final String message = envelope.get("Message");
+            return new NotificationEnvelope(envelope, message == null ? null : readFields(new StringReader(message)));
+        } catch (IOException e) {
+            throw new AmazonClientException("Encountered IOException while parsing notification: ", e);
+        } catch (IllegalStateException e) {
+            throw new AmazonClientException("Encountered IllegalStateException while parsing notification: ", e);
+        }
+    }
+
+    private static Map<String,String> readFields(Reader in) throws IOException {
+        final Map<String,String> fields = new LinkedHashMap<String,String>();
+        final JsonReader reader = new JsonReader(in);
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String name = reader.nextName();
+                final JsonToken token = reader.peek();
+                if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+                    fields.put(name, reader.nextString());
+                } else if (token == JsonToken.BOOLEAN) {
+                    fields.put(name, String.valueOf(reader.nextBoolean()));
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } finally {
+            reader.close();
+        }
+        return fields;
+    }
+
+    /**
+     * Returns the top-level fields of the SNS notification
+     *
+     * @return envelope fields
+     */
+    Map<String,String> getEnvelope() {
+        return envelope;
+    }
+
+    /**
+     * Returns the fields of the embedded IPN message, or null if the notification has no Message
+     *
+     * @return message fields
+     */
+    Map<String,String> getMessage() {
+        return message;
+    }
+
+}
@@ -14,38 +14,29 @@
  */
 package com.amazon.pay.impl.ipn;
 
+import com.amazon.pay.LogUtil;
 import com.amazon.pay.exceptions.AmazonClientException;
 import com.amazon.pay.impl.PayLogUtil;
-import com.amazon.pay.response.ipn.model.AuthorizationNotification;
-import com.amazon.pay.response.ipn.model.BillingAgreementNotification;
-import com.amazon.pay.response.ipn.model.CaptureNotification;
-import com.amazon.pay.response.ipn.model.ChargebackNotification;
 import com.amazon.pay.response.ipn.model.IPNMessageMetaData;
 import com.amazon.pay.response.ipn.model.Notification;
 import com.amazon.pay.response.ipn.model.NotificationMetaData;
-import com.amazon.pay.response.ipn.model.OrderReferenceNotification;
-import com.amazon.pay.response.ipn.model.ProviderCreditNotification;
-import com.amazon.pay.response.ipn.model.ProviderCreditReversalNotification;
-import com.amazon.pay.response.ipn.model.RefundNotification;
-import com.amazon.pay.response.ipn.model.SolutionProviderMerchantNotification;
 import com.amazon.pay.response.parser.AmazonValidationEventHandler;
-
-import com.google.gson.Gson;
+import com.amazon.pay.response.parser.JAXBContextRegistry;
+import com.amazon.pay.response.parser.NamespaceFilterXMLStreamReader;
 
 import java.io.StringReader;
 import java.util.Map;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-import javax.xml.bind.annotation.XmlAccessType;
-import javax.xml.bind.annotation.XmlAccessorType;
-import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
 
 public class NotificationFactory {
 
+    private static final String IPN_NAMESPACE = "https://mws.amazonservices.com/ipn/OffAmazonPayments/2013-01-01";
+
+    private static final AmazonValidationEventHandler VALIDATION_EVENT_HANDLER = new AmazonValidationEventHandler();
+
     public static PayLogUtil payUtil = new PayLogUtil();
 
     /**
@@ -67,114 +58,176 @@ public class NotificationFactory {
      *   to parse the response, using this exception you can still retrieve the raw API response.
      *
      */
-    public static Notification parseNotification(Map<String,String> headers, final String body) throws AmazonClientException {
+    public static Notification parseNotification(final Map<String,String> headers, final String body) throws AmazonClientException {
+        return parseNotification(headers, body, null);
+    }
 
-        final NotificationVerification verifier = new NotificationVerification();
+    /**
+     * Convert a raw HTTP POST request that contains an IPN to convert
+     * to an Notification object, dropping notifications whose SNS MessageId
+     * was already processed.
+     *
+     * A duplicate is detected before the notification is unmarshalled or its
+     * signature verified, and null is returned for it.  The endpoint should
+     * still respond "200 OK" so that Amazon stops redelivering it.  The
+     * MessageId is only recorded once the notification passed verification;
+     * a copy arriving while another with the same MessageId is verified
+     * waits for the outcome of that verification.
+     *
+     * @param headers HTTP POST request headers
+     * @param body HTTP POST body content
+     * @param deduplicator Record of processed MessageIds, or null to process every notification
+     * @return Instance of an Notification that matches the notification type, or null for a duplicate
+     *
+     * @throws AmazonClientException  AmazonClientException represents any internal errors that are encountered inside the client while
+     *   attempting to make the request or handle the response.
+     */
+    public static Notification parseNotification(final Map<String,String> headers, final String body,
+            final MessageDeduplicator deduplicator) throws AmazonClientException {
+        return parseNotification(headers, body, deduplicator, new NotificationVerification());
+    }
+
+    /**
+     * Same as parseNotification(headers, body, deduplicator), verifying the notification with the given verifier
+     */
+    static Notification parseNotification(final Map<String,String> headers, final String body,
+            final MessageDeduplicator deduplicator, final NotificationVerification verifier) throws AmazonClientException {
 
         //verify notification header values
         verifier.verifyHeaders(headers);
 
         //log headers to the console.
         try {
-            payUtil.logMessage("\n\nNotification Header:\n" + headers.toString());
+            payUtil.logMessage(new LogUtil.MessageSupplier() {
+                @Override
+                public String get() {
+                    return "\n\nNotification Header:\n" + headers.toString();
+                }
+            });
         } catch (Exception e) {
             throw new AmazonClientException("Encountered an Exception: ", e);
         }
 
-        //parse notification
-        final Notification notification = NotificationFactory.getNotification(body);
-
-        //log notification body contents to the console.
+        //parse notification envelope and drop duplicates before the expensive steps
+        final NotificationEnvelope envelope = decodeEnvelope(body);
+        final String messageId = envelope.getEnvelope().get("MessageId");
+        final boolean deduplicate = deduplicator != null && messageId != null;
+        if (deduplicate && !deduplicator.claim(messageId)) {
+            payUtil.logMessage(new LogUtil.MessageSupplier() {
+                @Override
+                public String get() {
+                    return "\n\nDuplicate notification dropped, MessageId: " + messageId;
+                }
+            });
+            return null;
+        }
+        boolean recorded = false;
+        final Notification notification;
         try {
-            if (body != null) {
-                // To aid troubleshooting, logged response will get formatted so that
-                // it appears very close to the input of Seller Central's IPN Test Tool
-                payUtil.logMessage("\n\nNotification Body:\n" +
-                        body.replace("\\\\n", "\n")                   // change \\n into a newline
-                                .replace("\\\\/", "/")                // change \\/ into /
-                                .replace("\\\\\\\"", "\"")            // change \\\" into "
-                                .replace(",\\\"", ",\n    \"")        // change ,\" into ,newline+spacex4+"
-                                .replace("\"{\\\"", "\n  {\n    \"")  // change "{\" into "newline+spacex2{newline+spacex4+"
-                                .replace("\\\"}\"", "\n  }")          // change \"}" into "newline+spacex2}"
-                                .replace("\\\"", "\"")                // change \" into " (needs to come last in sequence)
-                                );
+            notification = NotificationFactory.getNotification(envelope, body);
+
+            //log notification body contents to the console.
+            try {
+                if (body != null) {
+                    payUtil.logMessage(new LogUtil.MessageSupplier() {
+                        @Override
+                        public String get() {
+                            return "\n\nNotification Body:\n" + formatForLog(body);
+                        }
+                    });
+                }
+            } catch (Exception e) {
+                throw new AmazonClientException("Encountered an Exception: ", e);
             }
-        } catch (Exception e) {
-            throw new AmazonClientException("Encountered an Exception: ", e);
-        }
 
-        //verify validity of notification using signature, type and signingCertURL fields.
-        verifier.verifyMessage(notification);
+            //verify validity of notification using signature, type and signingCertURL fields.
+            verifier.verifyMessage(notification);
+
+            if (deduplicate) {
+                deduplicator.record(messageId);
+                recorded = true;
+            }
+        } finally {
+            // Let a waiting copy with the same MessageId through after a failure
+            if (deduplicate && !recorded) {
+                deduplicator.release(messageId);
+            }
+        }
 
         //If all verification succeeds, notification container object is returned.
         return notification;
     }
 
 
-    private static Notification getNotification(String payLoad)  {
-        Notification notifData = null;
+    /**
+     * Creates the JAXB contexts and Unmarshallers for every notification type.
+     * Call this before an IPN endpoint starts receiving traffic so the first
+     * notifications are processed at steady-state latency.
+     *
+     * @throws AmazonClientException If a JAXB context cannot be created
+     */
+    public static void warmUp() throws AmazonClientException {
+        try {
+            NotificationTypeRegistry.warmUp();
+        } catch (JAXBException e) {
+            throw new AmazonClientException("Encountered JAXBException: ", e);
+        }
+    }
+
+    /*
+     * To aid troubleshooting, logged response will get formatted so that
+     * it appears very close to the input of Seller Central's IPN Test Tool
+     */
+    private static String formatForLog(String body) {
+        return body.replace("\\\\n", "\n")                   // change \\n into a newline
+                .replace("\\\\/", "/")                // change \\/ into /
+                .replace("\\\\\\\"", "\"")            // change \\\" into "
+                .replace(",\\\"", ",\n    \"")        // change ,\" into ,newline+spacex4+"
+                .replace("\"{\\\"", "\n  {\n    \"")  // change "{\" into "newline+spacex2{newline+spacex4+"
+                .replace("\\\"}\"", "\n  }")          // change \"}" into "newline+spacex2}"
+                .replace("\\\"", "\"");               // change \" into " (needs to come last in sequence)
+    }
+
+    private static NotificationEnvelope decodeEnvelope(String payLoad) {
         if (payLoad == null || payLoad.isEmpty()) {
             throw new AmazonClientException("Aborting, empty payload");
         }
-        final String notificationDataAsJSON = payLoad;
-        final Map<String,String> notificationDataAsMap = new Gson().fromJson(payLoad, Map.class);
-
-        final String message = notificationDataAsMap.get("Message");
-        Map<String,String> messageDataMap = null;
-        if (message != null) {
-            messageDataMap = new Gson().fromJson(message, Map.class);
-            if (messageDataMap != null) {
-                final String notificationTypeWithSpaces = messageDataMap.get("NotificationType");
-                if (notificationTypeWithSpaces != null) {
-                    final String notificationType = notificationTypeWithSpaces.replaceAll(" ", "");
-                    JAXBContext jaxbContext = null;
-                    try {
-                        if ("OrderReferenceNotification".equalsIgnoreCase(notificationType)) {
-                            jaxbContext = JAXBContext.newInstance(OrderReferenceNotification.class);
-                        } else if ("PaymentAuthorize".equalsIgnoreCase(notificationType)) {
-                            jaxbContext = JAXBContext.newInstance(AuthorizationNotification.class);
-                        } else if ("PaymentCapture".equalsIgnoreCase(notificationType)) {
-                            jaxbContext = JAXBContext.newInstance(CaptureNotification.class);
-                        } else if ("PaymentRefund".equalsIgnoreCase(notificationType)) {
-                            jaxbContext = JAXBContext.newInstance(RefundNotification.class);
-                        } else if ("BillingAgreementNotification".equalsIgnoreCase(notificationType)) {
-                            jaxbContext = JAXBContext.newInstance(BillingAgreementNotification.class);
-                        } else if ("ProviderCredit".equalsIgnoreCase(notificationType)) {
-                            jaxbContext = JAXBContext.newInstance(ProviderCreditNotification.class);
-                        }  else if ("ProviderCreditReversal".equalsIgnoreCase(notificationType)) {
-                            jaxbContext = JAXBContext.newInstance(ProviderCreditReversalNotification.class);
-                        }  else if ("SolutionProviderEvent".equalsIgnoreCase(notificationType)) {
-                            jaxbContext = JAXBContext.newInstance(SolutionProviderMerchantNotification.class);
-                        }  else if ("ChargebackDetailedNotification".equalsIgnoreCase(notificationType)) {
-                            jaxbContext = JAXBContext.newInstance(ChargebackNotification.class);
-                        }  else {
-                            throw new AmazonClientException("Unknown notification type: "+ notificationType);
-                        }
+        return NotificationEnvelope.parse(payLoad);
+    }
 
-                        // Modify namespace declaration so it is ignored
-                        if (jaxbContext != null) {
-                            final String notificationData = messageDataMap.get("NotificationData").replaceAll(
-                                    "xmlns(?:.*?)?=\"https://mws.amazonservices.com/ipn/OffAmazonPayments/2013-01-01\"", "");
-                            final StringReader reader = new StringReader(notificationData.trim());
-                            final Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-                            unmarshaller.setEventHandler(new AmazonValidationEventHandler());
-
-                            final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
-                            xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-                            xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-                            final XMLStreamReader xmlStreamReader = xmlInputFactory.createXMLStreamReader(reader);
-                            notifData = (Notification) unmarshaller.unmarshal(xmlStreamReader);
-                            notifData.setNotificationMetadata(new NotificationMetaData(notificationDataAsMap));
-                            notifData.setMessageMetaData(new IPNMessageMetaData(messageDataMap));
-                            notifData.setJSON(notificationDataAsJSON);
-                            notifData.setMap(notificationDataAsMap);
-                        }
+    static Notification getNotification(String payLoad)  {
+        return getNotification(decodeEnvelope(payLoad), payLoad);
+    }
 
-                    } catch (JAXBException e) {
-                        throw new AmazonClientException("Failed marshalling notification: " + notificationDataAsJSON, e);
-                    } catch (XMLStreamException e) {
-                        throw new AmazonClientException("Failed marshalling notification: " + notificationDataAsJSON, e);
-                    }
+    private static Notification getNotification(NotificationEnvelope envelope, String payLoad)  {
+        Notification notifData = null;
+        final String notificationDataAsJSON = payLoad;
+        final Map<String,String> notificationDataAsMap = envelope.getEnvelope();
+        final Map<String,String> messageDataMap = envelope.getMessage();
+
+        if (messageDataMap != null) {
+            final String notificationTypeWithSpaces = messageDataMap.get("NotificationType");
+            if (notificationTypeWithSpaces != null) {
+                final Class<? extends Notification> notificationClass = NotificationTypeRegistry.lookup(notificationTypeWithSpaces);
+                if (notificationClass == null) {
+                    throw new AmazonClientException("Unknown notification type: "+ notificationTypeWithSpaces.replace(" ", ""));
+                }
+                try {
+                    final String notificationData = messageDataMap.get("NotificationData");
+
+                    // Ignore the namespace while unmarshalling instead of rewriting the XML
+                    final XMLStreamReader xmlStreamReader = new NamespaceFilterXMLStreamReader(
+                            JAXBContextRegistry.createXMLStreamReader(new StringReader(notificationData.trim())),
+                            IPN_NAMESPACE);
+                    notifData = JAXBContextRegistry.unmarshal(notificationClass, xmlStreamReader, VALIDATION_EVENT_HANDLER);
+                    notifData.setNotificationMetadata(new NotificationMetaData(notificationDataAsMap));
+                    notifData.setMessageMetaData(new IPNMessageMetaData(messageDataMap));
+                    notifData.setJSON(notificationDataAsJSON);
+                    notifData.setMap(notificationDataAsMap);
+                } catch (JAXBException e) {
+                    throw new AmazonClientException("Failed marshalling notification: " + notificationDataAsJSON, e);
+                } catch (XMLStreamException e) {
+                    throw new AmazonClientException("Failed marshalling notification: " + notificationDataAsJSON, e);
                 }
             }
         }
@@ -0,0 +1,34 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.amazon.pay.response.ipn.model.Notification;
+
+/**
+ * Handles notifications of one type delivered by a NotificationDispatcher.
+ * Callbacks run on the dispatcher's threads for that type.
+ *
+ * @param <T> the notification class handled
+ */
+public interface NotificationHandler<T extends Notification> {
+
+    /**
+     * Called with a verified notification of the registered type
+     *
+     * @param notification the notification
+     */
+    void handle(T notification);
+
+}
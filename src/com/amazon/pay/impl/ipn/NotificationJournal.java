@@ -0,0 +1,50 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Durable store for notifications that were acknowledged to Amazon SNS but
+ * not yet processed, so that they survive a restart of the receiver.
+ * Implementations must be safe for concurrent use by multiple threads.
+ */
+public interface NotificationJournal {
+
+    /**
+     * Stores the notification. Returns only once it is durable.
+     *
+     * @param queued notification to store
+     * @throws IOException If the notification could not be stored
+     */
+    void append(QueuedNotification queued) throws IOException;
+
+    /**
+     * Removes a processed notification
+     *
+     * @param queued notification to remove
+     */
+    void remove(QueuedNotification queued);
+
+    /**
+     * Returns the notifications stored but not removed, oldest first
+     *
+     * @return pending notifications
+     * @throws IOException If the journal could not be read
+     */
+    List<QueuedNotification> recover() throws IOException;
+
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.amazon.pay.response.ipn.model.Notification;
+
+/**
+ * Receives the notifications accepted by a NotificationReceiver.
+ * Callbacks run on the receiver's worker threads.
+ */
+public interface NotificationListener {
+
+    /**
+     * Called with a notification that passed verification
+     *
+     * @param notification the verified notification
+     */
+    void onNotification(Notification notification);
+
+    /**
+     * Called when a queued notification could not be verified or parsed,
+     * after the retries of a transient failure are used up.
+     * Amazon SNS has already been acknowledged, so it will not redeliver it.
+     *
+     * @param queued the notification as it was received
+     * @param e the verification or parsing failure
+     */
+    void onError(QueuedNotification queued, Exception e);
+
+}
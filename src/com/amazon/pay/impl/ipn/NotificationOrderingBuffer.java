@@ -0,0 +1,534 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.amazon.pay.impl.PayLogUtil;
+import com.amazon.pay.response.ipn.model.AuthorizationNotification;
+import com.amazon.pay.response.ipn.model.BillingAgreementNotification;
+import com.amazon.pay.response.ipn.model.CaptureNotification;
+import com.amazon.pay.response.ipn.model.ChargebackNotification;
+import com.amazon.pay.response.ipn.model.Notification;
+import com.amazon.pay.response.ipn.model.OrderReferenceNotification;
+import com.amazon.pay.response.ipn.model.ProviderCreditNotification;
+import com.amazon.pay.response.ipn.model.ProviderCreditReversalNotification;
+import com.amazon.pay.response.ipn.model.RefundNotification;
+import com.amazon.pay.response.model.Status;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+/**
+ * Puts the notifications of each payment object back in the order its
+ * state changed before handing them to a delegate listener.
+ *
+ * Amazon SNS does not preserve order, so a notification for an
+ * authorization in the Closed state can arrive before the one for its Open
+ * state.  Notifications are partitioned by object, for example by
+ * AmazonAuthorizationId or AmazonOrderReferenceId, and held for the
+ * configured hold time after the first one of a partition arrives.  The
+ * held notifications are then delivered ordered by the LastUpdateTimestamp
+ * of their status.  A notification strictly older than one already
+ * delivered for the same object is superseded and dropped.
+ *
+ * Each partition is delivered serially, different partitions are delivered
+ * in parallel on a pool of threads.  Notifications without a
+ * LastUpdateTimestamp, such as chargebacks, keep their arrival order within
+ * their partition.  Notifications without an object id are delivered
+ * immediately on the calling thread.
+ *
+ * The buffer is an AsyncNotificationListener: a NotificationReceiver keeps a
+ * journaled notification until the buffer delivered it to the delegate and,
+ * if the delegate is itself an AsyncNotificationListener such as a
+ * NotificationDispatcher, until the delegate is done with it.  Held
+ * notifications therefore survive a restart of a journaled receiver, and so
+ * do notifications the delegate threw on.
+ *
+ * Usage:
+ * <pre>
+ *     NotificationOrderingBuffer ordering = new NotificationOrderingBuffer(dispatcher)
+ *             .withHoldTime(2, TimeUnit.SECONDS);
+ *     receiver.addListener(ordering);
+ * </pre>
+ */
+public class NotificationOrderingBuffer implements AsyncNotificationListener {
+
+    public static final long DEFAULT_HOLD_TIME = TimeUnit.SECONDS.toMillis(1);
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_MAX_PARTITIONS = 10000;
+
+    private static final PayLogUtil payUtil = new PayLogUtil();
+    private static final Runnable NOTHING = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private final NotificationListener delegate;
+    private long holdTime = DEFAULT_HOLD_TIME;
+    private int threads = DEFAULT_THREADS;
+    private boolean latestOnly;
+
+    private final int maxPartitions;
+    private final Map<String, Partition> partitions;
+    private ScheduledThreadPoolExecutor executor;
+    private boolean shutdown;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong buffered = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong superseded = new AtomicLong();
+
+    /**
+     * @param delegate listener the ordered notifications are delivered to
+     */
+    public NotificationOrderingBuffer(NotificationListener delegate) {
+        this(delegate, DEFAULT_MAX_PARTITIONS);
+    }
+
+    /**
+     * @param delegate listener the ordered notifications are delivered to
+     * @param maxPartitions number of objects whose last delivered state is remembered; objects
+     *     with notifications held are always remembered, so this limit is exceeded while more
+     *     than maxPartitions objects have notifications held
+     */
+    public NotificationOrderingBuffer(NotificationListener delegate, final int maxPartitions) {
+        this.delegate = delegate;
+        this.maxPartitions = maxPartitions;
+        // Access order puts the partition idle for longest first
+        this.partitions = new LinkedHashMap<String, Partition>(16, 0.75f, true);
+    }
+
+    /**
+     * Sets how long notifications of an object are held for earlier states to arrive
+     *
+     * @param holdTime hold time
+     * @param unit unit of holdTime
+     * @return the buffer
+     */
+    public NotificationOrderingBuffer withHoldTime(long holdTime, TimeUnit unit) {
+        this.holdTime = unit.toMillis(holdTime);
+        return this;
+    }
+
+    /**
+     * Sets the number of threads partitions are delivered on.
+     * Must be called before the first notification arrives.
+     *
+     * @param threads number of threads
+     * @return the buffer
+     */
+    public synchronized NotificationOrderingBuffer withThreads(int threads) {
+        if (executor != null) {
+            throw new IllegalStateException("Buffer already started");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * When enabled, only the most recent of the notifications held for an
+     * object is delivered; the intermediate states are dropped as superseded
+     *
+     * @param latestOnly true to deliver only the latest state
+     * @return the buffer
+     */
+    public NotificationOrderingBuffer withLatestOnly(boolean latestOnly) {
+        this.latestOnly = latestOnly;
+        return this;
+    }
+
+    /**
+     * Holds the notification until the partition of its object is delivered
+     *
+     * @param notification the verified notification
+     */
+    @Override
+    public void onNotification(Notification notification) {
+        onNotification(notification, NOTHING);
+    }
+
+    /**
+     * Holds the notification until the partition of its object is delivered,
+     * and runs done once the delegate handled it or it was superseded.  done
+     * is not run when the delegate threw or the notification was dropped
+     * because the buffer is shut down.
+     *
+     * @param notification the verified notification
+     * @param done callback to run once the notification was handled
+     */
+    @Override
+    public void onNotification(Notification notification, Runnable done) {
+        final String key = getObjectKey(notification);
+        if (key == null) {
+            deliver(notification, done);
+            return;
+        }
+        final XMLGregorianCalendar timestamp = getLastUpdateTimestamp(notification);
+        final Pending pending = new Pending(notification,
+                timestamp == null ? null : timestamp.toGregorianCalendar().getTimeInMillis(),
+                sequence.incrementAndGet(), done);
+        final Partition partition;
+        final ScheduledThreadPoolExecutor scheduler;
+        final boolean stale;
+        final boolean startDrain;
+        synchronized (this) {
+            if (shutdown) {
+                payUtil.logWarning("Ordering buffer shut down, " + notification.getNotificationType() + " notification dropped");
+                return;
+            }
+            scheduler = getExecutor();
+            Partition existing = partitions.get(key);
+            if (existing == null) {
+                existing = new Partition();
+                partitions.put(key, existing);
+            }
+            partition = existing;
+            // Taken inside the buffer lock so that a new partition cannot be evicted before it is scheduled;
+            // a drain never holds both locks
+            synchronized (partition) {
+                // A different notification with the same timestamp is not older, so it is still delivered
+                stale = pending.timestamp != null && partition.lastDelivered != null
+                        && pending.timestamp < partition.lastDelivered;
+                startDrain = !stale && !partition.scheduled;
+                if (!stale) {
+                    partition.pending.add(pending);
+                    buffered.incrementAndGet();
+                    partition.scheduled = true;
+                }
+            }
+            if (partitions.size() > maxPartitions) {
+                evictIdlePartitions();
+            }
+        }
+        if (stale) {
+            superseded.incrementAndGet();
+            done.run();
+            return;
+        }
+        if (startDrain) {
+            schedule(scheduler, partition, holdTime);
+        }
+    }
+
+    /**
+     * Passes the failure straight to the delegate
+     *
+     * @param queued the notification as it was received
+     * @param e the verification or parsing failure
+     */
+    @Override
+    public void onError(QueuedNotification queued, Exception e) {
+        delegate.onError(queued, e);
+    }
+
+    /**
+     * Stops accepting notifications, delivers the held ones once their hold
+     * time expires and waits for the delivery to finish
+     *
+     * @param timeout maximum time to wait
+     * @param unit unit of timeout
+     * @return true if all held notifications were delivered
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        final ScheduledThreadPoolExecutor stopping;
+        synchronized (this) {
+            shutdown = true;
+            stopping = executor;
+        }
+        if (stopping == null) {
+            return true;
+        }
+        stopping.shutdown();
+        return stopping.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Returns the number of notifications held and not yet delivered
+     *
+     * @return buffered count
+     */
+    public long getBufferedCount() {
+        return buffered.get();
+    }
+
+    /**
+     * Returns the number of notifications delivered to the delegate
+     *
+     * @return delivered count
+     */
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * Returns the number of notifications dropped because a newer state of
+     * their object was delivered or, with latestOnly, held at the same time
+     *
+     * @return superseded count
+     */
+    public long getSupersededCount() {
+        return superseded.get();
+    }
+
+    /**
+     * Returns the number of objects whose state is tracked
+     *
+     * @return partition count
+     */
+    public synchronized int getPartitionCount() {
+        return partitions.size();
+    }
+
+    /**
+     * Forgets the partitions idle for longest until at most maxPartitions are
+     * left.  Partitions still holding notifications are kept, so the limit is
+     * exceeded while more than maxPartitions objects have notifications held.
+     */
+    private void evictIdlePartitions() {
+        final Iterator<Partition> iterator = partitions.values().iterator();
+        while (partitions.size() > maxPartitions && iterator.hasNext()) {
+            if (!iterator.next().isActive()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private ScheduledThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ScheduledThreadPoolExecutor(threads, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r, "amazon-pay-ipn-ordering-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Hands the notification to the delegate, passing done on when the delegate completes asynchronously
+     */
+    private void deliver(Notification notification, Runnable done) {
+        try {
+            if (delegate instanceof AsyncNotificationListener) {
+                ((AsyncNotificationListener) delegate).onNotification(notification, done);
+            } else {
+                delegate.onNotification(notification);
+                done.run();
+            }
+        } catch (RuntimeException e) {
+            // done is not run, so a journaled receiver keeps the notification
+            payUtil.logWarning("Encountered " + e.getClass().getSimpleName() + " in notification listener: "
+                    + e.getMessage());
+        }
+        delivered.incrementAndGet();
+    }
+
+    private void schedule(ScheduledThreadPoolExecutor scheduler, Partition partition, long delay) {
+        try {
+            scheduler.schedule(new Drain(partition), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shut down while the partition was held: deliver on the calling thread rather than lose it
+            new Drain(partition).run();
+        }
+    }
+
+    /**
+     * Returns the type and id of the payment object the notification is about,
+     * or null if it has none
+     */
+    static String getObjectKey(Notification notification) {
+        if (notification instanceof AuthorizationNotification) {
+            final AuthorizationNotification n = (AuthorizationNotification) notification;
+            return n.getAuthorizationDetails() == null ? null
+                    : key("Authorization", n.getAuthorizationDetails().getAmazonAuthorizationId());
+        } else if (notification instanceof CaptureNotification) {
+            final CaptureNotification n = (CaptureNotification) notification;
+            return n.getCaptureDetails() == null ? null
+                    : key("Capture", n.getCaptureDetails().getAmazonCaptureId());
+        } else if (notification instanceof RefundNotification) {
+            final RefundNotification n = (RefundNotification) notification;
+            return n.getRefundDetails() == null ? null
+                    : key("Refund", n.getRefundDetails().getAmazonRefundId());
+        } else if (notification instanceof OrderReferenceNotification) {
+            final OrderReferenceNotification n = (OrderReferenceNotification) notification;
+            return n.getOrderReference() == null ? null
+                    : key("OrderReference", n.getOrderReference().getAmazonOrderReferenceId());
+        } else if (notification instanceof BillingAgreementNotification) {
+            final BillingAgreementNotification n = (BillingAgreementNotification) notification;
+            return n.getBillingAgreement() == null ? null
+                    : key("BillingAgreement", n.getBillingAgreement().getAmazonBillingAgreementId());
+        } else if (notification instanceof ChargebackNotification) {
+            final ChargebackNotification n = (ChargebackNotification) notification;
+            return n.getChargebackDetails() == null ? null
+                    : key("Chargeback", n.getChargebackDetails().getAmazonChargebackId());
+        } else if (notification instanceof ProviderCreditNotification) {
+            final ProviderCreditNotification n = (ProviderCreditNotification) notification;
+            return n.getProviderCreditDetails() == null ? null
+                    : key("ProviderCredit", n.getProviderCreditDetails().getAmazonProviderCreditId());
+        } else if (notification instanceof ProviderCreditReversalNotification) {
+            final ProviderCreditReversalNotification n = (ProviderCreditReversalNotification) notification;
+            return n.getProviderCreditReversalDetails() == null ? null
+                    : key("ProviderCreditReversal", n.getProviderCreditReversalDetails().getAmazonProviderCreditReversalId());
+        }
+        return null;
+    }
+
+    /**
+     * Returns the LastUpdateTimestamp of the status carried by the notification, or null if it has none
+     */
+    static XMLGregorianCalendar getLastUpdateTimestamp(Notification notification) {
+        if (notification instanceof AuthorizationNotification) {
+            final AuthorizationNotification n = (AuthorizationNotification) notification;
+            return n.getAuthorizationDetails() == null ? null : timestamp(n.getAuthorizationDetails().getAuthorizationStatus());
+        } else if (notification instanceof CaptureNotification) {
+            final CaptureNotification n = (CaptureNotification) notification;
+            return n.getCaptureDetails() == null ? null : timestamp(n.getCaptureDetails().getCaptureStatus());
+        } else if (notification instanceof RefundNotification) {
+            final RefundNotification n = (RefundNotification) notification;
+            return n.getRefundDetails() == null ? null : timestamp(n.getRefundDetails().getRefundStatus());
+        } else if (notification instanceof OrderReferenceNotification) {
+            final OrderReferenceNotification n = (OrderReferenceNotification) notification;
+            return n.getOrderReference() == null || n.getOrderReference().getOrderReferenceStatus() == null ? null
+                    : n.getOrderReference().getOrderReferenceStatus().getLastUpdateTimestamp();
+        } else if (notification instanceof BillingAgreementNotification) {
+            final BillingAgreementNotification n = (BillingAgreementNotification) notification;
+            return n.getBillingAgreement() == null || n.getBillingAgreement().getBillingAgreementStatus() == null ? null
+                    : n.getBillingAgreement().getBillingAgreementStatus().getLastUpdatedTimestamp();
+        } else if (notification instanceof ProviderCreditNotification) {
+            final ProviderCreditNotification n = (ProviderCreditNotification) notification;
+            return n.getProviderCreditDetails() == null ? null : timestamp(n.getProviderCreditDetails().getCreditStatus());
+        } else if (notification instanceof ProviderCreditReversalNotification) {
+            final ProviderCreditReversalNotification n = (ProviderCreditReversalNotification) notification;
+            return n.getProviderCreditReversalDetails() == null ? null
+                    : timestamp(n.getProviderCreditReversalDetails().getCreditReversalStatus());
+        }
+        return null;
+    }
+
+    private static String key(String objectType, String id) {
+        return id == null ? null : objectType + ":" + id;
+    }
+
+    private static XMLGregorianCalendar timestamp(Status status) {
+        return status == null ? null : status.getLastUpdateTimestamp();
+    }
+
+    /**
+     * A held notification; ordered by timestamp, then by arrival
+     */
+    private static final class Pending {
+        private final Notification notification;
+        private final Long timestamp;
+        private final long sequence;
+        private final Runnable done;
+
+        private Pending(Notification notification, Long timestamp, long sequence, Runnable done) {
+            this.notification = notification;
+            this.timestamp = timestamp;
+            this.sequence = sequence;
+            this.done = done;
+        }
+    }
+
+    private static final Comparator<Pending> PENDING_ORDER = new Comparator<Pending>() {
+        @Override
+        public int compare(Pending a, Pending b) {
+            if (a.timestamp != null && b.timestamp != null && !a.timestamp.equals(b.timestamp)) {
+                return a.timestamp < b.timestamp ? -1 : 1;
+            }
+            return a.sequence < b.sequence ? -1 : (a.sequence == b.sequence ? 0 : 1);
+        }
+    };
+
+    /**
+     * Held notifications and last delivered state of one payment object.
+     * Guarded by its own monitor; scheduled stays true until a drain has
+     * finished delivering, which keeps the partition serial.
+     */
+    private static final class Partition {
+        private final PriorityQueue<Pending> pending = new PriorityQueue<Pending>(4, PENDING_ORDER);
+        private Long lastDelivered;
+        private boolean scheduled;
+
+        private synchronized boolean isActive() {
+            return scheduled;
+        }
+    }
+
+    /**
+     * Delivers the notifications held for one partition in order
+     */
+    private final class Drain implements Runnable {
+        private final Partition partition;
+
+        private Drain(Partition partition) {
+            this.partition = partition;
+        }
+
+        @Override
+        public void run() {
+            final List<Pending> ready = new ArrayList<Pending>(partition.pending.size());
+            synchronized (partition) {
+                while (!partition.pending.isEmpty()) {
+                    final Pending next = partition.pending.poll();
+                    if (next.timestamp != null) {
+                        partition.lastDelivered = next.timestamp;
+                    }
+                    ready.add(next);
+                }
+            }
+            buffered.addAndGet(-ready.size());
+            final int first = latestOnly ? Math.max(0, ready.size() - 1) : 0;
+            superseded.addAndGet(first);
+            for (int i = 0; i < first; i++) {
+                ready.get(i).done.run();
+            }
+            for (int i = first; i < ready.size(); i++) {
+                deliver(ready.get(i).notification, ready.get(i).done);
+            }
+            final ScheduledThreadPoolExecutor scheduler;
+            synchronized (partition) {
+                if (partition.pending.isEmpty()) {
+                    partition.scheduled = false;
+                    return;
+                }
+            }
+            synchronized (NotificationOrderingBuffer.this) {
+                scheduler = executor;
+            }
+            // Notifications that arrived during delivery get a hold time of their own
+            schedule(scheduler, partition, holdTime);
+        }
+    }
+
+}
@@ -0,0 +1,643 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.amazon.pay.impl.PayLogUtil;
+import com.amazon.pay.response.ipn.model.Notification;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.UnmarshalException;
+
+/**
+ * Embedded HTTP endpoint for Amazon Pay Instant Payment Notifications,
+ * built on the JDK HTTP server.
+ *
+ * A POST is answered with 200 as soon as it has been written to the
+ * journal, if one is configured, and placed on a bounded queue.  When the
+ * queue is full the request is answered with 503 so that Amazon SNS retries
+ * it later.  Worker threads take notifications off the queue, verify and
+ * parse them with NotificationFactory and hand them to the registered
+ * listeners.
+ *
+ * A notification is removed from the journal once it was delivered, dropped
+ * as a duplicate or rejected as malformed or by verification.  It counts as
+ * delivered when every listener returned and every AsyncNotificationListener,
+ * such as a NotificationDispatcher, ran the completion callback it was given.
+ * If a listener throws, or an AsyncNotificationListener does not complete
+ * it, the notification is logged at warn level and stays in the journal, so
+ * that the next start delivers it again.
+ * A transient failure, a network failure while fetching the signing
+ * certificate, is retried with exponential backoff up to maxAttempts times;
+ * if it still fails, the notification is reported to onError and left in the
+ * journal, so that the next start retries it.
+ *
+ * Without a journal the 200 only means that the notification was placed on
+ * an in-memory queue.  Queued notifications and pending retries are then lost
+ * when the process stops, and Amazon SNS will not redeliver them.
+ *
+ * Usage:
+ * <pre>
+ *     NotificationReceiver receiver = new NotificationReceiver(new InetSocketAddress(8080))
+ *             .withPath("/ipn")
+ *             .withWorkerThreads(8)
+ *             .withJournal(new FileNotificationJournal(new File("/var/lib/ipn")));
+ *     receiver.addListener(listener);
+ *     receiver.start();
+ * </pre>
+ */
+public class NotificationReceiver {
+
+    public static final String DEFAULT_PATH = "/";
+    public static final int DEFAULT_WORKER_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    public static final int DEFAULT_MAX_BODY_SIZE = 256 * 1024;
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    public static final long DEFAULT_RETRY_DELAY = TimeUnit.SECONDS.toMillis(1);
+
+    private static final PayLogUtil payUtil = new PayLogUtil();
+
+    private final InetSocketAddress address;
+    private String path = DEFAULT_PATH;
+    private int workerThreads = DEFAULT_WORKER_THREADS;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private int maxBodySize = DEFAULT_MAX_BODY_SIZE;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private long retryDelay = DEFAULT_RETRY_DELAY;
+    private NotificationJournal journal;
+    private MessageDeduplicator deduplicator;
+    private SigningCertificateCache certificateCache = SigningCertificateCache.getDefault();
+
+    private final List<NotificationListener> listeners = new CopyOnWriteArrayList<NotificationListener>();
+
+    private HttpServer server;
+    private ThreadPoolExecutor workers;
+    private ExecutorService acceptors;
+    private ScheduledExecutorService retries;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+
+    /**
+     * @param address Address the HTTP server binds to
+     */
+    public NotificationReceiver(InetSocketAddress address) {
+        this.address = address;
+    }
+
+    /**
+     * Sets the request path notifications are posted to, "/" by default
+     *
+     * @param path context path
+     * @return the receiver
+     */
+    public NotificationReceiver withPath(String path) {
+        this.path = path;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads that verify and parse notifications
+     *
+     * @param workerThreads number of worker threads
+     * @return the receiver
+     */
+    public NotificationReceiver withWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+        return this;
+    }
+
+    /**
+     * Sets how many accepted notifications may wait for a worker before
+     * further requests are answered with 503
+     *
+     * @param queueCapacity queue capacity
+     * @return the receiver
+     */
+    public NotificationReceiver withQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Sets the largest request body accepted, in bytes
+     *
+     * @param maxBodySize maximum body size
+     * @return the receiver
+     */
+    public NotificationReceiver withMaxBodySize(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+        return this;
+    }
+
+    /**
+     * Sets how many times a notification is processed before a transient
+     * failure is reported to onError, 5 by default
+     *
+     * @param maxAttempts maximum number of attempts
+     * @return the receiver
+     */
+    public NotificationReceiver withMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Sets the wait before the first retry of a transient failure, 1 second by
+     * default.  The wait doubles with every further attempt.
+     *
+     * @param retryDelay initial retry delay
+     * @param unit unit of retryDelay
+     * @return the receiver
+     */
+    public NotificationReceiver withRetryDelay(long retryDelay, TimeUnit unit) {
+        this.retryDelay = unit.toMillis(retryDelay);
+        return this;
+    }
+
+    /**
+     * Sets the journal accepted notifications are written to before they are
+     * acknowledged. Without a journal, queued notifications are lost on shutdown.
+     *
+     * @param journal durable store for pending notifications
+     * @return the receiver
+     */
+    public NotificationReceiver withJournal(NotificationJournal journal) {
+        this.journal = journal;
+        return this;
+    }
+
+    /**
+     * Sets the deduplicator used to drop notifications redelivered by Amazon SNS
+     *
+     * @param deduplicator record of processed MessageIds
+     * @return the receiver
+     */
+    public NotificationReceiver withDeduplicator(MessageDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+        return this;
+    }
+
+    /**
+     * Sets the cache signing certificates are looked up in, the process-wide
+     * SigningCertificateCache by default
+     *
+     * @param certificateCache cache of signing certificates keyed by SigningCertURL
+     * @return the receiver
+     */
+    public NotificationReceiver withCertificateCache(SigningCertificateCache certificateCache) {
+        this.certificateCache = certificateCache;
+        return this;
+    }
+
+    /**
+     * Registers a listener for verified notifications
+     *
+     * @param listener listener to add
+     */
+    public void addListener(NotificationListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a registered listener
+     *
+     * @param listener listener to remove
+     */
+    public void removeListener(NotificationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Queues the notifications left in the journal by a previous run and
+     * starts accepting requests
+     *
+     * @throws IOException If the server cannot be bound or the journal cannot be read
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Receiver already started");
+        }
+        workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new NamedThreadFactory("amazon-pay-ipn-worker"));
+        retries = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("amazon-pay-ipn-retry"));
+        if (journal != null) {
+            workers.prestartAllCoreThreads();
+            try {
+                for (QueuedNotification queued : journal.recover()) {
+                    // Recovered notifications were acknowledged already, so wait for room rather than drop them
+                    workers.getQueue().put(new Worker(queued, 1));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                workers.shutdownNow();
+                retries.shutdownNow();
+                throw new InterruptedIOException("Interrupted while recovering journaled notifications");
+            }
+        }
+
+        acceptors = Executors.newCachedThreadPool(new NamedThreadFactory("amazon-pay-ipn-http"));
+        server = HttpServer.create(address, 0);
+        server.createContext(path, new ReceiveHandler());
+        server.setExecutor(acceptors);
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits for queued notifications to be processed.
+     * Pending retries are abandoned; they remain in the journal, if one is configured.
+     *
+     * @param timeout maximum time to wait for the queue to drain
+     * @param unit unit of timeout
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public synchronized void stop(long timeout, TimeUnit unit) throws InterruptedException {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        acceptors.shutdown();
+        retries.shutdownNow();
+        workers.shutdown();
+        workers.awaitTermination(timeout, unit);
+        server = null;
+    }
+
+    /**
+     * Returns the address the server is bound to, useful when started on port 0
+     *
+     * @return bound address
+     */
+    public synchronized InetSocketAddress getAddress() {
+        return server == null ? address : server.getAddress();
+    }
+
+    /**
+     * Returns the number of notifications accepted and acknowledged with 200
+     *
+     * @return received count
+     */
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * Returns the number of requests answered with 503 because the queue was full
+     *
+     * @return rejected count
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns the number of notifications verified and delivered to the listeners
+     *
+     * @return processed count
+     */
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    /**
+     * Returns the number of notifications dropped as duplicates
+     *
+     * @return duplicate count
+     */
+    public long getDuplicateCount() {
+        return duplicates.get();
+    }
+
+    /**
+     * Returns the number of notifications that failed verification or parsing
+     *
+     * @return failed count
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Returns the number of retries scheduled after a transient failure
+     *
+     * @return retry count
+     */
+    public long getRetryCount() {
+        return retried.get();
+    }
+
+    /**
+     * Returns the number of accepted notifications waiting for a worker
+     *
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        final ThreadPoolExecutor executor = workers;
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    /**
+     * Answers 200 once the notification is journaled and queued, 503 when the queue is full
+     */
+    private final class ReceiveHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", "POST");
+                    exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_METHOD, -1);
+                    return;
+                }
+                final String body = readBody(exchange.getRequestBody());
+                if (body == null) {
+                    exchange.sendResponseHeaders(HttpURLConnection.HTTP_ENTITY_TOO_LARGE, -1);
+                    return;
+                }
+                exchange.sendResponseHeaders(enqueue(exchange, body), -1);
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private int enqueue(HttpExchange exchange, String body) {
+            final Map<String,String> headers = new HashMap<String,String>();
+            for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+                if (header.getKey() != null && !header.getValue().isEmpty()) {
+                    headers.put(header.getKey().toLowerCase(Locale.ENGLISH), header.getValue().get(0));
+                }
+            }
+            final QueuedNotification queued = new QueuedNotification(nextId(), headers, body);
+            if (journal != null) {
+                try {
+                    journal.append(queued);
+                } catch (IOException e) {
+                    payUtil.logMessage("Encountered IOException, unable to journal notification: " + e.getMessage());
+                    return HttpURLConnection.HTTP_UNAVAILABLE;
+                }
+            }
+            try {
+                workers.execute(new Worker(queued, 1));
+            } catch (RejectedExecutionException e) {
+                if (journal != null) {
+                    journal.remove(queued);
+                }
+                rejected.incrementAndGet();
+                return HttpURLConnection.HTTP_UNAVAILABLE;
+            }
+            received.incrementAndGet();
+            return HttpURLConnection.HTTP_OK;
+        }
+
+        /**
+         * Returns the body as UTF-8, or null if it exceeds maxBodySize
+         */
+        private String readBody(InputStream in) throws IOException {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+            final byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                if (out.size() + n > maxBodySize) {
+                    return null;
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toString("UTF-8");
+        }
+    }
+
+    /**
+     * Verifies and parses one queued notification and delivers it to the listeners
+     */
+    private final class Worker implements Runnable {
+        private final QueuedNotification queued;
+        private final int attempt;
+
+        private Worker(QueuedNotification queued, int attempt) {
+            this.queued = queued;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void run() {
+            final Notification notification;
+            try {
+                notification = NotificationFactory.parseNotification(queued.getHeaders(), queued.getBody(), deduplicator,
+                        new NotificationVerification(certificateCache));
+            } catch (RuntimeException e) {
+                final boolean transientFailure = isTransient(e);
+                if (transientFailure && attempt < maxAttempts && scheduleRetry()) {
+                    return;
+                }
+                failed.incrementAndGet();
+                for (NotificationListener listener : listeners) {
+                    try {
+                        listener.onError(queued, e);
+                    } catch (RuntimeException listenerException) {
+                        logListenerException(listenerException);
+                    }
+                }
+                if (!transientFailure) {
+                    removeFromJournal(queued);
+                }
+                return;
+            }
+            if (notification == null) {
+                duplicates.incrementAndGet();
+                removeFromJournal(queued);
+                return;
+            }
+            final Delivery delivery = new Delivery(queued);
+            for (NotificationListener listener : listeners) {
+                // One failing listener must not keep the notification from the others
+                Runnable done = null;
+                try {
+                    if (listener instanceof AsyncNotificationListener) {
+                        done = delivery.fork();
+                        ((AsyncNotificationListener) listener).onNotification(notification, done);
+                    } else {
+                        listener.onNotification(notification);
+                    }
+                } catch (RuntimeException listenerException) {
+                    logListenerException(listenerException);
+                    delivery.fail();
+                }
+            }
+            delivery.run();
+        }
+
+        /**
+         * Queues the next attempt after a backoff, returns false once the receiver is stopping
+         */
+        private boolean scheduleRetry() {
+            final Worker next = new Worker(queued, attempt + 1);
+            final long delay = retryDelay << Math.min(attempt - 1, 16);
+            try {
+                retries.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            workers.execute(next);
+                        } catch (RejectedExecutionException e) {
+                            if (!workers.isShutdown()) {
+                                // The queue is full, try again after the same delay
+                                retries.schedule(this, delay, TimeUnit.MILLISECONDS);
+                            }
+                        }
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+            retried.incrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * Counts the listeners still handling a notification and removes it from
+     * the journal once the last of them is done, unless one of them failed
+     */
+    private final class Delivery implements Runnable {
+        private final QueuedNotification queued;
+        private final AtomicInteger outstanding = new AtomicInteger(1);
+        private volatile boolean failed;
+
+        private Delivery(QueuedNotification queued) {
+            this.queued = queued;
+        }
+
+        /**
+         * Returns a callback for one more listener; running it more than once has no effect
+         */
+        private Runnable fork() {
+            outstanding.incrementAndGet();
+            final AtomicBoolean ran = new AtomicBoolean();
+            return new Runnable() {
+                @Override
+                public void run() {
+                    if (ran.compareAndSet(false, true)) {
+                        Delivery.this.run();
+                    }
+                }
+            };
+        }
+
+        /**
+         * Keeps the notification in the journal once the other listeners are done
+         */
+        private void fail() {
+            failed = true;
+        }
+
+        @Override
+        public void run() {
+            if (outstanding.decrementAndGet() == 0) {
+                if (failed) {
+                    payUtil.logWarning("Notification " + queued.getId() + " failed in a listener"
+                            + (journal != null ? " and is kept in the journal" : " and is lost, no journal is configured"));
+                    return;
+                }
+                processed.incrementAndGet();
+                removeFromJournal(queued);
+            }
+        }
+    }
+
+    private void removeFromJournal(QueuedNotification queued) {
+        if (journal != null) {
+            journal.remove(queued);
+        }
+    }
+
+    /**
+     * Returns true for failures that may not recur: a network failure while
+     * fetching the signing certificate, or a JAXB failure other than rejected
+     * content.  Malformed bodies, malformed SigningCertURLs and certificates
+     * that do not exist (404) fail the same way on every attempt.
+     */
+    static boolean isTransient(Throwable e) {
+        if (e instanceof SecurityException) {
+            // NotificationVerification wraps every IOException, including a malformed SigningCertURL
+            final Throwable cause = e.getCause();
+            return cause instanceof IOException
+                    && !(cause instanceof MalformedURLException)
+                    && !(cause instanceof FileNotFoundException);
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JAXBException && !(cause instanceof UnmarshalException)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void logListenerException(RuntimeException e) {
+        payUtil.logWarning("Encountered " + e.getClass().getSimpleName() + " in notification listener: " + e.getMessage());
+    }
+
+    private String nextId() {
+        // Zero padded so that journal file names sort in arrival order
+        return String.format("%013d-%010d", System.currentTimeMillis(), sequence.incrementAndGet());
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.amazon.pay.response.ipn.model.AuthorizationNotification;
+import com.amazon.pay.response.ipn.model.BillingAgreementNotification;
+import com.amazon.pay.response.ipn.model.CaptureNotification;
+import com.amazon.pay.response.ipn.model.ChargebackNotification;
+import com.amazon.pay.response.ipn.model.Notification;
+import com.amazon.pay.response.ipn.model.OrderReferenceNotification;
+import com.amazon.pay.response.ipn.model.ProviderCreditNotification;
+import com.amazon.pay.response.ipn.model.ProviderCreditReversalNotification;
+import com.amazon.pay.response.ipn.model.RefundNotification;
+import com.amazon.pay.response.ipn.model.SolutionProviderMerchantNotification;
+import com.amazon.pay.response.parser.JAXBContextRegistry;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.xml.bind.JAXBException;
+
+/**
+ * Maps the NotificationType field of an IPN message to the class its
+ * NotificationData is bound to.
+ *
+ * Lookups ignore case and spaces.  The JAXB contexts and pooled Unmarshallers
+ * for the bound classes are held by JAXBContextRegistry; call warmUp() before
+ * an IPN receiver starts taking traffic to create them ahead of time.
+ */
+public final class NotificationTypeRegistry {
+
+    private static final Map<String, Class<? extends Notification>> types;
+
+    static {
+        final Map<String, Class<? extends Notification>> map = new HashMap<String, Class<? extends Notification>>();
+        register(map, "OrderReferenceNotification", OrderReferenceNotification.class);
+        register(map, "PaymentAuthorize", AuthorizationNotification.class);
+        register(map, "PaymentCapture", CaptureNotification.class);
+        register(map, "PaymentRefund", RefundNotification.class);
+        register(map, "BillingAgreementNotification", BillingAgreementNotification.class);
+        register(map, "ProviderCredit", ProviderCreditNotification.class);
+        register(map, "ProviderCreditReversal", ProviderCreditReversalNotification.class);
+        register(map, "SolutionProviderEvent", SolutionProviderMerchantNotification.class);
+        register(map, "ChargebackDetailedNotification", ChargebackNotification.class);
+        types = Collections.unmodifiableMap(map);
+    }
+
+    private NotificationTypeRegistry() {
+    }
+
+    private static void register(Map<String, Class<? extends Notification>> map, String notificationType,
+            Class<? extends Notification> clazz) {
+        map.put(normalize(notificationType), clazz);
+    }
+
+    /**
+     * Returns the class bound to the given NotificationType value
+     *
+     * @param notificationType NotificationType field of the IPN message, e.g. "PaymentAuthorize"
+     * @return The bound Notification class, or null if the type is unknown
+     */
+    public static Class<? extends Notification> lookup(String notificationType) {
+        return notificationType == null ? null : types.get(normalize(notificationType));
+    }
+
+    /**
+     * Returns every Notification class known to the registry
+     *
+     * @return the registered classes
+     */
+    public static Collection<Class<? extends Notification>> getNotificationClasses() {
+        return types.values();
+    }
+
+    /**
+     * Creates the JAXB contexts and one pooled Unmarshaller for every
+     * notification type, so the first notifications received do not pay
+     * the initialization cost.
+     *
+     * @throws JAXBException If any context cannot be created
+     */
+    public static void warmUp() throws JAXBException {
+        JAXBContextRegistry.warmUp(types.values().toArray(new Class<?>[types.size()]));
+    }
+
+    /**
+     * Lower-cases the value and removes spaces in a single pass
+     */
+    private static String normalize(String notificationType) {
+        final StringBuilder normalized = new StringBuilder(notificationType.length());
+        for (int i = 0; i < notificationType.length(); i++) {
+            final char c = notificationType.charAt(i);
+            if (c != ' ') {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+}
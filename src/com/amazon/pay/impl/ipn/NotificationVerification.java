@@ -20,8 +20,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
 import java.security.Signature;
 import java.security.SignatureException;
 import java.security.cert.CertificateException;
@@ -36,6 +44,41 @@ import javax.xml.bind.DatatypeConverter;
  */
 public class NotificationVerification {
 
+    private static final Pattern PATTERN_SNS_KEY = Pattern.compile("^sns\\.[a-zA-Z0-9\\-]{3,}\\.amazonaws\\.com(\\.cn)?$");
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Number of public keys each thread keeps an initialized Signature for
+     */
+    private static final int SIGNATURES_PER_THREAD = 4;
+
+    // Signature and the canonical string buffers are not thread-safe, so each thread keeps its own
+    private static final ThreadLocal<VerifierState> verifierState = new ThreadLocal<VerifierState>() {
+        @Override
+        protected VerifierState initialValue() {
+            return new VerifierState();
+        }
+    };
+
+    private final SigningCertificateCache certificateCache;
+
+    /**
+     * Creates a verifier that uses the process-wide signing certificate cache
+     */
+    public NotificationVerification() {
+        this(SigningCertificateCache.getDefault());
+    }
+
+    /**
+     * Creates a verifier that looks up signing certificates in the given cache
+     *
+     * @param certificateCache cache of signing certificates keyed by SigningCertURL
+     */
+    public NotificationVerification(SigningCertificateCache certificateCache) {
+        this.certificateCache = certificateCache;
+    }
+
     /**
      * Helper method to verify IPN Headers
      * @param headers This parameter will contain IPN headers for the merchant to verify.
@@ -62,20 +105,42 @@ public class NotificationVerification {
             throw new AmazonClientException("Unable to parse notification, invalid notification");
         }
 
+        final Map<String,String> fields = notification.toMap();
+        final VerifierState state = verifierState.get();
         try {
-            URL url = new URL(notification.toMap().get("SigningCertURL"));
+            final String signingCertUrl = fields.get("SigningCertURL");
+            final URL url = new URL(signingCertUrl);
             isValidSigningCertURL(url);
-            //extract certificate from signingURL parameter
-            InputStream inStream = url.openStream();
-            CertificateFactory cf = CertificateFactory.getInstance("X.509");
-            X509Certificate cert = (X509Certificate)cf.generateCertificate(inStream);
-            inStream.close();
+            //extract certificate from signingURL parameter, fetching it only on a cache miss
+            X509Certificate cert = certificateCache.get(signingCertUrl, new SigningCertificateCache.CertificateLoader() {
+                @Override
+                public X509Certificate load() throws IOException, CertificateException {
+                    return fetchCertificate(url);
+                }
+            });
+
+            final String encodedSignature = fields.get("Signature");
+            final byte[] signature = encodedSignature != null ? DatatypeConverter.parseBase64Binary(encodedSignature) : null;
+            if (signature == null || signature.length == 0) {
+                throw new SecurityException("Missing Signature, notification verification failed");
+            }
 
             //verify the signature with given message and public key
-            Signature sig = Signature.getInstance("SHA1withRSA");
-            sig.initVerify(cert.getPublicKey());
-            sig.update(getMessageBytesToSign(notification));
-            if(!sig.verify(DatatypeConverter.parseBase64Binary(notification.toMap().get("Signature")))) {
+            final Signature sig = getSignature(state, cert.getPublicKey());
+            final int length = encodeMessageToSign(state, fields);
+            boolean verified = false;
+            boolean completed = false;
+            try {
+                sig.update(state.bytes, 0, length);
+                verified = sig.verify(signature);
+                completed = true;
+            } finally {
+                if (!completed) {
+                    // The Signature may still hold message bytes, so it is not reused
+                    state.evict(sig);
+                }
+            }
+            if(!verified) {
                 throw new SecurityException("Message signature calculation failed");
             }
             return true;
@@ -93,11 +158,37 @@ public class NotificationVerification {
 
     }
 
+    /**
+     * Helper method to download and parse the certificate behind SigningCertURL
+     */
+    private X509Certificate fetchCertificate(URL url) throws IOException, CertificateException {
+        final InputStream inStream = url.openStream();
+        try {
+            final CertificateFactory cf = CertificateFactory.getInstance("X.509");
+            return (X509Certificate)cf.generateCertificate(inStream);
+        } finally {
+            inStream.close();
+        }
+    }
+
+    /**
+     * Returns this thread's Signature initialized for the given key. A Signature
+     * returns to its initialized state after verify, so it is reused across calls.
+     */
+    private Signature getSignature(VerifierState state, PublicKey publicKey) throws NoSuchAlgorithmException, InvalidKeyException {
+        Signature sig = state.find(publicKey);
+        if (sig == null) {
+            sig = Signature.getInstance("SHA1withRSA");
+            sig.initVerify(publicKey);
+            state.add(publicKey, sig);
+        }
+        return sig;
+    }
+
     /**
      * Helper method to verify SigningCertURL
      */
     private void isValidSigningCertURL(URL url) throws MalformedURLException {
-        Pattern PATTERN_SNS_KEY = Pattern.compile("^sns\\.[a-zA-Z0-9\\-]{3,}\\.amazonaws\\.com(\\.cn)?$");
         String host = url.getHost();
         if (!"https".equals(url.getProtocol()) || url.getPath() == null || !url.getPath().endsWith(".pem") || !PATTERN_SNS_KEY.matcher(host).matches()) {
             throw new SecurityException("Illegal SigningCertURL parameter: ");
@@ -107,21 +198,73 @@ public class NotificationVerification {
     /*
      * Used to build the string to sign for notification messages.
      * Name and values separated by newline characters. The name value pairs are
-     * sorted by name in byte sort order.
+     * sorted by name in byte sort order. The UTF-8 encoding is written to
+     * state.bytes and its length returned.
+     */
+    private int encodeMessageToSign(VerifierState state, Map<String,String> fields) throws CharacterCodingException {
+        final StringBuilder stringToSign = state.stringToSign;
+        stringToSign.setLength(0);
+        stringToSign.append("Message\n").append(fields.get("Message")).append('\n');
+        stringToSign.append("MessageId\n").append(fields.get("MessageId")).append('\n');
+        stringToSign.append("Timestamp\n").append(fields.get("Timestamp")).append('\n');
+        stringToSign.append("TopicArn\n").append(fields.get("TopicArn")).append('\n');
+        stringToSign.append("Type\n").append(fields.get("Type")).append('\n');
+
+        final int maxLength = (int) (stringToSign.length() * state.encoder.maxBytesPerChar()) + 1;
+        if (state.bytes.length < maxLength) {
+            state.bytes = new byte[Math.max(maxLength, state.bytes.length * 2)];
+        }
+        final ByteBuffer out = ByteBuffer.wrap(state.bytes);
+        state.encoder.reset();
+        CoderResult result = state.encoder.encode(CharBuffer.wrap(stringToSign), out, true);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        result = state.encoder.flush(out);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        return out.position();
+    }
+
+    /**
+     * Per-thread Signature instances for the most recently used public keys,
+     * matched by identity since certificates are shared through the cache,
+     * and the reusable buffers for the string to sign.
      */
-    private byte [] getMessageBytesToSign (Notification notification) {
-        String stringToSign = null;
-        stringToSign = "Message\n";
-        stringToSign += notification.toMap().get("Message")+ "\n";
-        stringToSign += "MessageId\n";
-        stringToSign += notification.toMap().get("MessageId") + "\n";
-        stringToSign += "Timestamp\n";
-        stringToSign += notification.toMap().get("Timestamp") + "\n";
-        stringToSign += "TopicArn\n";
-        stringToSign += notification.toMap().get("TopicArn") + "\n";
-        stringToSign += "Type\n";
-        stringToSign += notification.toMap().get("Type") + "\n";
-        return stringToSign.getBytes();
+    private static final class VerifierState {
+        private final PublicKey[] keys = new PublicKey[SIGNATURES_PER_THREAD];
+        private final Signature[] signatures = new Signature[SIGNATURES_PER_THREAD];
+        private int next;
+        private final StringBuilder stringToSign = new StringBuilder(4096);
+        private final CharsetEncoder encoder = UTF8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private byte[] bytes = new byte[8192];
+
+        private Signature find(PublicKey key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return signatures[i];
+                }
+            }
+            return null;
+        }
+
+        private void add(PublicKey key, Signature signature) {
+            keys[next] = key;
+            signatures[next] = signature;
+            next = (next + 1) % keys.length;
+        }
+
+        private void evict(Signature signature) {
+            for (int i = 0; i < signatures.length; i++) {
+                if (signatures[i] == signature) {
+                    keys[i] = null;
+                    signatures[i] = null;
+                }
+            }
+        }
     }
 
 }
@@ -0,0 +1,76 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A raw IPN HTTP request accepted by a NotificationReceiver and waiting to be
+ * verified and parsed.
+ */
+public final class QueuedNotification {
+
+    private final String id;
+    private final Map<String,String> headers;
+    private final String body;
+
+    /**
+     * @param id Identifier unique within the receiver's journal
+     * @param headers HTTP request headers, names in lower case
+     * @param body HTTP request body
+     */
+    public QueuedNotification(String id, Map<String,String> headers, String body) {
+        this.id = id;
+        this.headers = Collections.unmodifiableMap(new HashMap<String,String>(headers));
+        this.body = body;
+    }
+
+    /**
+     * Returns the identifier of the queued notification
+     *
+     * @return id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the HTTP request headers, names in lower case
+     *
+     * @return headers
+     */
+    public Map<String,String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the HTTP request body
+     *
+     * @return body
+     */
+    public String getBody() {
+        return body;
+    }
+
+    @Override
+    public String toString() {
+        return "QueuedNotification{"
+                + "id=" + id
+                + ", headers=" + headers + '}';
+    }
+
+}
@@ -0,0 +1,388 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of the X.509 certificates used to sign Instant Payment
+ * Notifications, keyed by SigningCertURL.
+ *
+ * A cached certificate is used until the earlier of its notAfter date and
+ * the configured maximum age.  Once an entry enters its refresh window the
+ * current certificate keeps being served while a replacement is fetched on a
+ * background thread.  Concurrent misses for the same URL share a single fetch.
+ *
+ * Certificates can also be pinned up front from a KeyStore or a directory of
+ * PEM files so that no network access is needed to verify notifications.
+ * Pinned certificates are matched by the file name of the SigningCertURL,
+ * ignoring case, e.g. SimpleNotificationService-bb750dd426d95ee9390147a5624348ee.pem.
+ */
+public class SigningCertificateCache {
+
+    /**
+     * Default maximum number of fetched certificates kept in the cache
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+
+    /**
+     * Default upper bound on how long a fetched certificate is used, in milliseconds
+     */
+    public static final long DEFAULT_MAX_AGE = TimeUnit.HOURS.toMillis(24);
+
+    /**
+     * Default time before expiry at which a background refresh starts, in milliseconds
+     */
+    public static final long DEFAULT_REFRESH_AHEAD = TimeUnit.HOURS.toMillis(1);
+
+    private static final SigningCertificateCache defaultCache = new SigningCertificateCache();
+
+    private static final ExecutorService refresher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "amazon-pay-ipn-certificate-refresh");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+    private volatile long maxAge = DEFAULT_MAX_AGE;
+    private volatile long refreshAhead = DEFAULT_REFRESH_AHEAD;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private final ConcurrentMap<String, FutureTask<Entry>> fetches = new ConcurrentHashMap<String, FutureTask<Entry>>();
+    private final ConcurrentMap<String, X509Certificate> pinned = new ConcurrentHashMap<String, X509Certificate>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+
+    /**
+     * Fetches the certificate behind a SigningCertURL
+     */
+    interface CertificateLoader {
+        X509Certificate load() throws IOException, CertificateException;
+    }
+
+    /**
+     * Returns the cache shared by all NotificationVerification instances
+     *
+     * @return the process-wide cache
+     */
+    public static SigningCertificateCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * Sets the maximum number of fetched certificates kept in the cache.
+     * Pinned certificates do not count towards this bound.
+     *
+     * @param maxEntries maximum number of cached certificates
+     * @return the cache
+     */
+    public SigningCertificateCache withMaxEntries(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        return this;
+    }
+
+    /**
+     * Sets the maximum time a fetched certificate is used before it is fetched again
+     *
+     * @param maxAge maximum age
+     * @param unit unit of maxAge
+     * @return the cache
+     */
+    public SigningCertificateCache withMaxAge(long maxAge, TimeUnit unit) {
+        this.maxAge = unit.toMillis(maxAge);
+        return this;
+    }
+
+    /**
+     * Sets how long before expiry a cached certificate is refreshed in the background
+     *
+     * @param refreshAhead refresh window
+     * @param unit unit of refreshAhead
+     * @return the cache
+     */
+    public SigningCertificateCache withRefreshAhead(long refreshAhead, TimeUnit unit) {
+        this.refreshAhead = unit.toMillis(refreshAhead);
+        return this;
+    }
+
+    /**
+     * Pins a certificate for the given SigningCertURL or file name
+     *
+     * @param signingCertUrl SigningCertURL, or just its file name
+     * @param certificate certificate served for that URL
+     * @return the cache
+     */
+    public SigningCertificateCache pin(String signingCertUrl, X509Certificate certificate) {
+        pinned.put(fileName(signingCertUrl), certificate);
+        return this;
+    }
+
+    /**
+     * Pins every X.509 certificate in the given key store under its alias.
+     * Aliases are expected to be the SigningCertURL or its file name.
+     *
+     * @param keyStore a loaded key store
+     * @return the cache
+     * @throws KeyStoreException If the key store has not been loaded
+     */
+    public SigningCertificateCache pin(KeyStore keyStore) throws KeyStoreException {
+        final Enumeration<String> aliases = keyStore.aliases();
+        while (aliases.hasMoreElements()) {
+            final String alias = aliases.nextElement();
+            final Certificate certificate = keyStore.getCertificate(alias);
+            if (certificate instanceof X509Certificate) {
+                pin(alias, (X509Certificate) certificate);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Pins every *.pem file in the given directory under its file name
+     *
+     * @param directory directory holding the PEM encoded signing certificates
+     * @return the cache
+     * @throws IOException If the directory or one of its files cannot be read
+     * @throws CertificateException If a file is not a valid X.509 certificate
+     */
+    public SigningCertificateCache pin(File directory) throws IOException, CertificateException {
+        final File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".pem");
+            }
+        });
+        if (files == null) {
+            throw new IOException("Unable to list certificate directory " + directory);
+        }
+        final CertificateFactory cf = CertificateFactory.getInstance("X.509");
+        for (File file : files) {
+            final InputStream in = new FileInputStream(file);
+            try {
+                pin(file.getName(), (X509Certificate) cf.generateCertificate(in));
+            } finally {
+                in.close();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Removes all cached and pinned certificates
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        pinned.clear();
+    }
+
+    /**
+     * Returns the number of lookups served from the cache or the pinned certificates
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups that had to fetch the certificate
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of background refreshes started
+     *
+     * @return refresh count
+     */
+    public long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    /**
+     * Returns the number of fetched certificates currently cached
+     *
+     * @return cache size
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns a currently valid certificate for the given SigningCertURL,
+     * fetching it with the loader when it is neither pinned nor cached.
+     */
+    X509Certificate get(final String signingCertUrl, final CertificateLoader loader) throws IOException, CertificateException {
+        final X509Certificate pinnedCertificate = pinned.get(fileName(signingCertUrl));
+        if (pinnedCertificate != null) {
+            pinnedCertificate.checkValidity();
+            hits.incrementAndGet();
+            return pinnedCertificate;
+        }
+
+        final Entry entry;
+        synchronized (entries) {
+            entry = entries.get(signingCertUrl);
+        }
+        final long now = System.currentTimeMillis();
+        if (entry != null && now < entry.expiresAt) {
+            hits.incrementAndGet();
+            if (now >= entry.refreshAt) {
+                refresh(signingCertUrl, loader);
+            }
+            return entry.certificate;
+        }
+
+        misses.incrementAndGet();
+        return fetch(signingCertUrl, loader).certificate;
+    }
+
+    private Entry fetch(String signingCertUrl, CertificateLoader loader) throws IOException, CertificateException {
+        final FutureTask<Entry> task = newFetch(signingCertUrl, loader);
+        FutureTask<Entry> fetch = fetches.putIfAbsent(signingCertUrl, task);
+        if (fetch == null) {
+            fetch = task;
+            try {
+                task.run();
+            } finally {
+                fetches.remove(signingCertUrl, task);
+            }
+        }
+
+        try {
+            return fetch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + signingCertUrl);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof CertificateException) {
+                throw (CertificateException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CertificateException(cause);
+        }
+    }
+
+    private void refresh(final String signingCertUrl, final CertificateLoader loader) {
+        final FutureTask<Entry> task = newFetch(signingCertUrl, loader);
+        if (fetches.putIfAbsent(signingCertUrl, task) == null) {
+            refreshes.incrementAndGet();
+            refresher.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } finally {
+                        fetches.remove(signingCertUrl, task);
+                    }
+                }
+            });
+        }
+    }
+
+    private FutureTask<Entry> newFetch(final String signingCertUrl, final CertificateLoader loader) {
+        return new FutureTask<Entry>(new Callable<Entry>() {
+            @Override
+            public Entry call() throws IOException, CertificateException {
+                final X509Certificate certificate = loader.load();
+                certificate.checkValidity();
+                final Entry entry = new Entry(certificate, System.currentTimeMillis());
+                // Certificates without a validity period are never cached
+                if (certificate.getNotAfter() != null) {
+                    synchronized (entries) {
+                        entries.put(signingCertUrl, entry);
+                    }
+                }
+                return entry;
+            }
+        });
+    }
+
+    // Key store aliases may be lower-cased, so pinned names are compared case-insensitively
+    private static String fileName(String signingCertUrl) {
+        return signingCertUrl.substring(signingCertUrl.lastIndexOf('/') + 1).toLowerCase(Locale.ENGLISH);
+    }
+
+    private final class Entry {
+        private final X509Certificate certificate;
+        private final long expiresAt;
+        private final long refreshAt;
+
+        private Entry(X509Certificate certificate, long fetchedAt) {
+            this.certificate = certificate;
+            final Date notAfter = certificate.getNotAfter();
+            long expiry = fetchedAt + maxAge;
+            if (notAfter != null && notAfter.getTime() < expiry) {
+                expiry = notAfter.getTime();
+            }
+            this.expiresAt = expiry;
+            this.refreshAt = Math.max(fetchedAt, expiry - refreshAhead);
+        }
+    }
+
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.request;
+
+import com.amazon.pay.types.ServiceConstants;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Collects the parameters of an Amazon Pay API request in canonical
+ * (sorted by name) order and serializes them for Signature Version 2.
+ *
+ * Values are kept unencoded until build(), which RFC 3986-encodes each value
+ * exactly once into a single buffer that serves both as the string to sign
+ * and, once the signature has been inserted, as the POST body.
+ */
+public final class CanonicalParameterBuilder {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] values = new String[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Adds a parameter, replacing the value of an existing parameter with the same name.
+     *
+     * @param name Parameter name
+     * @param value Unencoded parameter value; null is sent as an empty value
+     * @return This builder
+     */
+    public CanonicalParameterBuilder put(String name, String value) {
+        final int index = indexOf(name);
+        if (index >= 0) {
+            values[index] = value;
+            return this;
+        }
+        final int insertAt = -(index + 1);
+        if (size == names.length) {
+            final String[] newNames = new String[size * 2];
+            final String[] newValues = new String[size * 2];
+            System.arraycopy(names, 0, newNames, 0, size);
+            System.arraycopy(values, 0, newValues, 0, size);
+            names = newNames;
+            values = newValues;
+        }
+        System.arraycopy(names, insertAt, names, insertAt + 1, size - insertAt);
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        names[insertAt] = name;
+        values[insertAt] = value;
+        size++;
+        return this;
+    }
+
+    /**
+     * Returns the unencoded value of a parameter
+     *
+     * @param name Parameter name
+     * @return The value, or null if the parameter has not been added
+     */
+    public String get(String name) {
+        final int index = indexOf(name);
+        return index >= 0 ? values[index] : null;
+    }
+
+    /**
+     * Returns the number of parameters added
+     *
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Serializes the parameters, signs them and returns the POST body.
+     *
+     * @param postHeader The "POST\nhost\npath\n" prefix of the string to sign
+     * @param signer Signer for the string to sign
+     * @return The URL-encoded POST body including the Signature parameter
+     * @throws NoSuchAlgorithmException If HmacSHA256 is not available
+     * @throws InvalidKeyException If the secret key is not a valid HMAC key
+     */
+    public String build(String postHeader, RequestSigner signer) throws NoSuchAlgorithmException, InvalidKeyException {
+        final StringBuilder buffer = new StringBuilder(postHeader.length() + 64 * (size + 1));
+        buffer.append(postHeader);
+        final int bodyStart = buffer.length();
+        int signatureAt = -1;
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                buffer.append('&');
+            }
+            if (signatureAt < 0 && names[i].compareTo(ServiceConstants.SIGNATURE) > 0) {
+                signatureAt = buffer.length();
+            }
+            buffer.append(names[i]).append('=');
+            appendEncoded(buffer, values[i]);
+        }
+
+        final String signature = signer.sign(buffer);
+        if (signatureAt < 0) {
+            buffer.append(size > 0 ? "&" : "").append(ServiceConstants.SIGNATURE).append('=').append(signature);
+        } else {
+            buffer.insert(signatureAt, ServiceConstants.SIGNATURE + "=" + signature + "&");
+        }
+        return buffer.substring(bodyStart);
+    }
+
+    /**
+     * Serializes the parameters without a signature.
+     *
+     * @return The URL-encoded parameters separated by ampersand
+     */
+    public String toQueryString() {
+        final StringBuilder buffer = new StringBuilder(64 * (size + 1));
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                buffer.append('&');
+            }
+            buffer.append(names[i]).append('=');
+            appendEncoded(buffer, values[i]);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Appends the RFC 3986 encoding of the UTF-8 bytes of value, producing the
+     * same output as Util.urlEncode.
+     *
+     * @param buffer Destination
+     * @param value Unencoded value, null is appended as an empty value
+     */
+    static void appendEncoded(StringBuilder buffer, String value) {
+        if (value == null) {
+            return;
+        }
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '.' || c == '_' || c == '~') {
+                buffer.append(c);
+            } else if (c < 0x80) {
+                appendByte(buffer, c);
+            } else if (c < 0x800) {
+                appendByte(buffer, 0xc0 | (c >> 6));
+                appendByte(buffer, 0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                appendByte(buffer, 0xf0 | (codePoint >> 18));
+                appendByte(buffer, 0x80 | ((codePoint >> 12) & 0x3f));
+                appendByte(buffer, 0x80 | ((codePoint >> 6) & 0x3f));
+                appendByte(buffer, 0x80 | (codePoint & 0x3f));
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                // Unpaired surrogates are replaced with '?' like URLEncoder does
+                appendByte(buffer, '?');
+            } else {
+                appendByte(buffer, 0xe0 | (c >> 12));
+                appendByte(buffer, 0x80 | ((c >> 6) & 0x3f));
+                appendByte(buffer, 0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    private static void appendByte(StringBuilder buffer, int b) {
+        buffer.append('%').append(HEX[(b >> 4) & 0x0f]).append(HEX[b & 0x0f]);
+    }
+
+    private int indexOf(String name) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int cmp = names[mid].compareTo(name);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Returns the parameters in the same format as a sorted map, with encoded values
+     */
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder(64 * (size + 1)).append('{');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(names[i]).append('=');
+            appendEncoded(buffer, values[i]);
+        }
+        return buffer.append('}').toString();
+    }
+
+}
@@ -23,55 +23,48 @@ import com.amazon.pay.response.model.ProviderCredit;
 import com.amazon.pay.types.OrderReferenceStatus;
 import com.amazon.pay.types.ServiceConstants;
 
-import java.io.UnsupportedEncodingException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.EnumSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 
 
 public class RequestHelper {
 
     public PayConfig payConfig;
-    private PayLogUtil payUtil;
+    private static final PayLogUtil payUtil = new PayLogUtil();
+    private final RequestSigner signer;
 
 
     public RequestHelper(PayConfig payConfig) {
         this.payConfig = payConfig;
-        this.payUtil = new PayLogUtil();
+        this.signer = new RequestSigner(payConfig);
     }
 
-    private Map<String,String> addClientParameters(Map<String,String> params, DelegateRequest request) {
-        try {
-            if ((request != null) && (request.getMwsAuthToken() != null)) {
-                params.put(ServiceConstants.MWS_AUTH_TOKEN, request.getMwsAuthToken());
-            }
-
-            if ((request != null) && (request.getSellerId() != null)) {
-                params.put(ServiceConstants.SELLER_ID, request.getSellerId());
-            } else {
-                params.put(ServiceConstants.SELLER_ID, payConfig.getSellerId());
-            }
+    private String addClientParameters(CanonicalParameterBuilder params, DelegateRequest request) {
+        if ((request != null) && (request.getMwsAuthToken() != null)) {
+            params.put(ServiceConstants.MWS_AUTH_TOKEN, request.getMwsAuthToken());
+        }
 
-            params.put(ServiceConstants.AWSACCESSKEYID, payConfig.getAccessKey());
-            params.put(ServiceConstants.SIGNATUREVERSION, "2");
-            params.put(ServiceConstants.SIGNATUREMETHOD, "HmacSHA256");
-            params.put(ServiceConstants.VERSION, ServiceConstants.AMAZON_PAY_API_VERSION);
-            params.put(ServiceConstants.TIMESTAMP, Util.getTimestamp());
-            Util.urlEncodeAPIParams(params);
-            String signature = constructSignature(params);
-            params.put(ServiceConstants.SIGNATURE, signature);
-            return params;
-        } catch (UnsupportedEncodingException e) {
-            throw new AmazonClientException("Encountered client exception:", e);
+        if ((request != null) && (request.getSellerId() != null)) {
+            params.put(ServiceConstants.SELLER_ID, request.getSellerId());
+        } else {
+            params.put(ServiceConstants.SELLER_ID, payConfig.getSellerId());
         }
+
+        params.put(ServiceConstants.AWSACCESSKEYID, payConfig.getAccessKey());
+        params.put(ServiceConstants.SIGNATUREVERSION, "2");
+        params.put(ServiceConstants.SIGNATUREMETHOD, "HmacSHA256");
+        params.put(ServiceConstants.VERSION, ServiceConstants.AMAZON_PAY_API_VERSION);
+        params.put(ServiceConstants.TIMESTAMP, Util.getTimestamp());
+        return constructSignature(params);
     }
 
-    private String constructSignature(Map<String, String> params) {
-        String signature = null;
+    /**
+     * Signs the parameters and returns the POST body including the Signature parameter
+     */
+    private String constructSignature(CanonicalParameterBuilder params) {
         try {
             String domainName;
             if (payConfig.getOverrideServiceURL() != null) {
@@ -80,16 +73,13 @@ public class RequestHelper {
                 domainName = ServiceConstants.mwsEndpointMappings.get(payConfig.getRegion());
             }
             final String postHeader = "POST\n" + domainName.replace("https://", "")  + "\n" + Util.getServiceVersionName(payConfig.getEnvironment()) + "\n";
-            final Map<String, String> sortedParams = new TreeMap<String, String>();
-            sortedParams.putAll(params);
 
             /* Log all the client parameters */
-            payUtil.logMessage("Client Parameters: " + sortedParams.toString());
+            if (payUtil.isEnabled()) {
+                payUtil.logMessage("Client Parameters: " + params.toString());
+            }
 
-            final String stringToSign = postHeader + Util.convertParameterMapToString(sortedParams);
-            signature = Util.urlEncode(Util.getSignature(stringToSign, payConfig.getSecretKey()));
-        } catch (UnsupportedEncodingException ex) {
-            throw new AmazonClientException("Encountered UnsupportedEncodingException:", ex);
+            return params.build(postHeader, signer);
         } catch (IllegalStateException ex) {
             throw new AmazonClientException("Encountered IllegalStateException:", ex);
         } catch (NoSuchAlgorithmException ex) {
@@ -97,12 +87,11 @@ public class RequestHelper {
         } catch (InvalidKeyException ex) {
             throw new AmazonClientException("Encountered InvalidKeyException:", ex);
         }
-        return signature;
     }
 
 
     public  String getPostURL(GetOrderReferenceDetailsRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.GET_ORDER_REFERENCE_DETAILS);
         if (request.getAmazonOrderReferenceId() != null) {
             parameters.put(ServiceConstants.AMAZON_ORDER_REFERENCE_ID, request.getAmazonOrderReferenceId());
@@ -113,12 +102,11 @@ public class RequestHelper {
         if (request.getAccessToken() != null) {
             parameters.put(ServiceConstants.ACCESS_TOKEN, request.getAccessToken());
         }
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public  String getPostURL(SetOrderReferenceDetailsRequest request) {
-        Map<String,String> parameters = new TreeMap<String, String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         if (request.getOrderCurrencyCode() == null)
             request.setOrderCurrencyCode(payConfig.getCurrencyCode());
 
@@ -153,12 +141,11 @@ public class RequestHelper {
         if (request.getRequestPaymentAuthorization() != null) {
             parameters.put(ServiceConstants.REQUEST_PAYMENT_AUTHORIZATION, Boolean.toString(request.getRequestPaymentAuthorization()));
         }
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public  String getPostURL(AuthorizeRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         if (request.getAuthorizationCurrencyCode() == null)
             request.setAuthorizationCurrencyCode(payConfig.getCurrencyCode());
 
@@ -190,22 +177,20 @@ public class RequestHelper {
         if (request.getProviderCredit() != null) {
             addProviderCreditToParamMap(request.getProviderCredit(), parameters);
         }
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public  String getPostURL(GetAuthorizationDetailsRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.GET_AUTHORIZATION_DETAILS);
         if (request.getAmazonAuthorizationId() != null) {
             parameters.put(ServiceConstants.AMAZON_AUTHORIZATION_ID, request.getAmazonAuthorizationId());
         }
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public  String getPostURL(CaptureRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.CAPTURE);
 
         if (request.getCaptureCurrencyCode() == null)
@@ -232,22 +217,20 @@ public class RequestHelper {
         if (request.getProviderCredit() != null) {
             addProviderCreditToParamMap(request.getProviderCredit(), parameters);
         }
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public  String getPostURL(GetCaptureDetailsRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.GET_CAPTURE_DETAILS);
         if (request.getAmazonCaptureId() != null) {
             parameters.put(ServiceConstants.AMAZON_CAPTURE_ID, request.getAmazonCaptureId());
         }
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public  String getPostURL(ConfirmOrderReferenceRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.CONFIRM_ORDER_REFERENCE);
         if (request.getAmazonOrderReferenceId() != null) {
             parameters.put(ServiceConstants.AMAZON_ORDER_REFERENCE_ID, request.getAmazonOrderReferenceId());
@@ -270,12 +253,11 @@ public class RequestHelper {
         if (request.isExpectImmediateAuthorization() != null) {
             parameters.put(ServiceConstants.EXPECT_IMMEDIATE_AUTHORIZATION, request.isExpectImmediateAuthorization().toString());
         }
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public  String getPostURL(CancelOrderReferenceRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.CANCEL_ORDER_REFERENCE);
         if (request.getAmazonOrderReferenceId() != null) {
             parameters.put(ServiceConstants.AMAZON_ORDER_REFERENCE_ID, request.getAmazonOrderReferenceId());
@@ -283,12 +265,11 @@ public class RequestHelper {
         if (request.getCancelationReason() != null) {
             parameters.put(ServiceConstants.CANCELATION_REASON, request.getCancelationReason());
         }
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public  String getPostURL(CloseOrderReferenceRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.CLOSE_ORDER_REFERENCE);
         if (request.getAmazonOrderReferenceId() != null) {
             parameters.put(ServiceConstants.AMAZON_ORDER_REFERENCE_ID, request.getAmazonOrderReferenceId());
@@ -296,12 +277,11 @@ public class RequestHelper {
         if (request.getClosureReason() != null) {
             parameters.put(ServiceConstants.CLOSURE_REASON, request.getClosureReason());
         }
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public  String getPostURL(CloseAuthorizationRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.CLOSE_AUTHORIZATION);
         if (request.getAmazonAuthorizationId() != null) {
             parameters.put(ServiceConstants.AMAZON_AUTHORIZATION_ID, request.getAmazonAuthorizationId());
@@ -309,12 +289,11 @@ public class RequestHelper {
         if (request.getClosureReason() != null) {
             parameters.put(ServiceConstants.CLOSURE_REASON, request.getClosureReason());
         }
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public  String getPostURL(RefundRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.REFUND);
         if (request.getRefundCurrencyCode() == null) {
             request.setRefundCurrencyCode(payConfig.getCurrencyCode());
@@ -340,42 +319,38 @@ public class RequestHelper {
         if (request.getProviderCredit() != null) {
             addProviderCreditReversalToParamMap(request.getProviderCredit(), parameters);
         }
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public String getPostURL(GetRefundDetailsRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.GET_REFUND_DETAILS);
         if (request.getAmazonRefundId() != null) {
             parameters.put(ServiceConstants.AMAZON_REFUND_ID, request.getAmazonRefundId());
         }
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public String getPostURL(GetProviderCreditDetailsRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.GET_PROVIDER_CREDIT_DETAILS);
         if (request.getAmazonProviderCreditId() != null) {
             parameters.put(ServiceConstants.AMAZON_PROVIDER_CREDIT_ID, request.getAmazonProviderCreditId());
         }
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public String getPostURL(GetProviderCreditReversalDetailsRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.GET_REVERSE_PROVIDER_CREDIT_DETAILS);
         if (request.getAmazonProviderCreditReversalId() != null) {
             parameters.put(ServiceConstants.AMAZON_PROVIDER_CREDIT_REVERSAL_ID, request.getAmazonProviderCreditReversalId());
         }
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public String getPostURL(ReverseProviderCreditRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.REVERSE_PROVIDER_CREDIT_DETAILS);
         if (request.getCreditReversalAmountCurrencyCode() == null)
             request.setCreditReversalCurrencyCode(payConfig.getCurrencyCode());
@@ -389,23 +364,21 @@ public class RequestHelper {
             parameters.put(ServiceConstants.CREDIT_REVERSAL_AMOUNT_CURRENCY_CODE, request.getCreditReversalAmountCurrencyCode().toString());
         if (request.getCreditReversalNote() != null)
             parameters.put(ServiceConstants.CREDIT_REVERSAL_NOTE, request.getCreditReversalNote());
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public  String getPostURL(GetBillingAgreementDetailsRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.GET_BILLING_AGREEMENT_DETAILS);
         if (request.getAmazonBillingAgreementId() != null)
             parameters.put(ServiceConstants.AMAZON_BILLING_AGREEMENT_ID, request.getAmazonBillingAgreementId());
         if (request.getAddressConsentToken() != null)
             parameters.put(ServiceConstants.ADDRESS_CONSENT_TOKEN , request.getAddressConsentToken());
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public String getPostURL(SetBillingAgreementDetailsRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.SET_BILLING_AGREEMENT_DETAILS);
         if (request.getAmazonBillingAgreementId() != null)
             parameters.put(ServiceConstants.AMAZON_BILLING_AGREEMENT_ID, request.getAmazonBillingAgreementId());
@@ -427,13 +400,11 @@ public class RequestHelper {
             if (request.getSubscriptionAmount().getAmount() != null)
                 parameters.put(ServiceConstants.BILLING_AGREEMENT_SUBSCRIPTION_AMOUNT_AMOUNT, request.getSubscriptionAmount().getAmount());
         }
-        addClientParameters(parameters, request);
-
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public String getPostURL(ConfirmBillingAgreementRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.CONFIRM_BILLING_AGREEMENT_DETAILS);
         if (request.getAmazonBillingAgreementId() != null)
             parameters.put(ServiceConstants.AMAZON_BILLING_AGREEMENT_ID, request.getAmazonBillingAgreementId());
@@ -441,23 +412,21 @@ public class RequestHelper {
             parameters.put(ServiceConstants.SUCCESS_URL, request.getSuccessUrl());
         if (request.getFailureUrl() != null)
             parameters.put(ServiceConstants.FAILURE_URL, request.getFailureUrl());
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public String getPostURL(CloseBillingAgreementRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.CLOSE_BILLING_AGREEMENT_DETAILS);
         if (request.getAmazonBillingAgreementId() != null)
             parameters.put(ServiceConstants.AMAZON_BILLING_AGREEMENT_ID, request.getAmazonBillingAgreementId());
         if (request.getClosureReason() != null)
             parameters.put(ServiceConstants.CLOSURE_REASON, request.getClosureReason());
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public String getPostURL(AuthorizeOnBillingAgreementRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.AUTHORIZE_BILLING_AGREEMENT_DETAILS);
         if (request.getAuthorizationCurrencyCode() == null)
             request.setAuthorizationCurrencyCode(payConfig.getCurrencyCode());
@@ -493,21 +462,19 @@ public class RequestHelper {
             parameters.put(ServiceConstants.INHERIT_SHIPPING_ADDRESS, Boolean.toString(request.getInheritShippingAddress()));
         if (request.getProviderCredit() != null)
             addProviderCreditToParamMap(request.getProviderCredit(), parameters);
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public String getPostURL(ValidateBillingAgreementRequest request) {
-        Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.VALIDATE_BILLING_AGREEMENT_DETAILS);
         if (request.getAmazonBillingAgreementId() != null)
             parameters.put(ServiceConstants.AMAZON_BILLING_AGREEMENT_ID, request.getAmazonBillingAgreementId());
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public String getPostURL(CreateOrderReferenceForIdRequest request) {
-        final Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.CREATE_ORDER_REFERENCE_FOR_ID);
 
         if (request.getOrderTotalCurrencyCode() == null)
@@ -544,15 +511,13 @@ public class RequestHelper {
         if (request.getCustomInformation() != null)
             parameters.put(ServiceConstants.CUSTOM_INFORMATION, request.getCustomInformation());
 
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public String getPostURLGetServiceStatus() {
-        final Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.GET_SERVICE_STATUS);
-        addClientParameters(parameters, null);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, null);
     }
 
     public String getPaymentDomain(String region) {
@@ -569,7 +534,7 @@ public class RequestHelper {
     }
 
     public String getPostURL(ListOrderReferenceRequest request){
-        final Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.LIST_ORDER_REFERENCE);
         parameters.put(ServiceConstants.PAYMENT_DOMAIN, getPaymentDomain(payConfig.getRegion().toString()));
 
@@ -594,23 +559,21 @@ public class RequestHelper {
             }
         }
 
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public String getPostURL(ListOrderReferenceByNextTokenRequest request){
-        final Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.LIST_ORDER_REFERENCE_BY_NEXT_TOKEN);
 
         if (request.getNextPageToken() != null)
             parameters.put(ServiceConstants.NEXT_PAGE_TOKEN, request.getNextPageToken());
 
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public String getPostURL(SetOrderAttributesRequest request){
-        final Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.SET_ORDER_ATTRIBUTES);
 
         if (request.getAmazonOrderReferenceId() != null)
@@ -646,19 +609,17 @@ public class RequestHelper {
             }
         }
 
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
     public String getPostURL(GetMerchantAccountStatusRequest request){
-        final Map<String,String> parameters = new TreeMap<String,String>();
+        final CanonicalParameterBuilder parameters = new CanonicalParameterBuilder();
         parameters.put(ServiceConstants.ACTION, ServiceConstants.GET_MERCHANT_ACCOUNT_STATUS);
 
-        addClientParameters(parameters, request);
-        return Util.convertParameterMapToString(parameters);
+        return addClientParameters(parameters, request);
     }
 
-    private void addProviderCreditToParamMap(List<ProviderCredit> providerCreditList, Map<String,String> parameters) {
+    private void addProviderCreditToParamMap(List<ProviderCredit> providerCreditList, CanonicalParameterBuilder parameters) {
         if (providerCreditList != null) {
             int memberListIndex = 1;
             for (ProviderCredit member : providerCreditList) {
@@ -677,7 +638,7 @@ public class RequestHelper {
         }
     }
 
-    private void addProviderCreditReversalToParamMap(List<ProviderCredit> providerCreditList, Map<String,String> parameters) {
+    private void addProviderCreditReversalToParamMap(List<ProviderCredit> providerCreditList, CanonicalParameterBuilder parameters) {
         if (providerCreditList != null) {
             int memberListIndex = 1;
             for (ProviderCredit member : providerCreditList) {
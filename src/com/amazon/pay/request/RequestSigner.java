@@ -0,0 +1,184 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.request;
+
+import com.amazon.pay.impl.PayConfig;
+import com.amazon.pay.types.ServiceConstants;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Computes the HmacSHA256 signature (Signature Version 2) of Amazon Pay API requests.
+ *
+ * The signing key is derived from the configured secret key once and only
+ * rebuilt when the secret key changes.  Each thread keeps its own initialized
+ * Mac, a reusable UTF-8 encoder and byte buffer, so signing a request does not
+ * look up providers, copy the key, or encode the string to sign into a new
+ * byte array.  The Base64 and URL-encoding of the digest are done in a single
+ * pass into one character array.
+ */
+public class RequestSigner {
+
+    private static final Charset UTF_8 = Charset.forName(ServiceConstants.UTF_8);
+    private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final int BUFFER_SIZE = 2048;
+
+    private final PayConfig payConfig;
+    private volatile SigningKey signingKey;
+
+    private final ThreadLocal<ThreadState> threadState = new ThreadLocal<ThreadState>() {
+        @Override
+        protected ThreadState initialValue() {
+            return new ThreadState();
+        }
+    };
+
+    /**
+     * @param payConfig client configuration container holding the secret key
+     */
+    public RequestSigner(PayConfig payConfig) {
+        this.payConfig = payConfig;
+    }
+
+    /**
+     * Signs the given string and returns the URL-encoded Base64 signature.
+     *
+     * @param stringToSign The canonical request string
+     * @return URL-encoded Base64 HmacSHA256 signature
+     * @throws NoSuchAlgorithmException If HmacSHA256 is not available
+     * @throws InvalidKeyException If the secret key is not a valid HMAC key
+     */
+    public String sign(CharSequence stringToSign) throws NoSuchAlgorithmException, InvalidKeyException {
+        final SigningKey key = getSigningKey();
+        final ThreadState state = threadState.get();
+        final Mac mac = state.getMac(key);
+        state.update(mac, stringToSign);
+        return encodeSignature(mac.doFinal());
+    }
+
+    private SigningKey getSigningKey() {
+        final char[] secretKey = payConfig.getSecretKey();
+        SigningKey key = signingKey;
+        if (key == null || !Arrays.equals(key.secretKey, secretKey)) {
+            key = new SigningKey(secretKey);
+            signingKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * Base64-encodes the digest and URL-encodes the result in one pass,
+     * matching Util.urlEncode(Base64.encodeBase64(digest)).
+     */
+    static String encodeSignature(byte[] digest) {
+        final char[] out = new char[((digest.length + 2) / 3) * 4 * 3];
+        int pos = 0;
+        for (int i = 0; i < digest.length; i += 3) {
+            final int remaining = digest.length - i;
+            final int b0 = digest[i] & 0xff;
+            final int b1 = remaining > 1 ? digest[i + 1] & 0xff : 0;
+            final int b2 = remaining > 2 ? digest[i + 2] & 0xff : 0;
+            pos = appendEncoded(out, pos, BASE64[b0 >>> 2]);
+            pos = appendEncoded(out, pos, BASE64[((b0 & 0x03) << 4) | (b1 >>> 4)]);
+            pos = remaining > 1 ? appendEncoded(out, pos, BASE64[((b1 & 0x0f) << 2) | (b2 >>> 6)]) : appendEncoded(out, pos, '=');
+            pos = remaining > 2 ? appendEncoded(out, pos, BASE64[b2 & 0x3f]) : appendEncoded(out, pos, '=');
+        }
+        return new String(out, 0, pos);
+    }
+
+    private static int appendEncoded(char[] out, int pos, char c) {
+        switch (c) {
+            case '+':
+                out[pos++] = '%'; out[pos++] = '2'; out[pos++] = 'B';
+                break;
+            case '/':
+                out[pos++] = '%'; out[pos++] = '2'; out[pos++] = 'F';
+                break;
+            case '=':
+                out[pos++] = '%'; out[pos++] = '3'; out[pos++] = 'D';
+                break;
+            default:
+                out[pos++] = c;
+        }
+        return pos;
+    }
+
+    private static final class SigningKey {
+        private final char[] secretKey;
+        private final SecretKeySpec keySpec;
+
+        private SigningKey(char[] secretKey) {
+            this.secretKey = secretKey != null ? secretKey.clone() : null;
+            final ByteBuffer byteBuffer = UTF_8.encode(CharBuffer.wrap(secretKey));
+            this.keySpec = new SecretKeySpec(Arrays.copyOf(byteBuffer.array(), byteBuffer.limit()), ServiceConstants.HMAC_SHA256);
+        }
+    }
+
+    private static final class ThreadState {
+        // Replace malformed input like String.getBytes does instead of failing
+        private final CharsetEncoder encoder = UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private Mac mac;
+        private SigningKey macKey;
+
+        Mac getMac(SigningKey key) throws NoSuchAlgorithmException, InvalidKeyException {
+            if (mac == null) {
+                mac = Mac.getInstance(ServiceConstants.HMAC_SHA256);
+            }
+            if (macKey != key) {
+                mac.init(key.keySpec);
+                macKey = key;
+            }
+            return mac;
+        }
+
+        /**
+         * Encodes the string to sign into the reusable buffer and feeds it to the Mac,
+         * draining the buffer into the Mac whenever it fills up.
+         */
+        void update(Mac mac, CharSequence stringToSign) {
+            final CharBuffer in = CharBuffer.wrap(stringToSign);
+            encoder.reset();
+            CoderResult result;
+            do {
+                result = encoder.encode(in, buffer, true);
+                drain(mac);
+            } while (result.isOverflow());
+            do {
+                result = encoder.flush(buffer);
+                drain(mac);
+            } while (result.isOverflow());
+        }
+
+        private void drain(Mac mac) {
+            buffer.flip();
+            mac.update(buffer);
+            buffer.clear();
+        }
+    }
+
+}
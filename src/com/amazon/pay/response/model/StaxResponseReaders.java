@@ -0,0 +1,822 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.response.model;
+
+import java.util.ArrayList;
+import javax.xml.XMLConstants;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reflection-free StAX readers for the responses parsed most often.
+ *
+ * Generated by StaxReaderGenerator (tst/com/amazon/pay/response) from the
+ * JAXB annotations of this package; do not edit.  The readers bind
+ * unqualified elements like JAXB does and skip unknown ones.  They throw
+ * XMLStreamException for content they cannot convert, in which case callers
+ * fall back to JAXB.
+ */
+// Deprecated model fields are still bound, as JAXB binds them
+@SuppressWarnings("deprecation")
+public final class StaxResponseReaders {
+
+    // DatatypeFactory implementations are not guaranteed to be thread-safe
+    private static final ThreadLocal<DatatypeFactory> datatypeFactory = new ThreadLocal<DatatypeFactory>() {
+        @Override
+        protected DatatypeFactory initialValue() {
+            try {
+                return DatatypeFactory.newInstance();
+            } catch (DatatypeConfigurationException e) {
+                throw new IllegalStateException("Encountered DatatypeConfigurationException: " + e.getMessage(), e);
+            }
+        }
+    };
+
+    private StaxResponseReaders() {
+    }
+
+    /**
+     * Returns true if a generated reader exists for the given response class
+     *
+     * @param clazz Response class
+     * @return true if read supports clazz
+     */
+    public static boolean canRead(Class<?> clazz) {
+        return clazz == AuthorizeResponse.class
+                || clazz == CaptureResponse.class
+                || clazz == GetAuthorizationDetailsResponse.class
+                || clazz == GetOrderReferenceDetailsResponse.class;
+    }
+
+    /**
+     * Reads a response document into an instance of clazz
+     *
+     * @param <T> Response type
+     * @param clazz Response class, one for which canRead returns true
+     * @param reader Reader positioned before or at the root element
+     * @return The response
+     * @throws XMLStreamException If the document is malformed, has another root element
+     *         or holds a value that cannot be converted
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T read(Class<T> clazz, XMLStreamReader reader) throws XMLStreamException {
+        while (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+            reader.next();
+        }
+        if (clazz == AuthorizeResponse.class) {
+            expectRoot(reader, "AuthorizeResponse");
+            return (T) readAuthorizeResponse(reader);
+        }
+        if (clazz == CaptureResponse.class) {
+            expectRoot(reader, "CaptureResponse");
+            return (T) readCaptureResponse(reader);
+        }
+        if (clazz == GetAuthorizationDetailsResponse.class) {
+            expectRoot(reader, "GetAuthorizationDetailsResponse");
+            return (T) readGetAuthorizationDetailsResponse(reader);
+        }
+        if (clazz == GetOrderReferenceDetailsResponse.class) {
+            expectRoot(reader, "GetOrderReferenceDetailsResponse");
+            return (T) readGetOrderReferenceDetailsResponse(reader);
+        }
+        throw new IllegalArgumentException("No StAX reader for " + clazz.getName());
+    }
+
+    private static AuthorizeResponse readAuthorizeResponse(XMLStreamReader reader) throws XMLStreamException {
+        final AuthorizeResponse value = new AuthorizeResponse();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("AuthorizeResult".equals(name)) {
+                value.authorizeResult = readAuthorizeResponseAuthorizeResult(reader);
+            } else if ("ResponseMetadata".equals(name)) {
+                value.responseMetadata = readResponseMetadata(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static AuthorizeResponse.AuthorizeResult readAuthorizeResponseAuthorizeResult(XMLStreamReader reader) throws XMLStreamException {
+        final AuthorizeResponse.AuthorizeResult value = new AuthorizeResponse.AuthorizeResult();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("AuthorizationDetails".equals(name)) {
+                value.authorizationDetails = readAuthorizationDetails(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static AuthorizationDetails readAuthorizationDetails(XMLStreamReader reader) throws XMLStreamException {
+        final AuthorizationDetails value = new AuthorizationDetails();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("AmazonAuthorizationId".equals(name)) {
+                value.amazonAuthorizationId = readText(reader);
+            } else if ("AuthorizationReferenceId".equals(name)) {
+                value.authorizationReferenceId = readText(reader);
+            } else if ("AuthorizationBillingAddress".equals(name)) {
+                value.authorizationBillingAddress = readAddress(reader);
+            } else if ("SellerAuthorizationNote".equals(name)) {
+                value.sellerAuthorizationNote = readText(reader);
+            } else if ("AuthorizationAmount".equals(name)) {
+                value.authorizationAmount = readPrice(reader);
+            } else if ("CapturedAmount".equals(name)) {
+                value.capturedAmount = readPrice(reader);
+            } else if ("AuthorizationFee".equals(name)) {
+                value.authorizationFee = readPrice(reader);
+            } else if ("IdList".equals(name)) {
+                value.idList = readIdList(reader);
+            } else if ("CreationTimestamp".equals(name)) {
+                value.creationTimestamp = readDateTime(reader);
+            } else if ("ExpirationTimestamp".equals(name)) {
+                value.expirationTimestamp = readDateTime(reader);
+            } else if ("AuthorizationStatus".equals(name)) {
+                value.authorizationStatus = readStatus(reader);
+            } else if ("OrderItemCategories".equals(name)) {
+                value.orderItemCategories = readOrderItemCategories(reader);
+            } else if ("CaptureNow".equals(name)) {
+                value.captureNow = readBoolean(reader).booleanValue();
+            } else if ("SoftDescriptor".equals(name)) {
+                value.softDescriptor = readText(reader);
+            } else if ("AddressVerificationCode".equals(name)) {
+                value.addressVerificationCode = readText(reader);
+            } else if ("SoftDecline".equals(name)) {
+                value.softDecline = readBoolean(reader).booleanValue();
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static Address readAddress(XMLStreamReader reader) throws XMLStreamException {
+        final Address value = new Address();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("Name".equals(name)) {
+                value.name = readText(reader);
+            } else if ("AddressLine1".equals(name)) {
+                value.addressLine1 = readText(reader);
+            } else if ("AddressLine2".equals(name)) {
+                value.addressLine2 = readText(reader);
+            } else if ("AddressLine3".equals(name)) {
+                value.addressLine3 = readText(reader);
+            } else if ("City".equals(name)) {
+                value.city = readText(reader);
+            } else if ("County".equals(name)) {
+                value.county = readText(reader);
+            } else if ("District".equals(name)) {
+                value.district = readText(reader);
+            } else if ("StateOrRegion".equals(name)) {
+                value.stateOrRegion = readText(reader);
+            } else if ("PostalCode".equals(name)) {
+                value.postalCode = readText(reader);
+            } else if ("CountryCode".equals(name)) {
+                value.countryCode = readText(reader);
+            } else if ("Phone".equals(name)) {
+                value.phone = readText(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static Price readPrice(XMLStreamReader reader) throws XMLStreamException {
+        final Price value = new Price();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("Amount".equals(name)) {
+                value.amount = readText(reader);
+            } else if ("CurrencyCode".equals(name)) {
+                value.currencyCode = readText(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static IdList readIdList(XMLStreamReader reader) throws XMLStreamException {
+        final IdList value = new IdList();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("member".equals(name)) {
+                if (value.member == null) {
+                    value.member = new ArrayList<String>();
+                }
+                value.member.add(readText(reader));
+            } else if ("Id".equals(name)) {
+                if (value.id == null) {
+                    value.id = new ArrayList<String>();
+                }
+                value.id.add(readText(reader));
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static Status readStatus(XMLStreamReader reader) throws XMLStreamException {
+        final Status value = new Status();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("State".equals(name)) {
+                value.state = readText(reader);
+            } else if ("LastUpdateTimestamp".equals(name)) {
+                value.lastUpdateTimestamp = readDateTime(reader);
+            } else if ("ReasonCode".equals(name)) {
+                value.reasonCode = readText(reader);
+            } else if ("ReasonDescription".equals(name)) {
+                value.reasonDescription = readText(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static OrderItemCategories readOrderItemCategories(XMLStreamReader reader) throws XMLStreamException {
+        final OrderItemCategories value = new OrderItemCategories();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("OrderItemCategory".equals(name)) {
+                if (value.orderItemCategory == null) {
+                    value.orderItemCategory = new ArrayList<String>();
+                }
+                value.orderItemCategory.add(readText(reader));
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static ResponseMetadata readResponseMetadata(XMLStreamReader reader) throws XMLStreamException {
+        final ResponseMetadata value = new ResponseMetadata();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("RequestId".equals(name)) {
+                value.requestId = readText(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static CaptureResponse readCaptureResponse(XMLStreamReader reader) throws XMLStreamException {
+        final CaptureResponse value = new CaptureResponse();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("CaptureResult".equals(name)) {
+                value.captureResult = readCaptureResponseCaptureResult(reader);
+            } else if ("ResponseMetadata".equals(name)) {
+                value.responseMetadata = readResponseMetadata(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static CaptureResponse.CaptureResult readCaptureResponseCaptureResult(XMLStreamReader reader) throws XMLStreamException {
+        final CaptureResponse.CaptureResult value = new CaptureResponse.CaptureResult();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("CaptureDetails".equals(name)) {
+                value.captureDetails = readCaptureDetails(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static CaptureDetails readCaptureDetails(XMLStreamReader reader) throws XMLStreamException {
+        final CaptureDetails value = new CaptureDetails();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("AmazonCaptureId".equals(name)) {
+                value.amazonCaptureId = readText(reader);
+            } else if ("CaptureReferenceId".equals(name)) {
+                value.captureReferenceId = readText(reader);
+            } else if ("SellerCaptureNote".equals(name)) {
+                value.sellerCaptureNote = readText(reader);
+            } else if ("CaptureAmount".equals(name)) {
+                value.captureAmount = readPrice(reader);
+            } else if ("RefundedAmount".equals(name)) {
+                value.refundedAmount = readPrice(reader);
+            } else if ("CaptureFee".equals(name)) {
+                value.captureFee = readPrice(reader);
+            } else if ("IdList".equals(name)) {
+                value.idList = readIdList(reader);
+            } else if ("CreationTimestamp".equals(name)) {
+                value.creationTimestamp = readDateTime(reader);
+            } else if ("CaptureStatus".equals(name)) {
+                value.captureStatus = readStatus(reader);
+            } else if ("SoftDescriptor".equals(name)) {
+                value.softDescriptor = readText(reader);
+            } else if ("ProviderCreditSummaryList".equals(name)) {
+                value.providerCreditSummaryList = readProviderCreditSummaryList(reader);
+            } else if ("ConvertedAmount".equals(name)) {
+                value.convertedAmount = readPrice(reader);
+            } else if ("ConversionRate".equals(name)) {
+                value.conversionRate = readText(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static ProviderCreditSummaryList readProviderCreditSummaryList(XMLStreamReader reader) throws XMLStreamException {
+        final ProviderCreditSummaryList value = new ProviderCreditSummaryList();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("member".equals(name)) {
+                if (value.member == null) {
+                    value.member = new ArrayList<ProviderCreditSummary>();
+                }
+                value.member.add(readProviderCreditSummary(reader));
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static ProviderCreditSummary readProviderCreditSummary(XMLStreamReader reader) throws XMLStreamException {
+        final ProviderCreditSummary value = new ProviderCreditSummary();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("ProviderId".equals(name)) {
+                value.providerId = readText(reader);
+            } else if ("ProviderCreditId".equals(name)) {
+                value.providerCreditId = readText(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static GetAuthorizationDetailsResponse readGetAuthorizationDetailsResponse(XMLStreamReader reader) throws XMLStreamException {
+        final GetAuthorizationDetailsResponse value = new GetAuthorizationDetailsResponse();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("GetAuthorizationDetailsResult".equals(name)) {
+                value.getAuthorizationDetailsResult = readGetAuthorizationDetailsResponseGetAuthorizationDetailsResult(reader);
+            } else if ("ResponseMetadata".equals(name)) {
+                value.responseMetadata = readResponseMetadata(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static GetAuthorizationDetailsResponse.GetAuthorizationDetailsResult readGetAuthorizationDetailsResponseGetAuthorizationDetailsResult(XMLStreamReader reader) throws XMLStreamException {
+        final GetAuthorizationDetailsResponse.GetAuthorizationDetailsResult value = new GetAuthorizationDetailsResponse.GetAuthorizationDetailsResult();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("AuthorizationDetails".equals(name)) {
+                value.authorizationDetails = readAuthorizationDetails(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static GetOrderReferenceDetailsResponse readGetOrderReferenceDetailsResponse(XMLStreamReader reader) throws XMLStreamException {
+        final GetOrderReferenceDetailsResponse value = new GetOrderReferenceDetailsResponse();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("GetOrderReferenceDetailsResult".equals(name)) {
+                value.getOrderReferenceDetailsResult = readGetOrderReferenceDetailsResponseGetOrderReferenceDetailsResult(reader);
+            } else if ("ResponseMetadata".equals(name)) {
+                value.responseMetadata = readResponseMetadata(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static GetOrderReferenceDetailsResponse.GetOrderReferenceDetailsResult readGetOrderReferenceDetailsResponseGetOrderReferenceDetailsResult(XMLStreamReader reader) throws XMLStreamException {
+        final GetOrderReferenceDetailsResponse.GetOrderReferenceDetailsResult value = new GetOrderReferenceDetailsResponse.GetOrderReferenceDetailsResult();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("OrderReferenceDetails".equals(name)) {
+                value.orderReferenceDetails = readOrderReferenceDetails(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static OrderReferenceDetails readOrderReferenceDetails(XMLStreamReader reader) throws XMLStreamException {
+        final OrderReferenceDetails value = new OrderReferenceDetails();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("AmazonOrderReferenceId".equals(name)) {
+                value.amazonOrderReferenceId = readText(reader);
+            } else if ("Buyer".equals(name)) {
+                value.buyer = readBuyer(reader);
+            } else if ("OrderTotal".equals(name)) {
+                value.orderTotal = readOrderTotal(reader);
+            } else if ("SellerNote".equals(name)) {
+                value.sellerNote = readText(reader);
+            } else if ("PlatformId".equals(name)) {
+                value.platformId = readText(reader);
+            } else if ("Destination".equals(name)) {
+                value.destination = readDestination(reader);
+            } else if ("PaymentDescriptor".equals(name)) {
+                value.paymentDescriptor = readPaymentDescriptor(reader);
+            } else if ("BillingAddress".equals(name)) {
+                value.billingAddress = readBillingAddress(reader);
+            } else if ("ReleaseEnvironment".equals(name)) {
+                value.releaseEnvironment = readEnvironment(reader);
+            } else if ("SellerOrderAttributes".equals(name)) {
+                value.sellerOrderAttributes = readSellerOrderAttributes(reader);
+            } else if ("OrderReferenceStatus".equals(name)) {
+                value.orderReferenceStatus = readOrderReferenceStatus(reader);
+            } else if ("Constraints".equals(name)) {
+                value.constraints = readConstraints(reader);
+            } else if ("CreationTimestamp".equals(name)) {
+                value.creationTimestamp = readDateTime(reader);
+            } else if ("ExpirationTimestamp".equals(name)) {
+                value.expirationTimestamp = readDateTime(reader);
+            } else if ("ParentDetails".equals(name)) {
+                value.parentDetails = readParentDetails(reader);
+            } else if ("IdList".equals(name)) {
+                value.idList = readIdList(reader);
+            } else if ("OrderLanguage".equals(name)) {
+                value.orderLanguage = readText(reader);
+            } else if ("RequestPaymentAuthorization".equals(name)) {
+                value.requestPaymentAuthorization = readBoolean(reader);
+            } else if ("PaymentServiceProviderAttributes".equals(name)) {
+                value.paymentServiceProviderAttributes = readPaymentServiceProviderAttributes(reader);
+            } else if ("PaymentReference".equals(name)) {
+                value.paymentReference = readPaymentReference(reader);
+            } else if ("PaymentAuthenticationStatus".equals(name)) {
+                value.paymentAuthenticationStatus = readPaymentAuthenticationStatus(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static Buyer readBuyer(XMLStreamReader reader) throws XMLStreamException {
+        final Buyer value = new Buyer();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("Name".equals(name)) {
+                value.name = readText(reader);
+            } else if ("Email".equals(name)) {
+                value.email = readText(reader);
+            } else if ("Phone".equals(name)) {
+                value.phone = readText(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static OrderTotal readOrderTotal(XMLStreamReader reader) throws XMLStreamException {
+        final OrderTotal value = new OrderTotal();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("CurrencyCode".equals(name)) {
+                value.currencyCode = readText(reader);
+            } else if ("Amount".equals(name)) {
+                value.amount = readText(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static Destination readDestination(XMLStreamReader reader) throws XMLStreamException {
+        final Destination value = new Destination();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("DestinationType".equals(name)) {
+                value.destinationType = readText(reader);
+            } else if ("PhysicalDestination".equals(name)) {
+                value.physicalDestination = readAddress(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static PaymentDescriptor readPaymentDescriptor(XMLStreamReader reader) throws XMLStreamException {
+        final PaymentDescriptor value = new PaymentDescriptor();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("Name".equals(name)) {
+                value.name = readText(reader);
+            } else if ("AccountNumberTail".equals(name)) {
+                value.accountNumberTail = readText(reader);
+            } else if ("FullDescriptor".equals(name)) {
+                value.fullDescriptor = readText(reader);
+            } else if ("UseAmazonBalanceFirst".equals(name)) {
+                value.useAmazonBalanceFirst = readBoolean(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static BillingAddress readBillingAddress(XMLStreamReader reader) throws XMLStreamException {
+        final BillingAddress value = new BillingAddress();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("AddressType".equals(name)) {
+                value.addressType = readText(reader);
+            } else if ("PhysicalAddress".equals(name)) {
+                value.physicalAddress = readAddress(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static Environment readEnvironment(XMLStreamReader reader) throws XMLStreamException {
+        final String text = readText(reader).trim();
+        if ("Live".equals(text)) {
+            return Environment.LIVE;
+        }
+        if ("Sandbox".equals(text)) {
+            return Environment.SANDBOX;
+        }
+        // JAXB binds unknown values to null
+        return null;
+    }
+
+    private static SellerOrderAttributes readSellerOrderAttributes(XMLStreamReader reader) throws XMLStreamException {
+        final SellerOrderAttributes value = new SellerOrderAttributes();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("SellerOrderId".equals(name)) {
+                value.sellerOrderId = readText(reader);
+            } else if ("StoreName".equals(name)) {
+                value.storeName = readText(reader);
+            } else if ("SupplementaryData".equals(name)) {
+                value.supplementaryData = readText(reader);
+            } else if ("OrderItemCategories".equals(name)) {
+                value.orderItemCategories = readOrderItemCategories(reader);
+            } else if ("CustomInformation".equals(name)) {
+                value.customInformation = readText(reader);
+            } else if ("SellerId".equals(name)) {
+                value.sellerId = readText(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static OrderReferenceStatus readOrderReferenceStatus(XMLStreamReader reader) throws XMLStreamException {
+        final OrderReferenceStatus value = new OrderReferenceStatus();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("State".equals(name)) {
+                value.state = readText(reader);
+            } else if ("LastUpdateTimestamp".equals(name)) {
+                value.lastUpdateTimestamp = readDateTime(reader);
+            } else if ("ReasonCode".equals(name)) {
+                value.reasonCode = readText(reader);
+            } else if ("ReasonDescription".equals(name)) {
+                value.reasonDescription = readText(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static Constraints readConstraints(XMLStreamReader reader) throws XMLStreamException {
+        final Constraints value = new Constraints();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("Constraint".equals(name)) {
+                if (value.constraint == null) {
+                    value.constraint = new ArrayList<Constraint>();
+                }
+                value.constraint.add(readConstraint(reader));
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static Constraint readConstraint(XMLStreamReader reader) throws XMLStreamException {
+        final Constraint value = new Constraint();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("ConstraintID".equals(name)) {
+                value.constraintID = readText(reader);
+            } else if ("Description".equals(name)) {
+                value.description = readText(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static ParentDetails readParentDetails(XMLStreamReader reader) throws XMLStreamException {
+        final ParentDetails value = new ParentDetails();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("Id".equals(name)) {
+                value.id = readText(reader);
+            } else if ("Type".equals(name)) {
+                value.type = readType(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static Type readType(XMLStreamReader reader) throws XMLStreamException {
+        final String text = readText(reader).trim();
+        if ("OrderReference".equals(text)) {
+            return Type.ORDER_REFERENCE;
+        }
+        if ("BillingAgreement".equals(text)) {
+            return Type.BILLING_AGREEMENT;
+        }
+        if ("ChildOrderReference".equals(text)) {
+            return Type.CHILD_ORDER_REFERENCE;
+        }
+        // JAXB binds unknown values to null
+        return null;
+    }
+
+    private static PaymentServiceProviderAttributes readPaymentServiceProviderAttributes(XMLStreamReader reader) throws XMLStreamException {
+        final PaymentServiceProviderAttributes value = new PaymentServiceProviderAttributes();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("PaymentServiceProviderId".equals(name)) {
+                value.paymentServiceProviderId = readText(reader);
+            } else if ("PaymentServiceProviderOrderId".equals(name)) {
+                value.paymentServiceProviderOrderId = readText(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static PaymentReference readPaymentReference(XMLStreamReader reader) throws XMLStreamException {
+        final PaymentReference value = new PaymentReference();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("StaticToken".equals(name)) {
+                value.staticToken = readText(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static PaymentAuthenticationStatus readPaymentAuthenticationStatus(XMLStreamReader reader) throws XMLStreamException {
+        final PaymentAuthenticationStatus value = new PaymentAuthenticationStatus();
+        while (nextChild(reader)) {
+            final String name = reader.getLocalName();
+            if ("State".equals(name)) {
+                value.state = readText(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return value;
+    }
+
+    private static void expectRoot(XMLStreamReader reader, String name) throws XMLStreamException {
+        if (!name.equals(reader.getLocalName()) || !isUnqualified(reader)) {
+            throw new XMLStreamException("Expected root element " + name + " but found " + reader.getName(),
+                    reader.getLocation());
+        }
+    }
+
+    private static boolean isUnqualified(XMLStreamReader reader) {
+        final String namespace = reader.getNamespaceURI();
+        return namespace == null || XMLConstants.NULL_NS_URI.equals(namespace);
+    }
+
+    /**
+     * Advances to the next unqualified child element of the current element,
+     * returning false at the end of the current element
+     */
+    private static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (isUnqualified(reader)) {
+                    return true;
+                }
+                skip(reader);
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        throw new XMLStreamException("Unexpected end of document", reader.getLocation());
+    }
+
+    /**
+     * Skips the current element and everything inside it
+     */
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Returns the text content of the current element, ignoring nested elements
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        String text = null;
+        StringBuilder builder = null;
+        while (true) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE || event == XMLStreamConstants.ENTITY_REFERENCE) {
+                // Most values arrive as a single event; only concatenate when they do not
+                if (text == null) {
+                    text = reader.getText();
+                } else {
+                    if (builder == null) {
+                        builder = new StringBuilder(text);
+                    }
+                    builder.append(reader.getText());
+                }
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                skip(reader);
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return builder != null ? builder.toString() : (text != null ? text : "");
+            }
+        }
+    }
+
+    private static Boolean readBoolean(XMLStreamReader reader) throws XMLStreamException {
+        final String text = readText(reader).trim();
+        if ("true".equals(text) || "1".equals(text)) {
+            return Boolean.TRUE;
+        } else if ("false".equals(text) || "0".equals(text)) {
+            return Boolean.FALSE;
+        }
+        throw new XMLStreamException("Invalid boolean value: " + text, reader.getLocation());
+    }
+
+    private static XMLGregorianCalendar readDateTime(XMLStreamReader reader) throws XMLStreamException {
+        final String text = readText(reader).trim();
+        try {
+            return datatypeFactory.get().newXMLGregorianCalendar(text);
+        } catch (IllegalArgumentException e) {
+            throw new XMLStreamException("Invalid dateTime value: " + text, reader.getLocation());
+        }
+    }
+}
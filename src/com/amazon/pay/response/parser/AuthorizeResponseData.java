@@ -25,9 +25,11 @@ public final class AuthorizeResponseData extends ResponseData implements Seriali
     
     private String requestId;
     private AuthorizationDetails authorizationDetails;
+    private final LazyResponse<AuthorizeResponse> lazyResponse;
     
     public AuthorizeResponseData(AuthorizeResponse authorizeResponse , ResponseData rawResponse) {
         super(rawResponse);
+        this.lazyResponse = null;
         if(authorizeResponse != null) {
             if(authorizeResponse.getAuthorizeResult() != null) {
                 this.authorizationDetails = authorizeResponse.getAuthorizeResult().getAuthorizationDetails();
@@ -36,6 +38,18 @@ public final class AuthorizeResponseData extends ResponseData implements Seriali
         }
     }
 
+    /**
+     * Creates response data that binds the Authorize details on first use
+     *
+     * @param rawResponse Successful raw response
+     * @param requestId The RequestId scanned from the response
+     */
+    AuthorizeResponseData(ResponseData rawResponse, String requestId) {
+        super(rawResponse, true);
+        this.lazyResponse = new LazyResponse<AuthorizeResponse>(AuthorizeResponse.class, this);
+        this.requestId = requestId;
+    }
+
     
     /**
      * The requestID that uniquely identifies the service request
@@ -57,6 +71,10 @@ public final class AuthorizeResponseData extends ResponseData implements Seriali
      *
      */
     public AuthorizationDetails getDetails() {
+        if (lazyResponse != null) {
+            final AuthorizeResponse response = lazyResponse.get();
+            return response != null && response.getAuthorizeResult() != null ? response.getAuthorizeResult().getAuthorizationDetails() : null;
+        }
         return authorizationDetails;
     }
 
@@ -65,7 +83,7 @@ public final class AuthorizeResponseData extends ResponseData implements Seriali
      */
     @Override
     public String toString() {
-        return "AuthorizeResponseData{" + "requestId=" + requestId + ", authorizationDetails=" + authorizationDetails.toString() + '}';
+        return "AuthorizeResponseData{" + "requestId=" + requestId + ", authorizationDetails=" + getDetails() + '}';
     }
     
     
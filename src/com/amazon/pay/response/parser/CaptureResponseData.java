@@ -25,9 +25,11 @@ public final class CaptureResponseData extends ResponseData implements Serializa
     
     private String requestId;
     private CaptureDetails captureDetails;
+    private final LazyResponse<CaptureResponse> lazyResponse;
     
     public CaptureResponseData(CaptureResponse captureResponse , ResponseData rawResponse) {
         super(rawResponse);
+        this.lazyResponse = null;
         if(captureResponse != null) {
             if(captureResponse.getCaptureResult() != null) {
                 captureDetails = captureResponse.getCaptureResult().getCaptureDetails();
@@ -36,6 +38,18 @@ public final class CaptureResponseData extends ResponseData implements Serializa
         }
     }
 
+    /**
+     * Creates response data that binds the Capture details on first use
+     *
+     * @param rawResponse Successful raw response
+     * @param requestId The RequestId scanned from the response
+     */
+    CaptureResponseData(ResponseData rawResponse, String requestId) {
+        super(rawResponse, true);
+        this.lazyResponse = new LazyResponse<CaptureResponse>(CaptureResponse.class, this);
+        this.requestId = requestId;
+    }
+
     
 
     /**
@@ -56,6 +70,10 @@ public final class CaptureResponseData extends ResponseData implements Serializa
      * @return captureDetails
      */
     public CaptureDetails getDetails() {
+        if (lazyResponse != null) {
+            final CaptureResponse response = lazyResponse.get();
+            return response != null && response.getCaptureResult() != null ? response.getCaptureResult().getCaptureDetails() : null;
+        }
         return captureDetails;
     }
 
@@ -64,7 +82,7 @@ public final class CaptureResponseData extends ResponseData implements Serializa
      */
     @Override
     public String toString() {
-        return "CaptureResponseData{" + "requestId=" + requestId + ", captureDetails=" + captureDetails.toString() + '}';
+        return "CaptureResponseData{" + "requestId=" + requestId + ", captureDetails=" + getDetails() + '}';
     }
 
     
@@ -25,9 +25,11 @@ public final class GetAuthorizationDetailsResponseData extends ResponseData impl
     
     private String requestId;
     private AuthorizationDetails authorizationDetails;
+    private final LazyResponse<GetAuthorizationDetailsResponse> lazyResponse;
     
     public GetAuthorizationDetailsResponseData(GetAuthorizationDetailsResponse authorizeResponse , ResponseData rawResponse) {
         super(rawResponse);
+        this.lazyResponse = null;
         if(authorizeResponse != null) {
             if(authorizeResponse.getGetAuthorizationDetailsResult() != null) {
                 authorizationDetails = authorizeResponse.getGetAuthorizationDetailsResult().getAuthorizationDetails();
@@ -36,6 +38,18 @@ public final class GetAuthorizationDetailsResponseData extends ResponseData impl
         }
     }
 
+    /**
+     * Creates response data that binds the GetAuthorizationDetails details on first use
+     *
+     * @param rawResponse Successful raw response
+     * @param requestId The RequestId scanned from the response
+     */
+    GetAuthorizationDetailsResponseData(ResponseData rawResponse, String requestId) {
+        super(rawResponse, true);
+        this.lazyResponse = new LazyResponse<GetAuthorizationDetailsResponse>(GetAuthorizationDetailsResponse.class, this);
+        this.requestId = requestId;
+    }
+
     /**
      * The requestID that uniquely identifies the service request the caller
      * made.
@@ -56,6 +70,10 @@ public final class GetAuthorizationDetailsResponseData extends ResponseData impl
      *
      */
     public AuthorizationDetails getDetails() {
+        if (lazyResponse != null) {
+            final GetAuthorizationDetailsResponse response = lazyResponse.get();
+            return response != null && response.getGetAuthorizationDetailsResult() != null ? response.getGetAuthorizationDetailsResult().getAuthorizationDetails() : null;
+        }
         return authorizationDetails;
     }
 
@@ -64,7 +82,7 @@ public final class GetAuthorizationDetailsResponseData extends ResponseData impl
      */
     @Override
     public String toString() {
-        return "GetAuthorizationDetailsResponseData{" + "requestId=" + requestId + ", authorizationDetails=" + authorizationDetails.toString() + '}';
+        return "GetAuthorizationDetailsResponseData{" + "requestId=" + requestId + ", authorizationDetails=" + getDetails() + '}';
     }
     
     
@@ -25,9 +25,11 @@ public final class GetOrderReferenceDetailsResponseData  extends ResponseData im
 
     private String requestId;
     private OrderReferenceDetails orderReferenceDetails;
+    private final LazyResponse<GetOrderReferenceDetailsResponse> lazyResponse;
 
     public GetOrderReferenceDetailsResponseData(GetOrderReferenceDetailsResponse response , ResponseData rawResponse) {
         super(rawResponse);
+        this.lazyResponse = null;
         if (response != null) {
             this.requestId = response.getResponseMetadata().getRequestId();
             if (response.getGetOrderReferenceDetailsResult() != null) {
@@ -36,6 +38,18 @@ public final class GetOrderReferenceDetailsResponseData  extends ResponseData im
         }
     }
 
+    /**
+     * Creates response data that binds the GetOrderReferenceDetails details on first use
+     *
+     * @param rawResponse Successful raw response
+     * @param requestId The RequestId scanned from the response
+     */
+    GetOrderReferenceDetailsResponseData(ResponseData rawResponse, String requestId) {
+        super(rawResponse, true);
+        this.lazyResponse = new LazyResponse<GetOrderReferenceDetailsResponse>(GetOrderReferenceDetailsResponse.class, this);
+        this.requestId = requestId;
+    }
+
     /**
      * The requestID that uniquely identifies the service request
      * the caller made.
@@ -53,6 +67,10 @@ public final class GetOrderReferenceDetailsResponseData  extends ResponseData im
      * @return orderReferenceDetails
      */
     public OrderReferenceDetails getDetails() {
+        if (lazyResponse != null) {
+            final GetOrderReferenceDetailsResponse response = lazyResponse.get();
+            return response != null && response.getGetOrderReferenceDetailsResult() != null ? response.getGetOrderReferenceDetailsResult().getOrderReferenceDetails() : null;
+        }
         return orderReferenceDetails;
     }
 
@@ -61,7 +79,7 @@ public final class GetOrderReferenceDetailsResponseData  extends ResponseData im
      */
     @Override
     public String toString() {
-        return "GetOrderReferenceDetailsResponseData{" + "requestId=" + requestId + ", orderReferenceDetails=" + orderReferenceDetails.toString() + '}';
+        return "GetOrderReferenceDetailsResponseData{" + "requestId=" + requestId + ", orderReferenceDetails=" + getDetails() + '}';
     }
 
 }
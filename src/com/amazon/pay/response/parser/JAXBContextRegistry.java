@@ -0,0 +1,265 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.response.parser;
+
+import com.amazon.pay.response.model.AuthorizeOnBillingAgreementResponse;
+import com.amazon.pay.response.model.AuthorizeResponse;
+import com.amazon.pay.response.model.CancelOrderReferenceResponse;
+import com.amazon.pay.response.model.CaptureResponse;
+import com.amazon.pay.response.model.CloseAuthorizationResponse;
+import com.amazon.pay.response.model.CloseBillingAgreementResponse;
+import com.amazon.pay.response.model.CloseOrderReferenceResponse;
+import com.amazon.pay.response.model.ConfirmBillingAgreementResponse;
+import com.amazon.pay.response.model.ConfirmOrderReferenceResponse;
+import com.amazon.pay.response.model.CreateOrderReferenceForIdResponse;
+import com.amazon.pay.response.model.ErrorResponse;
+import com.amazon.pay.response.model.GetAuthorizationDetailsResponse;
+import com.amazon.pay.response.model.GetBillingAgreementDetailsResponse;
+import com.amazon.pay.response.model.GetCaptureDetailsResponse;
+import com.amazon.pay.response.model.GetMerchantAccountStatusResponse;
+import com.amazon.pay.response.model.GetOrderReferenceDetailsResponse;
+import com.amazon.pay.response.model.GetProviderCreditDetailsResponse;
+import com.amazon.pay.response.model.GetProviderCreditReversalDetailsResponse;
+import com.amazon.pay.response.model.GetRefundDetailsResponse;
+import com.amazon.pay.response.model.GetServiceStatusResponse;
+import com.amazon.pay.response.model.ListOrderReferenceByNextTokenResponse;
+import com.amazon.pay.response.model.ListOrderReferenceResponse;
+import com.amazon.pay.response.model.RefundResponse;
+import com.amazon.pay.response.model.ReverseProviderCreditResponse;
+import com.amazon.pay.response.model.SetBillingAgreementDetailsResponse;
+import com.amazon.pay.response.model.SetOrderAttributesResponse;
+import com.amazon.pay.response.model.SetOrderReferenceDetailsResponse;
+import com.amazon.pay.response.model.ValidateBillingAgreementResponse;
+
+import java.io.Reader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.ValidationEventHandler;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Process-wide, thread-safe registry that holds one JAXBContext per bound
+ * class together with a small pool of Unmarshallers for that class.
+ *
+ * Creating a JAXBContext is by far the most expensive step of parsing an
+ * Amazon Pay response, so contexts are built once and shared.  Unmarshallers
+ * are not thread-safe; they are borrowed from a bounded pool for the duration
+ * of a single unmarshal call and returned afterwards.
+ */
+public final class JAXBContextRegistry {
+
+    /**
+     * Maximum number of idle Unmarshallers kept per bound class
+     */
+    private static final int MAX_POOLED_UNMARSHALLERS = 64;
+
+    /**
+     * Every response type returned by the Amazon Pay API operations
+     */
+    private static final Class<?>[] RESPONSE_TYPES = {
+        AuthorizeOnBillingAgreementResponse.class,
+        AuthorizeResponse.class,
+        CancelOrderReferenceResponse.class,
+        CaptureResponse.class,
+        CloseAuthorizationResponse.class,
+        CloseBillingAgreementResponse.class,
+        CloseOrderReferenceResponse.class,
+        ConfirmBillingAgreementResponse.class,
+        ConfirmOrderReferenceResponse.class,
+        CreateOrderReferenceForIdResponse.class,
+        ErrorResponse.class,
+        GetAuthorizationDetailsResponse.class,
+        GetBillingAgreementDetailsResponse.class,
+        GetCaptureDetailsResponse.class,
+        GetMerchantAccountStatusResponse.class,
+        GetOrderReferenceDetailsResponse.class,
+        GetProviderCreditDetailsResponse.class,
+        GetProviderCreditReversalDetailsResponse.class,
+        GetRefundDetailsResponse.class,
+        GetServiceStatusResponse.class,
+        ListOrderReferenceByNextTokenResponse.class,
+        ListOrderReferenceResponse.class,
+        RefundResponse.class,
+        ReverseProviderCreditResponse.class,
+        SetBillingAgreementDetailsResponse.class,
+        SetOrderAttributesResponse.class,
+        SetOrderReferenceDetailsResponse.class,
+        ValidateBillingAgreementResponse.class
+    };
+
+    private static final ConcurrentMap<Class<?>, Entry> entries = new ConcurrentHashMap<Class<?>, Entry>();
+
+    // XMLInputFactory implementations are not guaranteed to be thread-safe,
+    // so each thread keeps its own pre-configured factory
+    private static final ThreadLocal<XMLInputFactory> xmlInputFactory = new ThreadLocal<XMLInputFactory>() {
+        @Override
+        protected XMLInputFactory initialValue() {
+            final XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            return factory;
+        }
+    };
+
+    private JAXBContextRegistry() {
+    }
+
+    /**
+     * Returns the shared JAXBContext for the given class, creating it on first use.
+     *
+     * @param clazz Class bound by the context
+     * @return The shared JAXBContext for clazz
+     * @throws JAXBException If the context cannot be created
+     */
+    public static JAXBContext getContext(Class<?> clazz) throws JAXBException {
+        return getEntry(clazz).context;
+    }
+
+    /**
+     * Unmarshals the XML read from the given reader into an instance of clazz
+     * using the shared context and a pooled Unmarshaller.
+     *
+     * @param <T> Type of the bound class
+     * @param clazz Class bound by the context
+     * @param reader Source of the XML document
+     * @return The unmarshalled object
+     * @throws JAXBException If the XML cannot be unmarshalled
+     * @throws XMLStreamException If the XML is not well-formed
+     */
+    public static <T> T unmarshal(Class<T> clazz, Reader reader) throws JAXBException, XMLStreamException {
+        return unmarshal(clazz, createXMLStreamReader(reader));
+    }
+
+    /**
+     * Unmarshals the given stream into an instance of clazz using the shared
+     * context and a pooled Unmarshaller.
+     *
+     * @param <T> Type of the bound class
+     * @param clazz Class bound by the context
+     * @param xmlStreamReader Source of the XML document
+     * @return The unmarshalled object
+     * @throws JAXBException If the XML cannot be unmarshalled
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T unmarshal(Class<T> clazz, XMLStreamReader xmlStreamReader) throws JAXBException {
+        final Entry entry = getEntry(clazz);
+        Unmarshaller unmarshaller = entry.unmarshallers.poll();
+        if (unmarshaller == null) {
+            unmarshaller = entry.context.createUnmarshaller();
+        }
+        final T result = (T) unmarshaller.unmarshal(xmlStreamReader);
+        // Only return the unmarshaller to the pool after a clean run
+        entry.unmarshallers.offer(unmarshaller);
+        return result;
+    }
+
+    /**
+     * Unmarshals the given stream into an instance of clazz using the shared
+     * context and a pooled Unmarshaller that reports to the given event handler.
+     *
+     * @param <T> Type of the bound class
+     * @param clazz Class bound by the context
+     * @param xmlStreamReader Source of the XML document
+     * @param eventHandler Handler for validation events raised while unmarshalling
+     * @return The unmarshalled object
+     * @throws JAXBException If the XML cannot be unmarshalled
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T unmarshal(Class<T> clazz, XMLStreamReader xmlStreamReader, ValidationEventHandler eventHandler)
+            throws JAXBException {
+        final Entry entry = getEntry(clazz);
+        Unmarshaller unmarshaller = entry.unmarshallers.poll();
+        if (unmarshaller == null) {
+            unmarshaller = entry.context.createUnmarshaller();
+        }
+        unmarshaller.setEventHandler(eventHandler);
+        final T result = (T) unmarshaller.unmarshal(xmlStreamReader);
+        // Restore the default handler before the unmarshaller is shared again
+        unmarshaller.setEventHandler(null);
+        entry.unmarshallers.offer(unmarshaller);
+        return result;
+    }
+
+    /**
+     * Creates an XMLStreamReader from a pre-configured factory that has
+     * external entities and DTD support disabled.
+     *
+     * @param reader Source of the XML document
+     * @return A new XMLStreamReader
+     * @throws XMLStreamException If the reader cannot be created
+     */
+    public static XMLStreamReader createXMLStreamReader(Reader reader) throws XMLStreamException {
+        return xmlInputFactory.get().createXMLStreamReader(reader);
+    }
+
+    /**
+     * Creates the contexts and one Unmarshaller for every response type in
+     * com.amazon.pay.response.model so that the first API calls after
+     * startup do not pay the initialization cost.
+     *
+     * @throws JAXBException If any context cannot be created
+     */
+    public static void warmUp() throws JAXBException {
+        warmUp(RESPONSE_TYPES);
+    }
+
+    /**
+     * Creates the contexts and one Unmarshaller for each of the given classes.
+     *
+     * @param classes Classes to pre-warm
+     * @throws JAXBException If any context cannot be created
+     */
+    public static void warmUp(Class<?>... classes) throws JAXBException {
+        for (Class<?> clazz : classes) {
+            final Entry entry = getEntry(clazz);
+            if (entry.unmarshallers.isEmpty()) {
+                entry.unmarshallers.offer(entry.context.createUnmarshaller());
+            }
+        }
+    }
+
+    private static Entry getEntry(Class<?> clazz) throws JAXBException {
+        Entry entry = entries.get(clazz);
+        if (entry == null) {
+            // Serialize creation so concurrent first calls build a single context
+            synchronized (entries) {
+                entry = entries.get(clazz);
+                if (entry == null) {
+                    entry = new Entry(JAXBContext.newInstance(clazz));
+                    entries.put(clazz, entry);
+                }
+            }
+        }
+        return entry;
+    }
+
+    private static final class Entry {
+        private final JAXBContext context;
+        private final BlockingQueue<Unmarshaller> unmarshallers =
+                new ArrayBlockingQueue<Unmarshaller>(MAX_POOLED_UNMARSHALLERS);
+
+        private Entry(JAXBContext context) {
+            this.context = context;
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.response.parser;
+
+import com.amazon.pay.exceptions.AmazonClientException;
+import com.amazon.pay.exceptions.AmazonServiceException;
+
+/**
+ * Binds the successful response held by response data to its model class the
+ * first time the model is requested. The XML is read from the response data,
+ * so it is held as set by the response retention; discarded XML is released
+ * once the model is bound. Safe for use by multiple threads; the response is
+ * bound at most once.
+ */
+final class LazyResponse<T> {
+
+    private final Class<T> clazz;
+    private final ResponseData responseData;
+    private volatile T response;
+
+    LazyResponse(Class<T> clazz, ResponseData responseData) {
+        this.clazz = clazz;
+        this.responseData = responseData;
+    }
+
+    /**
+     * Returns the bound response, binding it on first use
+     *
+     * @return response
+     * @throws AmazonClientException If the response cannot be bound
+     */
+    T get() {
+        T result = response;
+        if (result == null) {
+            synchronized (this) {
+                result = response;
+                if (result == null) {
+                    try {
+                        result = Parser.marshalXML(clazz, responseData);
+                    } catch (AmazonServiceException e) {
+                        // Only successful responses are parsed lazily, so this is not expected
+                        throw new AmazonClientException(responseData, "Encountered marshalling error while marshalling data " + responseData.toXML(), e);
+                    }
+                    response = result;
+                    // The bound response no longer needs the raw XML
+                    responseData.releaseXml();
+                }
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.response.parser;
+
+import java.util.Iterator;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+/**
+ * XMLStreamReader that reports elements and attributes in the given namespace
+ * as unqualified and hides the declaration of that namespace.
+ *
+ * The JAXB models of this SDK are not namespace qualified, so responses and
+ * notifications are bound through this reader instead of rewriting the XML
+ * text to remove the xmlns declarations before unmarshalling.
+ */
+public final class NamespaceFilterXMLStreamReader extends StreamReaderDelegate {
+
+    private final String namespaceUri;
+
+    /**
+     * @param reader Underlying reader
+     * @param namespaceUri Namespace to be ignored
+     */
+    public NamespaceFilterXMLStreamReader(XMLStreamReader reader, String namespaceUri) {
+        super(reader);
+        this.namespaceUri = namespaceUri;
+    }
+
+    private String filter(String uri) {
+        return namespaceUri.equals(uri) ? XMLConstants.NULL_NS_URI : uri;
+    }
+
+    @Override
+    public String getNamespaceURI() {
+        return filter(super.getNamespaceURI());
+    }
+
+    @Override
+    public String getNamespaceURI(String prefix) {
+        return filter(super.getNamespaceURI(prefix));
+    }
+
+    @Override
+    public QName getName() {
+        final QName name = super.getName();
+        if (namespaceUri.equals(name.getNamespaceURI())) {
+            return new QName(XMLConstants.NULL_NS_URI, name.getLocalPart(), name.getPrefix());
+        }
+        return name;
+    }
+
+    @Override
+    public String getAttributeNamespace(int index) {
+        return filter(super.getAttributeNamespace(index));
+    }
+
+    @Override
+    public QName getAttributeName(int index) {
+        final QName name = super.getAttributeName(index);
+        if (namespaceUri.equals(name.getNamespaceURI())) {
+            return new QName(XMLConstants.NULL_NS_URI, name.getLocalPart(), name.getPrefix());
+        }
+        return name;
+    }
+
+    @Override
+    public int getNamespaceCount() {
+        final int count = super.getNamespaceCount();
+        int visible = 0;
+        for (int i = 0; i < count; i++) {
+            if (!namespaceUri.equals(super.getNamespaceURI(i))) {
+                visible++;
+            }
+        }
+        return visible;
+    }
+
+    @Override
+    public String getNamespacePrefix(int index) {
+        return super.getNamespacePrefix(declarationIndex(index));
+    }
+
+    @Override
+    public String getNamespaceURI(int index) {
+        return super.getNamespaceURI(declarationIndex(index));
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+        final NamespaceContext context = super.getNamespaceContext();
+        return new NamespaceContext() {
+            @Override
+            public String getNamespaceURI(String prefix) {
+                return filter(context.getNamespaceURI(prefix));
+            }
+
+            @Override
+            public String getPrefix(String uri) {
+                return context.getPrefix(uri);
+            }
+
+            @Override
+            public Iterator<?> getPrefixes(String uri) {
+                return context.getPrefixes(uri);
+            }
+        };
+    }
+
+    /**
+     * Maps the index of a visible namespace declaration to its index in the underlying reader
+     */
+    private int declarationIndex(int index) {
+        final int count = super.getNamespaceCount();
+        int visible = -1;
+        for (int i = 0; i < count; i++) {
+            if (!namespaceUri.equals(super.getNamespaceURI(i)) && ++visible == index) {
+                return i;
+            }
+        }
+        throw new IndexOutOfBoundsException("Namespace declaration index " + index);
+    }
+
+}
@@ -14,8 +14,12 @@
  */
 package com.amazon.pay.response.parser;
 
+import com.amazon.pay.response.model.AuthorizationDetails;
 import com.amazon.pay.response.model.AuthorizeOnBillingAgreementResponse;
 import com.amazon.pay.response.model.AuthorizeResponse;
+import com.amazon.pay.response.model.BillingAgreementDetails;
+import com.amazon.pay.response.model.BillingAgreementStatus;
+import com.amazon.pay.response.model.CaptureDetails;
 import com.amazon.pay.response.model.CaptureResponse;
 import com.amazon.pay.response.model.CancelOrderReferenceResponse;
 import com.amazon.pay.response.model.CloseAuthorizationResponse;
@@ -36,31 +40,76 @@ import com.amazon.pay.response.model.GetRefundDetailsResponse;
 import com.amazon.pay.response.model.GetServiceStatusResponse;
 import com.amazon.pay.response.model.ListOrderReferenceResponse;
 import com.amazon.pay.response.model.ListOrderReferenceByNextTokenResponse;
+import com.amazon.pay.response.model.OrderReferenceDetails;
+import com.amazon.pay.response.model.OrderReferenceStatus;
+import com.amazon.pay.response.model.ProviderCreditDetails;
+import com.amazon.pay.response.model.ProviderCreditReversalDetails;
+import com.amazon.pay.response.model.RefundDetails;
 import com.amazon.pay.response.model.RefundResponse;
 import com.amazon.pay.response.model.ReverseProviderCreditResponse;
 import com.amazon.pay.response.model.SetBillingAgreementDetailsResponse;
 import com.amazon.pay.response.model.SetOrderReferenceDetailsResponse;
 import com.amazon.pay.response.model.ValidateBillingAgreementResponse;
 import com.amazon.pay.response.model.SetOrderAttributesResponse;
+import com.amazon.pay.response.model.Status;
+import com.amazon.pay.response.model.StaxResponseReaders;
 
 import com.amazon.pay.exceptions.AmazonClientException;
 import com.amazon.pay.exceptions.AmazonServiceException;
+import com.amazon.pay.types.ResponseRetention;
 
 import java.io.StringReader;
-import javax.xml.bind.JAXBContext;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
 public class Parser {
 
+    private static final String RESPONSE_NAMESPACE = "http://mws.amazonservices.com/schema/OffAmazonPayments/2013-01-01";
+
+    private static final Set<String> STATUS_ELEMENTS = new HashSet<String>(Arrays.asList(
+            "AuthorizationStatus", "CaptureStatus", "RefundStatus", "OrderReferenceStatus",
+            "BillingAgreementStatus", "CreditStatus", "CreditReversalStatus"));
+
+    private static final ThreadLocal<DatatypeFactory> datatypeFactory = new ThreadLocal<DatatypeFactory>() {
+        @Override
+        protected DatatypeFactory initialValue() {
+            try {
+                return DatatypeFactory.newInstance();
+            } catch (DatatypeConfigurationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
     public static GetOrderReferenceDetailsResponseData getOrderReferenceDetails(ResponseData rawResponse) throws AmazonServiceException {
         final GetOrderReferenceDetailsResponse response = marshalXML(GetOrderReferenceDetailsResponse.class, rawResponse);
         return new GetOrderReferenceDetailsResponseData(response, rawResponse);
     }
 
+    /**
+     * Parses the response, binding its details on the first getDetails call when lazy.
+     * The status code and RequestId are available without binding the response.
+     *
+     * @param rawResponse Raw response
+     * @param lazy Whether to defer binding the response details
+     * @return response data
+     * @throws AmazonServiceException If the response is an error response
+     */
+    public static GetOrderReferenceDetailsResponseData getOrderReferenceDetails(ResponseData rawResponse, boolean lazy) throws AmazonServiceException {
+        if (!lazy) {
+            return getOrderReferenceDetails(rawResponse);
+        }
+        checkSuccess(rawResponse);
+        return new GetOrderReferenceDetailsResponseData(rawResponse, scanRequestId(rawResponse));
+    }
+
 
     public static SetOrderReferenceDetailsResponseData setOrderReferenceDetails(ResponseData rawResponse) throws AmazonServiceException {
         final SetOrderReferenceDetailsResponse response = marshalXML(SetOrderReferenceDetailsResponse.class, rawResponse);
@@ -73,16 +122,67 @@ public class Parser {
         return new AuthorizeResponseData(response, rawResponse);
     }
 
+    /**
+     * Parses the response, binding its details on the first getDetails call when lazy.
+     * The status code and RequestId are available without binding the response.
+     *
+     * @param rawResponse Raw response
+     * @param lazy Whether to defer binding the response details
+     * @return response data
+     * @throws AmazonServiceException If the response is an error response
+     */
+    public static AuthorizeResponseData getAuthorizeData(ResponseData rawResponse, boolean lazy) throws AmazonServiceException {
+        if (!lazy) {
+            return getAuthorizeData(rawResponse);
+        }
+        checkSuccess(rawResponse);
+        return new AuthorizeResponseData(rawResponse, scanRequestId(rawResponse));
+    }
+
     public static GetAuthorizationDetailsResponseData getAuthorizationDetailsData(ResponseData rawResponse) throws AmazonServiceException {
         final GetAuthorizationDetailsResponse response = marshalXML(GetAuthorizationDetailsResponse.class, rawResponse);
         return new GetAuthorizationDetailsResponseData(response, rawResponse);
     }
 
+    /**
+     * Parses the response, binding its details on the first getDetails call when lazy.
+     * The status code and RequestId are available without binding the response.
+     *
+     * @param rawResponse Raw response
+     * @param lazy Whether to defer binding the response details
+     * @return response data
+     * @throws AmazonServiceException If the response is an error response
+     */
+    public static GetAuthorizationDetailsResponseData getAuthorizationDetailsData(ResponseData rawResponse, boolean lazy) throws AmazonServiceException {
+        if (!lazy) {
+            return getAuthorizationDetailsData(rawResponse);
+        }
+        checkSuccess(rawResponse);
+        return new GetAuthorizationDetailsResponseData(rawResponse, scanRequestId(rawResponse));
+    }
+
     public static CaptureResponseData getCapture(ResponseData rawResponse) throws AmazonServiceException {
         final CaptureResponse response = marshalXML(CaptureResponse.class, rawResponse);
         return new CaptureResponseData(response, rawResponse);
     }
 
+    /**
+     * Parses the response, binding its details on the first getDetails call when lazy.
+     * The status code and RequestId are available without binding the response.
+     *
+     * @param rawResponse Raw response
+     * @param lazy Whether to defer binding the response details
+     * @return response data
+     * @throws AmazonServiceException If the response is an error response
+     */
+    public static CaptureResponseData getCapture(ResponseData rawResponse, boolean lazy) throws AmazonServiceException {
+        if (!lazy) {
+            return getCapture(rawResponse);
+        }
+        checkSuccess(rawResponse);
+        return new CaptureResponseData(rawResponse, scanRequestId(rawResponse));
+    }
+
     public static GetCaptureDetailsResponseData getCaptureDetailsData(ResponseData rawResponse) throws AmazonServiceException {
         final GetCaptureDetailsResponse response = marshalXML(GetCaptureDetailsResponse.class, rawResponse);
         return new GetCaptureDetailsResponseData(response, rawResponse);
@@ -197,25 +297,187 @@ public class Parser {
         return new GetMerchantAccountStatusResponseData(response, rawResponse);
     }
 
+    /**
+     * Reads a subset of a successful response, streaming over the XML and
+     * stopping as soon as the subset has been read. The elements before the
+     * subset are still tokenized, but none of the response model is bound,
+     * which suits pollers that only look at the status of a payment object.
+     * <p>
+     * Response data whose XML was discarded by ResponseRetention.DISCARD is
+     * projected from its details instead, binding them if they are parsed
+     * lazily and have not been bound yet.
+     *
+     * @param rawResponse Raw response, for example from getAuthorizationDetails
+     * @param projection The subset to read
+     * @return projected response data
+     * @throws AmazonServiceException If the response is an error response
+     * @throws IllegalStateException If the response XML was discarded and the
+     *          response data has no details to project
+     */
+    public static ProjectionData project(ResponseData rawResponse, Projection projection) throws AmazonServiceException {
+        if (projection == null) {
+            throw new IllegalArgumentException("projection must not be null");
+        }
+        checkSuccess(rawResponse);
+        final String xml = rawResponse.retainedXml();
+        if (xml == null && rawResponse.getRetention() == ResponseRetention.DISCARD) {
+            return projectDetails(rawResponse);
+        }
+        try {
+            final XMLStreamReader reader = JAXBContextRegistry.createXMLStreamReader(new StringReader(xml));
+            try {
+                return projectStatus(reader, rawResponse);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new AmazonClientException(rawResponse, "Encountered marshalling error while marshalling data " + rawResponse.toXML(), e);
+        } catch (IllegalArgumentException e) {
+            throw new AmazonClientException(rawResponse, "Encountered marshalling error while marshalling data " + rawResponse.toXML(), e);
+        }
+    }
+
+    private static ProjectionData projectStatus(XMLStreamReader reader, ResponseData rawResponse) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && STATUS_ELEMENTS.contains(reader.getLocalName())) {
+                final String statusElement = reader.getLocalName();
+                String state = null;
+                String timestamp = null;
+                String reasonCode = null;
+                String reasonDescription = null;
+                // Stop at the end of the status element, leaving the rest of the response unread
+                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    final String name = reader.getLocalName();
+                    if ("State".equals(name)) {
+                        state = reader.getElementText();
+                    } else if ("LastUpdateTimestamp".equals(name) || "LastUpdatedTimestamp".equals(name)) {
+                        // BillingAgreementStatus uses LastUpdatedTimestamp in API responses
+                        timestamp = reader.getElementText();
+                    } else if ("ReasonCode".equals(name)) {
+                        reasonCode = reader.getElementText();
+                    } else if ("ReasonDescription".equals(name)) {
+                        reasonDescription = reader.getElementText();
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+                return new ProjectionData(rawResponse, Projection.STATUS, statusElement, state,
+                        timestamp != null ? datatypeFactory.get().newXMLGregorianCalendar(timestamp.trim()) : null,
+                        reasonCode, reasonDescription);
+            }
+        }
+        return new ProjectionData(rawResponse, Projection.STATUS, null, null, null, null, null);
+    }
+
+    /**
+     * Projects the status out of the details of response data whose XML was discarded
+     */
+    private static ProjectionData projectDetails(ResponseData data) {
+        if (data instanceof AuthorizeResponseData) {
+            return projectStatus(data, ((AuthorizeResponseData) data).getDetails());
+        } else if (data instanceof AuthorizeOnBillingAgreementResponseData) {
+            return projectStatus(data, ((AuthorizeOnBillingAgreementResponseData) data).getDetails());
+        } else if (data instanceof GetAuthorizationDetailsResponseData) {
+            return projectStatus(data, ((GetAuthorizationDetailsResponseData) data).getDetails());
+        } else if (data instanceof CaptureResponseData) {
+            return projectStatus(data, ((CaptureResponseData) data).getDetails());
+        } else if (data instanceof GetCaptureDetailsResponseData) {
+            return projectStatus(data, ((GetCaptureDetailsResponseData) data).getDetails());
+        } else if (data instanceof RefundResponseData) {
+            return projectStatus(data, ((RefundResponseData) data).getDetails());
+        } else if (data instanceof GetRefundDetailsResponseData) {
+            return projectStatus(data, ((GetRefundDetailsResponseData) data).getDetails());
+        } else if (data instanceof GetOrderReferenceDetailsResponseData) {
+            return projectStatus(data, ((GetOrderReferenceDetailsResponseData) data).getDetails());
+        } else if (data instanceof SetOrderReferenceDetailsResponseData) {
+            return projectStatus(data, ((SetOrderReferenceDetailsResponseData) data).getDetails());
+        } else if (data instanceof CreateOrderReferenceForIdResponseData) {
+            return projectStatus(data, ((CreateOrderReferenceForIdResponseData) data).getDetails());
+        } else if (data instanceof SetOrderAttributesResponseData) {
+            return projectStatus(data, ((SetOrderAttributesResponseData) data).getOrderReferenceDetails());
+        } else if (data instanceof GetBillingAgreementDetailsResponseData) {
+            return projectStatus(data, ((GetBillingAgreementDetailsResponseData) data).getDetails());
+        } else if (data instanceof SetBillingAgreementDetailsResponseData) {
+            return projectStatus(data, ((SetBillingAgreementDetailsResponseData) data).getDetails());
+        } else if (data instanceof ValidateBillingAgreementResponseData) {
+            final ValidateBillingAgreementResponseData validate = (ValidateBillingAgreementResponseData) data;
+            return projectStatus(data, validate.getResult() != null ? validate.getResult().getBillingAgreementStatus() : null);
+        } else if (data instanceof GetProviderCreditDetailsResponseData) {
+            return projectStatus(data, ((GetProviderCreditDetailsResponseData) data).getDetails());
+        } else if (data instanceof GetProviderCreditReversalDetailsResponseData) {
+            return projectStatus(data, ((GetProviderCreditReversalDetailsResponseData) data).getDetails());
+        } else if (data instanceof ReverseProviderCreditResponseData) {
+            return projectStatus(data, ((ReverseProviderCreditResponseData) data).getDetails());
+        }
+        throw new IllegalStateException("The response XML was discarded after parsing and " + data.getClass().getSimpleName()
+                + " has no details to project, see PayConfig.withResponseRetention");
+    }
+
+    private static ProjectionData projectStatus(ResponseData data, AuthorizationDetails details) {
+        return projectStatus(data, "AuthorizationStatus", details != null ? details.getAuthorizationStatus() : null);
+    }
+
+    private static ProjectionData projectStatus(ResponseData data, CaptureDetails details) {
+        return projectStatus(data, "CaptureStatus", details != null ? details.getCaptureStatus() : null);
+    }
+
+    private static ProjectionData projectStatus(ResponseData data, RefundDetails details) {
+        return projectStatus(data, "RefundStatus", details != null ? details.getRefundStatus() : null);
+    }
+
+    private static ProjectionData projectStatus(ResponseData data, ProviderCreditDetails details) {
+        return projectStatus(data, "CreditStatus", details != null ? details.getCreditStatus() : null);
+    }
+
+    private static ProjectionData projectStatus(ResponseData data, ProviderCreditReversalDetails details) {
+        return projectStatus(data, "CreditReversalStatus", details != null ? details.getCreditReversalStatus() : null);
+    }
+
+    private static ProjectionData projectStatus(ResponseData data, BillingAgreementDetails details) {
+        return projectStatus(data, details != null ? details.getBillingAgreementStatus() : null);
+    }
+
+    private static ProjectionData projectStatus(ResponseData data, String statusElement, Status status) {
+        if (status == null) {
+            return new ProjectionData(data, Projection.STATUS, null, null, null, null, null);
+        }
+        return new ProjectionData(data, Projection.STATUS, statusElement, status.getState(),
+                status.getLastUpdateTimestamp(), status.getReasonCode(), status.getReasonDescription());
+    }
+
+    private static ProjectionData projectStatus(ResponseData data, OrderReferenceDetails details) {
+        final OrderReferenceStatus status = details != null ? details.getOrderReferenceStatus() : null;
+        if (status == null) {
+            return new ProjectionData(data, Projection.STATUS, null, null, null, null, null);
+        }
+        return new ProjectionData(data, Projection.STATUS, "OrderReferenceStatus", status.getState(),
+                status.getLastUpdateTimestamp(), status.getReasonCode(), status.getReasonDescription());
+    }
+
+    private static ProjectionData projectStatus(ResponseData data, BillingAgreementStatus status) {
+        if (status == null) {
+            return new ProjectionData(data, Projection.STATUS, null, null, null, null, null);
+        }
+        return new ProjectionData(data, Projection.STATUS, "BillingAgreementStatus", status.getState(),
+                status.getLastUpdatedTimestamp(), status.getReasonCode(), status.getReasonDescription());
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
     public static <T> T marshalXML(Class<T> clazz, ResponseData rawResponse) throws AmazonServiceException  {
         try {
             if (rawResponse.getStatusCode() == 200) {
-                T responseObject = null;
-                final JAXBContext context = JAXBContext.newInstance(clazz);
-
-                // Ignore the namespace only for marshalling purpose
-                final String noNamespaceXML = rawResponse.toXML().replaceAll(
-                        "xmlns(?:.*?)?=\"http://mws.amazonservices.com/schema/OffAmazonPayments/2013-01-01\"", "");
-                final StringReader reader = new StringReader(noNamespaceXML);
-                final Unmarshaller unmarshaller = context.createUnmarshaller();
-
-                final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
-                xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-                xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-                final XMLStreamReader xmlStreamReader = xmlInputFactory.createXMLStreamReader(reader);
-                responseObject = (T) unmarshaller.unmarshal(xmlStreamReader);
-
-                return responseObject;
+                return unmarshal(clazz, rawResponse.toXML());
             } else {
                 generateErrorException(rawResponse);
             }
@@ -229,24 +491,79 @@ public class Parser {
         return null;
     }
 
-    public static void generateErrorException(ResponseData rawResponse) throws AmazonServiceException, JAXBException {
-        final JAXBContext context = JAXBContext.newInstance(ErrorResponse.class);
+    /**
+     * Throws the service exception of an error response, without binding successful ones
+     */
+    private static void checkSuccess(ResponseData rawResponse) throws AmazonServiceException {
+        if (rawResponse.getStatusCode() != 200) {
+            try {
+                generateErrorException(rawResponse);
+            } catch (JAXBException e) {
+                throw new AmazonClientException(rawResponse, "Encountered marshalling error while marshalling data " + rawResponse.toXML(), e);
+            }
+        }
+    }
 
-        // Ignore the namespace only for marshalling purpose
-        final String noNamespaceXML = rawResponse.toXML().replaceAll(
-                "xmlns(?:.*?)?=\"http://mws.amazonservices.com/schema/OffAmazonPayments/2013-01-01\"", "");
-        final StringReader reader = new StringReader(noNamespaceXML);
-        final Unmarshaller unmarshaller = context.createUnmarshaller();
+    /**
+     * Returns the ResponseMetadata RequestId of the response, streaming
+     * over the XML without binding it
+     */
+    private static String scanRequestId(ResponseData rawResponse) {
+        try {
+            final XMLStreamReader reader = JAXBContextRegistry.createXMLStreamReader(new StringReader(rawResponse.toXML()));
+            try {
+                boolean inMetadata = false;
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                        if ("ResponseMetadata".equals(reader.getLocalName())) {
+                            inMetadata = true;
+                        } else if (inMetadata && "RequestId".equals(reader.getLocalName())) {
+                            return reader.getElementText();
+                        }
+                    }
+                }
+                return null;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new AmazonClientException(rawResponse, "Encountered marshalling error while marshalling data " + rawResponse.toXML(), e);
+        }
+    }
 
-        final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
-        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    public static void generateErrorException(ResponseData rawResponse) throws AmazonServiceException, JAXBException {
         try {
-            final XMLStreamReader xmlStreamReader = xmlInputFactory.createXMLStreamReader(reader);
-            final ErrorResponse result = (ErrorResponse) unmarshaller.unmarshal(xmlStreamReader);
+            final ErrorResponse result = unmarshal(ErrorResponse.class, rawResponse.toXML());
             throw new AmazonServiceException(result, rawResponse);
         } catch (XMLStreamException e) {
             throw new AmazonClientException(rawResponse, "Encountered marshalling error while marshalling data " + rawResponse.toXML(), e);
         }
     }
+
+    /**
+     * Unmarshals the response XML with the OffAmazonPayments namespace mapped
+     * to the empty namespace of the JAXB models, without rewriting the XML text.
+     * The generated StAX readers are used for the response types they cover,
+     * JAXB for the others and for any response the StAX readers cannot read.
+     */
+    private static <T> T unmarshal(Class<T> clazz, String xml) throws JAXBException, XMLStreamException {
+        if (StaxResponseReaders.canRead(clazz)) {
+            final XMLStreamReader reader = new NamespaceFilterXMLStreamReader(
+                    JAXBContextRegistry.createXMLStreamReader(new StringReader(xml)), RESPONSE_NAMESPACE);
+            try {
+                return StaxResponseReaders.read(clazz, reader);
+            } catch (XMLStreamException e) {
+                // Fall through to JAXB, which either binds the response or reports the error as before
+            } finally {
+                reader.close();
+            }
+        }
+        final XMLStreamReader reader = new NamespaceFilterXMLStreamReader(
+                JAXBContextRegistry.createXMLStreamReader(new StringReader(xml)), RESPONSE_NAMESPACE);
+        try {
+            return JAXBContextRegistry.unmarshal(clazz, reader);
+        } finally {
+            reader.close();
+        }
+    }
 }
@@ -0,0 +1,31 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.response.parser;
+
+/**
+ * Subsets of a response that Parser.project reads without binding the whole response
+ */
+public enum Projection {
+
+    /**
+     * The State, ReasonCode, ReasonDescription and LastUpdateTimestamp (or
+     * LastUpdatedTimestamp) of the first AuthorizationStatus, CaptureStatus,
+     * RefundStatus, OrderReferenceStatus, BillingAgreementStatus, CreditStatus
+     * or CreditReversalStatus element. Parsing stops at the end of that element;
+     * the elements before it are tokenized but not bound.
+     */
+    STATUS
+
+}
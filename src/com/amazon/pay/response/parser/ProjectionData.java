@@ -0,0 +1,106 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.response.parser;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+/**
+ * Subset of a response read by Parser.project
+ */
+public final class ProjectionData extends ResponseData {
+
+    private final Projection projection;
+    private final String statusElement;
+    private final String state;
+    private final XMLGregorianCalendar lastUpdateTimestamp;
+    private final String reasonCode;
+    private final String reasonDescription;
+
+    ProjectionData(ResponseData rawResponse, Projection projection, String statusElement, String state,
+            XMLGregorianCalendar lastUpdateTimestamp, String reasonCode, String reasonDescription) {
+        super(rawResponse);
+        this.projection = projection;
+        this.statusElement = statusElement;
+        this.state = state;
+        this.lastUpdateTimestamp = lastUpdateTimestamp;
+        this.reasonCode = reasonCode;
+        this.reasonDescription = reasonDescription;
+    }
+
+    /**
+     * Returns the projection that was read
+     *
+     * @return projection
+     */
+    public Projection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Returns the name of the status element that was read, for example AuthorizationStatus
+     *
+     * @return statusElement, or null if the response has no status
+     */
+    public String getStatusElement() {
+        return statusElement;
+    }
+
+    /**
+     * Returns the state of the payment object, for example Open or Closed
+     *
+     * @return state
+     */
+    public String getState() {
+        return state;
+    }
+
+    /**
+     * Returns the time the state was last updated
+     *
+     * @return lastUpdateTimestamp
+     */
+    public XMLGregorianCalendar getLastUpdateTimestamp() {
+        return lastUpdateTimestamp;
+    }
+
+    /**
+     * Returns the reason code of the state, if any
+     *
+     * @return reasonCode
+     */
+    public String getReasonCode() {
+        return reasonCode;
+    }
+
+    /**
+     * Returns the reason description of the state, if any
+     *
+     * @return reasonDescription
+     */
+    public String getReasonDescription() {
+        return reasonDescription;
+    }
+
+    /**
+     * Returns the string representation of ProjectionData
+     */
+    @Override
+    public String toString() {
+        return "ProjectionData{" + "projection=" + projection + ", statusElement=" + statusElement + ", state=" + state
+                + ", lastUpdateTimestamp=" + lastUpdateTimestamp + ", reasonCode=" + reasonCode
+                + ", reasonDescription=" + reasonDescription + '}';
+    }
+
+}
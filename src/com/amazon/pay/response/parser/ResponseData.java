@@ -14,26 +14,123 @@
  */
 package com.amazon.pay.response.parser;
 
+import com.amazon.pay.exceptions.AmazonClientException;
 import com.amazon.pay.impl.PayLogUtil;
+import com.amazon.pay.types.ResponseRetention;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 import org.json.JSONObject;
 import org.json.JSONException;
 import org.json.XML;
 
 public class ResponseData {
+
+    // MWS response headers
+    public static final String HEADER_QUOTA_MAX = "x-mws-quota-max";
+    public static final String HEADER_QUOTA_REMAINING = "x-mws-quota-remaining";
+    public static final String HEADER_QUOTA_RESETS_ON = "x-mws-quota-resetson";
+    public static final String HEADER_REQUEST_ID = "x-mws-request-id";
+
     private final int statusCode;
     private final String responseXml;
+    private final byte[] compressedXml;
+    private final ResponseRetention retention;
+    private final Map<String, String> headers;
+    // Discarded XML still needed to bind lazily parsed details, released once they are bound
+    private volatile String pendingXml;
 
-    private final PayLogUtil payUtil = new PayLogUtil();
+    private static final PayLogUtil payUtil = new PayLogUtil();
 
     public ResponseData(int responseCode , String rawXmlString) {
+        this(responseCode, rawXmlString, null);
+    }
+
+    /**
+     * @param responseCode HTTP status code
+     * @param rawXmlString Response body
+     * @param headers Response headers, may be null. Header names are matched case-insensitively.
+     */
+    public ResponseData(int responseCode , String rawXmlString, Map<String, String> headers) {
         this.statusCode = responseCode;
         this.responseXml = rawXmlString;
+        this.compressedXml = null;
+        this.retention = ResponseRetention.RETAIN;
+        if (headers == null || headers.isEmpty()) {
+            this.headers = Collections.emptyMap();
+        } else {
+            final Map<String, String> lowerCaseHeaders = new HashMap<String, String>(headers.size() * 2);
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if (header.getKey() != null) {
+                    lowerCaseHeaders.put(header.getKey().toLowerCase(Locale.ENGLISH), header.getValue());
+                }
+            }
+            this.headers = Collections.unmodifiableMap(lowerCaseHeaders);
+        }
     }
 
+    /**
+     * Copies a raw response, marking how response data parsed from the copy
+     * keeps the response XML. The copy itself keeps the XML as returned.
+     *
+     * @param response Raw response
+     * @param retention How response data parsed from the copy keeps the response XML
+     */
+    public ResponseData(ResponseData response, ResponseRetention retention) {
+        if (retention == null) {
+            throw new IllegalArgumentException("retention must not be null");
+        }
+        this.responseXml = response.retainedXml();
+        this.compressedXml = null;
+        this.retention = retention;
+        this.statusCode = response.statusCode;
+        this.headers = response.headers;
+    }
+
+    /**
+     * Creates response data from a raw response once it has been parsed,
+     * keeping the response XML as set by the retention of the raw response
+     *
+     * @param response Raw response
+     */
     public ResponseData(ResponseData response) {
-        this.responseXml = response.responseXml;
+        this(response, false);
+    }
+
+    /**
+     * Creates response data from a raw response, keeping the response XML as
+     * set by the retention of the raw response. Response data that binds its
+     * details lazily holds discarded XML until releaseXml is called.
+     *
+     * @param response Raw response
+     * @param lazy Whether the details are bound from this response data later
+     */
+    ResponseData(ResponseData response, boolean lazy) {
+        final String xml = response.retainedXml();
         this.statusCode = response.statusCode;
-        payUtil.logMessage("\n\nResponse Data: \n" + payUtil.sanitizeString(responseXml));
+        this.headers = response.headers;
+        this.retention = response.retention;
+        // Sanitizing parses the whole response, so only do it when the result is logged
+        payUtil.logSanitized("\n\nResponse Data: \n", xml);
+        if (retention == ResponseRetention.COMPRESS && xml != null) {
+            this.responseXml = null;
+            this.compressedXml = compress(xml);
+        } else if (retention == ResponseRetention.DISCARD) {
+            this.responseXml = null;
+            this.compressedXml = null;
+            this.pendingXml = lazy ? xml : null;
+        } else {
+            this.responseXml = xml;
+            this.compressedXml = null;
+        }
     }
 
     /**
@@ -47,13 +144,102 @@ public class ResponseData {
     }
 
     /**
-     * Returns the raw XML response as returned by Amazon Service API
+     * Returns the value of a response header
+     *
+     * @param name Header name, matched case-insensitively
+     * @return
+     *       The header value, or null if the header was not returned
+     */
+    public String getHeader(String name) {
+        return name != null ? headers.get(name.toLowerCase(Locale.ENGLISH)) : null;
+    }
+
+    /**
+     * Returns the response headers
+     *
+     * @return
+     *       Unmodifiable map of response headers keyed by lower case header name
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the MWS request id of the call, useful when contacting Amazon Pay support
+     *
+     * @return
+     *       The x-mws-request-id header, or null if not returned
+     */
+    public String getMwsRequestId() {
+        return getHeader(HEADER_REQUEST_ID);
+    }
+
+    /**
+     * Returns the hourly request quota of the operation
+     *
+     * @return
+     *       The x-mws-quota-max header, or null if not returned
+     */
+    public Double getQuotaMax() {
+        return parseDouble(getHeader(HEADER_QUOTA_MAX));
+    }
+
+    /**
+     * Returns the number of requests left in the current quota period
+     *
+     * @return
+     *       The x-mws-quota-remaining header, or null if not returned
+     */
+    public Double getQuotaRemaining() {
+        return parseDouble(getHeader(HEADER_QUOTA_REMAINING));
+    }
+
+    /**
+     * Returns when the current quota period resets, as an ISO 8601 timestamp
+     *
+     * @return
+     *       The x-mws-quota-resetsOn header, or null if not returned
+     */
+    public String getQuotaResetsOn() {
+        return getHeader(HEADER_QUOTA_RESETS_ON);
+    }
+
+    private static Double parseDouble(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the raw XML response as returned by Amazon Service API.
+     * With lazy response parsing, discarded XML is still returned until
+     * getDetails binds the details.
      *
      * @return
      *          The raw XML response as returned by Amazon Service API
+     * @throws IllegalStateException
+     *          If the response XML was discarded after parsing
      */
     public String toXML() {
-        return this.responseXml;
+        final String xml = retainedXml();
+        if (xml == null && retention == ResponseRetention.DISCARD) {
+            throw new IllegalStateException("The response XML was discarded after parsing, see PayConfig.withResponseRetention");
+        }
+        return xml;
+    }
+
+    /**
+     * Returns how this response keeps the raw XML response
+     *
+     * @return retention
+     */
+    public ResponseRetention getRetention() {
+        return retention;
     }
 
     /**
@@ -61,13 +247,65 @@ public class ResponseData {
      *
      * @throws JSONException
      *          If the XML response cannot be converted into JSON
+     * @throws IllegalStateException
+     *          If the response XML was discarded after parsing
      * @return
      *          JSON representation of response returned by Amazon Service API
      */
     public String toJSON() throws JSONException {
-        JSONObject jsonObj = XML.toJSONObject(this.responseXml);
+        JSONObject jsonObj = XML.toJSONObject(toXML());
         return jsonObj.toString();
     }
 
+    /**
+     * Returns the response XML, or null if it was discarded
+     */
+    String retainedXml() {
+        if (compressedXml != null) {
+            return decompress(compressedXml);
+        }
+        return responseXml != null ? responseXml : pendingXml;
+    }
+
+    /**
+     * Releases discarded XML held for binding lazily parsed details
+     */
+    void releaseXml() {
+        pendingXml = null;
+    }
+
+    private static byte[] compress(String xml) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, xml.length() / 4));
+            final OutputStream out = new DeflaterOutputStream(bytes);
+            try {
+                out.write(xml.getBytes("UTF-8"));
+            } finally {
+                out.close();
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new AmazonClientException("Encountered IOException: ", e);
+        }
+    }
+
+    private static String decompress(byte[] compressed) {
+        try {
+            final InputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed));
+            try {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream(compressed.length * 4);
+                final byte[] buffer = new byte[4096];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, n);
+                }
+                return bytes.toString("UTF-8");
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new AmazonClientException("Encountered IOException: ", e);
+        }
+    }
 
 }
@@ -32,5 +32,12 @@ public enum Key {
     PROXY_PASSWORD,
     AUTO_RETRY_ON_THROTTLE,
     OVERRIDE_SERVICE_URL,
-    OVERRIDE_PROFILE_URL
+    OVERRIDE_PROFILE_URL,
+    CONNECT_TIMEOUT,
+    READ_TIMEOUT,
+    MAX_CONNECTIONS,
+    MAX_RETRIES,
+    THROTTLE_MODE,
+    LAZY_RESPONSE_PARSING,
+    RESPONSE_RETENTION
 }
@@ -0,0 +1,27 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.types;
+
+/*
+ * This enum class represents how parsed response data keeps the raw response XML:
+ * RETAIN keeps it as returned, COMPRESS keeps it deflated and inflates it on every
+ * toXML or toJSON call, DISCARD drops it once the response details have been bound,
+ * after which toXML and toJSON throw an IllegalStateException. Lazily parsed response
+ * data holds the XML until getDetails binds the details.
+ */
+
+public enum ResponseRetention {
+    RETAIN, COMPRESS, DISCARD;
+}
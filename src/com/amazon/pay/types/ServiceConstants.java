@@ -160,11 +160,15 @@ public class ServiceConstants {
     public static final int FIRST_RETRY_WAIT_TIME = 1000;
     public static final int SECOND_RETRY_WAIT_TIME = 4000;
     public static final int THIRD_RETRY_WAIT_TIME = 10000;
+    public static final int MAX_RETRIES = 3;
 
     // HTTP timeouts (milliseconds)
     public static final int HTTP_READ_TIMEOUT = 30000;
     public static final int HTTP_CONNECT_TIMEOUT = 30000;
 
+    // Maximum number of concurrent connections per service endpoint
+    public static final int HTTP_MAX_CONNECTIONS = 50;
+
     static {
         Map<Region, String> mwsEndpointMappingsMap = new HashMap<Region,String>();
         mwsEndpointMappingsMap.put(Region.UK, "https://mws-eu.amazonservices.com");
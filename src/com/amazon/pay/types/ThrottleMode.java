@@ -0,0 +1,26 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.types;
+
+/*
+ * This enum class represents how the client handles a request that would exceed
+ * the Amazon Pay throttling quota of its operation:
+ * DISABLED sends every request, QUEUE delays the request until the quota allows it,
+ * FAIL_FAST rejects the request locally with an AmazonClientException.
+ */
+
+public enum ThrottleMode {
+    DISABLED, QUEUE, FAIL_FAST;
+}
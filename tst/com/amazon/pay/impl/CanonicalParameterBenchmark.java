@@ -0,0 +1,161 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl;
+
+import com.amazon.pay.TestConstants;
+import com.amazon.pay.request.CanonicalParameterBuilder;
+import com.amazon.pay.request.RequestSigner;
+import com.amazon.pay.types.CurrencyCode;
+import com.amazon.pay.types.Region;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building a signed Authorize request body with CanonicalParameterBuilder
+ * against the previous path: a TreeMap encoded with Util.urlEncodeAPIParams,
+ * copied into a second TreeMap for signing and serialized twice with
+ * Util.convertParameterMapToString. Both paths sign with the same RequestSigner.
+ *
+ * Run from the project root with the test classpath:
+ *   java com.amazon.pay.impl.CanonicalParameterBenchmark [iterations]
+ */
+public class CanonicalParameterBenchmark {
+
+    private static final int WARM_UP_ITERATIONS = 50000;
+
+    private static final String POST_HEADER = "POST\nmws.amazonservices.com\n/OffAmazonPayments_Sandbox/2013-01-01\n";
+
+    private static final String[][] PARAMETERS = {
+        { "Action", "Authorize" },
+        { "AmazonOrderReferenceId", "S01-1234567-1234567" },
+        { "AuthorizationReferenceId", "authRef-1445458291012" },
+        { "AuthorizationAmount.Amount", "100.50" },
+        { "AuthorizationAmount.CurrencyCode", "USD" },
+        { "SellerAuthorizationNote", "Order #4321 * 2 items ~ gift wrapped, ship to \u00d6sterreich" },
+        { "TransactionTimeout", "0" },
+        { "CaptureNow", "true" },
+        { "SoftDescriptor", "AMZ*Store" },
+        { "SellerId", TestConstants.merchantId },
+        { "AWSAccessKeyId", TestConstants.accessKey },
+        { "SignatureVersion", "2" },
+        { "SignatureMethod", "HmacSHA256" },
+        { "Version", "2013-01-01" },
+        { "Timestamp", TestConstants.timeStamp }
+    };
+
+    public static void main(String[] args) throws Exception {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        final PayConfig config = new PayConfig().withAccessKey(TestConstants.accessKey)
+                .withSecretKey(TestConstants.secretKey)
+                .withSellerId(TestConstants.merchantId)
+                .withCurrencyCode(CurrencyCode.USD)
+                .withRegion(Region.US)
+                .withSandboxMode(true);
+        final RequestSigner signer = new RequestSigner(config);
+
+        if (!canonicalBody(signer).equals(sortedMapBody(signer))) {
+            throw new IllegalStateException("The two paths produce different request bodies");
+        }
+
+        final Path[] paths = {
+            new Path("TreeMap + Util") {
+                @Override
+                String run(RequestSigner signer) throws Exception {
+                    return sortedMapBody(signer);
+                }
+            },
+            new Path("CanonicalParameterBuilder") {
+                @Override
+                String run(RequestSigner signer) throws Exception {
+                    return canonicalBody(signer);
+                }
+            }
+        };
+        for (Path path : paths) {
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                path.run(signer);
+            }
+        }
+
+        System.out.println(String.format("%-28s %12s %12s %14s", "Path", "ops/s", "us/op", "bytes/op"));
+        for (Path path : paths) {
+            final long allocatedBefore = allocatedBytes();
+            final long start = System.nanoTime();
+            int length = 0;
+            for (int i = 0; i < iterations; i++) {
+                length += path.run(signer).length();
+            }
+            final long elapsed = System.nanoTime() - start;
+            final long allocated = allocatedBytes() - allocatedBefore;
+            final double opsPerSecond = iterations * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+            final double microsPerOp = elapsed / (double) TimeUnit.MICROSECONDS.toNanos(1) / iterations;
+            System.out.println(String.format("%-28s %12.0f %12.2f %14s", path.name, opsPerSecond, microsPerOp,
+                    allocated >= 0 ? Long.toString(allocated / iterations) : "n/a"));
+            if (length == 0) {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    /**
+     * The request body construction used before CanonicalParameterBuilder
+     */
+    static String sortedMapBody(RequestSigner signer) throws Exception {
+        final Map<String, String> params = new TreeMap<String, String>();
+        for (String[] parameter : PARAMETERS) {
+            params.put(parameter[0], parameter[1]);
+        }
+        Util.urlEncodeAPIParams(params);
+        final Map<String, String> sortedParams = new TreeMap<String, String>();
+        sortedParams.putAll(params);
+        final String signature = signer.sign(POST_HEADER + Util.convertParameterMapToString(sortedParams));
+        params.put("Signature", signature);
+        return Util.convertParameterMapToString(params);
+    }
+
+    static String canonicalBody(RequestSigner signer) throws Exception {
+        final CanonicalParameterBuilder builder = new CanonicalParameterBuilder();
+        for (String[] parameter : PARAMETERS) {
+            builder.put(parameter[0], parameter[1]);
+        }
+        return builder.build(POST_HEADER, signer);
+    }
+
+    /**
+     * Bytes allocated by the current thread, or -1 if the JVM does not report them
+     */
+    private static long allocatedBytes() {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private abstract static class Path {
+
+        private final String name;
+
+        Path(String name) {
+            this.name = name;
+        }
+
+        abstract String run(RequestSigner signer) throws Exception;
+    }
+
+}
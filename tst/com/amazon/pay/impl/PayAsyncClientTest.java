@@ -0,0 +1,152 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl;
+
+import com.amazon.pay.AsyncHandler;
+import com.amazon.pay.TestConstants;
+import com.amazon.pay.Transport;
+import com.amazon.pay.exceptions.AmazonServiceException;
+import com.amazon.pay.request.AuthorizeRequest;
+import com.amazon.pay.response.parser.AuthorizeResponseData;
+import com.amazon.pay.response.parser.ResponseData;
+import com.amazon.pay.types.CurrencyCode;
+import com.amazon.pay.types.Region;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PayAsyncClientTest {
+
+    private PayConfig config;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        config = new PayConfig().withAccessKey(TestConstants.accessKey)
+                .withSecretKey(TestConstants.secretKey)
+                .withSellerId(TestConstants.merchantId)
+                .withCurrencyCode(CurrencyCode.USD)
+                .withRegion(Region.US)
+                .withSandboxMode(true);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testAuthorizeCompletesFutureAndHandler() throws Exception {
+        final StubTransport transport = new StubTransport(new ResponseData(200, loadTestFile("AuthorizeResponse.xml")));
+        final PayAsyncClient client = new PayAsyncClient(config, transport, executor, null);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<AuthorizeResponseData> handled = new AtomicReference<AuthorizeResponseData>();
+
+        final Future<AuthorizeResponseData> future = client.authorize(newAuthorizeRequest(),
+                new AsyncHandler<AuthorizeResponseData>() {
+                    @Override
+                    public void onSuccess(AuthorizeResponseData result) {
+                        handled.set(result);
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onError(Exception exception) {
+                        latch.countDown();
+                    }
+                });
+
+        final AuthorizeResponseData response = future.get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertSame(response, handled.get());
+        Assert.assertEquals(response.getDetails().getAmazonAuthorizationId(), "S01-9821095-1837200-A041953");
+        Assert.assertEquals(transport.calls.get(), 1);
+        client.shutdown();
+    }
+
+    @Test
+    public void testErrorResponseFailsFuture() throws Exception {
+        final StubTransport transport = new StubTransport(new ResponseData(400, loadTestFile("ErrorResponse.xml")));
+        final PayAsyncClient client = new PayAsyncClient(config, transport, executor, null);
+        try {
+            client.authorize(newAuthorizeRequest()).get(10, TimeUnit.SECONDS);
+            Assert.fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof AmazonServiceException);
+        }
+        client.shutdown();
+    }
+
+    @Test
+    public void testThrottledRequestIsRetried() throws Exception {
+        config.setUseAutoRetryOnThrottle(true);
+        config.setRetryPolicy(new RetryPolicy().withBaseDelay(10).withMaxDelay(50));
+        final StubTransport transport = new StubTransport(
+                new ResponseData(503, loadTestFile("Throttled.xml")),
+                new ResponseData(200, loadTestFile("AuthorizeResponse.xml")));
+        final PayAsyncClient client = new PayAsyncClient(config, transport, executor, null);
+        final AuthorizeResponseData response = client.authorize(newAuthorizeRequest()).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(response.getStatusCode(), 200);
+        Assert.assertEquals(transport.calls.get(), 2);
+        client.shutdown();
+    }
+
+    private AuthorizeRequest newAuthorizeRequest() {
+        return new AuthorizeRequest(TestConstants.amazonOrderReferenceId, "authRefId", "1.00");
+    }
+
+    private String loadTestFile(String name) throws IOException {
+        final Scanner scanner = new Scanner(new File("tst/com/amazon/pay/response/xml/" + name), "UTF-8");
+        try {
+            return scanner.useDelimiter("\\A").next();
+        } finally {
+            scanner.close();
+        }
+    }
+
+    /**
+     * Transport returning canned responses in order, repeating the last one
+     */
+    private static final class StubTransport implements Transport {
+
+        private final ResponseData[] responses;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        StubTransport(ResponseData... responses) {
+            this.responses = responses;
+        }
+
+        @Override
+        public ResponseData send(String method, String url, String body, Map<String,String> headers) {
+            final int call = calls.getAndIncrement();
+            return responses[Math.min(call, responses.length - 1)];
+        }
+    }
+
+}
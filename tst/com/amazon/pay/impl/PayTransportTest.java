@@ -0,0 +1,228 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl;
+
+import com.amazon.pay.response.parser.ResponseData;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PayTransportTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExecutorService executor;
+    private String baseUrl;
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final CountDownLatch unblock = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0), 0);
+        server.createContext("/echo", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                respond(exchange, 200, "ok");
+            }
+        });
+        server.createContext("/block", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                final int now = active.incrementAndGet();
+                while (true) {
+                    final int max = maxActive.get();
+                    if (now <= max || maxActive.compareAndSet(max, now)) {
+                        break;
+                    }
+                }
+                try {
+                    unblock.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    active.decrementAndGet();
+                }
+                respond(exchange, 200, "ok");
+            }
+        });
+        server.createContext("/slow", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    unblock.await(2, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                respond(exchange, 200, "late");
+            }
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        unblock.countDown();
+        executor.shutdownNow();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testKeepAlive() throws Exception {
+        final PayTransport transport = new PayTransport(new PayConfig());
+        for (int i = 0; i < 5; i++) {
+            final ResponseData response = transport.send("POST", baseUrl + "/echo", "request=" + i, null);
+            Assert.assertEquals(response.getStatusCode(), 200);
+            Assert.assertEquals(response.toXML().trim(), "ok");
+        }
+        Assert.assertEquals(transport.getRequestCount(), 5);
+        // Every request after the first reused the connection of the first
+        Assert.assertEquals(clientPorts.size(), 1);
+        Assert.assertEquals(transport.getLeasedConnections(baseUrl), 0);
+    }
+
+    @Test
+    public void testMaxConnectionsPerEndpoint() throws Exception {
+        final PayConfig config = new PayConfig().withMaxConnections(2).withConnectTimeout(10000);
+        final PayTransport transport = new PayTransport(config);
+        final List<Future<ResponseData>> responses = new ArrayList<Future<ResponseData>>();
+        for (int i = 0; i < 4; i++) {
+            responses.add(executor.submit(send(transport, "/block")));
+        }
+        awaitActive(2);
+        Thread.sleep(200);
+        Assert.assertEquals(active.get(), 2);
+        Assert.assertEquals(transport.getLeasedConnections(baseUrl), 2);
+
+        // Other endpoints are bounded separately
+        Assert.assertEquals(transport.send("POST", "http://localhost:" + server.getAddress().getPort() + "/echo", null, null).getStatusCode(), 200);
+
+        // A raised limit applies to the endpoint already in use
+        config.setMaxConnections(3);
+        transport.getLeasedConnections(baseUrl);
+        awaitActive(3);
+        Assert.assertEquals(transport.getLeasedConnections(baseUrl), 3);
+
+        // A lowered limit keeps leased connections until they are returned
+        config.setMaxConnections(1);
+        Assert.assertEquals(transport.getLeasedConnections(baseUrl), 3);
+
+        unblock.countDown();
+        for (Future<ResponseData> response : responses) {
+            Assert.assertEquals(response.get(10, TimeUnit.SECONDS).getStatusCode(), 200);
+        }
+        Assert.assertEquals(maxActive.get(), 3);
+        Assert.assertEquals(transport.getLeasedConnections(baseUrl), 0);
+    }
+
+    @Test
+    public void testConnectionWaitTimeout() throws Exception {
+        final PayTransport transport = new PayTransport(new PayConfig().withMaxConnections(1).withConnectTimeout(300));
+        final Future<ResponseData> blocked = executor.submit(send(transport, "/block"));
+        awaitActive(1);
+        final long start = System.nanoTime();
+        try {
+            transport.send("POST", baseUrl + "/echo", null, null);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Timed out waiting for a connection"));
+        }
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 250);
+        Assert.assertTrue(clientPorts.isEmpty());
+
+        unblock.countDown();
+        Assert.assertEquals(blocked.get(10, TimeUnit.SECONDS).getStatusCode(), 200);
+        Assert.assertEquals(transport.send("POST", baseUrl + "/echo", null, null).getStatusCode(), 200);
+    }
+
+    @Test
+    public void testReadTimeout() throws Exception {
+        final PayTransport transport = new PayTransport(new PayConfig().withReadTimeout(200));
+        try {
+            transport.send("POST", baseUrl + "/slow", "request", null);
+            Assert.fail();
+        } catch (SocketTimeoutException e) {
+            // expected
+        }
+        // The connection is returned even though the request failed
+        Assert.assertEquals(transport.getLeasedConnections(baseUrl), 0);
+    }
+
+    private Callable<ResponseData> send(final PayTransport transport, final String path) {
+        return new Callable<ResponseData>() {
+            @Override
+            public ResponseData call() throws IOException {
+                return transport.send("POST", baseUrl + path, "request", null);
+            }
+        };
+    }
+
+    private void awaitActive(int expected) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (active.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(active.get(), expected);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        final InputStream in = exchange.getRequestBody();
+        try {
+            while (in.read() != -1) {
+                // drain the request so the connection can be reused
+            }
+        } finally {
+            in.close();
+        }
+        final byte[] bytes = body.getBytes("UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        final OutputStream out = exchange.getResponseBody();
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+
+}
@@ -19,6 +19,7 @@ import com.amazon.pay.TestConstants;
 import com.amazon.pay.response.model.Environment;
 import com.amazon.pay.types.CurrencyCode;
 import com.amazon.pay.types.Region;
+import com.amazon.pay.types.ServiceConstants;
 import java.util.Properties;
 import org.junit.Assert;
 import org.junit.Test;
@@ -47,14 +48,18 @@ public class PaymentsConfigTest {
                 .withApplicationVersion("1.0").withProxyUsername("test").withProxyPassword("crypto");
         assertConfigValues(config, WITHOUT_OVERRIDES);
 
-        // Test URL override "with" methods
+        // Test URL and HTTP override "with" methods
         config.withOverrideServiceURL(TestConstants.OVERRIDE_SERVICE_URL)
-                .withOverrideProfileURL(TestConstants.OVERRIDE_PROFILE_URL);
+                .withOverrideProfileURL(TestConstants.OVERRIDE_PROFILE_URL)
+                .withConnectTimeout(5000).withReadTimeout(15000).withMaxConnections(20);
         assertConfigValues(config, WITH_OVERRIDES);
 
-        // Test URL override "set" methods
+        // Test URL and HTTP override "set" methods
         config.setOverrideServiceURL(null);
         config.setOverrideProfileURL(null);
+        config.setConnectTimeout(ServiceConstants.HTTP_CONNECT_TIMEOUT);
+        config.setReadTimeout(ServiceConstants.HTTP_READ_TIMEOUT);
+        config.setMaxConnections(ServiceConstants.HTTP_MAX_CONNECTIONS);
         assertConfigValues(config, WITHOUT_OVERRIDES);
     }
 
@@ -108,9 +113,15 @@ public class PaymentsConfigTest {
         if (usingOverride) {
             Assert.assertEquals(config.getOverrideServiceURL(), TestConstants.OVERRIDE_SERVICE_URL);
             Assert.assertEquals(config.getOverrideProfileURL(), TestConstants.OVERRIDE_PROFILE_URL);
+            Assert.assertEquals(config.getConnectTimeout(), 5000);
+            Assert.assertEquals(config.getReadTimeout(), 15000);
+            Assert.assertEquals(config.getMaxConnections(), 20);
         } else {
             Assert.assertNull(config.getOverrideServiceURL());
             Assert.assertNull(config.getOverrideProfileURL());
+            Assert.assertEquals(config.getConnectTimeout(), ServiceConstants.HTTP_CONNECT_TIMEOUT);
+            Assert.assertEquals(config.getReadTimeout(), ServiceConstants.HTTP_READ_TIMEOUT);
+            Assert.assertEquals(config.getMaxConnections(), ServiceConstants.HTTP_MAX_CONNECTIONS);
         }
     }
 
@@ -0,0 +1,131 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl;
+
+import com.amazon.pay.exceptions.AmazonClientException;
+import com.amazon.pay.response.parser.ResponseData;
+import com.amazon.pay.types.ServiceConstants;
+import com.amazon.pay.types.ThrottleMode;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RequestThrottlerTest {
+
+    @Test
+    public void testDisabledByDefault() {
+        final RequestThrottler throttler = new RequestThrottler(new PayConfig());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(throttler.acquire("SELLER", ServiceConstants.GET_SERVICE_STATUS), 0);
+        }
+    }
+
+    @Test
+    public void testDocumentedQuotas() {
+        final RequestThrottler throttler = new RequestThrottler(new PayConfig());
+        Assert.assertEquals(throttler.getQuota(ServiceConstants.AUTHORIZE).getMaxBurst(), 10);
+        Assert.assertEquals(throttler.getQuota(ServiceConstants.GET_ORDER_REFERENCE_DETAILS).getMaxBurst(), 20);
+        Assert.assertEquals(throttler.getQuota(ServiceConstants.GET_ORDER_REFERENCE_DETAILS).getRestoreRate(), 0.5, 0);
+        Assert.assertSame(throttler.getQuota("UnknownAction"), RequestThrottler.DEFAULT_QUOTA);
+    }
+
+    @Test
+    public void testFailFastAfterBurst() {
+        final PayConfig config = new PayConfig().withThrottleMode(ThrottleMode.FAIL_FAST);
+        final RequestThrottler throttler = new RequestThrottler(config);
+        Assert.assertEquals(throttler.acquire("SELLER", ServiceConstants.GET_SERVICE_STATUS), 0);
+        Assert.assertEquals(throttler.acquire("SELLER", ServiceConstants.GET_SERVICE_STATUS), 0);
+        try {
+            throttler.acquire("SELLER", ServiceConstants.GET_SERVICE_STATUS);
+            Assert.fail("Expected AmazonClientException");
+        } catch (AmazonClientException e) {
+            Assert.assertTrue(e.getMessage().contains(ServiceConstants.GET_SERVICE_STATUS));
+        }
+        // Quotas are tracked per seller
+        Assert.assertEquals(throttler.acquire("OTHER_SELLER", ServiceConstants.GET_SERVICE_STATUS), 0);
+    }
+
+    @Test
+    public void testQueueDelaysRequestsBeyondBurst() {
+        final PayConfig config = new PayConfig().withThrottleMode(ThrottleMode.QUEUE)
+                .withThrottleQuota(ServiceConstants.AUTHORIZE, 2, 10);
+        final RequestThrottler throttler = new RequestThrottler(config);
+        final String body = "AWSAccessKeyId=KEY&Action=Authorize&SellerId=SELLER";
+        Assert.assertEquals(throttler.acquire(body), 0);
+        Assert.assertEquals(throttler.acquire(body), 0);
+        final long firstWait = throttler.acquire(body);
+        final long secondWait = throttler.acquire(body);
+        Assert.assertTrue(firstWait > 0 && firstWait <= 100);
+        Assert.assertTrue(secondWait > firstWait && secondWait <= 200);
+    }
+
+    @Test
+    public void testQuotaHeadersAreExposed() {
+        final ResponseData response = new ResponseData(200, "<xml/>",
+                quotaHeaders("200.0", "150.0", System.currentTimeMillis()));
+        final ResponseData copy = new ResponseData(response);
+        Assert.assertEquals(copy.getQuotaMax(), 200.0, 0);
+        Assert.assertEquals(copy.getQuotaRemaining(), 150.0, 0);
+        Assert.assertNotNull(copy.getQuotaResetsOn());
+        Assert.assertEquals(copy.getMwsRequestId(), "REQUEST_ID");
+        Assert.assertEquals(copy.getHeader("X-MWS-REQUEST-ID"), "REQUEST_ID");
+        Assert.assertNull(new ResponseData(200, "<xml/>").getQuotaMax());
+    }
+
+    @Test
+    public void testExhaustedQuotaWaitsForReset() {
+        final PayConfig config = new PayConfig().withThrottleMode(ThrottleMode.QUEUE);
+        final RequestThrottler throttler = new RequestThrottler(config);
+        final String body = "Action=Capture&SellerId=SELLER";
+        throttler.onResponse(body, new ResponseData(200, "<xml/>",
+                quotaHeaders("100", "0", System.currentTimeMillis() + 2000)));
+        final long wait = throttler.acquire(body);
+        Assert.assertTrue(wait > 1000 && wait <= 2000);
+    }
+
+    @Test
+    public void testLowQuotaSpacesRequests() {
+        final PayConfig config = new PayConfig().withThrottleMode(ThrottleMode.QUEUE);
+        final RequestThrottler throttler = new RequestThrottler(config);
+        final String body = "Action=Capture&SellerId=SELLER";
+        throttler.onResponse(body, new ResponseData(200, "<xml/>",
+                quotaHeaders("100", "10", System.currentTimeMillis() + 10000)));
+        Assert.assertEquals(throttler.acquire(body), 0);
+        final long wait = throttler.acquire(body);
+        Assert.assertTrue(wait > 500 && wait <= 1000);
+
+        // A healthy quota removes the spacing after the already queued request
+        throttler.onResponse(body, new ResponseData(200, "<xml/>",
+                quotaHeaders("100", "90", System.currentTimeMillis() + 10000)));
+        final long queued = throttler.acquire(body);
+        Assert.assertTrue(throttler.acquire(body) - queued <= 10);
+    }
+
+    private static Map<String, String> quotaHeaders(String max, String remaining, long resetsOn) {
+        final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        final Map<String, String> headers = new HashMap<String, String>();
+        headers.put("x-mws-quota-max", max);
+        headers.put("x-mws-quota-remaining", remaining);
+        headers.put("x-mws-quota-resetsOn", format.format(new Date(resetsOn)));
+        headers.put("x-mws-request-id", "REQUEST_ID");
+        return headers;
+    }
+
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void testOnlyThrottlingAndServerErrorsAreRetried() {
+        final RetryPolicy policy = new RetryPolicy();
+        Assert.assertTrue(policy.shouldRetry("Authorize", 503, 0));
+        Assert.assertTrue(policy.shouldRetry("Authorize", 500, 0));
+        Assert.assertFalse(policy.shouldRetry("Authorize", 400, 0));
+        Assert.assertFalse(policy.shouldRetry("Authorize", 200, 0));
+        Assert.assertFalse(policy.shouldRetry("Authorize", 503, 3));
+    }
+
+    @Test
+    public void testPerOperationMaxRetries() {
+        final RetryPolicy policy = new RetryPolicy().withMaxRetries(2).withMaxRetries("Capture", 0);
+        Assert.assertEquals(policy.getMaxRetries("Authorize"), 2);
+        Assert.assertEquals(policy.getMaxRetries(null), 2);
+        Assert.assertEquals(policy.getMaxRetries("Capture"), 0);
+        Assert.assertFalse(policy.shouldRetry("Capture", 503, 0));
+        Assert.assertTrue(policy.shouldRetry("Authorize", 503, 1));
+        Assert.assertFalse(policy.shouldRetry("Authorize", 503, 2));
+    }
+
+    @Test
+    public void testFullJitterDelayIsBounded() {
+        final RetryPolicy policy = new RetryPolicy().withBaseDelay(100).withMaxDelay(1000);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(policy.computeDelay(0) <= 100);
+            Assert.assertTrue(policy.computeDelay(2) <= 400);
+            final long delay = policy.computeDelay(10);
+            Assert.assertTrue(delay >= 0 && delay <= 1000);
+        }
+    }
+
+    @Test
+    public void testRetryBudgetIsSharedAndRefilled() {
+        final RetryPolicy policy = new RetryPolicy().withRetryBudget(2 * RetryPolicy.RETRY_COST);
+        Assert.assertTrue(policy.shouldRetry("Authorize", 503, 0));
+        Assert.assertTrue(policy.shouldRetry("Capture", 503, 0));
+        Assert.assertFalse(policy.shouldRetry("Authorize", 503, 0));
+
+        for (int i = 0; i < RetryPolicy.RETRY_COST; i++) {
+            policy.onResponse(200);
+        }
+        Assert.assertTrue(policy.shouldRetry("Authorize", 503, 0));
+
+        for (int i = 0; i < 10 * RetryPolicy.RETRY_COST; i++) {
+            policy.onResponse(200);
+        }
+        Assert.assertEquals(policy.getAvailableRetryBudget(), policy.getRetryBudget());
+    }
+
+    @Test
+    public void testActionIsReadFromRequestParameters() {
+        final String body = "AWSAccessKeyId=KEY&Action=Authorize&AmazonOrderReferenceId=S01-1&SubAction=x";
+        Assert.assertEquals(Util.getParameterValue(body, "Action"), "Authorize");
+        Assert.assertEquals(Util.getParameterValue(body, "SubAction"), "x");
+        Assert.assertNull(Util.getParameterValue(body, "SellerId"));
+        Assert.assertNull(Util.getParameterValue(null, "Action"));
+    }
+
+}
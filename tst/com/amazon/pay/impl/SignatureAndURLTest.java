@@ -14,7 +14,9 @@
  */
 package com.amazon.pay.impl;
 
+import com.amazon.pay.request.CanonicalParameterBuilder;
 import com.amazon.pay.request.RequestHelper;
+import com.amazon.pay.request.RequestSigner;
 import com.amazon.pay.TestConstants;
 import com.amazon.pay.request.ConfirmOrderReferenceRequest;
 import com.amazon.pay.request.GetOrderReferenceDetailsRequest;
@@ -22,6 +24,8 @@ import com.amazon.pay.request.SetOrderReferenceDetailsRequest;
 import com.amazon.pay.response.model.Environment;
 import com.amazon.pay.types.CurrencyCode;
 import com.amazon.pay.types.Region;
+import java.util.Map;
+import java.util.TreeMap;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -190,4 +194,54 @@ public class SignatureAndURLTest {
         Assert.assertEquals(expectedURLforPartialMFA, this.helper.getPostURL(request));
     }
 
+    @Test
+    public void testRequestSignerMatchesUtilSignature() throws Exception {
+        final RequestSigner signer = new RequestSigner(config);
+        final StringBuilder longString = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            longString.append("Param").append(i).append("=\u00fc\u65e5\u672c&");
+        }
+        final String[] stringsToSign = { "", "POST\nmws.amazonservices.com\n/OffAmazonPayments_Sandbox/2013-01-01\nAction=Authorize",
+                "ab", "abc", longString.toString() };
+        for (String stringToSign : stringsToSign) {
+            Assert.assertEquals(Util.urlEncode(Util.getSignature(stringToSign, config.getSecretKey())),
+                    signer.sign(stringToSign));
+        }
+
+        // A changed secret key is picked up on the next request
+        config.setSecretKey("OTHER_SECRET_KEY".toCharArray());
+        Assert.assertEquals(Util.urlEncode(Util.getSignature("abc", config.getSecretKey())), signer.sign("abc"));
+    }
+
+    @Test
+    public void testCanonicalParameterBuilderMatchesSortedMap() throws Exception {
+        final String[][] parameters = {
+            { "Version", "2013-01-01" },
+            { "Action", "SetOrderReferenceDetails" },
+            { "SellerNote", "Caf\u00e9 order * 100% ~ done + more/less & \u65e5\u672c \ud83d\ude00 \ud83d" },
+            { "AWSAccessKeyId", TestConstants.accessKey },
+            { "OrderReferenceAttributes.OrderTotal.Amount", "1.00" },
+            { "SellerId", null },
+            { "Action", "GetOrderReferenceDetails" }
+        };
+        final CanonicalParameterBuilder builder = new CanonicalParameterBuilder();
+        final Map<String, String> sortedParams = new TreeMap<String, String>();
+        for (String[] parameter : parameters) {
+            builder.put(parameter[0], parameter[1]);
+            sortedParams.put(parameter[0], parameter[1]);
+        }
+        Util.urlEncodeAPIParams(sortedParams);
+        Assert.assertEquals(builder.size(), sortedParams.size());
+        Assert.assertEquals(builder.get("Action"), "GetOrderReferenceDetails");
+        Assert.assertEquals(builder.toQueryString(), Util.convertParameterMapToString(sortedParams));
+        Assert.assertEquals(builder.toString(), sortedParams.toString());
+
+        final String postHeader = "POST\nmws.amazonservices.com\n/OffAmazonPayments_Sandbox/2013-01-01\n";
+        final String signature = Util.urlEncode(Util.getSignature(
+                postHeader + Util.convertParameterMapToString(sortedParams), config.getSecretKey()));
+        sortedParams.put("Signature", signature);
+        Assert.assertEquals(builder.build(postHeader, new RequestSigner(config)),
+                Util.convertParameterMapToString(sortedParams));
+    }
+
 }
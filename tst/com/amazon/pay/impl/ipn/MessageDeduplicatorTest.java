@@ -0,0 +1,116 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MessageDeduplicatorTest {
+
+    /**
+     * Recorded MessageIds are reported as duplicates
+     */
+    @Test
+    public void testDuplicateDetected() {
+        final MessageDeduplicator deduplicator = new MessageDeduplicator();
+        Assert.assertFalse(deduplicator.isDuplicate("message-1"));
+        deduplicator.record("message-1");
+        Assert.assertTrue(deduplicator.isDuplicate("message-1"));
+        Assert.assertFalse(deduplicator.isDuplicate("message-2"));
+
+        Assert.assertEquals(1, deduplicator.getHitCount());
+        Assert.assertEquals(2, deduplicator.getMissCount());
+        Assert.assertEquals(1, deduplicator.size());
+    }
+
+    /**
+     * A claimed MessageId makes other claims wait until it is recorded or released
+     */
+    @Test
+    public void testClaimSerializesCopies() throws Exception {
+        final MessageDeduplicator deduplicator = new MessageDeduplicator();
+        Assert.assertTrue(deduplicator.claim("message-1"));
+
+        final boolean[] claimed = new boolean[2];
+        final Thread second = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                claimed[0] = deduplicator.claim("message-1");
+                deduplicator.release("message-1");
+                claimed[1] = deduplicator.claim("message-1");
+            }
+        });
+        second.start();
+        second.join(100);
+        Assert.assertTrue(second.isAlive());
+
+        // A released claim passes to the waiting copy, a recorded one makes it a duplicate
+        deduplicator.release("message-1");
+        second.join(5000);
+        Assert.assertFalse(second.isAlive());
+        Assert.assertTrue(claimed[0]);
+        Assert.assertTrue(claimed[1]);
+
+        deduplicator.record("message-1");
+        Assert.assertFalse(deduplicator.claim("message-1"));
+    }
+
+    /**
+     * New MessageIds are mostly rejected by the Bloom filter without a map lookup
+     */
+    @Test
+    public void testBloomFilterAnswersMisses() {
+        final MessageDeduplicator deduplicator = new MessageDeduplicator(1000, 1, TimeUnit.HOURS);
+        for (int i = 0; i < 1000; i++) {
+            deduplicator.record("recorded-" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertFalse(deduplicator.isDuplicate("new-" + i));
+        }
+        Assert.assertEquals(1000, deduplicator.getMissCount());
+        Assert.assertTrue(deduplicator.getFilteredCount() > 950);
+    }
+
+    /**
+     * The number of remembered MessageIds is bounded, oldest first
+     */
+    @Test
+    public void testBoundedEntries() {
+        final MessageDeduplicator deduplicator = new MessageDeduplicator(100, 1, TimeUnit.HOURS);
+        for (int i = 0; i < 350; i++) {
+            deduplicator.record("message-" + i);
+        }
+        Assert.assertEquals(100, deduplicator.size());
+        Assert.assertFalse(deduplicator.isDuplicate("message-0"));
+        for (int i = 250; i < 350; i++) {
+            Assert.assertTrue(deduplicator.isDuplicate("message-" + i));
+        }
+    }
+
+    /**
+     * MessageIds are forgotten once the window has passed
+     */
+    @Test
+    public void testWindowExpiry() throws Exception {
+        final MessageDeduplicator deduplicator = new MessageDeduplicator(100, 50, TimeUnit.MILLISECONDS);
+        deduplicator.record("message-1");
+        Assert.assertTrue(deduplicator.isDuplicate("message-1"));
+        Thread.sleep(120);
+        Assert.assertFalse(deduplicator.isDuplicate("message-1"));
+        Assert.assertEquals(0, deduplicator.size());
+    }
+
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.amazon.pay.response.ipn.model.AuthorizationNotification;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NotificationBatchParserTest {
+
+    private static final String MESSAGE_ID = "2288e071-de8e-5b6b-9f03-aeb15ba02de2";
+
+    private NotificationSigner signer;
+    private String payload;
+    private NotificationBatchParser parser;
+
+    @Before
+    public void setUp() throws Exception {
+        signer = new NotificationSigner();
+        SigningCertificateCache.getDefault().pin(signer.getKeyStore());
+        payload = new NotificationFactoryTest().loadTestFile("AuthorizeNotification.json");
+        parser = new NotificationBatchParser(4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        parser.shutdown();
+        SigningCertificateCache.getDefault().clear();
+    }
+
+    /**
+     * Results come back in input order and a forged request does not abort the batch
+     */
+    @Test
+    public void testInputOrderWithErrors() throws Exception {
+        final List<QueuedNotification> requests = requests(20);
+        final QueuedNotification forged = requests.get(5);
+        requests.set(5, new QueuedNotification(forged.getId(), forged.getHeaders(), forged.getBody().replace("P01-", "P02-")));
+
+        final Iterator<NotificationBatchParser.Result> results = parser.parse(requests.iterator(), NotificationBatchParser.Order.INPUT);
+        for (int i = 0; i < 20; i++) {
+            final NotificationBatchParser.Result result = results.next();
+            Assert.assertEquals(i, result.getIndex());
+            Assert.assertSame(requests.get(i), result.getRequest());
+            if (i == 5) {
+                Assert.assertTrue(result.getError() instanceof SecurityException);
+                Assert.assertNull(result.getNotification());
+            } else {
+                Assert.assertNull(result.getError());
+                Assert.assertTrue(result.getNotification() instanceof AuthorizationNotification);
+            }
+        }
+        Assert.assertFalse(results.hasNext());
+    }
+
+    /**
+     * Completion order returns every request once and reads no further ahead than maxInFlight
+     */
+    @Test
+    public void testCompletionOrderIsBounded() throws Exception {
+        final List<QueuedNotification> requests = requests(50);
+        final int[] read = new int[1];
+        final Iterator<QueuedNotification> input = new Iterator<QueuedNotification>() {
+            private final Iterator<QueuedNotification> delegate = requests.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return delegate.hasNext();
+            }
+
+            @Override
+            public QueuedNotification next() {
+                read[0]++;
+                return delegate.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        final Iterator<NotificationBatchParser.Result> results = parser.withMaxInFlight(8)
+                .parse(input, NotificationBatchParser.Order.COMPLETION);
+        final BitSet seen = new BitSet();
+        while (results.hasNext()) {
+            final NotificationBatchParser.Result result = results.next();
+            Assert.assertNull(result.getError());
+            Assert.assertFalse(seen.get((int) result.getIndex()));
+            seen.set((int) result.getIndex());
+            Assert.assertTrue(read[0] - seen.cardinality() <= 8);
+        }
+        Assert.assertEquals(50, seen.cardinality());
+    }
+
+    /**
+     * Copies of a MessageId are reported as duplicates, also while the first copy is still in flight
+     */
+    @Test
+    public void testDuplicates() throws Exception {
+        final List<QueuedNotification> requests = requests(2);
+        for (int i = 0; i < 8; i++) {
+            requests.add(requests.get(i % 2));
+        }
+
+        final Iterator<NotificationBatchParser.Result> results = parser.withDeduplicator(new MessageDeduplicator())
+                .withMaxInFlight(10)
+                .parse(requests.iterator(), NotificationBatchParser.Order.INPUT);
+        int duplicates = 0;
+        while (results.hasNext()) {
+            final NotificationBatchParser.Result result = results.next();
+            Assert.assertNull(result.getError());
+            if (result.isDuplicate()) {
+                duplicates++;
+            }
+        }
+        Assert.assertEquals(8, duplicates);
+    }
+
+    /**
+     * A forged copy in flight does not suppress the genuine copy of its MessageId
+     */
+    @Test
+    public void testForgedCopyReleasesMessageId() throws Exception {
+        final List<QueuedNotification> requests = requests(1);
+        final QueuedNotification genuine = requests.get(0);
+        requests.add(0, new QueuedNotification("forged", genuine.getHeaders(), genuine.getBody().replace("P01-", "P02-")));
+
+        final Iterator<NotificationBatchParser.Result> results = parser.withDeduplicator(new MessageDeduplicator())
+                .withMaxInFlight(2)
+                .parse(requests.iterator(), NotificationBatchParser.Order.INPUT);
+        // Whichever copy claims the MessageId first, the forged one is never delivered and the genuine one always is
+        final NotificationBatchParser.Result forgedResult = results.next();
+        Assert.assertTrue(forgedResult.getError() != null || forgedResult.isDuplicate());
+        Assert.assertTrue(results.next().getNotification() instanceof AuthorizationNotification);
+    }
+
+    private List<QueuedNotification> requests(int count) throws Exception {
+        final Map<String,String> headers = new HashMap<String,String>();
+        headers.put("x-amz-sns-message-type", "Notification");
+        final List<QueuedNotification> requests = new ArrayList<QueuedNotification>(count);
+        for (int i = 0; i < count; i++) {
+            final String messageId = MESSAGE_ID.substring(0, MESSAGE_ID.length() - 4) + String.format("%04d", i);
+            final String body = signer.sign(payload.replace(MESSAGE_ID, messageId), NotificationSigner.TEST_KEY);
+            requests.add(new QueuedNotification(String.valueOf(i), headers, body));
+        }
+        return requests;
+    }
+
+}
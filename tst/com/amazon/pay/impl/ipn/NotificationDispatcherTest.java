@@ -0,0 +1,226 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.amazon.pay.response.ipn.model.AuthorizationNotification;
+import com.amazon.pay.response.ipn.model.CaptureNotification;
+import com.amazon.pay.response.ipn.model.ChargebackNotification;
+import com.amazon.pay.response.ipn.model.Notification;
+import com.amazon.pay.response.ipn.model.NotificationType;
+import com.amazon.pay.response.ipn.model.RefundNotification;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NotificationDispatcherTest {
+
+    private final NotificationDispatcher dispatcher = new NotificationDispatcher();
+
+    @After
+    public void tearDown() throws Exception {
+        dispatcher.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Notifications reach only the handlers of their type, already cast to their class
+     */
+    @Test
+    public void testRoutesByType() throws Exception {
+        final BlockingQueue<CaptureNotification> captures = new LinkedBlockingQueue<CaptureNotification>();
+        final BlockingQueue<Notification> authorizations = new LinkedBlockingQueue<Notification>();
+        dispatcher.addHandler(CaptureNotification.class, new NotificationHandler<CaptureNotification>() {
+            @Override
+            public void handle(CaptureNotification notification) {
+                captures.add(notification);
+            }
+        }).addHandler(NotificationType.AuthorizationNotification, new NotificationHandler<Notification>() {
+            @Override
+            public void handle(Notification notification) {
+                authorizations.add(notification);
+            }
+        });
+
+        dispatcher.onNotification(new CaptureNotification());
+        dispatcher.onNotification(new AuthorizationNotification());
+        dispatcher.onNotification(new RefundNotification());
+
+        Assert.assertNotNull(captures.poll(5, TimeUnit.SECONDS));
+        Assert.assertTrue(authorizations.poll(5, TimeUnit.SECONDS) instanceof AuthorizationNotification);
+        Assert.assertNull(captures.poll(50, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, dispatcher.getUnhandledCount());
+        Assert.assertTrue(dispatcher.shutdown(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, dispatcher.getMetrics(NotificationType.CaptureNotification).getCompletedCount());
+        Assert.assertEquals(0, dispatcher.getMetrics(NotificationType.RefundNotification).getDispatchedCount());
+    }
+
+    /**
+     * A backlog of one type does not delay handling of another
+     */
+    @Test
+    public void testTypesAreIsolated() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch chargebackHandled = new CountDownLatch(1);
+        dispatcher.withConcurrency(NotificationType.CaptureNotification, 1)
+                .addHandler(CaptureNotification.class, new NotificationHandler<CaptureNotification>() {
+                    @Override
+                    public void handle(CaptureNotification notification) {
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                })
+                .addHandler(ChargebackNotification.class, new NotificationHandler<ChargebackNotification>() {
+                    @Override
+                    public void handle(ChargebackNotification notification) {
+                        chargebackHandled.countDown();
+                    }
+                });
+
+        for (int i = 0; i < 5; i++) {
+            dispatcher.onNotification(new CaptureNotification());
+        }
+        dispatcher.onNotification(new ChargebackNotification());
+
+        Assert.assertTrue(chargebackHandled.await(5, TimeUnit.SECONDS));
+        final NotificationDispatcher.Metrics captureMetrics = dispatcher.getMetrics(NotificationType.CaptureNotification);
+        Assert.assertEquals(1, captureMetrics.getConcurrency());
+        Assert.assertEquals(5, captureMetrics.getDispatchedCount());
+        Assert.assertEquals(0, captureMetrics.getCompletedCount());
+        Assert.assertTrue(captureMetrics.getQueueDepth() >= 4);
+
+        release.countDown();
+        Assert.assertTrue(dispatcher.shutdown(5, TimeUnit.SECONDS));
+        Assert.assertEquals(5, dispatcher.getMetrics(NotificationType.CaptureNotification).getCompletedCount());
+        Assert.assertEquals(0, dispatcher.getMetrics(NotificationType.CaptureNotification).getQueueDepth());
+    }
+
+    /**
+     * A failing handler is counted, does not keep the notification from the other handlers
+     * and leaves the notification incomplete
+     */
+    @Test
+    public void testHandlerFailure() throws Exception {
+        final CountDownLatch handled = new CountDownLatch(1);
+        dispatcher.addHandler(RefundNotification.class, new NotificationHandler<RefundNotification>() {
+            @Override
+            public void handle(RefundNotification notification) {
+                throw new IllegalStateException("handler failure");
+            }
+        }).addHandler(RefundNotification.class, new NotificationHandler<Notification>() {
+            @Override
+            public void handle(Notification notification) {
+                handled.countDown();
+            }
+        });
+
+        final CountDownLatch done = new CountDownLatch(1);
+        dispatcher.onNotification(new RefundNotification(), new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+
+        Assert.assertTrue(handled.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(dispatcher.shutdown(5, TimeUnit.SECONDS));
+        // The notification is not done, so a journaled receiver keeps it
+        Assert.assertEquals(1, done.getCount());
+        final NotificationDispatcher.Metrics metrics = dispatcher.getMetrics(NotificationType.RefundNotification);
+        Assert.assertEquals(1, metrics.getFailedCount());
+        Assert.assertEquals(0, metrics.getCompletedCount());
+    }
+
+    /**
+     * The completion callback runs only after the handlers of the notification returned
+     */
+    @Test
+    public void testDoneAfterHandling() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+        dispatcher.addHandler(CaptureNotification.class, new NotificationHandler<CaptureNotification>() {
+            @Override
+            public void handle(CaptureNotification notification) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        final Runnable countDown = new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        };
+
+        dispatcher.onNotification(new CaptureNotification(), countDown);
+        // A notification without handlers is done right away
+        dispatcher.onNotification(new RefundNotification(), countDown);
+        Assert.assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, done.getCount());
+
+        release.countDown();
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Lowering the concurrency of a type also lowers how many of its notifications may be outstanding
+     */
+    @Test
+    public void testConcurrencyShrinksQueueBound() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        dispatcher.withQueueCapacity(NotificationType.CaptureNotification, 1)
+                .withConcurrency(NotificationType.CaptureNotification, 3)
+                .addHandler(CaptureNotification.class, new NotificationHandler<CaptureNotification>() {
+                    @Override
+                    public void handle(CaptureNotification notification) {
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+        dispatcher.onNotification(new CaptureNotification());
+        dispatcher.withConcurrency(NotificationType.CaptureNotification, 1);
+
+        // One running and one queued notification fill the lane, the third dispatch has to wait
+        dispatcher.onNotification(new CaptureNotification());
+        final Thread blocked = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dispatcher.onNotification(new CaptureNotification());
+            }
+        });
+        blocked.start();
+        blocked.join(200);
+        Assert.assertTrue(blocked.isAlive());
+        Assert.assertEquals(2, dispatcher.getMetrics(NotificationType.CaptureNotification).getDispatchedCount());
+
+        release.countDown();
+        blocked.join(5000);
+        Assert.assertFalse(blocked.isAlive());
+        Assert.assertTrue(dispatcher.shutdown(5, TimeUnit.SECONDS));
+        Assert.assertEquals(3, dispatcher.getMetrics(NotificationType.CaptureNotification).getCompletedCount());
+    }
+
+}
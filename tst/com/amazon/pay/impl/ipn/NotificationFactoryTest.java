@@ -124,6 +124,47 @@ public class NotificationFactoryTest {
     }
 
 
+    /**
+     * Malformed notification body
+     */
+    @Test
+    public void testMalformedJsonIPN() {
+        try {
+            NotificationFactory.parseNotification(ipnHeader, "{\"Type\" : \"Notification\", \"Message\" : ");
+            Assert.fail();
+        } catch (AmazonClientException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Encountered"));
+        }
+    }
+
+    /**
+     * Envelope fields are decoded as strings and nested values are skipped
+     */
+    @Test
+    public void testNotificationEnvelopeFields() {
+        final NotificationEnvelope envelope = NotificationEnvelope.parse("{\"Type\":\"Notification\",\"Extra\":{\"a\":[1,2]},"
+                + "\"Message\":\"{\\\"IsSample\\\":true,\\\"Count\\\":2,\\\"NotificationData\\\":\\\"<a\\\\/>\\\"}\"}");
+        Assert.assertEquals("Notification", envelope.getEnvelope().get("Type"));
+        Assert.assertFalse(envelope.getEnvelope().containsKey("Extra"));
+        Assert.assertEquals("true", envelope.getMessage().get("IsSample"));
+        Assert.assertEquals("2", envelope.getMessage().get("Count"));
+        Assert.assertEquals("<a/>", envelope.getMessage().get("NotificationData"));
+    }
+
+    /**
+     * NotificationType lookups ignore case and spaces
+     */
+    @Test
+    public void testNotificationTypeRegistry() throws Exception {
+        Assert.assertEquals(AuthorizationNotification.class, NotificationTypeRegistry.lookup("PaymentAuthorize"));
+        Assert.assertEquals(CaptureNotification.class, NotificationTypeRegistry.lookup("Payment Capture"));
+        Assert.assertEquals(ChargebackNotification.class, NotificationTypeRegistry.lookup("chargebackdetailednotification"));
+        Assert.assertNull(NotificationTypeRegistry.lookup("BlahBlah"));
+        Assert.assertNull(NotificationTypeRegistry.lookup(null));
+        Assert.assertEquals(9, NotificationTypeRegistry.getNotificationClasses().size());
+        NotificationFactory.warmUp();
+    }
+
     /**
      * Test Authorization Notification
      */
@@ -0,0 +1,261 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.amazon.pay.response.ipn.model.AuthorizationNotification;
+import com.amazon.pay.response.ipn.model.Notification;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NotificationOrderingBufferTest {
+
+    private static final String TIMESTAMP = "2014-01-01T01:01:01.001Z";
+    private static final String AUTHORIZATION_ID = "P01-0000000-0000000-000000<";
+
+    private String payload;
+
+    @Before
+    public void setUp() throws Exception {
+        payload = new NotificationFactoryTest().loadTestFile("AuthorizeNotification.json");
+    }
+
+    /**
+     * Notifications held together are delivered in LastUpdateTimestamp order, late stale ones are dropped
+     */
+    @Test
+    public void testReordersByLastUpdateTimestamp() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        final NotificationOrderingBuffer buffer = new NotificationOrderingBuffer(listener)
+                .withHoldTime(200, TimeUnit.MILLISECONDS);
+
+        buffer.onNotification(authorization("2014-01-01T01:01:02.000Z", AUTHORIZATION_ID));
+        buffer.onNotification(authorization("2014-01-01T01:01:01.000Z", AUTHORIZATION_ID));
+        buffer.onNotification(authorization("2014-01-01T01:01:03.000Z", AUTHORIZATION_ID));
+        Assert.assertEquals(3, buffer.getBufferedCount());
+
+        Assert.assertEquals(61, lastUpdateSeconds(listener.notifications.poll(5, TimeUnit.SECONDS)));
+        Assert.assertEquals(62, lastUpdateSeconds(listener.notifications.poll(5, TimeUnit.SECONDS)));
+        Assert.assertEquals(63, lastUpdateSeconds(listener.notifications.poll(5, TimeUnit.SECONDS)));
+
+        buffer.onNotification(authorization("2014-01-01T01:01:01.500Z", AUTHORIZATION_ID));
+        Assert.assertTrue(buffer.shutdown(5, TimeUnit.SECONDS));
+        Assert.assertNull(listener.notifications.poll(50, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(3, buffer.getDeliveredCount());
+        Assert.assertEquals(1, buffer.getSupersededCount());
+        Assert.assertEquals(0, buffer.getBufferedCount());
+        Assert.assertEquals(1, buffer.getPartitionCount());
+    }
+
+    /**
+     * With latestOnly only the newest held state is delivered
+     */
+    @Test
+    public void testLatestOnly() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        final NotificationOrderingBuffer buffer = new NotificationOrderingBuffer(listener)
+                .withHoldTime(200, TimeUnit.MILLISECONDS)
+                .withLatestOnly(true);
+
+        buffer.onNotification(authorization("2014-01-01T01:01:03.000Z", AUTHORIZATION_ID));
+        buffer.onNotification(authorization("2014-01-01T01:01:01.000Z", AUTHORIZATION_ID));
+        buffer.onNotification(authorization("2014-01-01T01:01:02.000Z", AUTHORIZATION_ID));
+
+        Assert.assertEquals(63, lastUpdateSeconds(listener.notifications.poll(5, TimeUnit.SECONDS)));
+        Assert.assertTrue(buffer.shutdown(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, buffer.getDeliveredCount());
+        Assert.assertEquals(2, buffer.getSupersededCount());
+    }
+
+    /**
+     * A partition blocked in the delegate does not hold up the others
+     */
+    @Test
+    public void testPartitionsDeliveredInParallel() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingListener listener = new RecordingListener() {
+            @Override
+            public void onNotification(Notification notification) {
+                if (NotificationOrderingBuffer.getObjectKey(notification).endsWith("000000")) {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.onNotification(notification);
+            }
+        };
+        final NotificationOrderingBuffer buffer = new NotificationOrderingBuffer(listener)
+                .withHoldTime(50, TimeUnit.MILLISECONDS)
+                .withThreads(2);
+
+        buffer.onNotification(authorization(TIMESTAMP, AUTHORIZATION_ID));
+        buffer.onNotification(authorization(TIMESTAMP, "P01-0000000-0000000-000001<"));
+
+        final Notification first = listener.notifications.poll(5, TimeUnit.SECONDS);
+        Assert.assertEquals("Authorization:P01-0000000-0000000-000001", NotificationOrderingBuffer.getObjectKey(first));
+        release.countDown();
+        Assert.assertNotNull(listener.notifications.poll(5, TimeUnit.SECONDS));
+        Assert.assertTrue(buffer.shutdown(5, TimeUnit.SECONDS));
+        Assert.assertEquals(2, buffer.getPartitionCount());
+    }
+
+    /**
+     * The completion callback runs only once a held notification was delivered or superseded,
+     * and is passed on to an asynchronous delegate
+     */
+    @Test
+    public void testDoneAfterDelivery() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        final NotificationOrderingBuffer buffer = new NotificationOrderingBuffer(listener)
+                .withHoldTime(200, TimeUnit.MILLISECONDS);
+        final CountDownLatch delivered = new CountDownLatch(1);
+        final CountDownLatch superseded = new CountDownLatch(1);
+
+        buffer.onNotification(authorization("2014-01-01T01:01:02.000Z", AUTHORIZATION_ID), countDown(delivered));
+        Assert.assertEquals(1, delivered.getCount());
+        Assert.assertNotNull(listener.notifications.poll(5, TimeUnit.SECONDS));
+        Assert.assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        buffer.onNotification(authorization("2014-01-01T01:01:01.000Z", AUTHORIZATION_ID), countDown(superseded));
+        Assert.assertEquals(0, superseded.getCount());
+        Assert.assertTrue(buffer.shutdown(5, TimeUnit.SECONDS));
+
+        final BlockingQueue<Runnable> passedOn = new LinkedBlockingQueue<Runnable>();
+        final NotificationOrderingBuffer asyncBuffer = new NotificationOrderingBuffer(new AsyncNotificationListener() {
+            @Override
+            public void onNotification(Notification notification, Runnable done) {
+                passedOn.add(done);
+            }
+
+            @Override
+            public void onNotification(Notification notification) {
+                Assert.fail();
+            }
+
+            @Override
+            public void onError(QueuedNotification queued, Exception e) {
+            }
+        }).withHoldTime(50, TimeUnit.MILLISECONDS);
+        final Runnable done = countDown(new CountDownLatch(1));
+        asyncBuffer.onNotification(authorization(TIMESTAMP, AUTHORIZATION_ID), done);
+        Assert.assertSame(done, passedOn.poll(5, TimeUnit.SECONDS));
+        Assert.assertTrue(asyncBuffer.shutdown(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * A different notification with the same LastUpdateTimestamp as the last delivered one is not older, so it is delivered
+     */
+    @Test
+    public void testSameTimestampDelivered() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        final NotificationOrderingBuffer buffer = new NotificationOrderingBuffer(listener)
+                .withHoldTime(10, TimeUnit.MILLISECONDS);
+
+        buffer.onNotification(authorization(TIMESTAMP, AUTHORIZATION_ID));
+        Assert.assertNotNull(listener.notifications.poll(5, TimeUnit.SECONDS));
+        buffer.onNotification(authorization(TIMESTAMP, AUTHORIZATION_ID));
+        Assert.assertNotNull(listener.notifications.poll(5, TimeUnit.SECONDS));
+        Assert.assertTrue(buffer.shutdown(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, buffer.getSupersededCount());
+    }
+
+    /**
+     * Idle partitions beyond maxPartitions are forgotten, partitions holding notifications are kept
+     */
+    @Test
+    public void testMaxPartitions() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        final NotificationOrderingBuffer buffer = new NotificationOrderingBuffer(listener, 2)
+                .withHoldTime(200, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < 4; i++) {
+            buffer.onNotification(authorization(TIMESTAMP, "P01-0000000-0000000-00000" + i + "<"));
+        }
+        Assert.assertEquals(4, buffer.getPartitionCount());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertNotNull(listener.notifications.poll(5, TimeUnit.SECONDS));
+        }
+        // Wait for the drains to finish so that the partitions are idle
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (buffer.getDeliveredCount() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        buffer.onNotification(authorization(TIMESTAMP, "P01-0000000-0000000-000004<"));
+        Assert.assertEquals(2, buffer.getPartitionCount());
+        Assert.assertTrue(buffer.shutdown(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * A notification the delegate throws on is not done, so a journaled receiver keeps it
+     */
+    @Test
+    public void testDelegateFailureNotDone() throws Exception {
+        final CountDownLatch failed = new CountDownLatch(1);
+        final NotificationOrderingBuffer buffer = new NotificationOrderingBuffer(new RecordingListener() {
+            @Override
+            public void onNotification(Notification notification) {
+                failed.countDown();
+                throw new IllegalStateException("listener failure");
+            }
+        }).withHoldTime(10, TimeUnit.MILLISECONDS);
+        final CountDownLatch done = new CountDownLatch(1);
+
+        buffer.onNotification(authorization(TIMESTAMP, AUTHORIZATION_ID), countDown(done));
+        Assert.assertTrue(failed.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(buffer.shutdown(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, done.getCount());
+    }
+
+    private static Runnable countDown(final CountDownLatch latch) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+    }
+
+    private Notification authorization(String timestamp, String authorizationId) {
+        return NotificationFactory.getNotification(payload.replace(TIMESTAMP, timestamp).replace(AUTHORIZATION_ID, authorizationId));
+    }
+
+    private static long lastUpdateSeconds(Notification notification) {
+        final AuthorizationNotification authorization = (AuthorizationNotification) notification;
+        final long millis = authorization.getAuthorizationDetails().getAuthorizationStatus()
+                .getLastUpdateTimestamp().toGregorianCalendar().getTimeInMillis();
+        // Seconds since 2014-01-01T01:00:00Z
+        return millis / 1000 - 1388538000L;
+    }
+
+    private static class RecordingListener implements NotificationListener {
+        private final BlockingQueue<Notification> notifications = new LinkedBlockingQueue<Notification>();
+
+        @Override
+        public void onNotification(Notification notification) {
+            notifications.add(notification);
+        }
+
+        @Override
+        public void onError(QueuedNotification queued, Exception e) {
+        }
+    }
+
+}
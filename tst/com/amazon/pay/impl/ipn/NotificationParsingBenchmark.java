@@ -0,0 +1,79 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding of the IPN fixtures in tst/com/amazon/pay/impl/ipn/json,
+ * from the raw SNS body to the bound Notification, without signature verification.
+ *
+ * Run from the project root with the test classpath:
+ *   java com.amazon.pay.impl.ipn.NotificationParsingBenchmark [iterations]
+ */
+public class NotificationParsingBenchmark {
+
+    private static final int WARM_UP_ITERATIONS = 2000;
+
+    public static void main(String[] args) throws Exception {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        final List<String> names = new ArrayList<String>();
+        final List<String> payloads = new ArrayList<String>();
+        final NotificationFactoryTest loader = new NotificationFactoryTest();
+        final String[] files = new File(System.getProperty("user.dir") + "/tst/com/amazon/pay/impl/ipn/json").list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".json") && !name.startsWith("Bad");
+            }
+        });
+        Arrays.sort(files);
+        for (String file : files) {
+            names.add(file);
+            payloads.add(loader.loadTestFile(file));
+        }
+
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            for (String payload : payloads) {
+                NotificationFactory.getNotification(payload);
+            }
+        }
+
+        System.out.println(String.format("%-45s %12s %12s", "Fixture", "ops/s", "us/op"));
+        long totalNanos = 0;
+        for (int f = 0; f < payloads.size(); f++) {
+            final String payload = payloads.get(f);
+            final long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                NotificationFactory.getNotification(payload);
+            }
+            final long elapsed = System.nanoTime() - start;
+            totalNanos += elapsed;
+            print(names.get(f), iterations, elapsed);
+        }
+        print("All fixtures", iterations * payloads.size(), totalNanos);
+    }
+
+    private static void print(String name, long operations, long nanos) {
+        final double opsPerSecond = operations * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+        final double microsPerOp = nanos / (double) TimeUnit.MICROSECONDS.toNanos(1) / operations;
+        System.out.println(String.format("%-45s %12.0f %12.2f", name, opsPerSecond, microsPerOp));
+    }
+
+}
@@ -0,0 +1,423 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.amazon.pay.exceptions.AmazonClientException;
+import com.amazon.pay.response.ipn.model.AuthorizationNotification;
+import com.amazon.pay.response.ipn.model.Notification;
+import com.amazon.pay.response.ipn.model.NotificationType;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NotificationReceiverTest {
+
+    private NotificationSigner signer;
+    private String body;
+    private NotificationReceiver receiver;
+    private File journalDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        signer = new NotificationSigner();
+        SigningCertificateCache.getDefault().pin(signer.getKeyStore());
+        body = signer.sign(new NotificationFactoryTest().loadTestFile("AuthorizeNotification.json"), NotificationSigner.TEST_KEY);
+        journalDirectory = new File(System.getProperty("java.io.tmpdir"), "ipn-journal-" + System.nanoTime());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (receiver != null) {
+            receiver.stop(5, TimeUnit.SECONDS);
+        }
+        SigningCertificateCache.getDefault().clear();
+        final File[] files = journalDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        journalDirectory.delete();
+    }
+
+    /**
+     * Posted notifications are acknowledged, verified and delivered to listeners
+     */
+    @Test
+    public void testNotificationDelivered() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        receiver = new NotificationReceiver(new InetSocketAddress("127.0.0.1", 0))
+                .withPath("/ipn")
+                .withJournal(new FileNotificationJournal(journalDirectory))
+                .withDeduplicator(new MessageDeduplicator());
+        receiver.addListener(listener);
+        receiver.start();
+
+        Assert.assertEquals(200, post("/ipn", body));
+        final Notification notification = listener.notifications.poll(5, TimeUnit.SECONDS);
+        Assert.assertTrue(notification instanceof AuthorizationNotification);
+
+        // A redelivery is acknowledged but not delivered again, a forged copy is reported to onError
+        Assert.assertEquals(200, post("/ipn", body));
+        Assert.assertEquals(200, post("/ipn", body.replace("2288e071-de8e-5b6b-9f03-aeb15ba02de2", "2288e071-de8e-5b6b-9f03-aeb15ba02de3")));
+        Assert.assertNotNull(listener.errors.poll(5, TimeUnit.SECONDS));
+        Assert.assertNull(listener.notifications.poll(100, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, receiver.getProcessedCount());
+        Assert.assertEquals(1, receiver.getDuplicateCount());
+        Assert.assertEquals(1, receiver.getFailedCount());
+        Assert.assertEquals(3, receiver.getReceivedCount());
+        Assert.assertEquals(0, journalDirectory.list().length);
+    }
+
+    /**
+     * A listener that throws does not keep the notification from the others, and the notification
+     * stays in the journal to be delivered again on the next start
+     */
+    @Test
+    public void testListenerFailureKeptInJournal() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        receiver = new NotificationReceiver(new InetSocketAddress("127.0.0.1", 0))
+                .withJournal(new FileNotificationJournal(journalDirectory));
+        receiver.addListener(new RecordingListener() {
+            @Override
+            public void onNotification(Notification notification) {
+                throw new IllegalStateException("listener failure");
+            }
+        });
+        receiver.addListener(listener);
+        receiver.start();
+
+        Assert.assertEquals(200, post("/", body));
+        Assert.assertNotNull(listener.notifications.poll(5, TimeUnit.SECONDS));
+        receiver.stop(5, TimeUnit.SECONDS);
+        Assert.assertEquals(0, receiver.getProcessedCount());
+        Assert.assertEquals(1, journalDirectory.list().length);
+    }
+
+    /**
+     * A notification handed to a dispatcher stays in the journal until its handlers have run
+     */
+    @Test
+    public void testJournalKeptUntilDispatched() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final NotificationDispatcher dispatcher = new NotificationDispatcher()
+                .addHandler(AuthorizationNotification.class, new NotificationHandler<AuthorizationNotification>() {
+                    @Override
+                    public void handle(AuthorizationNotification notification) {
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+        receiver = new NotificationReceiver(new InetSocketAddress("127.0.0.1", 0))
+                .withJournal(new FileNotificationJournal(journalDirectory));
+        receiver.addListener(dispatcher);
+        receiver.start();
+
+        Assert.assertEquals(200, post("/", body));
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (dispatcher.getMetrics(NotificationType.AuthorizationNotification).getActiveCount() == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, journalDirectory.list().length);
+        Assert.assertEquals(0, receiver.getProcessedCount());
+
+        release.countDown();
+        Assert.assertTrue(dispatcher.shutdown(5, TimeUnit.SECONDS));
+        // The worker may still be returning from the dispatcher, it completes the delivery last then
+        receiver.stop(5, TimeUnit.SECONDS);
+        Assert.assertEquals(1, receiver.getProcessedCount());
+        Assert.assertEquals(0, journalDirectory.list().length);
+    }
+
+    /**
+     * A notification whose dispatched handler throws stays in the journal
+     */
+    @Test
+    public void testFailedHandlerKeptInJournal() throws Exception {
+        final NotificationDispatcher dispatcher = new NotificationDispatcher()
+                .addHandler(AuthorizationNotification.class, new NotificationHandler<AuthorizationNotification>() {
+                    @Override
+                    public void handle(AuthorizationNotification notification) {
+                        throw new IllegalStateException("handler failure");
+                    }
+                });
+        receiver = new NotificationReceiver(new InetSocketAddress("127.0.0.1", 0))
+                .withJournal(new FileNotificationJournal(journalDirectory));
+        receiver.addListener(dispatcher);
+        receiver.start();
+
+        Assert.assertEquals(200, post("/", body));
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (dispatcher.getMetrics(NotificationType.AuthorizationNotification).getFailedCount() == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(dispatcher.shutdown(5, TimeUnit.SECONDS));
+        receiver.stop(5, TimeUnit.SECONDS);
+        Assert.assertEquals(1, dispatcher.getMetrics(NotificationType.AuthorizationNotification).getFailedCount());
+        Assert.assertEquals(0, receiver.getProcessedCount());
+        Assert.assertEquals(1, journalDirectory.list().length);
+    }
+
+    /**
+     * Requests beyond the queue capacity are answered with 503 so that SNS retries them
+     */
+    @Test
+    public void testBackpressure() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingListener listener = new RecordingListener() {
+            @Override
+            public void onNotification(Notification notification) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onNotification(notification);
+            }
+        };
+        receiver = new NotificationReceiver(new InetSocketAddress("127.0.0.1", 0))
+                .withWorkerThreads(1)
+                .withQueueCapacity(1);
+        receiver.addListener(listener);
+        receiver.start();
+
+        Assert.assertEquals(200, post("/", body));
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (receiver.getQueueDepth() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(200, post("/", body));
+        Assert.assertEquals(503, post("/", body));
+        Assert.assertEquals(1, receiver.getRejectedCount());
+
+        release.countDown();
+        Assert.assertNotNull(listener.notifications.poll(5, TimeUnit.SECONDS));
+        Assert.assertNotNull(listener.notifications.poll(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Notifications left in the journal are processed on start
+     */
+    @Test
+    public void testJournalRecovery() throws Exception {
+        final FileNotificationJournal journal = new FileNotificationJournal(journalDirectory);
+        final Map<String,String> headers = new HashMap<String,String>();
+        headers.put("x-amz-sns-message-type", "Notification");
+        journal.append(new QueuedNotification("0000000000001-0000000001", headers, body));
+        final List<QueuedNotification> pending = journal.recover();
+        Assert.assertEquals(1, pending.size());
+        Assert.assertEquals(body, pending.get(0).getBody());
+
+        final RecordingListener listener = new RecordingListener();
+        receiver = new NotificationReceiver(new InetSocketAddress("127.0.0.1", 0)).withJournal(journal);
+        receiver.addListener(listener);
+        receiver.start();
+
+        Assert.assertNotNull(listener.notifications.poll(5, TimeUnit.SECONDS));
+        receiver.stop(5, TimeUnit.SECONDS);
+        Assert.assertEquals(0, journal.recover().size());
+    }
+
+    /**
+     * A transient failure keeps the notification in the journal and is retried until it succeeds
+     */
+    @Test
+    public void testTransientFailureRetried() throws Exception {
+        final UnreachableCertificateCache certificateCache = new UnreachableCertificateCache();
+        final RecordingListener listener = new RecordingListener();
+        receiver = new NotificationReceiver(new InetSocketAddress("127.0.0.1", 0))
+                .withJournal(new FileNotificationJournal(journalDirectory))
+                .withCertificateCache(certificateCache)
+                .withRetryDelay(50, TimeUnit.MILLISECONDS)
+                .withMaxAttempts(100);
+        receiver.addListener(listener);
+        receiver.start();
+
+        Assert.assertEquals(200, post("/", body));
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (receiver.getRetryCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(receiver.getRetryCount() > 0);
+        Assert.assertEquals(1, journalDirectory.list().length);
+
+        certificateCache.reachable = true;
+        Assert.assertNotNull(listener.notifications.poll(5, TimeUnit.SECONDS));
+        Assert.assertNull(listener.errors.poll());
+        Assert.assertEquals(0, receiver.getFailedCount());
+        receiver.stop(5, TimeUnit.SECONDS);
+        Assert.assertEquals(0, journalDirectory.list().length);
+    }
+
+    /**
+     * A transient failure that outlasts maxAttempts is reported and left in the journal for the next start
+     */
+    @Test
+    public void testTransientFailureKeptInJournal() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        receiver = new NotificationReceiver(new InetSocketAddress("127.0.0.1", 0))
+                .withJournal(new FileNotificationJournal(journalDirectory))
+                .withCertificateCache(new UnreachableCertificateCache())
+                .withRetryDelay(10, TimeUnit.MILLISECONDS)
+                .withMaxAttempts(2);
+        receiver.addListener(listener);
+        receiver.start();
+
+        Assert.assertEquals(200, post("/", body));
+        Assert.assertTrue(NotificationReceiver.isTransient(listener.errors.poll(10, TimeUnit.SECONDS)));
+        Assert.assertEquals(1, receiver.getRetryCount());
+        Assert.assertEquals(1, receiver.getFailedCount());
+        receiver.stop(5, TimeUnit.SECONDS);
+        Assert.assertEquals(1, journalDirectory.list().length);
+    }
+
+    /**
+     * Malformed bodies and bad SigningCertURLs fail the same way on every attempt, so they are not retried
+     * and do not stay in the journal
+     */
+    @Test
+    public void testPermanentFailuresRemoved() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        receiver = new NotificationReceiver(new InetSocketAddress("127.0.0.1", 0))
+                .withJournal(new FileNotificationJournal(journalDirectory))
+                .withRetryDelay(10, TimeUnit.MILLISECONDS);
+        receiver.addListener(listener);
+        receiver.start();
+
+        final String certUrl = "https://sns.us-east-1.amazonaws.com/" + NotificationSigner.TEST_KEY;
+        Assert.assertTrue(body.contains(certUrl));
+        Assert.assertEquals(200, post("/", "not json at all"));
+        Assert.assertEquals(200, post("/", body.replace(certUrl, "not a url")));
+        Assert.assertEquals(200, post("/", body.replace("\"SigningCertURL\"", "\"Unused\"")));
+        for (int i = 0; i < 3; i++) {
+            Assert.assertFalse(NotificationReceiver.isTransient(listener.errors.poll(5, TimeUnit.SECONDS)));
+        }
+        receiver.stop(5, TimeUnit.SECONDS);
+        Assert.assertEquals(0, receiver.getRetryCount());
+        Assert.assertEquals(3, receiver.getFailedCount());
+        Assert.assertEquals(0, journalDirectory.list().length);
+    }
+
+    /**
+     * Only network failures while fetching the signing certificate are transient
+     */
+    @Test
+    public void testTransientClassification() {
+        Assert.assertTrue(NotificationReceiver.isTransient(new SecurityException(new SocketTimeoutException())));
+        Assert.assertTrue(NotificationReceiver.isTransient(new SecurityException(new UnknownHostException())));
+        Assert.assertFalse(NotificationReceiver.isTransient(new SecurityException(new FileNotFoundException())));
+        Assert.assertFalse(NotificationReceiver.isTransient(new SecurityException(new MalformedURLException())));
+        Assert.assertFalse(NotificationReceiver.isTransient(new SecurityException("Message signature calculation failed")));
+        Assert.assertFalse(NotificationReceiver.isTransient(new AmazonClientException("Encountered IOException while parsing notification: ",
+                new MalformedJsonException("Use JsonReader.setLenient(true) to accept malformed JSON"))));
+        Assert.assertFalse(NotificationReceiver.isTransient(new AmazonClientException("Encountered IOException while parsing notification: ",
+                new EOFException("End of input"))));
+    }
+
+    /**
+     * Only POST requests within the size limit are accepted
+     */
+    @Test
+    public void testInvalidRequests() throws Exception {
+        receiver = new NotificationReceiver(new InetSocketAddress("127.0.0.1", 0)).withMaxBodySize(1024);
+        receiver.start();
+
+        final HttpURLConnection get = (HttpURLConnection) url("/").openConnection();
+        Assert.assertEquals(405, get.getResponseCode());
+        Assert.assertEquals(413, post("/", body));
+        Assert.assertEquals(0, receiver.getReceivedCount());
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http://127.0.0.1:" + receiver.getAddress().getPort() + path);
+    }
+
+    private int post(String path, String content) throws IOException {
+        final HttpURLConnection con = (HttpURLConnection) url(path).openConnection();
+        con.setRequestMethod("POST");
+        con.setDoOutput(true);
+        con.setRequestProperty("x-amz-sns-message-type", "Notification");
+        con.setRequestProperty("Content-Type", "text/plain; charset=UTF-8");
+        final OutputStream out = con.getOutputStream();
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return con.getResponseCode();
+    }
+
+    /**
+     * Pinned certificate cache that fails like an unreachable network until made reachable
+     */
+    private class UnreachableCertificateCache extends SigningCertificateCache {
+        private volatile boolean reachable;
+
+        private UnreachableCertificateCache() throws Exception {
+            pin(signer.getKeyStore());
+        }
+
+        @Override
+        X509Certificate get(String signingCertUrl, CertificateLoader loader) throws IOException, CertificateException {
+            if (!reachable) {
+                throw new SocketTimeoutException("connect timed out");
+            }
+            return super.get(signingCertUrl, loader);
+        }
+    }
+
+    private static class RecordingListener implements NotificationListener {
+        private final BlockingQueue<Notification> notifications = new LinkedBlockingQueue<Notification>();
+        private final BlockingQueue<Exception> errors = new LinkedBlockingQueue<Exception>();
+
+        @Override
+        public void onNotification(Notification notification) {
+            notifications.add(notification);
+        }
+
+        @Override
+        public void onError(QueuedNotification queued, Exception e) {
+            errors.add(e);
+        }
+    }
+
+}
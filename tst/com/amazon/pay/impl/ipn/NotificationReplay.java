@@ -0,0 +1,346 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays archived IPN payloads at a fixed rate and reports throughput,
+ * latency percentiles and allocation rate, for sizing IPN receiver nodes.
+ *
+ * Every *.json file of the directory is read as an SNS HTTP body, re-signed
+ * with the test keys and verified against the test certificates pinned in
+ * the default SigningCertificateCache, which stands in for the Amazon SNS
+ * certificate endpoint.  Files that do not parse are skipped.
+ *
+ * The target is one of
+ *   factory   NotificationFactory.parseNotification on the replay threads
+ *   receiver  an embedded NotificationReceiver on a local port; latency is
+ *             the time until the request was acknowledged, the run ends once
+ *             every notification has been verified and parsed
+ *   http://.. an external receiver, which must trust the test certificates;
+ *             latency is the time until the request was acknowledged
+ *
+ * Requests are sent on a fixed schedule and latency is measured from the
+ * scheduled send time, so a slow target is not hidden by a slower send rate.
+ * A rate of 0 sends as fast as the threads allow.
+ *
+ * Run from the project root with the test classpath:
+ *   java com.amazon.pay.impl.ipn.NotificationReplay [directory] [count] [ratePerSecond] [threads] [target]
+ */
+public class NotificationReplay {
+
+    private static final Map<String,String> HEADERS = Collections.singletonMap("x-amz-sns-message-type", "Notification");
+    private static final String DEFAULT_DIRECTORY = System.getProperty("user.dir") + "/tst/com/amazon/pay/impl/ipn/json";
+
+    public static void main(String[] args) throws Exception {
+        final File directory = new File(args.length > 0 ? args[0] : DEFAULT_DIRECTORY);
+        final int count = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        final double rate = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        final int threads = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        final String target = args.length > 4 ? args[4] : "factory";
+
+        final NotificationSigner signer = new NotificationSigner();
+        SigningCertificateCache.getDefault().pin(signer.getKeyStore());
+        final List<String> bodies = load(directory, signer);
+        if (bodies.isEmpty()) {
+            throw new IllegalArgumentException("No IPN payloads found in " + directory);
+        }
+
+        final Target sender;
+        NotificationReceiver receiver = null;
+        if ("factory".equals(target)) {
+            sender = new FactoryTarget();
+        } else if ("receiver".equals(target)) {
+            receiver = new NotificationReceiver(new InetSocketAddress("127.0.0.1", 0))
+                    .withQueueCapacity(Math.max(NotificationReceiver.DEFAULT_QUEUE_CAPACITY, threads * 4));
+            receiver.start();
+            final ReceiverTarget receiverTarget = new ReceiverTarget(receiver);
+            receiverTarget.url = new URL("http://127.0.0.1:" + receiver.getAddress().getPort() + "/");
+            sender = receiverTarget;
+        } else {
+            sender = new HttpTarget(new URL(target));
+        }
+
+        try {
+            System.out.println(String.format("Replaying %d payloads from %s to %s, %d threads, %s",
+                    bodies.size(), directory, target, threads, rate > 0 ? rate + " requests/s" : "unthrottled"));
+            run(sender, bodies, Math.max(1, count / 10), rate, threads);
+            final Report report = run(sender, bodies, count, rate, threads);
+            System.out.println(report);
+        } finally {
+            if (receiver != null) {
+                receiver.stop(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private static List<String> load(File directory, NotificationSigner signer) throws Exception {
+        final File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".json");
+            }
+        });
+        if (files == null) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        Arrays.sort(files);
+        final List<String> bodies = new ArrayList<String>(files.length);
+        for (File file : files) {
+            try {
+                final String body = signer.sign(read(file), NotificationSigner.TEST_KEY);
+                NotificationFactory.parseNotification(HEADERS, body);
+                bodies.add(body);
+            } catch (Exception e) {
+                System.out.println("Skipping " + file.getName() + ": " + e.getMessage());
+            }
+        }
+        return bodies;
+    }
+
+    private static String read(File file) throws IOException {
+        final InputStream in = new FileInputStream(file);
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+
+    private static Report run(final Target sender, final List<String> bodies, final int count, double rate,
+            final int threads) throws Exception {
+        final long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+        final long[] latencies = new long[count];
+        final AtomicLong next = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(threads);
+        final CountDownLatch measured = new CountDownLatch(1);
+        final long allocatedBefore = allocatedBytes();
+        final long begin = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+
+        for (int t = 0; t < threads; t++) {
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        int i;
+                        while ((i = (int) next.getAndIncrement()) < count) {
+                            final long scheduled = begin + i * interval;
+                            long wait;
+                            while ((wait = scheduled - System.nanoTime()) > 0) {
+                                TimeUnit.NANOSECONDS.sleep(wait);
+                            }
+                            final long start = interval > 0 ? scheduled : System.nanoTime();
+                            try {
+                                latencies[i] = sender.send(bodies.get(i % bodies.size())) - start;
+                            } catch (Exception e) {
+                                if (errors.incrementAndGet() == 1) {
+                                    System.out.println("First error: " + e);
+                                }
+                                latencies[i] = System.nanoTime() - start;
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                    try {
+                        // Stay alive until the allocation of this thread has been counted
+                        measured.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, "ipn-replay-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        sender.awaitHandled();
+        final long elapsed = System.nanoTime() - begin;
+        final long allocated = allocatedBytes() - allocatedBefore;
+        measured.countDown();
+        return new Report(count, errors.get(), elapsed, latencies, allocatedBefore < 0 ? -1 : allocated);
+    }
+
+    /**
+     * Returns the bytes allocated so far by all live threads, or -1 if the JVM cannot tell
+     */
+    private static long allocatedBytes() {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        final com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+        if (!hotspot.isThreadAllocatedMemorySupported() || !hotspot.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long total = 0;
+        for (long bytes : hotspot.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Something notifications are replayed against
+     */
+    private abstract static class Target {
+        /**
+         * Sends one notification and returns System.nanoTime() when it was handled or acknowledged
+         */
+        abstract long send(String body) throws Exception;
+
+        /**
+         * Waits until the notifications acknowledged so far have been handled
+         */
+        void awaitHandled() throws InterruptedException {
+        }
+    }
+
+    private static final class FactoryTarget extends Target {
+        @Override
+        long send(String body) {
+            NotificationFactory.parseNotification(HEADERS, body);
+            return System.nanoTime();
+        }
+    }
+
+    private static class HttpTarget extends Target {
+        protected URL url;
+
+        private HttpTarget(URL url) {
+            this.url = url;
+        }
+
+        @Override
+        long send(String body) throws Exception {
+            final HttpURLConnection con = (HttpURLConnection) url.openConnection();
+            con.setRequestMethod("POST");
+            con.setDoOutput(true);
+            con.setRequestProperty("x-amz-sns-message-type", "Notification");
+            con.setRequestProperty("Content-Type", "text/plain; charset=UTF-8");
+            final OutputStream out = con.getOutputStream();
+            try {
+                out.write(body.getBytes("UTF-8"));
+            } finally {
+                out.close();
+            }
+            final int status = con.getResponseCode();
+            final long acknowledged = System.nanoTime();
+            con.getInputStream().close();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Receiver answered " + status);
+            }
+            return acknowledged;
+        }
+    }
+
+    /**
+     * Posts to the embedded receiver; the run ends once its workers have handled every notification sent
+     */
+    private static final class ReceiverTarget extends HttpTarget {
+        private final NotificationReceiver receiver;
+        private final AtomicLong sent = new AtomicLong();
+
+        private ReceiverTarget(NotificationReceiver receiver) {
+            super(null);
+            this.receiver = receiver;
+        }
+
+        @Override
+        long send(String body) throws Exception {
+            final long acknowledged = super.send(body);
+            sent.incrementAndGet();
+            return acknowledged;
+        }
+
+        @Override
+        void awaitHandled() throws InterruptedException {
+            while (receiver.getProcessedCount() + receiver.getFailedCount() + receiver.getDuplicateCount() < sent.get()) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    private static final class Report {
+        private final int count;
+        private final long errors;
+        private final long elapsed;
+        private final long[] latencies;
+        private final long allocated;
+
+        private Report(int count, long errors, long elapsed, long[] latencies, long allocated) {
+            this.count = count;
+            this.errors = errors;
+            this.elapsed = elapsed;
+            this.latencies = latencies.clone();
+            this.allocated = allocated;
+            Arrays.sort(this.latencies);
+        }
+
+        private double percentile(double p) {
+            final int index = Math.min(latencies.length - 1, (int) Math.ceil(p / 100 * latencies.length) - 1);
+            return latencies[Math.max(0, index)] / (double) TimeUnit.MICROSECONDS.toNanos(1);
+        }
+
+        @Override
+        public String toString() {
+            final double seconds = elapsed / (double) TimeUnit.SECONDS.toNanos(1);
+            final StringBuilder report = new StringBuilder();
+            report.append(String.format("%d notifications, %d errors in %.2f s: %.0f notifications/s%n",
+                    count, errors, seconds, count / seconds));
+            report.append(String.format("latency us: p50=%.0f p90=%.0f p99=%.0f p99.9=%.0f max=%.0f%n",
+                    percentile(50), percentile(90), percentile(99), percentile(99.9), percentile(100)));
+            if (allocated >= 0) {
+                report.append(String.format("allocation: %.1f MB/s, %.1f KB/notification",
+                        allocated / seconds / (1024 * 1024), allocated / (double) count / 1024));
+            } else {
+                report.append("allocation: not supported by this JVM");
+            }
+            return report.toString();
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * Re-signs IPN fixtures with the test keys in tst/com/amazon/pay/impl/ipn/certs/signing.jks
+ * so that they pass signature verification against the pinned test certificates.
+ */
+public class NotificationSigner {
+
+    public static final String TEST_KEY = "SimpleNotificationService-test.pem";
+    public static final String OTHER_KEY = "SimpleNotificationService-other.pem";
+
+    private static final String KEY_STORE = System.getProperty("user.dir") + "/tst/com/amazon/pay/impl/ipn/certs/signing.jks";
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    private final KeyStore keyStore;
+    private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+
+    public NotificationSigner() throws Exception {
+        keyStore = KeyStore.getInstance("JKS");
+        final InputStream in = new FileInputStream(KEY_STORE);
+        try {
+            keyStore.load(in, PASSWORD);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns the key store holding the signing certificates, for pinning in a SigningCertificateCache
+     */
+    public KeyStore getKeyStore() {
+        return keyStore;
+    }
+
+    /**
+     * Points SigningCertURL of the notification at the given test key and replaces its Signature
+     */
+    public String sign(String body, String key) throws Exception {
+        final Map<String,String> fields = gson.fromJson(body, new TypeToken<LinkedHashMap<String,String>>() { }.getType());
+        fields.put("SigningCertURL", "https://sns.us-east-1.amazonaws.com/" + key);
+
+        final Signature signature = Signature.getInstance("SHA1withRSA");
+        signature.initSign((PrivateKey) keyStore.getKey(key.toLowerCase(), PASSWORD));
+        signature.update(("Message\n" + fields.get("Message") + "\n"
+                + "MessageId\n" + fields.get("MessageId") + "\n"
+                + "Timestamp\n" + fields.get("Timestamp") + "\n"
+                + "TopicArn\n" + fields.get("TopicArn") + "\n"
+                + "Type\n" + fields.get("Type") + "\n").getBytes("UTF-8"));
+        fields.put("Signature", DatatypeConverter.printBase64Binary(signature.sign()));
+        return gson.toJson(fields);
+    }
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.amazon.pay.response.ipn.model.Notification;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures signature verification throughput for the IPN fixtures, re-signed
+ * with the test keys and verified against pinned certificates.
+ *
+ * Run from the project root with the test classpath:
+ *   java com.amazon.pay.impl.ipn.NotificationVerificationBenchmark [iterations] [threads]
+ */
+public class NotificationVerificationBenchmark {
+
+    private static final String[] FIXTURES = {
+        "AuthorizeNotification.json",
+        "CaptureNotification.json",
+        "OrderReferenceNotification.json",
+        "RefundNotification.json",
+        "BillingAgreementNotification.json",
+        "ChargebackNotification_Service.json"
+    };
+
+    public static void main(String[] args) throws Exception {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        final NotificationSigner signer = new NotificationSigner();
+        final NotificationVerification verifier = new NotificationVerification(
+                new SigningCertificateCache().pin(signer.getKeyStore()));
+        final NotificationFactoryTest loader = new NotificationFactoryTest();
+        final List<Notification> notifications = new ArrayList<Notification>();
+        for (String fixture : FIXTURES) {
+            notifications.add(NotificationFactory.getNotification(
+                    signer.sign(loader.loadTestFile(fixture), NotificationSigner.TEST_KEY)));
+        }
+
+        run(verifier, notifications, Math.max(1, iterations / 10), threads);
+        final long nanos = run(verifier, notifications, iterations, threads);
+        final long operations = (long) iterations * threads;
+        System.out.println(String.format("%d threads, %d verifications: %.0f ops/s, %.2f us/op",
+                threads, operations,
+                operations * (double) TimeUnit.SECONDS.toNanos(1) / nanos,
+                nanos / (double) TimeUnit.MICROSECONDS.toNanos(1) / operations * threads));
+    }
+
+    private static long run(final NotificationVerification verifier, final List<Notification> notifications,
+            final int iterations, int threads) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicLong failures = new AtomicLong();
+        for (int t = 0; t < threads; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < iterations; i++) {
+                            verifier.verifyMessage(notifications.get(i % notifications.size()));
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                        e.printStackTrace();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        final long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        if (failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " benchmark threads failed");
+        }
+        return System.nanoTime() - begin;
+    }
+
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import com.amazon.pay.response.ipn.model.Notification;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SignedNotificationVerificationTest {
+
+    private NotificationSigner signer;
+    private NotificationVerification verifier;
+    private String payload;
+
+    @Before
+    public void setUp() throws Exception {
+        signer = new NotificationSigner();
+        verifier = new NotificationVerification(new SigningCertificateCache().pin(signer.getKeyStore()));
+        payload = new NotificationFactoryTest().loadTestFile("AuthorizeNotification.json");
+    }
+
+    @After
+    public void tearDown() {
+        SigningCertificateCache.getDefault().clear();
+    }
+
+    /**
+     * Redelivered notifications are dropped, forged copies do not suppress the real one
+     */
+    @Test
+    public void testDuplicateNotificationDropped() throws Exception {
+        SigningCertificateCache.getDefault().pin(signer.getKeyStore());
+        final Map<String,String> headers = new HashMap<String,String>();
+        headers.put("x-amz-sns-message-type", "Notification");
+        final MessageDeduplicator deduplicator = new MessageDeduplicator();
+        final String body = signer.sign(payload, NotificationSigner.TEST_KEY);
+
+        try {
+            NotificationFactory.parseNotification(headers, body.replace("Sandbox", "Live"), deduplicator);
+            Assert.fail();
+        } catch (SecurityException e) {
+            Assert.assertEquals(0, deduplicator.size());
+        }
+
+        Assert.assertNotNull(NotificationFactory.parseNotification(headers, body, deduplicator));
+        Assert.assertNull(NotificationFactory.parseNotification(headers, body, deduplicator));
+        Assert.assertEquals(1, deduplicator.getHitCount());
+        Assert.assertNotNull(NotificationFactory.parseNotification(headers, body));
+    }
+
+    /**
+     * Correctly signed notification, including non-ASCII characters in the message
+     */
+    @Test
+    public void testSignedNotificationVerifies() throws Exception {
+        final String body = signer.sign(payload.replace("Sandbox", "Sändbox 中"), NotificationSigner.TEST_KEY);
+        Assert.assertTrue(verifier.verifyMessage(NotificationFactory.getNotification(body)));
+    }
+
+    /**
+     * Signed fields changed after signing
+     */
+    @Test
+    public void testTamperedNotificationRejected() throws Exception {
+        final String body = signer.sign(payload, NotificationSigner.TEST_KEY)
+                .replace("2288e071-de8e-5b6b-9f03-aeb15ba02de2", "2288e071-de8e-5b6b-9f03-aeb15ba02de3");
+        try {
+            verifier.verifyMessage(NotificationFactory.getNotification(body));
+            Assert.fail();
+        } catch (SecurityException e) {
+            Assert.assertEquals("Message signature calculation failed", e.getMessage());
+        }
+    }
+
+    /**
+     * Verifications alternating between signing keys on one thread
+     */
+    @Test
+    public void testAlternatingSigningKeys() throws Exception {
+        final Notification first = NotificationFactory.getNotification(signer.sign(payload, NotificationSigner.TEST_KEY));
+        final Notification second = NotificationFactory.getNotification(signer.sign(payload, NotificationSigner.OTHER_KEY));
+        final Notification forged = NotificationFactory.getNotification(signer.sign(payload, NotificationSigner.OTHER_KEY)
+                .replace(NotificationSigner.OTHER_KEY, NotificationSigner.TEST_KEY));
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(verifier.verifyMessage(first));
+            Assert.assertTrue(verifier.verifyMessage(second));
+            try {
+                verifier.verifyMessage(forged);
+                Assert.fail();
+            } catch (SecurityException e) {
+                Assert.assertEquals("Message signature calculation failed", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A rejected notification does not leave state behind for the next one on the thread
+     */
+    @Test
+    public void testRejectedNotificationFollowedByValidOne() throws Exception {
+        final String body = signer.sign(payload, NotificationSigner.TEST_KEY);
+        final Notification good = NotificationFactory.getNotification(body);
+        final Notification[] bad = {
+            NotificationFactory.getNotification(body.replaceFirst("\"Signature\"\\s*:\\s*\"[^\"]*\",?", "")),
+            NotificationFactory.getNotification(body.replaceFirst("\"Signature\"\\s*:\\s*\"[^\"]*\"", "\"Signature\" : \"\"")),
+            NotificationFactory.getNotification(body.replaceFirst("\"Signature\"\\s*:\\s*\"[^\"]*\"", "\"Signature\" : \"AAAA\""))
+        };
+        Assert.assertTrue(verifier.verifyMessage(good));
+        for (Notification notification : bad) {
+            try {
+                verifier.verifyMessage(notification);
+                Assert.fail();
+            } catch (SecurityException e) {
+                // expected
+            }
+            Assert.assertTrue(verifier.verifyMessage(good));
+        }
+    }
+
+}
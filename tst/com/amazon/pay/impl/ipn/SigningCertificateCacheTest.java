@@ -0,0 +1,226 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.impl.ipn;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateExpiredException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SigningCertificateCacheTest {
+
+    private static final String CERT_DIR = System.getProperty("user.dir") + "/tst/com/amazon/pay/impl/ipn/certs/";
+    private static final String CERT_URL = "https://sns.us-east-1.amazonaws.com/SimpleNotificationService-test.pem";
+
+    private X509Certificate certificate;
+    private X509Certificate expiredCertificate;
+
+    @Before
+    public void setUp() throws Exception {
+        certificate = loadCertificate("SimpleNotificationService-test.pem");
+        expiredCertificate = loadCertificate("SimpleNotificationService-expired.pem");
+    }
+
+    /**
+     * Certificates pinned from a PEM directory are served without fetching
+     */
+    @Test
+    public void testPinnedDirectory() throws Exception {
+        final SigningCertificateCache cache = new SigningCertificateCache().pin(new File(CERT_DIR));
+        final CountingLoader loader = new CountingLoader(null);
+
+        Assert.assertEquals(certificate, cache.get(CERT_URL, loader));
+        Assert.assertEquals(0, loader.loads.get());
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+
+    /**
+     * Certificates pinned from a key store are matched by the file name of the URL
+     */
+    @Test
+    public void testPinnedKeyStore() throws Exception {
+        final KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        keyStore.load(null, null);
+        keyStore.setCertificateEntry("SimpleNotificationService-test.pem", certificate);
+        final SigningCertificateCache cache = new SigningCertificateCache().pin(keyStore);
+
+        Assert.assertEquals(certificate, cache.get(CERT_URL, new CountingLoader(null)));
+        Assert.assertEquals(certificate, cache.get("https://sns.eu-west-1.amazonaws.com/SimpleNotificationService-test.pem",
+                new CountingLoader(null)));
+    }
+
+    /**
+     * Expired certificates are rejected whether pinned or fetched
+     */
+    @Test
+    public void testExpiredCertificateRejected() throws Exception {
+        final SigningCertificateCache cache = new SigningCertificateCache().pin(new File(CERT_DIR));
+        try {
+            cache.get("https://sns.us-east-1.amazonaws.com/SimpleNotificationService-expired.pem", new CountingLoader(null));
+            Assert.fail();
+        } catch (CertificateExpiredException e) {
+            // expected
+        }
+
+        final CountingLoader loader = new CountingLoader(expiredCertificate);
+        try {
+            new SigningCertificateCache().get(CERT_URL, loader);
+            Assert.fail();
+        } catch (CertificateExpiredException e) {
+            Assert.assertEquals(1, loader.loads.get());
+        }
+    }
+
+    /**
+     * A fetched certificate is reused until it expires
+     */
+    @Test
+    public void testFetchedCertificateCached() throws Exception {
+        final SigningCertificateCache cache = new SigningCertificateCache();
+        final CountingLoader loader = new CountingLoader(certificate);
+
+        Assert.assertEquals(certificate, cache.get(CERT_URL, loader));
+        Assert.assertEquals(certificate, cache.get(CERT_URL, loader));
+        Assert.assertEquals(1, loader.loads.get());
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.getHitCount());
+
+        final SigningCertificateCache uncached = new SigningCertificateCache().withMaxAge(0, TimeUnit.MILLISECONDS);
+        final CountingLoader uncachedLoader = new CountingLoader(certificate);
+        uncached.get(CERT_URL, uncachedLoader);
+        uncached.get(CERT_URL, uncachedLoader);
+        Assert.assertEquals(2, uncachedLoader.loads.get());
+    }
+
+    /**
+     * The number of cached certificates is bounded
+     */
+    @Test
+    public void testBoundedSize() throws Exception {
+        final SigningCertificateCache cache = new SigningCertificateCache().withMaxEntries(2);
+        final CountingLoader loader = new CountingLoader(certificate);
+        for (int i = 0; i < 5; i++) {
+            cache.get("https://sns.us-east-1.amazonaws.com/SimpleNotificationService-" + i + ".pem", loader);
+        }
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(5, loader.loads.get());
+    }
+
+    /**
+     * Concurrent lookups of an uncached URL share a single fetch
+     */
+    @Test
+    public void testConcurrentFetchesCollapsed() throws Exception {
+        final SigningCertificateCache cache = new SigningCertificateCache();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountingLoader loader = new CountingLoader(certificate) {
+            @Override
+            public X509Certificate load() throws IOException, CertificateException {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.load();
+            }
+        };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final Future<?>[] futures = new Future<?>[8];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(new Callable<X509Certificate>() {
+                    @Override
+                    public X509Certificate call() throws Exception {
+                        return cache.get(CERT_URL, loader);
+                    }
+                });
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<?> future : futures) {
+                Assert.assertEquals(certificate, future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, loader.loads.get());
+    }
+
+    /**
+     * Entries inside the refresh window are served while a background fetch replaces them
+     */
+    @Test
+    public void testBackgroundRefresh() throws Exception {
+        final SigningCertificateCache cache = new SigningCertificateCache()
+                .withMaxAge(1, TimeUnit.HOURS)
+                .withRefreshAhead(2, TimeUnit.HOURS);
+        final CountingLoader loader = new CountingLoader(certificate);
+
+        cache.get(CERT_URL, loader);
+        Assert.assertEquals(certificate, cache.get(CERT_URL, loader));
+        Assert.assertEquals(1, cache.getRefreshCount());
+
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (loader.loads.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(2, loader.loads.get());
+        Assert.assertEquals(1, cache.getMissCount());
+    }
+
+    private static X509Certificate loadCertificate(String fileName) throws Exception {
+        final InputStream in = new FileInputStream(CERT_DIR + fileName);
+        try {
+            return (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static class CountingLoader implements SigningCertificateCache.CertificateLoader {
+        private final X509Certificate certificate;
+        private final AtomicInteger loads = new AtomicInteger();
+
+        private CountingLoader(X509Certificate certificate) {
+            this.certificate = certificate;
+        }
+
+        @Override
+        public X509Certificate load() throws IOException, CertificateException {
+            loads.incrementAndGet();
+            if (certificate == null) {
+                throw new IOException("Unexpected fetch");
+            }
+            return certificate;
+        }
+    }
+
+}
@@ -14,11 +14,13 @@
  */
 package com.amazon.pay.response;
 
+import com.amazon.pay.LogUtil;
 import com.amazon.pay.TestConstants;
 import com.amazon.pay.exceptions.AmazonServiceException;
 import com.amazon.pay.impl.PayLogUtil;
 import com.amazon.pay.response.model.AccountStatus;
 import com.amazon.pay.response.model.AuthorizationDetails;
+import com.amazon.pay.response.model.AuthorizeResponse;
 import com.amazon.pay.response.model.BillingAgreementDetails;
 import com.amazon.pay.response.model.CaptureDetails;
 import com.amazon.pay.response.model.Environment;
@@ -51,7 +53,10 @@ import com.amazon.pay.response.parser.GetProviderCreditDetailsResponseData;
 import com.amazon.pay.response.parser.GetProviderCreditReversalDetailsResponseData;
 import com.amazon.pay.response.parser.GetRefundDetailsResponseData;
 import com.amazon.pay.response.parser.GetServiceStatusResponseData;
+import com.amazon.pay.response.parser.JAXBContextRegistry;
 import com.amazon.pay.response.parser.Parser;
+import com.amazon.pay.response.parser.Projection;
+import com.amazon.pay.response.parser.ProjectionData;
 import com.amazon.pay.response.parser.ReverseProviderCreditResponseData;
 import com.amazon.pay.response.parser.RefundResponseData;
 import com.amazon.pay.response.parser.SetBillingAgreementDetailsResponseData;
@@ -64,6 +69,7 @@ import com.amazon.pay.exceptions.AmazonClientException;
 import com.amazon.pay.exceptions.AmazonServiceException;
 import com.amazon.pay.response.parser.ResponseData;
 import com.amazon.pay.types.BillingAgreementType;
+import com.amazon.pay.types.ResponseRetention;
 
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -73,10 +79,12 @@ import java.io.Writer;
 import java.io.Reader;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.datatype.XMLGregorianCalendar;
 
@@ -181,6 +189,26 @@ public class PaymentsAPIResponseTest {
         Assert.assertEquals(expectedSanitizedResponse, sanitizedString);
     }
 
+    @Test
+    public void testSanitizeStreamsToWriter() throws Exception {
+        final String rawResponse = "<?xml version=\"1.0\"?><!-- header --><Response xmlns=\"urn:test\">"
+                + "<sellernote>secret</sellernote><Buyer id=\"1\"><Name>Jane</Name><Buyer>nested</Buyer></Buyer>"
+                + "<Empty/><Amount currency=\"&quot;USD&quot;\">1 &lt; 2 &amp; 3</Amount></Response>";
+
+        final StringWriter sink = new StringWriter();
+        new PayLogUtil().sanitize(new StringReader(rawResponse), sink);
+        Assert.assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Response xmlns=\"urn:test\">"
+                + "<sellernote>*** Removed ***</sellernote><Buyer id=\"1\">*** Removed ***</Buyer>"
+                + "<Empty/><Amount currency=\"&quot;USD&quot;\">1 &lt; 2 &amp; 3</Amount></Response>", sink.toString());
+
+        final List<String> removeData = new ArrayList<String>();
+        removeData.add("Amount");
+        Assert.assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Response xmlns=\"urn:test\">"
+                + "<sellernote>secret</sellernote><Buyer id=\"1\"><Name>Jane</Name><Buyer>nested</Buyer></Buyer>"
+                + "<Empty/><Amount currency=\"&quot;USD&quot;\">*** Removed ***</Amount></Response>",
+                new PayLogUtil().getSanitizedData(rawResponse, removeData));
+    }
+
     @Test
     public void testGetPaymentDetails() throws Exception {
         final GetPaymentDetails testGetAllResponseDetails = new GetPaymentDetails();
@@ -948,6 +976,246 @@ public class PaymentsAPIResponseTest {
         }
     }
 
+    /**
+     * The OffAmazonPayments namespace is ignored whether it is the default namespace or bound to a prefix
+     */
+    @Test
+    public void testPrefixedNamespaceResponse() throws Exception {
+        final String rawResponse = loadTestFile("GetOrderReferenceDetailsResponse.xml")
+                .replace("xmlns=\"http://mws.amazonservices.com/schema/OffAmazonPayments/2013-01-01\"",
+                        "xmlns:pay=\"http://mws.amazonservices.com/schema/OffAmazonPayments/2013-01-01\"")
+                .replaceAll("<(/?)([A-Z])", "<$1pay:$2");
+        Assert.assertTrue(rawResponse.contains("<pay:AmazonOrderReferenceId>"));
+        final ResponseData response = new ResponseData(HttpURLConnection.HTTP_OK, rawResponse);
+        final GetOrderReferenceDetailsResponseData res = Parser.getOrderReferenceDetails(response);
+        Assert.assertEquals(res.getDetails().getAmazonOrderReferenceId(), "P01-1234567-1234567");
+        Assert.assertEquals(res.getRequestId(), "5f20169b-7ab2-11df-bcef-d35615e2b044");
+        Assert.assertEquals(res.toXML(), rawResponse);
+    }
+
+    @Test
+    public void testLazyResponseParsing() throws Exception {
+        final ResponseData authorize = new ResponseData(HttpURLConnection.HTTP_OK, loadTestFile("AuthorizeResponse.xml"));
+        final AuthorizeResponseData eagerAuthorize = Parser.getAuthorizeData(authorize);
+        final AuthorizeResponseData lazyAuthorize = Parser.getAuthorizeData(authorize, true);
+        Assert.assertEquals(lazyAuthorize.getRequestId(), eagerAuthorize.getRequestId());
+        Assert.assertEquals(lazyAuthorize.getDetails().getAmazonAuthorizationId(), eagerAuthorize.getDetails().getAmazonAuthorizationId());
+        Assert.assertSame(lazyAuthorize.getDetails(), lazyAuthorize.getDetails());
+        Assert.assertEquals(lazyAuthorize.toString(), eagerAuthorize.toString());
+
+        final ResponseData capture = new ResponseData(HttpURLConnection.HTTP_OK, loadTestFile("CaptureResponse.xml"));
+        final CaptureResponseData lazyCapture = Parser.getCapture(capture, true);
+        Assert.assertEquals(lazyCapture.getRequestId(), Parser.getCapture(capture).getRequestId());
+        Assert.assertEquals(lazyCapture.getDetails().getAmazonCaptureId(), Parser.getCapture(capture).getDetails().getAmazonCaptureId());
+
+        final ResponseData authorization = new ResponseData(HttpURLConnection.HTTP_OK, loadTestFile("GetAuthorizationDetailsResponse.xml"));
+        final GetAuthorizationDetailsResponseData lazyAuthorization = Parser.getAuthorizationDetailsData(authorization, true);
+        Assert.assertEquals(lazyAuthorization.getRequestId(), Parser.getAuthorizationDetailsData(authorization).getRequestId());
+        Assert.assertEquals(lazyAuthorization.getDetails().getAuthorizationStatus().getState(),
+                Parser.getAuthorizationDetailsData(authorization).getDetails().getAuthorizationStatus().getState());
+
+        // The request id is scanned from namespace prefixed responses too
+        final String prefixed = loadTestFile("GetOrderReferenceDetailsResponse.xml")
+                .replace("xmlns=\"http://mws.amazonservices.com/schema/OffAmazonPayments/2013-01-01\"",
+                        "xmlns:pay=\"http://mws.amazonservices.com/schema/OffAmazonPayments/2013-01-01\"")
+                .replaceAll("<(/?)([A-Z])", "<$1pay:$2");
+        final GetOrderReferenceDetailsResponseData lazyOrder = Parser.getOrderReferenceDetails(new ResponseData(HttpURLConnection.HTTP_OK, prefixed), true);
+        Assert.assertEquals(lazyOrder.getRequestId(), "5f20169b-7ab2-11df-bcef-d35615e2b044");
+        Assert.assertEquals(lazyOrder.getStatusCode(), HttpURLConnection.HTTP_OK);
+        Assert.assertEquals(lazyOrder.getDetails().getAmazonOrderReferenceId(), "P01-1234567-1234567");
+    }
+
+    @Test
+    public void testLazyResponseParsingBindsOnce() throws Exception {
+        final ResponseData response = new ResponseData(HttpURLConnection.HTTP_OK, loadTestFile("GetOrderReferenceDetailsResponse.xml"));
+        final GetOrderReferenceDetailsResponseData lazy = Parser.getOrderReferenceDetails(response, true);
+        final OrderReferenceDetails[] details = new OrderReferenceDetails[8];
+        final Thread[] threads = new Thread[details.length];
+        final CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        details[index] = lazy.getDetails();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (OrderReferenceDetails detail : details) {
+            Assert.assertSame(details[0], detail);
+        }
+        Assert.assertNotNull(details[0]);
+    }
+
+    @Test
+    public void testLazyResponseParsingErrorResponse() throws Exception {
+        final String rawResponse = loadTestFile("ErrorResponse.xml");
+        try {
+            Parser.getOrderReferenceDetails(new ResponseData(HttpURLConnection.HTTP_NOT_FOUND, rawResponse), true);
+            Assert.fail();
+        } catch (AmazonServiceException e) {
+            Assert.assertEquals(e.getErrorCode(), "OrderReferenceNotModifiable");
+            Assert.assertEquals(e.getRequestId(), "6d4699b8-1238-4c09-b539-176e2c2f5462");
+        }
+    }
+
+    @Test
+    public void testStatusProjection() throws Exception {
+        final ResponseData authorization = new ResponseData(HttpURLConnection.HTTP_OK, loadTestFile("GetAuthorizationDetailsResponse.xml"));
+        final AuthorizationDetails details = Parser.getAuthorizationDetailsData(authorization).getDetails();
+        final ProjectionData status = Parser.project(authorization, Projection.STATUS);
+        Assert.assertEquals(status.getStatusElement(), "AuthorizationStatus");
+        Assert.assertEquals(status.getState(), details.getAuthorizationStatus().getState());
+        Assert.assertEquals(status.getReasonCode(), details.getAuthorizationStatus().getReasonCode());
+        Assert.assertEquals(status.getReasonDescription(), details.getAuthorizationStatus().getReasonDescription());
+        Assert.assertEquals(status.getLastUpdateTimestamp(), details.getAuthorizationStatus().getLastUpdateTimestamp());
+
+        final ResponseData order = new ResponseData(HttpURLConnection.HTTP_OK, loadTestFile("GetOrderReferenceDetailsResponse.xml"));
+        final ProjectionData orderStatus = Parser.project(order, Projection.STATUS);
+        Assert.assertEquals(orderStatus.getStatusElement(), "OrderReferenceStatus");
+        Assert.assertEquals(orderStatus.getState(), "Draft");
+        Assert.assertNull(orderStatus.getLastUpdateTimestamp());
+        Assert.assertEquals(orderStatus.toXML(), order.toXML());
+
+        // Billing agreement statuses in API responses carry LastUpdatedTimestamp
+        final ResponseData agreement = new ResponseData(HttpURLConnection.HTTP_OK, loadTestFile("ValidateBillingAgreementResponse.xml"));
+        final ProjectionData agreementStatus = Parser.project(agreement, Projection.STATUS);
+        Assert.assertEquals(agreementStatus.getStatusElement(), "BillingAgreementStatus");
+        Assert.assertEquals(agreementStatus.getState(), "Open");
+        Assert.assertEquals(agreementStatus.getLastUpdateTimestamp(),
+                Parser.getValidateBillingAgreementResponse(agreement).getResult().getBillingAgreementStatus().getLastUpdatedTimestamp());
+        Assert.assertNotNull(agreementStatus.getLastUpdateTimestamp());
+    }
+
+    @Test
+    public void testStatusProjectionStopsAfterStatus() throws Exception {
+        // Nothing after the status element is read, so a response cut short there still projects
+        final String rawResponse = loadTestFile("GetAuthorizationDetailsResponse.xml");
+        final String truncated = rawResponse.substring(0, rawResponse.indexOf("</AuthorizationStatus>") + "</AuthorizationStatus>".length())
+                + "<AuthorizationFee><Unclosed>";
+        final ProjectionData status = Parser.project(new ResponseData(HttpURLConnection.HTTP_OK, truncated), Projection.STATUS);
+        Assert.assertEquals(status.getState(), "Closed");
+        Assert.assertEquals(status.getReasonCode(), "MaxCapturesProcessed");
+
+        try {
+            Parser.getAuthorizationDetailsData(new ResponseData(HttpURLConnection.HTTP_OK, truncated));
+            Assert.fail();
+        } catch (AmazonClientException e) {
+            // The full parse reads the whole response
+        }
+    }
+
+    @Test
+    public void testStatusProjectionErrorResponse() throws Exception {
+        try {
+            Parser.project(new ResponseData(HttpURLConnection.HTTP_NOT_FOUND, loadTestFile("ErrorResponse.xml")), Projection.STATUS);
+            Assert.fail();
+        } catch (AmazonServiceException e) {
+            Assert.assertEquals(e.getErrorCode(), "OrderReferenceNotModifiable");
+        }
+    }
+
+    @Test
+    public void testCompressedResponseRetention() throws Exception {
+        final String rawResponse = loadTestFile("ListOrderReferenceResponse.xml");
+        final ResponseData response = new ResponseData(new ResponseData(HttpURLConnection.HTTP_OK, rawResponse), ResponseRetention.COMPRESS);
+        Assert.assertEquals(response.toXML(), rawResponse);
+        final ListOrderReferenceResponseData res = Parser.listOrderReference(response);
+        Assert.assertEquals(res.getRetention(), ResponseRetention.COMPRESS);
+        Assert.assertEquals(res.toXML(), rawResponse);
+        Assert.assertEquals(res.toJSON(), new ResponseData(HttpURLConnection.HTTP_OK, rawResponse).toJSON());
+        Assert.assertEquals(res.getOrderReferences().size(), 3);
+    }
+
+    @Test
+    public void testDiscardedResponseRetention() throws Exception {
+        final String rawResponse = loadTestFile("GetOrderReferenceDetailsResponse.xml");
+        final ResponseData response = new ResponseData(new ResponseData(HttpURLConnection.HTTP_OK, rawResponse), ResponseRetention.DISCARD);
+        final GetOrderReferenceDetailsResponseData res = Parser.getOrderReferenceDetails(response);
+        Assert.assertEquals(res.getDetails().getAmazonOrderReferenceId(), "P01-1234567-1234567");
+        Assert.assertEquals(res.getRequestId(), "5f20169b-7ab2-11df-bcef-d35615e2b044");
+        try {
+            res.toXML();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // Lazy response data holds the XML until the details are bound
+        final GetOrderReferenceDetailsResponseData lazy = Parser.getOrderReferenceDetails(response, true);
+        Assert.assertEquals(lazy.toXML(), rawResponse);
+        Assert.assertEquals(lazy.getDetails().getAmazonOrderReferenceId(), "P01-1234567-1234567");
+        try {
+            lazy.toXML();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // Error responses keep their XML in the service exception
+        final String errorResponse = loadTestFile("ErrorResponse.xml");
+        try {
+            Parser.getOrderReferenceDetails(new ResponseData(new ResponseData(HttpURLConnection.HTTP_NOT_FOUND, errorResponse), ResponseRetention.DISCARD));
+            Assert.fail();
+        } catch (AmazonServiceException e) {
+            Assert.assertEquals(e.getResponseXml(), errorResponse);
+        }
+    }
+
+    @Test
+    public void testStatusProjectionWithResponseRetention() throws Exception {
+        final String rawResponse = loadTestFile("GetAuthorizationDetailsResponse.xml");
+        final ProjectionData expected = Parser.project(new ResponseData(HttpURLConnection.HTTP_OK, rawResponse), Projection.STATUS);
+        for (ResponseRetention retention : ResponseRetention.values()) {
+            final ResponseData response = new ResponseData(new ResponseData(HttpURLConnection.HTTP_OK, rawResponse), retention);
+            final GetAuthorizationDetailsResponseData eager = Parser.getAuthorizationDetailsData(response, false);
+            assertSameStatus(Parser.project(eager, Projection.STATUS), expected);
+
+            // Lazy response data projects from the XML before the details are bound and from the details after
+            final GetAuthorizationDetailsResponseData lazy = Parser.getAuthorizationDetailsData(response, true);
+            assertSameStatus(Parser.project(lazy, Projection.STATUS), expected);
+            Assert.assertEquals(lazy.getDetails().getAmazonAuthorizationId(), eager.getDetails().getAmazonAuthorizationId());
+            assertSameStatus(Parser.project(lazy, Projection.STATUS), expected);
+            if (retention != ResponseRetention.DISCARD) {
+                Assert.assertEquals(lazy.toXML(), rawResponse);
+            }
+        }
+
+        final ResponseData order = new ResponseData(new ResponseData(HttpURLConnection.HTTP_OK,
+                loadTestFile("GetOrderReferenceDetailsResponse.xml")), ResponseRetention.DISCARD);
+        final ProjectionData orderStatus = Parser.project(Parser.getOrderReferenceDetails(order), Projection.STATUS);
+        Assert.assertEquals(orderStatus.getStatusElement(), "OrderReferenceStatus");
+        Assert.assertEquals(orderStatus.getState(), "Draft");
+
+        // Response data without details cannot be projected once its XML is discarded
+        final ResponseData list = new ResponseData(new ResponseData(HttpURLConnection.HTTP_OK,
+                loadTestFile("ListOrderReferenceResponse.xml")), ResponseRetention.DISCARD);
+        try {
+            Parser.project(Parser.listOrderReference(list), Projection.STATUS);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static void assertSameStatus(ProjectionData actual, ProjectionData expected) {
+        Assert.assertEquals(actual.getStatusElement(), expected.getStatusElement());
+        Assert.assertEquals(actual.getState(), expected.getState());
+        Assert.assertEquals(actual.getReasonCode(), expected.getReasonCode());
+        Assert.assertEquals(actual.getReasonDescription(), expected.getReasonDescription());
+        Assert.assertEquals(actual.getLastUpdateTimestamp(), expected.getLastUpdateTimestamp());
+    }
+
     @Test
     public void testListOrderReferenceResponse() throws Exception {
         final String rawResponse = loadTestFile("ListOrderReferenceResponse.xml");
@@ -1030,4 +1298,32 @@ public class PaymentsAPIResponseTest {
         }
     }
 
+    @Test
+    public void testJAXBContextRegistryWarmUp() throws Exception {
+        JAXBContextRegistry.warmUp();
+        Assert.assertSame(JAXBContextRegistry.getContext(AuthorizeResponse.class),
+                JAXBContextRegistry.getContext(AuthorizeResponse.class));
+
+        // Pooled unmarshallers must produce independent results on repeated parses
+        final ResponseData response = new ResponseData(HttpURLConnection.HTTP_OK, loadTestFile("AuthorizeResponse.xml"));
+        final AuthorizeResponseData first = Parser.getAuthorizeData(response);
+        final AuthorizeResponseData second = Parser.getAuthorizeData(response);
+        Assert.assertNotSame(first.getDetails(), second.getDetails());
+        Assert.assertEquals(first.getDetails().getAmazonAuthorizationId(), second.getDetails().getAmazonAuthorizationId());
+    }
+
+    @Test
+    public void testLogMessageSupplierOnlyInvokedWhenEnabled() {
+        final PayLogUtil payLogUtil = new PayLogUtil();
+        final boolean[] invoked = new boolean[1];
+        payLogUtil.logMessage(new LogUtil.MessageSupplier() {
+            @Override
+            public String get() {
+                invoked[0] = true;
+                return "message";
+            }
+        });
+        Assert.assertEquals(payLogUtil.isEnabled(), invoked[0]);
+    }
+
 }
@@ -0,0 +1,96 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.response;
+
+import com.amazon.pay.response.parser.Parser;
+import com.amazon.pay.response.parser.ResponseData;
+import com.amazon.pay.types.ResponseRetention;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the heap retained by parsed response data under each ResponseRetention,
+ * the way a batch reconciliation job keeps the results of GetOrderReferenceDetails,
+ * GetAuthorizationDetails and ListOrderReference calls alive until the batch ends.
+ *
+ * Run from the project root with the test classpath:
+ *   java com.amazon.pay.response.ResponseRetentionBenchmark [responsesPerFixture]
+ */
+public class ResponseRetentionBenchmark {
+
+    private static final String[] FIXTURES = {
+        "GetOrderReferenceDetailsResponse.xml",
+        "GetAuthorizationDetailsResponse.xml",
+        "ListOrderReferenceResponse.xml"
+    };
+
+    public static void main(String[] args) throws Exception {
+        final int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        final String[] payloads = new String[FIXTURES.length];
+        for (int i = 0; i < FIXTURES.length; i++) {
+            payloads[i] = load(FIXTURES[i]);
+        }
+
+        System.out.println(String.format("%-10s %12s %14s", "Retention", "responses", "bytes/response"));
+        for (ResponseRetention retention : ResponseRetention.values()) {
+            final long before = usedHeap();
+            final List<ResponseData> batch = new ArrayList<ResponseData>(count * payloads.length);
+            for (int i = 0; i < count; i++) {
+                // Each response body is a distinct String, as it is when read from the network
+                batch.add(Parser.getOrderReferenceDetails(raw(payloads[0], retention)));
+                batch.add(Parser.getAuthorizationDetailsData(raw(payloads[1], retention)));
+                batch.add(Parser.listOrderReference(raw(payloads[2], retention)));
+            }
+            final long retained = usedHeap() - before;
+            System.out.println(String.format("%-10s %12d %14d", retention, batch.size(), retained / batch.size()));
+            batch.clear();
+        }
+    }
+
+    private static ResponseData raw(String payload, ResponseRetention retention) {
+        return new ResponseData(new ResponseData(HttpURLConnection.HTTP_OK, new String(payload.toCharArray())), retention);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static String load(String fileName) throws Exception {
+        final InputStream in = new FileInputStream(System.getProperty("user.dir") + "/tst/com/amazon/pay/response/xml/" + fileName);
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+
+}
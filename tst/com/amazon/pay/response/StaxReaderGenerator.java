@@ -0,0 +1,459 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.response;
+
+import com.amazon.pay.response.model.AuthorizeResponse;
+import com.amazon.pay.response.model.CaptureResponse;
+import com.amazon.pay.response.model.GetAuthorizationDetailsResponse;
+import com.amazon.pay.response.model.GetOrderReferenceDetailsResponse;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.xml.bind.annotation.XmlAnyElement;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementRef;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlEnumValue;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.bind.annotation.XmlType;
+import javax.xml.bind.annotation.XmlValue;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+/**
+ * Generates com.amazon.pay.response.model.StaxResponseReaders, the
+ * reflection-free StAX readers Parser uses for the most frequently parsed
+ * responses, from the JAXB annotations of the response model.
+ *
+ * Supported bindings are field access elements of type String, boolean,
+ * Boolean, XMLGregorianCalendar, enums with XmlEnumValue, other bound
+ * classes, and Lists of those.  Generation fails on anything else, so a
+ * model change that the readers cannot follow is noticed when they are
+ * regenerated.  StaxResponseReadersTest fails while the checked-in source
+ * differs from the generator output.
+ *
+ * Run from the project root with the test classpath after changing the model:
+ *   java com.amazon.pay.response.StaxReaderGenerator
+ */
+public class StaxReaderGenerator {
+
+    public static final String OUTPUT = System.getProperty("user.dir")
+            + "/src/com/amazon/pay/response/model/StaxResponseReaders.java";
+
+    private static final Class<?>[] ROOTS = {
+        AuthorizeResponse.class,
+        CaptureResponse.class,
+        GetAuthorizationDetailsResponse.class,
+        GetOrderReferenceDetailsResponse.class
+    };
+
+    private static final String HEADER = "/**\n"
+            + " * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.\n"
+            + " *\n"
+            + " * Licensed under the Apache License, Version 2.0 (the \"License\").\n"
+            + " * You may not use this file except in compliance with the License.\n"
+            + " * A copy of the License is located at\n"
+            + " *\n"
+            + " *  http://aws.amazon.com/apache2.0\n"
+            + " *\n"
+            + " * or in the \"license\" file accompanying this file. This file is distributed\n"
+            + " * on an \"AS IS\" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either\n"
+            + " * express or implied. See the License for the specific language governing\n"
+            + " * permissions and limitations under the License.\n"
+            + " */\n";
+
+    public static void main(String[] args) throws Exception {
+        final File output = new File(args.length > 0 ? args[0] : OUTPUT);
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(output), "UTF-8");
+        try {
+            writer.write(generate());
+        } finally {
+            writer.close();
+        }
+        System.out.println("Wrote " + output);
+    }
+
+    /**
+     * Returns the source of StaxResponseReaders
+     */
+    public static String generate() {
+        final Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+        for (Class<?> root : ROOTS) {
+            collect(root, types);
+        }
+
+        final StringBuilder out = new StringBuilder(64 * 1024);
+        out.append(HEADER);
+        out.append("package com.amazon.pay.response.model;\n\n");
+        out.append("import java.util.ArrayList;\n");
+        out.append("import javax.xml.XMLConstants;\n");
+        out.append("import javax.xml.datatype.DatatypeConfigurationException;\n");
+        out.append("import javax.xml.datatype.DatatypeFactory;\n");
+        out.append("import javax.xml.datatype.XMLGregorianCalendar;\n");
+        out.append("import javax.xml.stream.XMLStreamConstants;\n");
+        out.append("import javax.xml.stream.XMLStreamException;\n");
+        out.append("import javax.xml.stream.XMLStreamReader;\n\n");
+        out.append("/**\n");
+        out.append(" * Reflection-free StAX readers for the responses parsed most often.\n");
+        out.append(" *\n");
+        out.append(" * Generated by StaxReaderGenerator (tst/com/amazon/pay/response) from the\n");
+        out.append(" * JAXB annotations of this package; do not edit.  The readers bind\n");
+        out.append(" * unqualified elements like JAXB does and skip unknown ones.  They throw\n");
+        out.append(" * XMLStreamException for content they cannot convert, in which case callers\n");
+        out.append(" * fall back to JAXB.\n");
+        out.append(" */\n");
+        out.append("// Deprecated model fields are still bound, as JAXB binds them\n");
+        out.append("@SuppressWarnings(\"deprecation\")\n");
+        out.append("public final class StaxResponseReaders {\n\n");
+        out.append("    // DatatypeFactory implementations are not guaranteed to be thread-safe\n");
+        out.append("    private static final ThreadLocal<DatatypeFactory> datatypeFactory = new ThreadLocal<DatatypeFactory>() {\n");
+        out.append("        @Override\n");
+        out.append("        protected DatatypeFactory initialValue() {\n");
+        out.append("            try {\n");
+        out.append("                return DatatypeFactory.newInstance();\n");
+        out.append("            } catch (DatatypeConfigurationException e) {\n");
+        out.append("                throw new IllegalStateException(\"Encountered DatatypeConfigurationException: \" + e.getMessage(), e);\n");
+        out.append("            }\n");
+        out.append("        }\n");
+        out.append("    };\n\n");
+        out.append("    private StaxResponseReaders() {\n");
+        out.append("    }\n\n");
+
+        out.append("    /**\n");
+        out.append("     * Returns true if a generated reader exists for the given response class\n");
+        out.append("     *\n");
+        out.append("     * @param clazz Response class\n");
+        out.append("     * @return true if read supports clazz\n");
+        out.append("     */\n");
+        out.append("    public static boolean canRead(Class<?> clazz) {\n");
+        out.append("        return ");
+        for (int i = 0; i < ROOTS.length; i++) {
+            out.append(i == 0 ? "" : "\n                || ").append("clazz == ").append(typeName(ROOTS[i])).append(".class");
+        }
+        out.append(";\n");
+        out.append("    }\n\n");
+
+        out.append("    /**\n");
+        out.append("     * Reads a response document into an instance of clazz\n");
+        out.append("     *\n");
+        out.append("     * @param <T> Response type\n");
+        out.append("     * @param clazz Response class, one for which canRead returns true\n");
+        out.append("     * @param reader Reader positioned before or at the root element\n");
+        out.append("     * @return The response\n");
+        out.append("     * @throws XMLStreamException If the document is malformed, has another root element\n");
+        out.append("     *         or holds a value that cannot be converted\n");
+        out.append("     */\n");
+        out.append("    @SuppressWarnings(\"unchecked\")\n");
+        out.append("    public static <T> T read(Class<T> clazz, XMLStreamReader reader) throws XMLStreamException {\n");
+        out.append("        while (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {\n");
+        out.append("            reader.next();\n");
+        out.append("        }\n");
+        for (Class<?> root : ROOTS) {
+            final String rootName = root.getAnnotation(XmlRootElement.class).name();
+            out.append("        if (clazz == ").append(typeName(root)).append(".class) {\n");
+            out.append("            expectRoot(reader, \"").append(rootName).append("\");\n");
+            out.append("            return (T) ").append(methodName(root)).append("(reader);\n");
+            out.append("        }\n");
+        }
+        out.append("        throw new IllegalArgumentException(\"No StAX reader for \" + clazz.getName());\n");
+        out.append("    }\n");
+
+        for (Class<?> type : types) {
+            out.append('\n');
+            if (type.isEnum()) {
+                generateEnum(type, out);
+            } else {
+                generateClass(type, out);
+            }
+        }
+
+        out.append(HELPERS);
+        out.append("}\n");
+        return out.toString();
+    }
+
+    private static void collect(Class<?> type, Set<Class<?>> types) {
+        if (types.contains(type)) {
+            return;
+        }
+        types.add(type);
+        if (type.isEnum()) {
+            return;
+        }
+        if (type.getSuperclass() != Object.class) {
+            throw new IllegalStateException(type.getName() + " extends " + type.getSuperclass().getName());
+        }
+        for (Field field : boundFields(type)) {
+            final Class<?> item = itemType(field);
+            if (!isSimple(item)) {
+                collect(item, types);
+            }
+        }
+    }
+
+    /**
+     * Returns the fields JAXB binds with field access, in propOrder
+     */
+    private static List<Field> boundFields(Class<?> type) {
+        final List<Field> fields = new ArrayList<Field>();
+        for (Field field : type.getDeclaredFields()) {
+            final int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()
+                    || field.isAnnotationPresent(XmlTransient.class)) {
+                continue;
+            }
+            if (field.isAnnotationPresent(XmlAttribute.class) || field.isAnnotationPresent(XmlValue.class)
+                    || field.isAnnotationPresent(XmlAnyElement.class) || field.isAnnotationPresent(XmlElementRef.class)
+                    || field.isAnnotationPresent(XmlElementWrapper.class) || field.isAnnotationPresent(XmlJavaTypeAdapter.class)) {
+                throw new IllegalStateException("Unsupported binding of " + type.getName() + "." + field.getName());
+            }
+            final Class<?> item = itemType(field);
+            if (!isSimple(item) && !item.isEnum() && !item.isAnnotationPresent(XmlType.class)) {
+                throw new IllegalStateException("Unsupported type of " + type.getName() + "." + field.getName());
+            }
+            fields.add(field);
+        }
+        final XmlType xmlType = type.getAnnotation(XmlType.class);
+        if (xmlType != null && xmlType.propOrder().length > 0 && xmlType.propOrder()[0].length() > 0) {
+            final List<String> order = Arrays.asList(xmlType.propOrder());
+            final List<Field> sorted = new ArrayList<Field>(fields.size());
+            for (String name : order) {
+                for (Field field : fields) {
+                    if (field.getName().equals(name)) {
+                        sorted.add(field);
+                    }
+                }
+            }
+            for (Field field : fields) {
+                if (!sorted.contains(field)) {
+                    sorted.add(field);
+                }
+            }
+            return sorted;
+        }
+        return fields;
+    }
+
+    private static String elementName(Field field) {
+        final XmlElement element = field.getAnnotation(XmlElement.class);
+        if (element == null || "##default".equals(element.name())) {
+            return field.getName();
+        }
+        return element.name();
+    }
+
+    private static boolean isList(Field field) {
+        return List.class.isAssignableFrom(field.getType());
+    }
+
+    private static Class<?> itemType(Field field) {
+        if (isList(field)) {
+            return (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+        }
+        return field.getType();
+    }
+
+    private static boolean isSimple(Class<?> type) {
+        return type == String.class || type == boolean.class || type == Boolean.class || type == XMLGregorianCalendar.class;
+    }
+
+    private static String typeName(Class<?> type) {
+        if (type.getEnclosingClass() != null) {
+            return typeName(type.getEnclosingClass()) + "." + type.getSimpleName();
+        }
+        return type.getSimpleName();
+    }
+
+    private static String methodName(Class<?> type) {
+        return "read" + typeName(type).replace(".", "");
+    }
+
+    private static String readExpression(Class<?> type) {
+        if (type == String.class) {
+            return "readText(reader)";
+        } else if (type == boolean.class || type == Boolean.class) {
+            return "readBoolean(reader)";
+        } else if (type == XMLGregorianCalendar.class) {
+            return "readDateTime(reader)";
+        }
+        return methodName(type) + "(reader)";
+    }
+
+    private static void generateClass(Class<?> type, StringBuilder out) {
+        final String name = typeName(type);
+        out.append("    private static ").append(name).append(' ').append(methodName(type))
+                .append("(XMLStreamReader reader) throws XMLStreamException {\n");
+        out.append("        final ").append(name).append(" value = new ").append(name).append("();\n");
+        out.append("        while (nextChild(reader)) {\n");
+        out.append("            final String name = reader.getLocalName();\n");
+        boolean first = true;
+        for (Field field : boundFields(type)) {
+            out.append(first ? "            if (\"" : "            } else if (\"").append(elementName(field)).append("\".equals(name)) {\n");
+            first = false;
+            final Class<?> item = itemType(field);
+            if (isList(field)) {
+                out.append("                if (value.").append(field.getName()).append(" == null) {\n");
+                out.append("                    value.").append(field.getName()).append(" = new ArrayList<")
+                        .append(typeName(item)).append(">();\n");
+                out.append("                }\n");
+                out.append("                value.").append(field.getName()).append(".add(").append(readExpression(item)).append(");\n");
+            } else if (item == boolean.class) {
+                out.append("                value.").append(field.getName()).append(" = ").append(readExpression(item)).append(".booleanValue();\n");
+            } else {
+                out.append("                value.").append(field.getName()).append(" = ").append(readExpression(item)).append(";\n");
+            }
+        }
+        if (first) {
+            out.append("            skip(reader);\n");
+        } else {
+            out.append("            } else {\n");
+            out.append("                skip(reader);\n");
+            out.append("            }\n");
+        }
+        out.append("        }\n");
+        out.append("        return value;\n");
+        out.append("    }\n");
+    }
+
+    private static void generateEnum(Class<?> type, StringBuilder out) {
+        final String name = typeName(type);
+        out.append("    private static ").append(name).append(' ').append(methodName(type))
+                .append("(XMLStreamReader reader) throws XMLStreamException {\n");
+        out.append("        final String text = readText(reader).trim();\n");
+        for (Object constant : type.getEnumConstants()) {
+            final Enum<?> value = (Enum<?>) constant;
+            String lexical = value.name();
+            try {
+                final XmlEnumValue enumValue = type.getField(value.name()).getAnnotation(XmlEnumValue.class);
+                if (enumValue != null) {
+                    lexical = enumValue.value();
+                }
+            } catch (NoSuchFieldException e) {
+                throw new IllegalStateException(e);
+            }
+            out.append("        if (\"").append(lexical).append("\".equals(text)) {\n");
+            out.append("            return ").append(name).append('.').append(value.name()).append(";\n");
+            out.append("        }\n");
+        }
+        out.append("        // JAXB binds unknown values to null\n");
+        out.append("        return null;\n");
+        out.append("    }\n");
+    }
+
+    private static final String HELPERS = "\n"
+            + "    private static void expectRoot(XMLStreamReader reader, String name) throws XMLStreamException {\n"
+            + "        if (!name.equals(reader.getLocalName()) || !isUnqualified(reader)) {\n"
+            + "            throw new XMLStreamException(\"Expected root element \" + name + \" but found \" + reader.getName(),\n"
+            + "                    reader.getLocation());\n"
+            + "        }\n"
+            + "    }\n"
+            + "\n"
+            + "    private static boolean isUnqualified(XMLStreamReader reader) {\n"
+            + "        final String namespace = reader.getNamespaceURI();\n"
+            + "        return namespace == null || XMLConstants.NULL_NS_URI.equals(namespace);\n"
+            + "    }\n"
+            + "\n"
+            + "    /**\n"
+            + "     * Advances to the next unqualified child element of the current element,\n"
+            + "     * returning false at the end of the current element\n"
+            + "     */\n"
+            + "    private static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {\n"
+            + "        while (reader.hasNext()) {\n"
+            + "            final int event = reader.next();\n"
+            + "            if (event == XMLStreamConstants.START_ELEMENT) {\n"
+            + "                if (isUnqualified(reader)) {\n"
+            + "                    return true;\n"
+            + "                }\n"
+            + "                skip(reader);\n"
+            + "            } else if (event == XMLStreamConstants.END_ELEMENT) {\n"
+            + "                return false;\n"
+            + "            }\n"
+            + "        }\n"
+            + "        throw new XMLStreamException(\"Unexpected end of document\", reader.getLocation());\n"
+            + "    }\n"
+            + "\n"
+            + "    /**\n"
+            + "     * Skips the current element and everything inside it\n"
+            + "     */\n"
+            + "    private static void skip(XMLStreamReader reader) throws XMLStreamException {\n"
+            + "        int depth = 1;\n"
+            + "        while (depth > 0) {\n"
+            + "            final int event = reader.next();\n"
+            + "            if (event == XMLStreamConstants.START_ELEMENT) {\n"
+            + "                depth++;\n"
+            + "            } else if (event == XMLStreamConstants.END_ELEMENT) {\n"
+            + "                depth--;\n"
+            + "            }\n"
+            + "        }\n"
+            + "    }\n"
+            + "\n"
+            + "    /**\n"
+            + "     * Returns the text content of the current element, ignoring nested elements\n"
+            + "     */\n"
+            + "    private static String readText(XMLStreamReader reader) throws XMLStreamException {\n"
+            + "        String text = null;\n"
+            + "        StringBuilder builder = null;\n"
+            + "        while (true) {\n"
+            + "            final int event = reader.next();\n"
+            + "            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA\n"
+            + "                    || event == XMLStreamConstants.SPACE || event == XMLStreamConstants.ENTITY_REFERENCE) {\n"
+            + "                // Most values arrive as a single event; only concatenate when they do not\n"
+            + "                if (text == null) {\n"
+            + "                    text = reader.getText();\n"
+            + "                } else {\n"
+            + "                    if (builder == null) {\n"
+            + "                        builder = new StringBuilder(text);\n"
+            + "                    }\n"
+            + "                    builder.append(reader.getText());\n"
+            + "                }\n"
+            + "            } else if (event == XMLStreamConstants.START_ELEMENT) {\n"
+            + "                skip(reader);\n"
+            + "            } else if (event == XMLStreamConstants.END_ELEMENT) {\n"
+            + "                return builder != null ? builder.toString() : (text != null ? text : \"\");\n"
+            + "            }\n"
+            + "        }\n"
+            + "    }\n"
+            + "\n"
+            + "    private static Boolean readBoolean(XMLStreamReader reader) throws XMLStreamException {\n"
+            + "        final String text = readText(reader).trim();\n"
+            + "        if (\"true\".equals(text) || \"1\".equals(text)) {\n"
+            + "            return Boolean.TRUE;\n"
+            + "        } else if (\"false\".equals(text) || \"0\".equals(text)) {\n"
+            + "            return Boolean.FALSE;\n"
+            + "        }\n"
+            + "        throw new XMLStreamException(\"Invalid boolean value: \" + text, reader.getLocation());\n"
+            + "    }\n"
+            + "\n"
+            + "    private static XMLGregorianCalendar readDateTime(XMLStreamReader reader) throws XMLStreamException {\n"
+            + "        final String text = readText(reader).trim();\n"
+            + "        try {\n"
+            + "            return datatypeFactory.get().newXMLGregorianCalendar(text);\n"
+            + "        } catch (IllegalArgumentException e) {\n"
+            + "            throw new XMLStreamException(\"Invalid dateTime value: \" + text, reader.getLocation());\n"
+            + "        }\n"
+            + "    }\n";
+
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazon.pay.response;
+
+import com.amazon.pay.response.model.AuthorizeResponse;
+import com.amazon.pay.response.model.CaptureResponse;
+import com.amazon.pay.response.model.GetAuthorizationDetailsResponse;
+import com.amazon.pay.response.model.GetOrderReferenceDetailsResponse;
+import com.amazon.pay.response.model.StaxResponseReaders;
+import com.amazon.pay.response.parser.AuthorizeResponseData;
+import com.amazon.pay.response.parser.JAXBContextRegistry;
+import com.amazon.pay.response.parser.NamespaceFilterXMLStreamReader;
+import com.amazon.pay.response.parser.Parser;
+import com.amazon.pay.response.parser.ResponseData;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.HttpURLConnection;
+import java.util.List;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.stream.XMLStreamReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the generated StAX readers bind the API response fixtures exactly like JAXB
+ */
+public class StaxResponseReadersTest {
+
+    private static final String NAMESPACE = "http://mws.amazonservices.com/schema/OffAmazonPayments/2013-01-01";
+
+    /**
+     * The checked-in readers match the current model; run StaxReaderGenerator if this fails
+     */
+    @Test
+    public void testGeneratedSourceIsCurrent() throws Exception {
+        Assert.assertEquals(StaxReaderGenerator.generate(), read(StaxReaderGenerator.OUTPUT));
+    }
+
+    @Test
+    public void testAuthorizeResponseParity() throws Exception {
+        assertParity(AuthorizeResponse.class, loadTestFile("AuthorizeResponse.xml"));
+    }
+
+    @Test
+    public void testCaptureResponseParity() throws Exception {
+        assertParity(CaptureResponse.class, loadTestFile("CaptureResponse.xml"));
+    }
+
+    @Test
+    public void testGetAuthorizationDetailsResponseParity() throws Exception {
+        assertParity(GetAuthorizationDetailsResponse.class, loadTestFile("GetAuthorizationDetailsResponse.xml"));
+    }
+
+    @Test
+    public void testGetOrderReferenceDetailsResponseParity() throws Exception {
+        assertParity(GetOrderReferenceDetailsResponse.class, loadTestFile("GetOrderReferenceDetailsResponse.xml"));
+        assertParity(GetOrderReferenceDetailsResponse.class, loadTestFile("GetOrderReferenceDetailsScaResponse.xml"));
+        assertParity(GetOrderReferenceDetailsResponse.class, loadTestFile("GetOROwithoutPaymentDescriptor.xml"));
+        assertParity(GetOrderReferenceDetailsResponse.class, loadTestFile("TestPaymentDescriptor.xml"));
+    }
+
+    /**
+     * Unknown and foreign namespace elements are skipped, unknown enum values bound to null
+     */
+    @Test
+    public void testUnknownContentParity() throws Exception {
+        final String xml = loadTestFile("GetOrderReferenceDetailsResponse.xml")
+                .replace("<Buyer>", "<Buyer><Unknown><Name>Nested</Name></Unknown><x:Name xmlns:x=\"urn:other\">Foreign</x:Name>")
+                .replace(">Live<", ">Staging<");
+        final GetOrderReferenceDetailsResponse response = assertParity(GetOrderReferenceDetailsResponse.class, xml);
+        Assert.assertNull(response.getGetOrderReferenceDetailsResult().getOrderReferenceDetails().getReleaseEnvironment());
+    }
+
+    /**
+     * Content the generated readers cannot convert is left to JAXB
+     */
+    @Test
+    public void testFallbackToJAXB() throws Exception {
+        final String xml = loadTestFile("AuthorizeResponse.xml").replace("<CaptureNow>true</CaptureNow>", "<CaptureNow>yes</CaptureNow>");
+        Assert.assertTrue(xml.contains("<CaptureNow>yes</CaptureNow>"));
+        try {
+            StaxResponseReaders.read(AuthorizeResponse.class, reader(xml));
+            Assert.fail();
+        } catch (javax.xml.stream.XMLStreamException e) {
+            Assert.assertTrue(e.getMessage().contains("Invalid boolean value"));
+        }
+        final AuthorizeResponseData data = Parser.getAuthorizeData(new ResponseData(HttpURLConnection.HTTP_OK, xml));
+        final AuthorizeResponse expected = JAXBContextRegistry.unmarshal(AuthorizeResponse.class, reader(xml));
+        assertDeepEquals("AuthorizationDetails", expected.getAuthorizeResult().getAuthorizationDetails(), data.getDetails());
+    }
+
+    private static <T> T assertParity(Class<T> clazz, String xml) throws Exception {
+        final T expected = JAXBContextRegistry.unmarshal(clazz, reader(xml));
+        final T actual = StaxResponseReaders.read(clazz, reader(xml));
+        assertDeepEquals(clazz.getSimpleName(), expected, actual);
+        return actual;
+    }
+
+    private static XMLStreamReader reader(String xml) throws Exception {
+        return new NamespaceFilterXMLStreamReader(JAXBContextRegistry.createXMLStreamReader(new StringReader(xml)), NAMESPACE);
+    }
+
+    /**
+     * Compares two bound objects field by field
+     */
+    private static void assertDeepEquals(String path, Object expected, Object actual) throws IllegalAccessException {
+        if (expected == null || actual == null) {
+            Assert.assertEquals(path, expected, actual);
+            return;
+        }
+        Assert.assertEquals(path, expected.getClass(), actual.getClass());
+        if (expected instanceof String || expected instanceof Boolean || expected instanceof Enum
+                || expected instanceof XMLGregorianCalendar) {
+            Assert.assertEquals(path, expected, actual);
+        } else if (expected instanceof List) {
+            final List<?> expectedList = (List<?>) expected;
+            final List<?> actualList = (List<?>) actual;
+            Assert.assertEquals(path + ".size", expectedList.size(), actualList.size());
+            for (int i = 0; i < expectedList.size(); i++) {
+                assertDeepEquals(path + "[" + i + "]", expectedList.get(i), actualList.get(i));
+            }
+        } else {
+            for (Field field : expected.getClass().getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                assertDeepEquals(path + "." + field.getName(), field.get(expected), field.get(actual));
+            }
+        }
+    }
+
+    private String loadTestFile(String fileName) throws IOException {
+        return read(System.getProperty("user.dir") + "/tst/com/amazon/pay/response/xml/" + fileName);
+    }
+
+    private static String read(String path) throws IOException {
+        final InputStream in = new FileInputStream(path);
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+
+}